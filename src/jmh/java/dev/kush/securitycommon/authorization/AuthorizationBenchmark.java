@@ -0,0 +1,123 @@
+package dev.kush.securitycommon.authorization;
+
+import dev.kush.securitycommon.common.Auth0UserUtils;
+import dev.kush.securitycommon.common.AuthConstants;
+import dev.kush.securitycommon.common.UserUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.expression.Expression;
+import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compares a role and same-company check written as {@code @PreAuthorize} SpEL
+ * with the same check declared through {@link RequireIdentity}.
+ *
+ * <p>The SpEL side mirrors {@code PreAuthorizeAuthorizationManager}: the expression
+ * is parsed once, and a new evaluation context is created and evaluated on every
+ * call. Both sides see the same authentication, as a secured service called in a
+ * loop within one request does.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AuthorizationBenchmark {
+
+    private static final String EXPRESSION =
+            "hasAnyRole('ADMIN', 'MANAGER') and #companyId == @userUtils.currentCompanyId";
+
+    private final UserUtils userUtils = new Auth0UserUtils();
+
+    private final StaticApplicationContext applicationContext = new StaticApplicationContext();
+
+    private final DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
+
+    private Expression expression;
+
+    private IdentityAuthorizationManager authorizationManager;
+
+    private SimpleMethodInvocation invocation;
+
+    private Supplier<Authentication> authentication;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("auth0|64f0c2a1b3")
+                .claim(AuthConstants.AUTH0_EMAIL_CLAIM, "jane@example.com")
+                .claim(AuthConstants.AUTH0_APP_METADATA_CLAIM, Map.of(
+                        AuthConstants.AUTH0_USER_ID_CLAIM, "184467",
+                        AuthConstants.AUTH0_COMPANY_ID_CLAIM, "90210",
+                        AuthConstants.AUTH0_COMPANY_NAME_CLAIM, "Acme Logistics"))
+                .claim(AuthConstants.AUTH0_ROLE_CLAIM, List.of("admin", "billing"))
+                .build();
+        JwtAuthenticationToken token = new JwtAuthenticationToken(jwt,
+                AuthorityUtils.createAuthorityList("ROLE_ADMIN", "ROLE_BILLING"));
+        SecurityContextHolder.getContext().setAuthentication(token);
+        authentication = () -> SecurityContextHolder.getContext().getAuthentication();
+
+        applicationContext.getBeanFactory().registerSingleton("userUtils", userUtils);
+        applicationContext.refresh();
+        expressionHandler.setApplicationContext(applicationContext);
+        expression = expressionHandler.getExpressionParser().parseExpression(EXPRESSION);
+
+        authorizationManager = new IdentityAuthorizationManager(userUtils);
+        OrderService service = new OrderService();
+        invocation = new SimpleMethodInvocation(service,
+                OrderService.class.getMethod("findOrders", long.class), 90210L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public boolean spelExpression() {
+        return ExpressionUtils.evaluateAsBoolean(expression,
+                expressionHandler.createEvaluationContext(authentication, invocation));
+    }
+
+    @Benchmark
+    public boolean requireIdentity() {
+        return authorizationManager.authorize(authentication, invocation).isGranted();
+    }
+
+    /**
+     * Secured service with the check under comparison.
+     */
+    public static class OrderService {
+
+        @RequireIdentity(roles = {"ADMIN", "MANAGER"}, sameCompany = "companyId")
+        public List<String> findOrders(long companyId) {
+            return List.of();
+        }
+    }
+}
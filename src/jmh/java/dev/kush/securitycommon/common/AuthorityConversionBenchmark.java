@@ -0,0 +1,94 @@
+package dev.kush.securitycommon.common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting a decoded token into an authentication with small and large role lists.
+ *
+ * <p>Uses the converters exactly as {@link JwtCustomizerConfig} configures them, and
+ * Spring Security's uncached {@code JwtGrantedAuthoritiesConverter} as a baseline.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AuthorityConversionBenchmark {
+
+    @Param({"auth0", "keycloak"})
+    public String identityProvider;
+
+    @Param({"3", "64"})
+    public int roleCount;
+
+    private JwtAuthenticationConverter jwtAuthenticationConverter;
+
+    private UserIdentityAuthenticationConverter userIdentityAuthenticationConverter;
+
+    private JwtAuthenticationConverter springJwtAuthenticationConverter;
+
+    private Jwt jwt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtCustomizerConfig config = new JwtCustomizerConfig("http://localhost:5174");
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        ObjectProvider<SecurityMetrics> noMetrics = beanFactory.getBeanProvider(SecurityMetrics.class);
+        ObjectProvider<SecurityAudit> noAudit = beanFactory.getBeanProvider(SecurityAudit.class);
+        CachingGrantedAuthoritiesConverter grantedAuthoritiesConverter =
+                config.grantedAuthoritiesConverter(ClaimMapping.forProvider(identityProvider), new String[0]);
+        jwtAuthenticationConverter = config.jwtAuthenticationConverter(grantedAuthoritiesConverter, noMetrics, noAudit);
+        userIdentityAuthenticationConverter =
+                config.userIdentityAuthenticationConverter(
+                        UserIdentityExtractor.forProvider(identityProvider), grantedAuthoritiesConverter, noMetrics, noAudit);
+
+        // baseline: Spring Security's converter, as configured before authorities were cached
+        JwtGrantedAuthoritiesConverter springGrantedAuthoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        springGrantedAuthoritiesConverter.setAuthoritiesClaimName("keycloak".equals(identityProvider)
+                ? AuthConstants.KEYCLOAK_ROLE_CLAIM
+                : AuthConstants.AUTH0_ROLE_CLAIM);
+        springGrantedAuthoritiesConverter.setAuthorityPrefix("ROLE_");
+        springJwtAuthenticationConverter = new JwtAuthenticationConverter();
+        springJwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(springGrantedAuthoritiesConverter);
+
+        jwt = BenchmarkTokens.jwt(identityProvider, roleCount);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken jwtAuthenticationConverter() {
+        return jwtAuthenticationConverter.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken springJwtAuthenticationConverter() {
+        return springJwtAuthenticationConverter.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken userIdentityAuthenticationConverter() {
+        return userIdentityAuthenticationConverter.convert(jwt);
+    }
+}
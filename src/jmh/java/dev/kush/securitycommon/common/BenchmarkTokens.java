@@ -0,0 +1,119 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token fixtures shared by the benchmarks, shaped like the claim layouts in {@link AuthConstants}.
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+final class BenchmarkTokens {
+
+    private BenchmarkTokens() {
+    }
+
+    /**
+     * Builds the claims of an access token issued by the given provider.
+     *
+     * @param identityProvider "auth0" or "keycloak"
+     * @param roleCount        the number of roles carried by the token
+     * @return the token claims
+     */
+    static Map<String, Object> claims(String identityProvider, int roleCount) {
+        Instant now = Instant.now();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", "https://idp.example.com/");
+        claims.put("aud", List.of("https://api.example.com"));
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plusSeconds(3600).getEpochSecond());
+        if ("keycloak".equals(identityProvider)) {
+            claims.put("sub", "f1b2c3d4-5e6f-4a7b-8c9d-0e1f2a3b4c5d");
+            claims.put(AuthConstants.KEYCLOAK_EMAIL_CLAIM, "jane@example.com");
+            claims.put(AuthConstants.KEYCLOAK_DETAILS_CLAIM, Map.of(
+                    AuthConstants.KEYCLOAK_USER_ID_CLAIM, 184467,
+                    AuthConstants.KEYCLOAK_COMPANY_ID_CLAIM, 90210,
+                    AuthConstants.KEYCLOAK_COMPANY_NAME_CLAIM, "Acme Logistics"));
+            List<String> roles = new ArrayList<>(roles(roleCount));
+            roles.addFirst("default-roles-acme");
+            claims.put(AuthConstants.KEYCLOAK_ROLE_CLAIM, roles);
+        } else {
+            claims.put("sub", "auth0|64f0c2a1b3");
+            claims.put(AuthConstants.AUTH0_EMAIL_CLAIM, "jane@example.com");
+            claims.put(AuthConstants.AUTH0_APP_METADATA_CLAIM, Map.of(
+                    AuthConstants.AUTH0_USER_ID_CLAIM, "184467",
+                    AuthConstants.AUTH0_COMPANY_ID_CLAIM, "90210",
+                    AuthConstants.AUTH0_COMPANY_NAME_CLAIM, "Acme Logistics"));
+            claims.put(AuthConstants.AUTH0_ROLE_CLAIM, roles(roleCount));
+        }
+        return claims;
+    }
+
+    /**
+     * Builds a decoded token for the given provider.
+     *
+     * @param identityProvider "auth0" or "keycloak"
+     * @param roleCount        the number of roles carried by the token
+     * @return the decoded token
+     */
+    static Jwt jwt(String identityProvider, int roleCount) {
+        Map<String, Object> claims = claims(identityProvider, roleCount);
+        claims.put("iat", Instant.ofEpochSecond((Long) claims.get("iat")));
+        claims.put("exp", Instant.ofEpochSecond((Long) claims.get("exp")));
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .claims(c -> c.putAll(claims))
+                .build();
+    }
+
+    /**
+     * Signs the given claims with an RSA or EC key.
+     *
+     * @param claims    the token claims
+     * @param key       the private signing key
+     * @param algorithm the JWS algorithm
+     * @param type      the "typ" header, may be null
+     * @return the serialized token
+     */
+    static String sign(Map<String, Object> claims, JWK key, JWSAlgorithm algorithm, String type) {
+        try {
+            JWSSigner signer = key instanceof ECKey ecKey ? new ECDSASigner(ecKey) : new RSASSASigner((RSAKey) key);
+            JWSHeader.Builder header = new JWSHeader.Builder(algorithm).keyID(key.getKeyID());
+            if (type != null) {
+                header.type(new JOSEObjectType(type));
+            }
+            SignedJWT jwt = new SignedJWT(header.build(), JWTClaimsSet.parse(claims));
+            jwt.sign(signer);
+            return jwt.serialize();
+        } catch (JOSEException | ParseException ex) {
+            throw new IllegalStateException("Failed to sign benchmark token", ex);
+        }
+    }
+
+    private static List<String> roles(int roleCount) {
+        List<String> roles = new ArrayList<>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            roles.add("role-" + i);
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,107 @@
+package dev.kush.securitycommon.common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of every {@link UserUtils} accessor on Auth0 and Keycloak shaped tokens.
+ *
+ * <p>The accessor benchmarks measure the steady state within a request, where the
+ * identity is already memoized. {@code firstAccess} measures the first call of a
+ * request, which builds a fresh authentication and extracts the identity, and
+ * {@code extractIdentity} isolates the claim extraction itself.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ClaimExtractionBenchmark {
+
+    @Param({"auth0", "keycloak"})
+    public String identityProvider;
+
+    private UserUtils userUtils;
+
+    private UserIdentityExtractor identityExtractor;
+
+    private Jwt jwt;
+
+    private Map<String, Object> claims;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userUtils = "keycloak".equals(identityProvider) ? new KeycloakUserUtils() : new Auth0UserUtils();
+        identityExtractor = UserIdentityExtractor.forProvider(identityProvider);
+        jwt = BenchmarkTokens.jwt(identityProvider, 5);
+        claims = jwt.getClaims();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public String getCurrentUserEmail() {
+        return userUtils.getCurrentUserEmail();
+    }
+
+    @Benchmark
+    public String getCurrentUserSubjectId() {
+        return userUtils.getCurrentUserSubjectId();
+    }
+
+    @Benchmark
+    public Long getCurrentUserId() {
+        return userUtils.getCurrentUserId();
+    }
+
+    @Benchmark
+    public Long getCurrentCompanyId() {
+        return userUtils.getCurrentCompanyId();
+    }
+
+    @Benchmark
+    public String getCurrentCompanyName() {
+        return userUtils.getCurrentCompanyName();
+    }
+
+    @Benchmark
+    public String getCurrentUserRole() {
+        return userUtils.getCurrentUserRole();
+    }
+
+    @Benchmark
+    public Long firstAccess() {
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+        return userUtils.getCurrentUserId();
+    }
+
+    @Benchmark
+    public UserIdentity extractIdentity() {
+        return identityExtractor.extract(claims);
+    }
+}
@@ -0,0 +1,102 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of decoding a signed access token and converting it into an authentication.
+ *
+ * <p>Keys are generated locally for RS256 (RSA 2048) and ES256 (P-256). The decoder
+ * applies the same type header verification and claim validation as the decoders
+ * built by this library.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DecodeBenchmark {
+
+    @Param({"RS256", "ES256"})
+    public String algorithm;
+
+    @Param({"auth0", "keycloak"})
+    public String identityProvider;
+
+    private NimbusJwtDecoder jwtDecoder;
+
+    private JwtAuthenticationConverter jwtAuthenticationConverter;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JOSEException {
+        JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithm);
+        JWK key = JWSAlgorithm.ES256.equals(jwsAlgorithm)
+                ? new ECKeyGenerator(Curve.P_256).keyID("bench-ec").generate()
+                : new RSAKeyGenerator(2048).keyID("bench-rsa").generate();
+
+        String type = "keycloak".equals(identityProvider) ? "JWT" : AuthConstants.AUTH0_ACCESS_TOKEN_TYPE;
+        token = BenchmarkTokens.sign(BenchmarkTokens.claims(identityProvider, 5), key, jwsAlgorithm, type);
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(jwsAlgorithm,
+                new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK()))));
+        jwtProcessor.setJWSTypeVerifier(JwtProcessorSupport.typeVerifier(identityProvider));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        jwtDecoder.setJwtValidator(JwtProcessorSupport.validator("https://idp.example.com/",
+                List.of("https://api.example.com")));
+
+        JwtCustomizerConfig config = new JwtCustomizerConfig("http://localhost:5174");
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        jwtAuthenticationConverter = config.jwtAuthenticationConverter(
+                config.grantedAuthoritiesConverter(ClaimMapping.forProvider(identityProvider), new String[0]),
+                beanFactory.getBeanProvider(SecurityMetrics.class),
+                beanFactory.getBeanProvider(SecurityAudit.class));
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return jwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken decodeAndConvert() {
+        return jwtAuthenticationConverter.convert(jwtDecoder.decode(token));
+    }
+}
@@ -0,0 +1,104 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import dev.kush.securitycommon.jwk.CachingJWSKeySelector;
+import dev.kush.securitycommon.jwk.CachingJWSVerifierFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding an Auth0 token with a large metadata blob and reading the user identity.
+ *
+ * <p>The token carries "profileEntries" nested objects that the request never
+ * reads. {@code eagerClaims} uses {@code NimbusJwtDecoder}, which converts all of
+ * them; {@code lazyClaims} uses {@link LazyClaimsJwtDecoder}, which only parses the
+ * claims read by the identity extractor. Both verify the same RS256 signature, so
+ * compare the {@code gc.alloc.rate.norm} columns for the difference in allocation.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LazyClaimsBenchmark {
+
+    @Param({"0", "200"})
+    public int profileEntries;
+
+    private final UserIdentityExtractor identityExtractor =
+            new ClaimMappingUserIdentityExtractor(ClaimMapping.forProvider("auth0"));
+
+    private NimbusJwtDecoder eagerDecoder;
+
+    private LazyClaimsJwtDecoder lazyDecoder;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JOSEException {
+        JWK key = new RSAKeyGenerator(2048).keyID("bench-rsa").generate();
+        Map<String, Object> claims = BenchmarkTokens.claims("auth0", 5);
+        Map<String, Object> profile = new LinkedHashMap<>();
+        for (int i = 0; i < profileEntries; i++) {
+            profile.put("preference-" + i, Map.of("enabled", i % 2 == 0, "value", "setting value " + i,
+                    "tags", List.of("a", "b", "c")));
+        }
+        claims.put("profile", profile);
+        token = BenchmarkTokens.sign(claims, key, JWSAlgorithm.RS256, AuthConstants.AUTH0_ACCESS_TOKEN_TYPE);
+
+        CachingJWSKeySelector<SecurityContext> keySelector = new CachingJWSKeySelector<>(Set.of(JWSAlgorithm.RS256),
+                new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK())));
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(keySelector);
+        jwtProcessor.setJWSVerifierFactory(new CachingJWSVerifierFactory(keySelector));
+        jwtProcessor.setJWSTypeVerifier(JwtProcessorSupport.typeVerifier("auth0"));
+        jwtProcessor.setJWTClaimsSetVerifier((c, context) -> {
+        });
+        eagerDecoder = new NimbusJwtDecoder(jwtProcessor);
+        eagerDecoder.setJwtValidator(JwtProcessorSupport.validator("https://idp.example.com/",
+                List.of("https://api.example.com")));
+
+        lazyDecoder = new LazyClaimsJwtDecoder(keySelector, new CachingJWSVerifierFactory(keySelector),
+                JwtProcessorSupport.typeVerifier("auth0"));
+        lazyDecoder.setJwtValidator(JwtProcessorSupport.validator("https://idp.example.com/",
+                List.of("https://api.example.com")));
+    }
+
+    @Benchmark
+    public UserIdentity eagerClaims() {
+        return identityExtractor.extract(eagerDecoder.decode(token).getClaims());
+    }
+
+    @Benchmark
+    public UserIdentity lazyClaims() {
+        return identityExtractor.extract(lazyDecoder.decode(token).getClaims());
+    }
+}
@@ -0,0 +1,93 @@
+package dev.kush.securitycommon.common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the per-request cost of the typical controller access pattern
+ * (user id, company id and company name) with and without the memoized identity.
+ *
+ * <p>{@code legacyAccessors} replays the claim walk every call used to perform,
+ * {@code memoizedAccessors} goes through {@link Auth0UserUtils}. Compare the
+ * {@code gc.alloc.rate.norm} columns for bytes allocated per operation.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserUtilsBenchmark {
+
+    private final UserUtils userUtils = new Auth0UserUtils();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("auth0|64f0c2a1b3")
+                .claim(AuthConstants.AUTH0_EMAIL_CLAIM, "jane@example.com")
+                .claim(AuthConstants.AUTH0_APP_METADATA_CLAIM, Map.of(
+                        AuthConstants.AUTH0_USER_ID_CLAIM, "184467",
+                        AuthConstants.AUTH0_COMPANY_ID_CLAIM, "90210",
+                        AuthConstants.AUTH0_COMPANY_NAME_CLAIM, "Acme Logistics"))
+                .claim(AuthConstants.AUTH0_ROLE_CLAIM, List.of("admin", "billing"))
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void memoizedAccessors(Blackhole blackhole) {
+        blackhole.consume(userUtils.getCurrentUserId());
+        blackhole.consume(userUtils.getCurrentCompanyId());
+        blackhole.consume(userUtils.getCurrentCompanyName());
+    }
+
+    @Benchmark
+    public void legacyAccessors(Blackhole blackhole) {
+        blackhole.consume(legacyUserId());
+        blackhole.consume(legacyCompanyId());
+        blackhole.consume(legacyCompanyName());
+    }
+
+    private static Long legacyUserId() {
+        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.AUTH0_APP_METADATA_CLAIM);
+        return Long.parseLong(detailsMap.get(AuthConstants.AUTH0_USER_ID_CLAIM).toString());
+    }
+
+    private static Long legacyCompanyId() {
+        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.AUTH0_APP_METADATA_CLAIM);
+        return Long.parseLong(detailsMap.get(AuthConstants.AUTH0_COMPANY_ID_CLAIM).toString());
+    }
+
+    private static String legacyCompanyName() {
+        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.AUTH0_APP_METADATA_CLAIM);
+        return detailsMap.getOrDefault(AuthConstants.AUTH0_COMPANY_NAME_CLAIM, "").toString();
+    }
+}
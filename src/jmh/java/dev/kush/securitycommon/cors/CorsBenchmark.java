@@ -0,0 +1,118 @@
+package dev.kush.securitycommon.cors;
+
+import dev.kush.securitycommon.common.JwtCustomizerConfig;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.DefaultCorsProcessor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of handling preflight and actual CORS requests with the configuration source
+ * of {@link JwtCustomizerConfig} and Spring's {@code DefaultCorsProcessor}, compared
+ * with {@link PrecompiledCorsFilter}.
+ *
+ * <p>The request origin is the last of the allowed origins, the worst case for a
+ * linear scan. Both variants write to a fresh mock response per invocation.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CorsBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @Param({"2", "32"})
+    public int originCount;
+
+    private CorsConfigurationSource corsConfigurationSource;
+
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    private PrecompiledCorsFilter precompiledCorsFilter;
+
+    private MockHttpServletRequest preflightRequest;
+
+    private MockHttpServletRequest actualRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> origins = new ArrayList<>();
+        for (int i = 0; i < originCount; i++) {
+            origins.add("https://app" + i + ".example.com");
+        }
+        String origin = origins.getLast();
+
+        JwtCustomizerConfig config = new JwtCustomizerConfig(String.join(",", origins));
+        corsConfigurationSource = ReflectionTestUtils.invokeMethod(config, "corsConfigurationSource");
+        precompiledCorsFilter = new PrecompiledCorsFilter(OriginMatcher.compile(origins), List.of("*"), true, 3600);
+
+        preflightRequest = new MockHttpServletRequest("OPTIONS", "/api/orders");
+        preflightRequest.addHeader(HttpHeaders.ORIGIN, origin);
+        preflightRequest.addHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "POST");
+        preflightRequest.addHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, "authorization, content-type");
+
+        actualRequest = new MockHttpServletRequest("GET", "/api/orders");
+        actualRequest.addHeader(HttpHeaders.ORIGIN, origin);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse springPreflight() throws IOException {
+        return spring(preflightRequest);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse precompiledPreflight() throws IOException, ServletException {
+        return precompiled(preflightRequest);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse springActualRequest() throws IOException {
+        return spring(actualRequest);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse precompiledActualRequest() throws IOException, ServletException {
+        return precompiled(actualRequest);
+    }
+
+    private MockHttpServletResponse spring(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        corsProcessor.processRequest(corsConfigurationSource.getCorsConfiguration(request), request, response);
+        return response;
+    }
+
+    private MockHttpServletResponse precompiled(MockHttpServletRequest request) throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        precompiledCorsFilter.doFilter(request, response, NO_OP_CHAIN);
+        return response;
+    }
+}
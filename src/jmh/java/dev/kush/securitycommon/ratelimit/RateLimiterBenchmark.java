@@ -0,0 +1,99 @@
+package dev.kush.securitycommon.ratelimit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention of the rate limiter on all available cores.
+ *
+ * <p>With a single key, every thread updates the same bucket, the worst case for a
+ * busy tenant. With many keys, threads mostly hit different buckets. The baseline
+ * is a token bucket table guarded by a single lock, as services used before.</p>
+ *
+ * <p>The limit is high enough that permits are not exhausted, so both sides do the
+ * same work on every call.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(Threads.MAX)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RateLimiterBenchmark {
+
+    private static final long LIMIT = Long.MAX_VALUE / 4;
+
+    @Param({"1", "100000"})
+    public int keyCount;
+
+    private RateLimiter rateLimiter;
+
+    private SynchronizedTokenBuckets synchronizedBuckets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rateLimiter = new RateLimiter(LIMIT, Duration.ofSeconds(1), 500_000, Duration.ofMinutes(10));
+        synchronizedBuckets = new SynchronizedTokenBuckets(LIMIT, Duration.ofSeconds(1));
+    }
+
+    @Benchmark
+    public long rateLimiter() {
+        return rateLimiter.tryAcquire(ThreadLocalRandom.current().nextInt(keyCount) + 1);
+    }
+
+    @Benchmark
+    public boolean synchronizedMap() {
+        return synchronizedBuckets.tryAcquire(ThreadLocalRandom.current().nextInt(keyCount) + 1);
+    }
+
+    /**
+     * Classic token buckets in a map guarded by one lock.
+     */
+    static final class SynchronizedTokenBuckets {
+
+        private final Map<Long, double[]> buckets = new HashMap<>();
+
+        private final long capacity;
+
+        private final double permitsPerNano;
+
+        SynchronizedTokenBuckets(long capacity, Duration period) {
+            this.capacity = capacity;
+            this.permitsPerNano = (double) capacity / period.toNanos();
+        }
+
+        synchronized boolean tryAcquire(long key) {
+            long now = System.nanoTime();
+            // tokens, last refill time
+            double[] bucket = buckets.computeIfAbsent(key, k -> new double[]{capacity, now});
+            bucket[0] = Math.min(capacity, bucket[0] + (now - bucket[1]) * permitsPerNano);
+            bucket[1] = now;
+            if (bucket[0] < 1) {
+                return false;
+            }
+            bucket[0]--;
+            return true;
+        }
+    }
+}
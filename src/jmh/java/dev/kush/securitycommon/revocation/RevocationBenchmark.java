@@ -0,0 +1,85 @@
+package dev.kush.securitycommon.revocation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the revocation check for valid and revoked tokens, and the filter's measured false positive rate.
+ *
+ * <p>Valid tokens use a fresh token id on every call, so the measured rate is not
+ * helped by repeated lookups. At the end of each trial, the filter memory and its
+ * estimated and measured false positive rates are printed.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RevocationBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int revokedCount;
+
+    @Param({"0.01", "0.001"})
+    public double falsePositiveRate;
+
+    private RevocationChecker checker;
+
+    private String revokedTokenId;
+
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRevocationSource source = new InMemoryRevocationSource();
+        for (int i = 0; i < revokedCount; i++) {
+            source.revokeToken(UUID.randomUUID().toString());
+        }
+        revokedTokenId = UUID.randomUUID().toString();
+        source.revokeToken(revokedTokenId);
+
+        checker = new RevocationChecker(source, source);
+        checker.setExpectedInsertions(revokedCount);
+        checker.setFalsePositiveRate(falsePositiveRate);
+        checker.afterPropertiesSet();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // revokedToken() calls are confirmed revocations, so only valid tokens count as false positives
+        long validChecks = checker.getCheckCount() - checker.getRevokedCount();
+        System.out.printf("%nfilter: %d bytes, estimated false positive rate %.5f, measured %.5f (%d of %d)%n",
+                checker.getFilterMemoryBytes(), checker.getEstimatedFalsePositiveRate(),
+                validChecks == 0 ? 0.0 : (double) checker.getFalsePositiveCount() / validChecks,
+                checker.getFalsePositiveCount(), validChecks);
+        checker.destroy();
+    }
+
+    @Benchmark
+    public boolean validToken() {
+        return checker.isRevoked("not-revoked-" + sequence++, null);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return checker.isRevoked(revokedTokenId, null);
+    }
+}
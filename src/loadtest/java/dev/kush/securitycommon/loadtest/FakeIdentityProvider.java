@@ -0,0 +1,157 @@
+package dev.kush.securitycommon.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.kush.securitycommon.common.AuthConstants;
+import dev.kush.securitycommon.common.ClaimMapping;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded identity provider standing in for Auth0 or Keycloak.
+ *
+ * <p>It serves the OpenID discovery document and the JWK set over HTTP on a local
+ * ephemeral port, and mints RS256 access tokens laid out like the provider's
+ * tokens, see {@link AuthConstants}: the claims are placed with the paths of
+ * {@link ClaimMapping#forProvider(String)}, ids are strings for Auth0 and numbers
+ * for Keycloak, and the "typ" header is "at+jwt" for Auth0 and "JWT" for Keycloak.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public class FakeIdentityProvider implements AutoCloseable {
+
+    /**
+     * Audience of the minted tokens.
+     */
+    public static final String AUDIENCE = "https://api.example.com";
+
+    private final String identityProvider;
+
+    private final ClaimMapping claimMapping;
+
+    private final RSAKey signingKey;
+
+    private final RSASSASigner signer;
+
+    private final HttpServer server;
+
+    private final String issuer;
+
+    /**
+     * Creates the identity provider and starts serving its endpoints.
+     *
+     * @param identityProvider "auth0" or "keycloak"
+     * @throws IOException if the HTTP server cannot be started
+     */
+    public FakeIdentityProvider(String identityProvider) throws IOException {
+        this.identityProvider = identityProvider;
+        this.claimMapping = ClaimMapping.forProvider(identityProvider);
+        try {
+            this.signingKey = new RSAKeyGenerator(2048).keyID("loadtest-" + identityProvider).generate();
+            this.signer = new RSASSASigner(signingKey);
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("Failed to generate the signing key", ex);
+        }
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.issuer = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        String jwks = new JWKSet(signingKey.toPublicJWK()).toString();
+        String discovery = "{\"issuer\":\"" + issuer + "\",\"jwks_uri\":\"" + getJwkSetUri() + "\"}";
+        server.createContext("/.well-known/jwks.json", exchange -> respond(exchange, jwks));
+        server.createContext("/.well-known/openid-configuration", exchange -> respond(exchange, discovery));
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Returns the issuer, also the base URL of the endpoints.
+     *
+     * @return the issuer URI
+     */
+    public String getIssuer() {
+        return issuer;
+    }
+
+    /**
+     * Returns the URI of the JWK set.
+     *
+     * @return the JWK set URI
+     */
+    public String getJwkSetUri() {
+        return issuer + ".well-known/jwks.json";
+    }
+
+    /**
+     * Mints a signed access token for the given user.
+     *
+     * @param userId    the user id
+     * @param companyId the company id
+     * @param roles     the roles of the user
+     * @param lifetime  the time until the token expires
+     * @return the serialized token
+     */
+    public String mint(long userId, long companyId, List<String> roles, Duration lifetime) {
+        boolean auth0 = !"keycloak".equalsIgnoreCase(identityProvider);
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claimMapping.subject().put(claims, (auth0 ? "auth0|" : "user-") + userId);
+        claimMapping.email().put(claims, "user" + userId + "@company" + companyId + ".example.com");
+        claimMapping.userId().put(claims, auth0 ? Long.toString(userId) : userId);
+        claimMapping.companyId().put(claims, auth0 ? Long.toString(companyId) : companyId);
+        claimMapping.companyName().put(claims, "Company " + companyId);
+        claimMapping.roles().put(claims, roles);
+
+        Instant now = Instant.now();
+        JWTClaimsSet.Builder claimsSet = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .audience(AUDIENCE)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(lifetime)));
+        claims.forEach(claimsSet::claim);
+        JOSEObjectType type = auth0 ? new JOSEObjectType(AuthConstants.AUTH0_ACCESS_TOKEN_TYPE) : JOSEObjectType.JWT;
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).type(type).keyID(signingKey.getKeyID()).build(),
+                claimsSet.build());
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("Failed to sign the token", ex);
+        }
+        return jwt.serialize();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,333 @@
+package dev.kush.securitycommon.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * End-to-end load test of a resource server built on this library.
+ *
+ * <p>Starts a {@link FakeIdentityProvider} and a {@link SampleResourceServer}
+ * verifying its tokens, then drives the server over HTTP at fixed concurrency
+ * levels, with platform threads and with virtual threads. Each worker sends
+ * requests in a closed loop, rotating over a pool of tokens of different users
+ * and companies. After a warm-up, throughput and the p50, p99 and p99.9
+ * latencies are printed and written as JSON, so that releases can be compared.</p>
+ *
+ * <p>Options, given as {@code --name=value}:</p>
+ * <ul>
+ * <li>"provider" - "auth0" or "keycloak" (default auth0)</li>
+ * <li>"concurrency" - comma separated concurrency levels (default 16,64,256)</li>
+ * <li>"threads" - comma separated thread kinds, "platform" and/or "virtual" (default both)</li>
+ * <li>"warmup" - warm-up time per run (default 5s)</li>
+ * <li>"duration" - measured time per run (default 15s)</li>
+ * <li>"tokens" - number of distinct users (default 1000)</li>
+ * <li>"companies" - number of companies the users are spread over (default 50)</li>
+ * <li>"path" - request path, "{companyId}" and "{userId}" are replaced with the ids
+ * of the token (default /api/companies/{companyId}/orders)</li>
+ * <li>"output" - file the JSON results are written to (default none)</li>
+ * </ul>
+ * <p>Any other option is passed to the resource server as a Spring property, for
+ * example {@code --identity.decoder.cache.enabled=true}.</p>
+ *
+ * <p>Run with {@code ./gradlew loadTest -Ploadtest.args="--concurrency=64 --threads=virtual"}.
+ * Client and server share the machine, so compare results from the same host.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public final class LoadTest {
+
+    private static final List<String> ROLES = List.of("admin", "manager", "user");
+
+    private LoadTest() {
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args the options, see the class documentation
+     * @throws Exception if the servers cannot be started or a run fails
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of(
+                "provider", "auth0",
+                "concurrency", "16,64,256",
+                "threads", "platform,virtual",
+                "warmup", "5s",
+                "duration", "15s",
+                "tokens", "1000",
+                "companies", "50",
+                "path", "/api/companies/{companyId}/orders"));
+        Map<String, Object> springProperties = new LinkedHashMap<>();
+        String output = null;
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if ("output".equals(name)) {
+                output = value;
+            } else if (options.containsKey(name)) {
+                options.put(name, value);
+            } else {
+                springProperties.put(name, value);
+            }
+        }
+
+        String provider = options.get("provider");
+        Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+
+        List<RunResult> results = new ArrayList<>();
+        try (FakeIdentityProvider identityProvider = new FakeIdentityProvider(provider)) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("server.port", 0);
+            properties.put("spring.main.banner-mode", "off");
+            properties.put("logging.level.root", "warn");
+            properties.put("identity.provider", provider);
+            properties.put("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", identityProvider.getJwkSetUri());
+            properties.put("spring.security.oauth2.resourceserver.jwt.issuer-uri", identityProvider.getIssuer());
+            properties.put("spring.security.oauth2.resourceserver.jwt.audiences", FakeIdentityProvider.AUDIENCE);
+            properties.putAll(springProperties);
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SampleResourceServer.class)
+                    .properties(properties)
+                    .run()) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                List<HttpRequest> requests = requests(identityProvider, port, options.get("path"),
+                        Integer.parseInt(options.get("tokens")), Integer.parseInt(options.get("companies")));
+                HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+                System.out.printf("%-9s %11s %10s %8s %12s %9s %9s %9s %9s%n",
+                        "threads", "concurrency", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+                for (String threads : split(options.get("threads"))) {
+                    for (String level : split(options.get("concurrency"))) {
+                        int concurrency = Integer.parseInt(level);
+                        run(client, requests, threads, concurrency, warmup, false);
+                        RunResult result = run(client, requests, threads, concurrency, duration, true);
+                        results.add(result);
+                        System.out.printf("%-9s %11d %10d %8d %12.1f %9.2f %9.2f %9.2f %9.2f%n",
+                                threads, concurrency, result.requests(), result.errors(), result.throughput(),
+                                millis(result.p50()), millis(result.p99()), millis(result.p999()),
+                                millis(result.max()));
+                    }
+                }
+            }
+        }
+
+        if (output != null) {
+            Path path = Path.of(output);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(path, toJson(provider, options.get("path"), springProperties, results));
+            System.out.println("Results written to " + path.toAbsolutePath());
+        }
+    }
+
+    private static List<HttpRequest> requests(FakeIdentityProvider identityProvider, int port, String path,
+                                              int tokens, int companies) {
+        List<HttpRequest> requests = new ArrayList<>(tokens);
+        for (int i = 0; i < tokens; i++) {
+            long userId = i + 1;
+            long companyId = i % companies + 1;
+            String token = identityProvider.mint(userId, companyId, List.of(ROLES.get(i % ROLES.size())),
+                    Duration.ofHours(12));
+            String resolvedPath = path
+                    .replace("{companyId}", Long.toString(companyId))
+                    .replace("{userId}", Long.toString(userId));
+            requests.add(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + resolvedPath))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build());
+        }
+        return requests;
+    }
+
+    private static RunResult run(HttpClient client, List<HttpRequest> requests, String threads, int concurrency,
+                                 Duration duration, boolean record) throws Exception {
+        ExecutorService executor = switch (threads) {
+            case "platform" -> Executors.newFixedThreadPool(concurrency);
+            case "virtual" -> Executors.newVirtualThreadPerTaskExecutor();
+            default -> throw new IllegalArgumentException("Unknown thread kind '" + threads + "'");
+        };
+        try {
+            long start = System.nanoTime();
+            long deadline = start + duration.toNanos();
+            List<Future<Worker>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                Worker worker = new Worker(client, requests, i * requests.size() / concurrency, record);
+                futures.add(executor.submit(() -> worker.run(deadline)));
+            }
+            long requestCount = 0;
+            long errors = 0;
+            List<long[]> latencies = new ArrayList<>(concurrency);
+            for (Future<Worker> future : futures) {
+                Worker worker = future.get();
+                requestCount += worker.count;
+                errors += worker.errors;
+                latencies.add(Arrays.copyOf(worker.latencies, worker.count));
+            }
+            long elapsed = System.nanoTime() - start;
+            return record ? RunResult.of(threads, concurrency, requestCount, errors, elapsed, latencies) : null;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String toJson(String provider, String path, Map<String, Object> springProperties,
+                                 List<RunResult> results) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"version\": ").append(quote(System.getProperty("loadtest.version", "unknown"))).append(",\n");
+        json.append("  \"timestamp\": ").append(quote(Instant.now().toString())).append(",\n");
+        json.append("  \"javaVersion\": ").append(quote(Runtime.version().toString())).append(",\n");
+        json.append("  \"availableProcessors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"provider\": ").append(quote(provider)).append(",\n");
+        json.append("  \"path\": ").append(quote(path)).append(",\n");
+        json.append("  \"properties\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Object> property : springProperties.entrySet()) {
+            json.append(separator).append("    ").append(quote(property.getKey())).append(": ")
+                    .append(quote(String.valueOf(property.getValue())));
+            separator = ",\n";
+        }
+        json.append(springProperties.isEmpty() ? "},\n" : "\n  },\n");
+        json.append("  \"runs\": [");
+        separator = "\n";
+        for (RunResult result : results) {
+            json.append(separator).append(String.format(Locale.ROOT,
+                    "    {\"threads\": %s, \"concurrency\": %d, \"requests\": %d, \"errors\": %d, "
+                            + "\"throughput\": %.1f, \"p50Ms\": %.3f, \"p99Ms\": %.3f, \"p999Ms\": %.3f, \"maxMs\": %.3f}",
+                    quote(result.threads()), result.concurrency(), result.requests(), result.errors(),
+                    result.throughput(), millis(result.p50()), millis(result.p99()), millis(result.p999()),
+                    millis(result.max())));
+            separator = ",\n";
+        }
+        json.append(results.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Closed-loop client sending requests until the deadline.
+     */
+    private static final class Worker {
+
+        private final HttpClient client;
+
+        private final List<HttpRequest> requests;
+
+        private final boolean record;
+
+        private int next;
+
+        private long[] latencies = new long[4096];
+
+        private int count;
+
+        private long errors;
+
+        Worker(HttpClient client, List<HttpRequest> requests, int offset, boolean record) {
+            this.client = client;
+            this.requests = requests;
+            this.next = offset;
+            this.record = record;
+        }
+
+        Worker run(long deadline) throws InterruptedException {
+            while (System.nanoTime() < deadline) {
+                HttpRequest request = requests.get(next);
+                next = next + 1 == requests.size() ? 0 : next + 1;
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        errors++;
+                    }
+                } catch (IOException ex) {
+                    errors++;
+                }
+                long latency = System.nanoTime() - start;
+                if (record) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count] = latency;
+                }
+                count++;
+            }
+            if (!record) {
+                count = 0;
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Outcome of one measured run.
+     *
+     * @param threads     the thread kind
+     * @param concurrency the number of concurrent workers
+     * @param requests    the number of requests sent
+     * @param errors      the number of failed requests
+     * @param throughput  the requests per second
+     * @param p50         the median latency in nanoseconds
+     * @param p99         the 99th percentile latency in nanoseconds
+     * @param p999        the 99.9th percentile latency in nanoseconds
+     * @param max         the maximum latency in nanoseconds
+     */
+    record RunResult(String threads, int concurrency, long requests, long errors, double throughput,
+                     long p50, long p99, long p999, long max) {
+
+        static RunResult of(String threads, int concurrency, long requests, long errors, long elapsedNanos,
+                            List<long[]> latencies) {
+            long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new RunResult(threads, concurrency, requests, errors, requests * 1e9 / elapsedNanos,
+                    percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999),
+                    all.length == 0 ? 0 : all[all.length - 1]);
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
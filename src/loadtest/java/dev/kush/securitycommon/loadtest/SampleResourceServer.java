@@ -0,0 +1,94 @@
+package dev.kush.securitycommon.loadtest;
+
+import dev.kush.securitycommon.authorization.RequireIdentity;
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserUtils;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Sample resource server exercising the auto-configurations of this library.
+ *
+ * <p>Every request must carry a bearer token. The endpoints read the user identity
+ * through {@link UserUtils} and check the tenant with {@link RequireIdentity}:</p>
+ * <ul>
+ * <li>{@code GET /api/me} - the identity of the caller;</li>
+ * <li>{@code GET /api/companies/{companyId}/orders} - orders of the caller's company,
+ * denied for other companies.</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@SpringBootApplication(proxyBeanMethods = false)
+public class SampleResourceServer {
+
+    @Bean
+    SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        return http
+                .authorizeHttpRequests(requests -> requests.anyRequest().authenticated())
+                .oauth2ResourceServer(resourceServer -> resourceServer.jwt(Customizer.withDefaults()))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .csrf(csrf -> csrf.disable())
+                .build();
+    }
+
+    /**
+     * Endpoints of the sample server.
+     */
+    @RestController
+    static class SampleController {
+
+        private final UserUtils userUtils;
+
+        private final OrderService orderService;
+
+        SampleController(UserUtils userUtils, OrderService orderService) {
+            this.userUtils = userUtils;
+            this.orderService = orderService;
+        }
+
+        @GetMapping("/api/me")
+        UserIdentity me() {
+            return userUtils.getCurrentIdentity();
+        }
+
+        @GetMapping("/api/companies/{companyId}/orders")
+        List<Order> orders(@PathVariable long companyId) {
+            return orderService.findOrders(companyId);
+        }
+    }
+
+    /**
+     * Tenant-scoped service secured with {@link RequireIdentity}.
+     */
+    @Service
+    static class OrderService {
+
+        @RequireIdentity(sameCompany = "companyId")
+        public List<Order> findOrders(long companyId) {
+            return List.of(new Order(companyId * 1000 + 1, companyId, "OPEN"),
+                    new Order(companyId * 1000 + 2, companyId, "SHIPPED"));
+        }
+    }
+
+    /**
+     * Order returned by the sample endpoint.
+     *
+     * @param id        the order id
+     * @param companyId the company owning the order
+     * @param status    the order status
+     */
+    record Order(long id, long companyId, String status) {
+    }
+}
@@ -0,0 +1,118 @@
+package dev.kush.securitycommon.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Smoke test of a resource server built on this library, for AOT and native builds.
+ *
+ * <p>Starts a {@link FakeIdentityProvider} and a {@link SampleResourceServer}
+ * verifying its tokens, then checks that a locally signed token is authenticated,
+ * that its identity is read through {@code UserUtils}, that another company's data
+ * is denied and that a request without a token is rejected. The process exits with
+ * status 1 if a check fails.</p>
+ *
+ * <p>It is also the application the AOT processing of the native profile runs, so
+ * the sample server is processed with the same properties it is started with:</p>
+ * <ul>
+ * <li>{@code ./gradlew -Pnative aotSmokeTest} - on the JVM, with the code generated
+ * by AOT processing instead of reflection-based bean definitions;</li>
+ * <li>{@code ./gradlew -Pnative nativeSmokeTest} - as a GraalVM native image, which
+ * requires a GraalVM JDK, found through GRAALVM_HOME or the Java toolchains.</li>
+ * </ul>
+ * <p>The only option is the identity provider, {@code --provider=auth0} (default)
+ * or {@code --provider=keycloak}.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public final class SmokeTest {
+
+    private SmokeTest() {
+    }
+
+    /**
+     * Runs the smoke test.
+     *
+     * @param args the options, see the class documentation
+     * @throws Exception if the servers cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        String provider = "auth0";
+        for (String arg : args) {
+            if (arg.startsWith("--provider=")) {
+                provider = arg.substring("--provider=".length());
+            }
+        }
+
+        List<String> failures;
+        try (FakeIdentityProvider identityProvider = new FakeIdentityProvider(provider)) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("server.port", 0);
+            properties.put("spring.main.banner-mode", "off");
+            properties.put("logging.level.root", "warn");
+            properties.put("identity.provider", provider);
+            properties.put("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", identityProvider.getJwkSetUri());
+            properties.put("spring.security.oauth2.resourceserver.jwt.issuer-uri", identityProvider.getIssuer());
+            properties.put("spring.security.oauth2.resourceserver.jwt.audiences", FakeIdentityProvider.AUDIENCE);
+
+            long start = System.nanoTime();
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SampleResourceServer.class)
+                    .properties(properties)
+                    .run(args)) {
+                System.out.println("Sample resource server started in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                failures = check(identityProvider, "http://localhost:" + port);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("Smoke test passed");
+    }
+
+    private static List<String> check(FakeIdentityProvider identityProvider, String baseUrl) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        String token = identityProvider.mint(42, 7, List.of("admin"), Duration.ofMinutes(5));
+        List<String> failures = new ArrayList<>();
+
+        HttpResponse<String> me = get(client, baseUrl + "/api/me", token);
+        expect(failures, "GET /api/me", me, 200);
+        if (me.statusCode() == 200 && !(me.body().contains("\"userId\":42") && me.body().contains("\"companyId\":7"))) {
+            failures.add("GET /api/me returned an unexpected identity: " + me.body());
+        }
+        expect(failures, "GET own company orders", get(client, baseUrl + "/api/companies/7/orders", token), 200);
+        expect(failures, "GET other company orders", get(client, baseUrl + "/api/companies/8/orders", token), 403);
+        expect(failures, "GET /api/me without token", get(client, baseUrl + "/api/me", null), 401);
+        return failures;
+    }
+
+    private static HttpResponse<String> get(HttpClient client, String url, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void expect(List<String> failures, String check, HttpResponse<String> response, int status) {
+        System.out.println(check + ": " + response.statusCode());
+        if (response.statusCode() != status) {
+            failures.add(check + " returned " + response.statusCode() + ", expected " + status);
+        }
+    }
+}
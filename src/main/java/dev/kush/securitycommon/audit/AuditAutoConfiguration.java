@@ -0,0 +1,163 @@
+package dev.kush.securitycommon.audit;
+
+import dev.kush.securitycommon.common.AuditingJwtDecoder;
+import dev.kush.securitycommon.common.SecurityAudit;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import dev.kush.securitycommon.common.UserUtilsAutoConfiguration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Auto-configuration for the security audit trail.
+ *
+ * <p>When "identity.audit.enabled" is set to {@code true}, an {@link AuditLog}
+ * bean is registered, which records:</p>
+ * <ul>
+ * <li>successful authentications, from the authentication converters of this library;</li>
+ * <li>decode failures, by wrapping every {@link JwtDecoder} bean in an
+ * {@link AuditingJwtDecoder}, outside of the revocation check;</li>
+ * <li>company and user scoped calls granted or denied by {@code @RequireIdentity}.</li>
+ * </ul>
+ * <p>The events are written to:</p>
+ * <ul>
+ * <li>an {@link AuditSink} bean defined by the application, e.g. an {@link InMemoryAuditSink} in tests;</li>
+ * <li>otherwise the JSON lines file set with "identity.audit.file", see {@link FileAuditSink};</li>
+ * <li>otherwise the "security.audit" logger, see {@link LoggingAuditSink}.</li>
+ * </ul>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.audit.capacity" - number of events the buffer holds (default 8192)</li>
+ * <li>"identity.audit.overflow-policy" - "drop" or "block" when the buffer is full (default drop)</li>
+ * <li>"identity.audit.block-timeout" - maximum wait for a free slot with the "block" policy (default 10ms)</li>
+ * <li>"identity.audit.batch-size" - maximum number of events written at once (default 256)</li>
+ * <li>"identity.audit.idle-wait" - maximum delay before an event is written (default 50ms)</li>
+ * <li>"identity.audit.file-max-size" - size the audit file is rolled at, 0 to never roll it (default 100MB)</li>
+ * <li>"identity.audit.file-max-history" - number of rolled audit files kept (default 10)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see AuditLog
+ */
+@AutoConfiguration(after = UserUtilsAutoConfiguration.class)
+@ConditionalOnProperty(name = "identity.audit.enabled", havingValue = "true")
+public class AuditAutoConfiguration {
+
+    /**
+     * Creates the sink appending to the configured audit file.
+     *
+     * <p>The sink is closed by the {@link AuditLog} once its writer thread has
+     * stopped, not by the container, so no destroy method is inferred.</p>
+     *
+     * @param file        the audit file
+     * @param maxFileSize the size the file is rolled at
+     * @param maxHistory  the number of rolled files kept
+     * @return the file audit sink
+     */
+    @Bean(destroyMethod = "")
+    @ConditionalOnMissingBean(AuditSink.class)
+    @ConditionalOnProperty(name = "identity.audit.file")
+    public FileAuditSink fileAuditSink(@Value("${identity.audit.file}") String file,
+                                       @Value("${identity.audit.file-max-size:100MB}") DataSize maxFileSize,
+                                       @Value("${identity.audit.file-max-history:10}") int maxHistory) {
+        return new FileAuditSink(Path.of(file), maxFileSize.toBytes(), maxHistory);
+    }
+
+    /**
+     * Creates the sink writing to the "security.audit" logger, used when no other sink is configured.
+     *
+     * <p>Like the file sink, it is closed by the {@link AuditLog}.</p>
+     *
+     * @return the logging audit sink
+     */
+    @Bean(destroyMethod = "")
+    @ConditionalOnMissingBean(AuditSink.class)
+    public LoggingAuditSink loggingAuditSink() {
+        return new LoggingAuditSink();
+    }
+
+    /**
+     * Creates the audit log.
+     *
+     * @param sink              the destination of the events
+     * @param identityExtractor the extractor reading the identity of successful authentications
+     * @param capacity          the number of events the buffer holds
+     * @param overflowPolicy    what to do with events when the buffer is full
+     * @param blockTimeout      the maximum wait for a free slot with the "block" policy
+     * @param batchSize         the maximum number of events written at once
+     * @param idleWait          the maximum delay before an event is written
+     * @return the audit log
+     */
+    @Bean
+    @ConditionalOnMissingBean(SecurityAudit.class)
+    public AuditLog auditLog(AuditSink sink,
+                             UserIdentityExtractor identityExtractor,
+                             @Value("${identity.audit.capacity:8192}") int capacity,
+                             @Value("${identity.audit.overflow-policy:drop}") String overflowPolicy,
+                             @Value("${identity.audit.block-timeout:10ms}") Duration blockTimeout,
+                             @Value("${identity.audit.batch-size:256}") int batchSize,
+                             @Value("${identity.audit.idle-wait:50ms}") Duration idleWait) {
+        AuditLog auditLog = new AuditLog(sink, identityExtractor, capacity);
+        auditLog.setOverflowPolicy(
+                AuditLog.OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT)));
+        auditLog.setBlockTimeout(blockTimeout);
+        auditLog.setBatchSize(batchSize);
+        auditLog.setIdleWait(idleWait);
+        return auditLog;
+    }
+
+    /**
+     * Creates a bean post processor wrapping JWT decoders in an {@link AuditingJwtDecoder}.
+     *
+     * <p>The method is static so the post processor can be registered before the
+     * decoder beans are instantiated.</p>
+     *
+     * @param securityAudit the audit, resolved when the first decoder is created
+     * @return a bean post processor auditing decode failures
+     */
+    @Bean
+    static AuditingJwtDecoderPostProcessor auditingJwtDecoderPostProcessor(ObjectProvider<SecurityAudit> securityAudit) {
+        return new AuditingJwtDecoderPostProcessor(securityAudit);
+    }
+
+    /**
+     * Bean post processor wrapping JWT decoders in an {@link AuditingJwtDecoder}.
+     *
+     * <p>It runs after the revocation check is applied, so revoked tokens are
+     * audited, and before the decoder metrics, which stay the outermost decoder.</p>
+     */
+    static final class AuditingJwtDecoderPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<SecurityAudit> securityAudit;
+
+        private AuditingJwtDecoderPostProcessor(ObjectProvider<SecurityAudit> securityAudit) {
+            this.securityAudit = securityAudit;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof JwtDecoder decoder) || bean instanceof AuditingJwtDecoder) {
+                return bean;
+            }
+            return new AuditingJwtDecoder(decoder, securityAudit.getObject());
+        }
+
+        @Override
+        public int getOrder() {
+            return 1;
+        }
+    }
+}
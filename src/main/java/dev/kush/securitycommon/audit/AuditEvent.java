@@ -0,0 +1,29 @@
+package dev.kush.securitycommon.audit;
+
+import java.time.Instant;
+
+/**
+ * Security audit event, as handed to an {@link AuditSink}.
+ *
+ * <p>The identity fields hold the values returned by {@code UserUtils} for the
+ * token: the subject is null and the ids are 0L when unknown, for example for
+ * tokens that failed to decode.</p>
+ *
+ * @param type      the kind of event
+ * @param timestamp the time the event was recorded
+ * @param subject   the "sub" claim of the token, or null
+ * @param userId    the user's internal ID, or 0L
+ * @param companyId the user's company ID, or 0L
+ * @param detail    the failure reason or accessed resource, or null
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see AuditLog
+ */
+public record AuditEvent(AuditEventType type,
+                         Instant timestamp,
+                         String subject,
+                         long userId,
+                         long companyId,
+                         String detail) {
+}
@@ -0,0 +1,31 @@
+package dev.kush.securitycommon.audit;
+
+/**
+ * Kinds of security audit events.
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see AuditEvent
+ */
+public enum AuditEventType {
+
+    /**
+     * A token was decoded and converted into an authentication.
+     */
+    AUTHENTICATION_SUCCESS,
+
+    /**
+     * A token failed to decode; the detail holds the failure reason.
+     */
+    AUTHENTICATION_FAILURE,
+
+    /**
+     * A company or user scoped call was granted; the detail holds the resource.
+     */
+    TENANT_ACCESS_GRANTED,
+
+    /**
+     * A company or user scoped call was denied; the detail holds the resource.
+     */
+    TENANT_ACCESS_DENIED
+}
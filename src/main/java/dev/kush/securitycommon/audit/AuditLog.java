@@ -0,0 +1,451 @@
+package dev.kush.securitycommon.audit;
+
+import dev.kush.securitycommon.common.SecurityAudit;
+import dev.kush.securitycommon.common.SecurityMetrics;
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.Assert;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link SecurityAudit} handing events to an {@link AuditSink} on a background thread.
+ *
+ * <p>Events are stored in a bounded ring buffer whose slots are allocated up
+ * front, one array per event field, so recording an event on the request thread
+ * claims a slot with a compare-and-set, copies a few references and primitives,
+ * and publishes the slot. It neither allocates nor takes a lock. A single writer
+ * thread drains the buffer in batches, builds the {@link AuditEvent}s and passes
+ * them to the sink, flushing it whenever the buffer is empty. For successful
+ * authentications recorded with the token only, the identity is extracted by the
+ * writer, off the request path.</p>
+ *
+ * <p>When the buffer is full, the {@link OverflowPolicy} decides whether the event
+ * is dropped right away or the caller waits for a free slot, up to the block
+ * timeout. Dropped events, written events and sink failures are counted, and the
+ * number of pending events can be read, so the buffer can be sized from the
+ * metrics. A batch the sink fails to write is dropped and counted as a sink
+ * failure.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see AuditAutoConfiguration
+ */
+public class AuditLog implements SecurityAudit, InitializingBean, DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(AuditLog.class);
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * What to do with an event when the buffer is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Drop the event, so requests are never slowed down by the audit.
+         */
+        DROP,
+
+        /**
+         * Wait for a free slot up to the block timeout, then drop the event.
+         */
+        BLOCK
+    }
+
+    private final AuditSink sink;
+
+    private final UserIdentityExtractor identityExtractor;
+
+    private final int capacity;
+
+    private final int mask;
+
+    /**
+     * Per-slot sequence: equal to the position when the slot is free for it, to the
+     * position plus one once the event at that position is published.
+     */
+    private final AtomicLongArray sequences;
+
+    private final AuditEventType[] types;
+
+    private final long[] timestamps;
+
+    private final Jwt[] tokens;
+
+    private final String[] subjects;
+
+    private final long[] userIds;
+
+    private final long[] companyIds;
+
+    private final String[] details;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long head;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder sinkFailures = new LongAdder();
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    private Duration blockTimeout = Duration.ofMillis(10);
+
+    private int batchSize = 256;
+
+    private Duration idleWait = Duration.ofMillis(50);
+
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+
+    private Clock clock = Clock.systemUTC();
+
+    private volatile boolean running;
+
+    private boolean failing;
+
+    private Thread writer;
+
+    /**
+     * Creates a new audit log.
+     *
+     * @param sink              the destination of the events
+     * @param identityExtractor the extractor reading the identity of successful authentications
+     * @param capacity          the number of slots of the buffer, rounded up to a power of two
+     */
+    public AuditLog(AuditSink sink, UserIdentityExtractor identityExtractor, int capacity) {
+        Assert.notNull(sink, "sink cannot be null");
+        Assert.notNull(identityExtractor, "identityExtractor cannot be null");
+        Assert.isTrue(capacity >= 2 && capacity <= 1 << 30, "capacity must be between 2 and 2^30");
+        this.sink = sink;
+        this.identityExtractor = identityExtractor;
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.types = new AuditEventType[this.capacity];
+        this.timestamps = new long[this.capacity];
+        this.tokens = new Jwt[this.capacity];
+        this.subjects = new String[this.capacity];
+        this.userIds = new long[this.capacity];
+        this.companyIds = new long[this.capacity];
+        this.details = new String[this.capacity];
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        this.running = true;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("security-audit-");
+        threadFactory.setDaemon(true);
+        this.writer = threadFactory.newThread(this::drain);
+        this.writer.start();
+    }
+
+    /**
+     * Writes the pending events, stops the writer thread and closes the sink.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer thread
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        this.running = false;
+        Thread current = this.writer;
+        if (current == null) {
+            return;
+        }
+        LockSupport.unpark(current);
+        current.join(shutdownTimeout.toMillis());
+        if (current.isAlive()) {
+            logger.warn("Audit writer did not stop within " + shutdownTimeout + ", the sink is left open");
+            return;
+        }
+        try {
+            sink.close();
+        } catch (Exception ex) {
+            logger.warn("Failed to close the audit sink", ex);
+        }
+    }
+
+    @Override
+    public void authenticationSucceeded(Jwt jwt) {
+        record(AuditEventType.AUTHENTICATION_SUCCESS, jwt, null, 0L, 0L, null);
+    }
+
+    @Override
+    public void authenticationSucceeded(Jwt jwt, UserIdentity identity) {
+        record(AuditEventType.AUTHENTICATION_SUCCESS, null, identity.subject(), identity.userId(),
+                identity.companyId(), null);
+    }
+
+    @Override
+    public void authenticationFailed(SecurityMetrics.DecodeFailure reason) {
+        record(AuditEventType.AUTHENTICATION_FAILURE, null, null, 0L, 0L, reason.name());
+    }
+
+    @Override
+    public void tenantAccessed(UserIdentity identity, String resource, boolean granted) {
+        AuditEventType type = granted ? AuditEventType.TENANT_ACCESS_GRANTED : AuditEventType.TENANT_ACCESS_DENIED;
+        if (identity == null) {
+            record(type, null, null, 0L, 0L, resource);
+        } else {
+            record(type, null, identity.subject(), identity.userId(), identity.companyId(), resource);
+        }
+    }
+
+    /**
+     * Sets what to do with events when the buffer is full. Defaults to {@link OverflowPolicy#DROP}.
+     *
+     * @param overflowPolicy the overflow policy
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        Assert.notNull(overflowPolicy, "overflowPolicy cannot be null");
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Sets how long the {@link OverflowPolicy#BLOCK} policy waits for a free slot. Defaults to 10ms.
+     *
+     * @param blockTimeout the maximum wait
+     */
+    public void setBlockTimeout(Duration blockTimeout) {
+        Assert.isTrue(blockTimeout != null && !blockTimeout.isNegative(), "blockTimeout cannot be negative");
+        this.blockTimeout = blockTimeout;
+    }
+
+    /**
+     * Sets the maximum number of events passed to the sink at once. Defaults to 256.
+     *
+     * @param batchSize the maximum batch size
+     */
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets how long the writer sleeps when the buffer is empty, which bounds the
+     * delay before an event reaches the sink. Defaults to 50ms.
+     *
+     * @param idleWait the idle sleep time
+     */
+    public void setIdleWait(Duration idleWait) {
+        Assert.isTrue(idleWait != null && !idleWait.isNegative() && !idleWait.isZero(), "idleWait must be positive");
+        this.idleWait = idleWait;
+    }
+
+    /**
+     * Sets how long {@link #destroy()} waits for the pending events to be written. Defaults to 5s.
+     *
+     * @param shutdownTimeout the maximum wait
+     */
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        Assert.isTrue(shutdownTimeout != null && !shutdownTimeout.isNegative(), "shutdownTimeout cannot be negative");
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Sets the clock timestamping the events.
+     *
+     * @param clock the clock
+     */
+    public void setClock(Clock clock) {
+        Assert.notNull(clock, "clock cannot be null");
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the number of slots of the buffer.
+     *
+     * @return the buffer capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the approximate number of events waiting to be written.
+     *
+     * @return the queue depth
+     */
+    public long getQueueDepth() {
+        return Math.max(0L, tail.get() - head);
+    }
+
+    /**
+     * Returns the number of events dropped because the buffer was full.
+     *
+     * @return the dropped event count
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of events written to the sink.
+     *
+     * @return the written event count
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * Returns the number of batches the sink failed to write.
+     *
+     * @return the sink failure count
+     */
+    public long getSinkFailureCount() {
+        return sinkFailures.sum();
+    }
+
+    private void record(AuditEventType type, Jwt jwt, String subject, long userId, long companyId, String detail) {
+        long timestamp = clock.millis();
+        if (publish(type, timestamp, jwt, subject, userId, companyId, detail)) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK && running) {
+            long deadline = System.nanoTime() + blockTimeout.toNanos();
+            LockSupport.unpark(writer);
+            do {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (publish(type, timestamp, jwt, subject, userId, companyId, detail)) {
+                    return;
+                }
+            } while (System.nanoTime() - deadline < 0);
+        }
+        dropped.increment();
+    }
+
+    private boolean publish(AuditEventType type, long timestamp, Jwt jwt, String subject, long userId,
+                            long companyId, String detail) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    types[index] = type;
+                    timestamps[index] = timestamp;
+                    tokens[index] = jwt;
+                    subjects[index] = subject;
+                    userIds[index] = userId;
+                    companyIds[index] = companyId;
+                    details[index] = detail;
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the slot still holds the event of the previous lap: the buffer is full
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private void drain() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        boolean unflushed = false;
+        while (true) {
+            boolean stopping = !running;
+            if (poll(batch)) {
+                write(batch);
+                batch.clear();
+                unflushed = true;
+                continue;
+            }
+            if (unflushed) {
+                flush();
+                unflushed = false;
+            }
+            if (stopping) {
+                return;
+            }
+            LockSupport.parkNanos(this, idleWait.toNanos());
+        }
+    }
+
+    private boolean poll(List<AuditEvent> batch) {
+        long position = head;
+        while (batch.size() < batchSize) {
+            int index = (int) (position & mask);
+            if (sequences.getAcquire(index) != position + 1) {
+                break;
+            }
+            batch.add(toEvent(index));
+            tokens[index] = null;
+            subjects[index] = null;
+            details[index] = null;
+            sequences.setRelease(index, position + capacity);
+            position++;
+        }
+        head = position;
+        return !batch.isEmpty();
+    }
+
+    private AuditEvent toEvent(int index) {
+        Instant timestamp = Instant.ofEpochMilli(timestamps[index]);
+        Jwt jwt = tokens[index];
+        if (jwt == null) {
+            return new AuditEvent(types[index], timestamp, subjects[index], userIds[index], companyIds[index],
+                    details[index]);
+        }
+        try {
+            UserIdentity identity = identityExtractor.extract(jwt.getClaims());
+            return new AuditEvent(types[index], timestamp, identity.subject(), identity.userId(),
+                    identity.companyId(), details[index]);
+        } catch (RuntimeException ex) {
+            return new AuditEvent(types[index], timestamp, jwt.getSubject(), 0L, 0L, details[index]);
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        try {
+            sink.write(batch);
+            written.add(batch.size());
+            failing = false;
+        } catch (Exception ex) {
+            sinkFailures.increment();
+            if (!failing) {
+                logger.warn("Failed to write " + batch.size() + " audit events, dropping them", ex);
+                failing = true;
+            }
+        }
+    }
+
+    private void flush() {
+        try {
+            sink.flush();
+        } catch (Exception ex) {
+            sinkFailures.increment();
+            if (!failing) {
+                logger.warn("Failed to flush the audit sink", ex);
+                failing = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.kush.securitycommon.audit;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the security audit events.
+ *
+ * <p>Sinks are called from the single writer thread of an {@link AuditLog}, so
+ * they need not be thread-safe, and may block on I/O without slowing requests
+ * down. Events are passed in batches, in the order they were recorded.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see FileAuditSink
+ * @see LoggingAuditSink
+ * @see InMemoryAuditSink
+ */
+public interface AuditSink {
+
+    /**
+     * Writes a batch of events.
+     *
+     * @param events the events, never empty
+     * @throws IOException if the events could not be written; the batch is then dropped
+     */
+    void write(List<AuditEvent> events) throws IOException;
+
+    /**
+     * Flushes buffered events. Called when no more events are pending.
+     *
+     * @throws IOException if the events could not be flushed
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * Releases the resources of the sink. Called once, after the last batch.
+     *
+     * @throws IOException if the sink could not be closed
+     */
+    default void close() throws IOException {
+    }
+}
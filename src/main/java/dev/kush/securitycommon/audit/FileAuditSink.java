@@ -0,0 +1,175 @@
+package dev.kush.securitycommon.audit;
+
+import org.springframework.util.Assert;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link AuditSink} appending events to a file as JSON lines.
+ *
+ * <p>Each event is written as one JSON object, for example:</p>
+ * <pre>{@code
+ * {"type":"tenant_access_denied","timestamp":"2025-01-01T10:00:00Z","sub":"auth0|42","userId":42,"companyId":7,"detail":"OrderService.findOrders"}
+ * }</pre>
+ *
+ * <p>When a maximum file size is set, the file is rolled before it would grow
+ * past it: "audit.jsonl" is renamed to "audit.jsonl.1", the previous
+ * "audit.jsonl.1" to "audit.jsonl.2", and so on up to the maximum history, the
+ * oldest file being deleted. Output is buffered and flushed whenever the writer
+ * has no more pending events.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public class FileAuditSink implements AuditSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+
+    private final long maxFileSize;
+
+    private final int maxHistory;
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private OutputStream output;
+
+    private long size;
+
+    /**
+     * Creates a sink appending to a file without rolling it.
+     *
+     * @param file the file to append to
+     */
+    public FileAuditSink(Path file) {
+        this(file, 0, 0);
+    }
+
+    /**
+     * Creates a sink appending to a file rolled by size.
+     *
+     * @param file        the file to append to
+     * @param maxFileSize the size in bytes the file is rolled at, or 0 to never roll it
+     * @param maxHistory  the number of rolled files kept
+     */
+    public FileAuditSink(Path file, long maxFileSize, int maxHistory) {
+        Assert.notNull(file, "file cannot be null");
+        Assert.isTrue(maxFileSize >= 0, "maxFileSize cannot be negative");
+        Assert.isTrue(maxHistory >= 0, "maxHistory cannot be negative");
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxHistory = maxHistory;
+    }
+
+    @Override
+    public void write(List<AuditEvent> events) throws IOException {
+        if (output == null) {
+            open();
+        }
+        for (AuditEvent event : events) {
+            line.setLength(0);
+            appendJson(event);
+            line.append('\n');
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            if (maxFileSize > 0 && size > 0 && size + bytes.length > maxFileSize) {
+                roll();
+            }
+            output.write(bytes);
+            size += bytes.length;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (output != null) {
+            output.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (output != null) {
+            output.close();
+            output = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        output = new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), BUFFER_SIZE);
+        size = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        close();
+        if (maxHistory == 0) {
+            Files.deleteIfExists(file);
+        } else {
+            Files.deleteIfExists(rolled(maxHistory));
+            for (int i = maxHistory - 1; i >= 1; i--) {
+                Path source = rolled(i);
+                if (Files.exists(source)) {
+                    Files.move(source, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        open();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void appendJson(AuditEvent event) {
+        line.append("{\"type\":\"").append(event.type().name().toLowerCase(Locale.ROOT))
+                .append("\",\"timestamp\":\"").append(event.timestamp()).append('"');
+        if (event.subject() != null) {
+            line.append(",\"sub\":");
+            appendString(event.subject());
+        }
+        line.append(",\"userId\":").append(event.userId())
+                .append(",\"companyId\":").append(event.companyId());
+        if (event.detail() != null) {
+            line.append(",\"detail\":");
+            appendString(event.detail());
+        }
+        line.append('}');
+    }
+
+    private void appendString(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,68 @@
+package dev.kush.securitycommon.audit;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * {@link AuditSink} keeping the most recent events in memory.
+ *
+ * <p>Intended for tests and diagnostics: the events written by the audit log can
+ * be read back with {@link #getEvents()}. Once the capacity is reached, the
+ * oldest events are discarded.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public class InMemoryAuditSink implements AuditSink {
+
+    private final int capacity;
+
+    private final Deque<AuditEvent> events;
+
+    /**
+     * Creates a sink keeping up to 10000 events.
+     */
+    public InMemoryAuditSink() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a sink keeping up to the given number of events.
+     *
+     * @param capacity the maximum number of events kept
+     */
+    public InMemoryAuditSink(int capacity) {
+        Assert.isTrue(capacity > 0, "capacity must be positive");
+        this.capacity = capacity;
+        this.events = new ArrayDeque<>(Math.min(capacity, 1024));
+    }
+
+    @Override
+    public synchronized void write(List<AuditEvent> batch) {
+        for (AuditEvent event : batch) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    /**
+     * Returns the events kept, oldest first.
+     *
+     * @return a copy of the events
+     */
+    public synchronized List<AuditEvent> getEvents() {
+        return List.copyOf(events);
+    }
+
+    /**
+     * Discards the events kept.
+     */
+    public synchronized void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,67 @@
+package dev.kush.securitycommon.audit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * {@link AuditSink} writing events to a logger, by default "security.audit".
+ *
+ * <p>Rolling, retention and formatting are left to the logging backend, for
+ * example a dedicated rolling file appender for the audit logger. Events are
+ * logged at INFO level, failures and denials included, as one line each:</p>
+ * <pre>{@code
+ * TENANT_ACCESS_DENIED sub=auth0|42 userId=42 companyId=7 detail=OrderService.findOrders
+ * }</pre>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public class LoggingAuditSink implements AuditSink {
+
+    /**
+     * Name of the default audit logger.
+     */
+    public static final String DEFAULT_LOGGER_NAME = "security.audit";
+
+    private final Log logger;
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    /**
+     * Creates a sink writing to the "security.audit" logger.
+     */
+    public LoggingAuditSink() {
+        this(DEFAULT_LOGGER_NAME);
+    }
+
+    /**
+     * Creates a sink writing to the given logger.
+     *
+     * @param loggerName the name of the logger
+     */
+    public LoggingAuditSink(String loggerName) {
+        Assert.hasText(loggerName, "loggerName cannot be empty");
+        this.logger = LogFactory.getLog(loggerName);
+    }
+
+    @Override
+    public void write(List<AuditEvent> events) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        for (AuditEvent event : events) {
+            line.setLength(0);
+            line.append(event.type())
+                    .append(" sub=").append(event.subject())
+                    .append(" userId=").append(event.userId())
+                    .append(" companyId=").append(event.companyId());
+            if (event.detail() != null) {
+                line.append(" detail=").append(event.detail());
+            }
+            logger.info(line.toString());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package dev.kush.securitycommon.authorization;
+
+import dev.kush.securitycommon.common.SecurityAudit;
+import dev.kush.securitycommon.common.UserUtils;
+import dev.kush.securitycommon.common.UserUtilsAutoConfiguration;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.Pointcuts;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.authorization.method.AuthorizationInterceptorsOrder;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+
+/**
+ * Auto-configuration enforcing {@link RequireIdentity} on Spring beans.
+ *
+ * <p>Registers an advisor running the {@link IdentityAuthorizationManager} before
+ * methods annotated with {@link RequireIdentity}, directly or through their type,
+ * in the same position as {@code @PreAuthorize}. Denied calls throw an
+ * {@code AuthorizationDeniedException}, handled like any other method security
+ * failure. The check is enabled by default and can be switched off with
+ * "identity.method-security.enabled=false".</p>
+ *
+ * <p>The advisor is an infrastructure bean, so it is applied by the auto-proxy
+ * creator registered by Spring Boot's AOP auto-configuration or by
+ * {@code @EnableMethodSecurity}.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+@AutoConfiguration(after = UserUtilsAutoConfiguration.class)
+@ConditionalOnProperty(name = "identity.method-security.enabled", havingValue = "true", matchIfMissing = true)
+public class IdentityAuthorizationAutoConfiguration {
+
+    /**
+     * Registers the advisor checking {@link RequireIdentity} annotations.
+     *
+     * <p>Declared static and resolving {@link UserUtils} and the audit lazily, so
+     * that creating the advisor does not initialize the configuration or other
+     * beans early.</p>
+     *
+     * @param userUtils     the UserUtils providing the current user's identity
+     * @param securityAudit the optional audit recording company and user scoped decisions
+     * @return the method interceptor
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnMissingBean(name = "requireIdentityAuthorizationAdvisor")
+    public static Advisor requireIdentityAuthorizationAdvisor(ObjectProvider<UserUtils> userUtils,
+                                                              ObjectProvider<SecurityAudit> securityAudit) {
+        IdentityAuthorizationManager authorizationManager = new IdentityAuthorizationManager(userUtils::getObject);
+        authorizationManager.setSecurityAudit(() -> securityAudit.getIfAvailable(() -> SecurityAudit.NOOP));
+        AnnotationMatchingPointcut onType = new AnnotationMatchingPointcut(RequireIdentity.class, true);
+        AnnotationMatchingPointcut onMethod = new AnnotationMatchingPointcut(null, RequireIdentity.class, true);
+        AuthorizationManagerBeforeMethodInterceptor interceptor = new AuthorizationManagerBeforeMethodInterceptor(
+                Pointcuts.union(onType, onMethod),
+                authorizationManager);
+        interceptor.setOrder(AuthorizationInterceptorsOrder.PRE_AUTHORIZE.getOrder());
+        return interceptor;
+    }
+}
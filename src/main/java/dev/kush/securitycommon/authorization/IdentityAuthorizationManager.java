@@ -0,0 +1,256 @@
+package dev.kush.securitycommon.authorization;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.kush.securitycommon.common.SecurityAudit;
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserUtils;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * {@link AuthorizationManager} enforcing {@link RequireIdentity} on method invocations.
+ *
+ * <p>Each annotated method is compiled once into a check holding the accepted
+ * authorities and the positions of the company and user id parameters. A call
+ * then costs a few hash lookups and comparisons:</p>
+ * <ul>
+ * <li>roles are matched against the authorities of the authentication, i.e. the
+ * "ROLE_" prefixed roles mapped by the {@code JwtAuthenticationConverter}; the
+ * authority names are collected once per authentication, which is only weakly
+ * referenced, so they are collected with it once the request ends;</li>
+ * <li>company and user ids are compared with {@link UserUtils#getCurrentIdentity()},
+ * which extracts the claims once per authentication.</li>
+ * </ul>
+ *
+ * <p>Both inputs are memoized per token, so secured services called in a loop
+ * within a request neither re-extract claims nor re-scan authorities. The decision
+ * itself is then cheaper than looking it up, so it is not cached.</p>
+ *
+ * <p>Arguments may be numbers or numeric strings; a null or non-numeric argument
+ * is denied, and so is any argument when the token lacks the company or user id,
+ * which {@code UserUtils} reports as {@code 0L}. Decisions on company or user
+ * scoped methods are recorded to the {@link SecurityAudit}, if set, as
+ * "SimpleClassName.methodName".</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see IdentityAuthorizationAutoConfiguration
+ */
+public class IdentityAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final IdentityCheck NO_CHECK = new IdentityCheck(Set.of(), -1, -1, "");
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final Map<MethodClassKey, IdentityCheck> checks = new ConcurrentHashMap<>();
+
+    private final Cache<Authentication, Set<String>> grantedAuthorityNames = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final Supplier<UserUtils> userUtils;
+
+    private Supplier<SecurityAudit> securityAudit = () -> SecurityAudit.NOOP;
+
+    /**
+     * Creates a new authorization manager.
+     *
+     * @param userUtils the UserUtils providing the current user's identity
+     */
+    public IdentityAuthorizationManager(UserUtils userUtils) {
+        Assert.notNull(userUtils, "userUtils cannot be null");
+        this.userUtils = () -> userUtils;
+    }
+
+    /**
+     * Creates a new authorization manager resolving the UserUtils on first use.
+     *
+     * @param userUtils the supplier of the UserUtils providing the current user's identity
+     */
+    public IdentityAuthorizationManager(Supplier<UserUtils> userUtils) {
+        Assert.notNull(userUtils, "userUtils cannot be null");
+        this.userUtils = SingletonSupplier.of(userUtils);
+    }
+
+    /**
+     * Sets the audit recording company and user scoped decisions. Defaults to {@link SecurityAudit#NOOP}.
+     *
+     * @param securityAudit the audit to record to
+     */
+    public void setSecurityAudit(SecurityAudit securityAudit) {
+        Assert.notNull(securityAudit, "securityAudit cannot be null");
+        this.securityAudit = () -> securityAudit;
+    }
+
+    /**
+     * Sets the audit recording company and user scoped decisions, resolved on first use.
+     *
+     * @param securityAudit the supplier of the audit to record to
+     */
+    void setSecurityAudit(Supplier<SecurityAudit> securityAudit) {
+        Assert.notNull(securityAudit, "securityAudit cannot be null");
+        this.securityAudit = SingletonSupplier.of(securityAudit);
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        return check(authentication, invocation);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        IdentityCheck check = compiledCheck(invocation);
+        if (check == NO_CHECK) {
+            return new AuthorizationDecision(true);
+        }
+        Authentication current = authentication.get();
+        if (current == null || !current.isAuthenticated()) {
+            return new AuthorizationDecision(false);
+        }
+        boolean granted = check.test(this, current, invocation.getArguments());
+        if (check.tenantScoped()) {
+            audit(check, granted);
+        }
+        return new AuthorizationDecision(granted);
+    }
+
+    private void audit(IdentityCheck check, boolean granted) {
+        SecurityAudit audit = securityAudit.get();
+        if (audit == SecurityAudit.NOOP) {
+            return;
+        }
+        UserIdentity identity;
+        try {
+            identity = userUtils.get().getCurrentIdentity();
+        } catch (IllegalStateException ex) {
+            // denied on roles before the identity was read, for a principal without one
+            identity = null;
+        }
+        audit.tenantAccessed(identity, check.resource(), granted);
+    }
+
+    private IdentityCheck compiledCheck(MethodInvocation invocation) {
+        Object target = invocation.getThis();
+        Class<?> targetClass = target != null ? AopUtils.getTargetClass(target) : invocation.getMethod().getDeclaringClass();
+        return checks.computeIfAbsent(new MethodClassKey(invocation.getMethod(), targetClass),
+                key -> compile(invocation.getMethod(), targetClass));
+    }
+
+    private IdentityCheck compile(Method method, Class<?> targetClass) {
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        RequireIdentity annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, RequireIdentity.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, RequireIdentity.class);
+        }
+        if (annotation == null) {
+            return NO_CHECK;
+        }
+        Set<String> authorities = new HashSet<>();
+        for (String role : annotation.roles()) {
+            authorities.add(role.startsWith("ROLE_") ? role : "ROLE_" + role);
+        }
+        String[] parameterNames = parameterNameDiscoverer.getParameterNames(specificMethod);
+        return new IdentityCheck(Set.copyOf(authorities),
+                parameterIndex(specificMethod, parameterNames, annotation.sameCompany()),
+                parameterIndex(specificMethod, parameterNames, annotation.sameUser()),
+                ClassUtils.getShortName(targetClass) + "." + method.getName());
+    }
+
+    private static int parameterIndex(Method method, String[] parameterNames, String name) {
+        if (name.isEmpty()) {
+            return -1;
+        }
+        List<String> names = parameterNames == null ? List.of() : Arrays.asList(parameterNames);
+        int index = names.indexOf(name);
+        if (index < 0) {
+            throw new IllegalStateException("@RequireIdentity on " + method + " references parameter '" + name
+                    + "', but the parameters are " + names + " (is the code compiled with -parameters?)");
+        }
+        return index;
+    }
+
+    private Set<String> authorityNames(Authentication authentication) {
+        Set<String> names = grantedAuthorityNames.getIfPresent(authentication);
+        if (names == null) {
+            names = new HashSet<>();
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                names.add(authority.getAuthority());
+            }
+            grantedAuthorityNames.put(authentication, names);
+        }
+        return names;
+    }
+
+    private static boolean matches(Object argument, long expected) {
+        if (expected == 0L) {
+            // the claim is missing, so there is no company or user to compare with
+            return false;
+        }
+        if (argument instanceof Number number) {
+            return number.longValue() == expected;
+        }
+        if (argument instanceof CharSequence text) {
+            try {
+                return Long.parseLong(text.toString().trim()) == expected;
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiled form of a {@link RequireIdentity} annotation.
+     */
+    private record IdentityCheck(Set<String> authorities, int companyParameter, int userParameter, String resource) {
+
+        boolean tenantScoped() {
+            return companyParameter >= 0 || userParameter >= 0;
+        }
+
+        boolean test(IdentityAuthorizationManager manager, Authentication authentication, Object[] arguments) {
+            if (!authorities.isEmpty()) {
+                Set<String> granted = manager.authorityNames(authentication);
+                boolean any = false;
+                for (String authority : authorities) {
+                    if (granted.contains(authority)) {
+                        any = true;
+                        break;
+                    }
+                }
+                if (!any) {
+                    return false;
+                }
+            }
+            if (!tenantScoped()) {
+                return true;
+            }
+            UserIdentity identity = manager.userUtils.get().getCurrentIdentity();
+            return (companyParameter < 0 || matches(arguments[companyParameter], identity.companyId()))
+                    && (userParameter < 0 || matches(arguments[userParameter], identity.userId()));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dev.kush.securitycommon.authorization;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Typed authorization check on the roles and tenant of the current user.
+ *
+ * <p>It replaces common {@code @PreAuthorize} expressions with checks compiled
+ * once per method, which do not evaluate SpEL on every call:</p>
+ *
+ * <pre>{@code
+ * // instead of @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER') and #companyId == @userUtils.currentCompanyId")
+ * @RequireIdentity(roles = {"ADMIN", "MANAGER"}, sameCompany = "companyId")
+ * public List<Order> findOrders(long companyId) { ... }
+ * }</pre>
+ *
+ * <p>All the given checks must pass. On a type, the annotation applies to every
+ * method without its own annotation. Parameters are referenced by name, so the
+ * code must be compiled with "-parameters", as Spring Boot's build plugins do.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see IdentityAuthorizationManager
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequireIdentity {
+
+    /**
+     * Roles of which the user must have at least one, without the "ROLE_" prefix.
+     *
+     * @return the accepted roles, empty for no role check
+     */
+    String[] roles() default {};
+
+    /**
+     * Name of the parameter holding a company id that must be the user's company.
+     *
+     * @return the parameter name, empty for no company check
+     */
+    String sameCompany() default "";
+
+    /**
+     * Name of the parameter holding a user id that must be the user's own id.
+     *
+     * @return the parameter name, empty for no user check
+     */
+    String sameUser() default "";
+}
@@ -0,0 +1,56 @@
+package dev.kush.securitycommon.batch;
+
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import dev.kush.securitycommon.jwk.JwkSourceAutoConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+/**
+ * Auto-configuration for the batch identity resolver.
+ *
+ * <p>Registers a {@link BatchIdentityResolver} when a {@link JwtDecoder} bean is
+ * available. Message consumers without a web server get one by enabling
+ * "identity.jwks.prefetch.enabled" with a JWK set URI.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.batch.parallel" - verify large batches on the common fork-join pool (default false)</li>
+ * <li>"identity.batch.parallel-threshold" - minimum number of distinct tokens for a batch
+ * to be verified in parallel (default 64)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see BatchIdentityResolver
+ */
+@AutoConfiguration(after = JwkSourceAutoConfiguration.class,
+        afterName = "org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration")
+@ConditionalOnBean(JwtDecoder.class)
+public class BatchIdentityAutoConfiguration {
+
+    /**
+     * Creates the batch identity resolver.
+     *
+     * @param jwtDecoder        the decoder verifying the tokens
+     * @param identityExtractor the extractor reading the identity claims
+     * @param parallel          whether large batches are verified in parallel
+     * @param parallelThreshold the minimum number of distinct tokens for parallel verification
+     * @return the batch identity resolver
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public BatchIdentityResolver batchIdentityResolver(
+            JwtDecoder jwtDecoder,
+            UserIdentityExtractor identityExtractor,
+            @Value("${identity.batch.parallel:false}") boolean parallel,
+            @Value("${identity.batch.parallel-threshold:64}") int parallelThreshold) {
+        BatchIdentityResolver resolver = new BatchIdentityResolver(jwtDecoder, identityExtractor);
+        resolver.setParallel(parallel);
+        resolver.setParallelThreshold(parallelThreshold);
+        return resolver;
+    }
+}
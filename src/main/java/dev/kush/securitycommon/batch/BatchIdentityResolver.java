@@ -0,0 +1,149 @@
+package dev.kush.securitycommon.batch;
+
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Resolves the identities carried by a batch of raw tokens.
+ *
+ * <p>Message consumers receive tokens outside of any request, for example in a
+ * record header, and have no security context for {@code UserUtils} to read. This
+ * resolver verifies the tokens with the application's {@link JwtDecoder} and
+ * extracts the same {@link UserIdentity} that the {@code UserUtils} accessors expose,
+ * without touching thread-local state:</p>
+ *
+ * <pre>{@code
+ * List<BatchIdentityResult> results = batchIdentityResolver.resolve(tokens);
+ * for (int i = 0; i < records.size(); i++) {
+ *     UserIdentity identity = results.get(i).getIdentityOrThrow();
+ *     ...
+ * }
+ * }</pre>
+ *
+ * <ul>
+ * <li>Identical tokens in a batch are verified once and share one result.</li>
+ * <li>With the decoder auto-configured by "identity.jwks.prefetch.enabled", each
+ * distinct signing key is converted and gets its verifier built once, see
+ * {@link dev.kush.securitycommon.jwk.CachingJWSKeySelector}.</li>
+ * <li>When parallel resolution is enabled, batches with at least
+ * {@link #setParallelThreshold(int) the threshold} of distinct tokens are verified
+ * on the common fork-join pool.</li>
+ * </ul>
+ *
+ * <p>A rejected token does not fail the batch; its result carries the error.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see BatchIdentityAutoConfiguration
+ */
+public class BatchIdentityResolver {
+
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+
+    private final JwtDecoder jwtDecoder;
+
+    private final UserIdentityExtractor identityExtractor;
+
+    private boolean parallel;
+
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Creates a new resolver.
+     *
+     * @param jwtDecoder        the decoder verifying the tokens
+     * @param identityExtractor the extractor reading the identity claims
+     */
+    public BatchIdentityResolver(JwtDecoder jwtDecoder, UserIdentityExtractor identityExtractor) {
+        Assert.notNull(jwtDecoder, "jwtDecoder cannot be null");
+        Assert.notNull(identityExtractor, "identityExtractor cannot be null");
+        this.jwtDecoder = jwtDecoder;
+        this.identityExtractor = identityExtractor;
+    }
+
+    /**
+     * Resolves the identity of each token.
+     *
+     * @param tokens the raw tokens, without the "Bearer " prefix
+     * @return one result per token, in the same order
+     */
+    public List<BatchIdentityResult> resolve(List<String> tokens) {
+        Assert.notNull(tokens, "tokens cannot be null");
+        int size = tokens.size();
+        // position of each token in the list of distinct tokens
+        int[] slots = new int[size];
+        Map<String, Integer> distinctSlots = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String token = tokens.get(i);
+            Integer slot = distinctSlots.putIfAbsent(token, distinct.size());
+            if (slot == null) {
+                slots[i] = distinct.size();
+                distinct.add(token);
+            } else {
+                slots[i] = slot;
+            }
+        }
+
+        BatchIdentityResult[] distinctResults = new BatchIdentityResult[distinct.size()];
+        IntStream indexes = IntStream.range(0, distinctResults.length);
+        if (parallel && distinctResults.length >= parallelThreshold) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> distinctResults[i] = resolve(distinct.get(i)));
+
+        BatchIdentityResult[] results = new BatchIdentityResult[size];
+        for (int i = 0; i < size; i++) {
+            results[i] = distinctResults[slots[i]];
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Resolves the identity of a single token.
+     *
+     * @param token the raw token, without the "Bearer " prefix
+     * @return the result
+     */
+    public BatchIdentityResult resolve(String token) {
+        if (token == null || token.isEmpty()) {
+            return new BatchIdentityResult(null, new JwtException("Token cannot be empty"));
+        }
+        try {
+            Jwt jwt = jwtDecoder.decode(token);
+            return new BatchIdentityResult(identityExtractor.extract(jwt.getClaims()), null);
+        } catch (JwtException ex) {
+            return new BatchIdentityResult(null, ex);
+        }
+    }
+
+    /**
+     * Sets whether large batches are verified in parallel. Defaults to {@code false}.
+     *
+     * @param parallel whether to verify in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Sets the minimum number of distinct tokens for a batch to be verified in parallel. Defaults to 64.
+     *
+     * @param parallelThreshold the minimum number of distinct tokens
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        Assert.isTrue(parallelThreshold > 0, "parallelThreshold must be positive");
+        this.parallelThreshold = parallelThreshold;
+    }
+}
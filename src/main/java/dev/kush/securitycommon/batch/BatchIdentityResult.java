@@ -0,0 +1,41 @@
+package dev.kush.securitycommon.batch;
+
+import dev.kush.securitycommon.common.UserIdentity;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Outcome of resolving one token of a batch.
+ *
+ * <p>Exactly one of {@code identity} and {@code error} is set. Identical tokens of
+ * a batch share the same result instance.</p>
+ *
+ * @param identity the resolved identity, or null if the token was rejected
+ * @param error    the reason the token was rejected, or null if it was resolved
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see BatchIdentityResolver
+ */
+public record BatchIdentityResult(UserIdentity identity, JwtException error) {
+
+    /**
+     * Returns whether the token was verified and its identity resolved.
+     *
+     * @return true if {@link #identity()} is set
+     */
+    public boolean isResolved() {
+        return identity != null;
+    }
+
+    /**
+     * Returns the resolved identity.
+     *
+     * @return the identity
+     * @throws JwtException the rejection reason, if the token was rejected
+     */
+    public UserIdentity getIdentityOrThrow() {
+        if (error != null) {
+            throw error;
+        }
+        return identity;
+    }
+}
@@ -0,0 +1,196 @@
+package dev.kush.securitycommon.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.Assert;
+
+/**
+ * Base class for UserUtils implementations backed by a {@link UserIdentityExtractor}.
+ *
+ * <p>The claims of the current {@link Authentication} are converted into a
+ * {@link UserIdentity} only once. The resulting snapshot is memoized against the
+ * {@code Authentication} instance, so repeated calls such as
+ * {@link #getCurrentUserId()} followed by {@link #getCurrentCompanyId()} within the
+ * same request perform an identity lookup instead of re-walking the claim maps.
+ * The authentication is only weakly referenced, so the snapshot is collected with
+ * it once the request ends and pooled threads do not retain the bearer token.</p>
+ *
+ * <p>The memoized snapshot also holds the boxed ids, so for authentications read
+ * from the security context the {@code Long} accessors do not allocate once the
+ * snapshot exists.</p>
+ *
+ * <p>An identity bound with {@link UserIdentityContext} takes precedence over the
+ * security context, which makes the accessors usable in executor tasks and
+ * structured-concurrency subtasks that do not inherit the security context. Bound
+ * identities are not memoized, so their {@code Long} accessors box the ids on each
+ * call.</p>
+ *
+ * <p>Accessors returning their default {@code 0L} or {@code ""} because the claim is
+ * missing are counted with {@link SecurityMetrics#recordFallback}. To fill missing
+ * attributes from the application's own data instead, define an
+ * {@code IdentityEnrichmentLoader} bean.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see UserIdentity
+ * @see UserIdentityExtractor
+ */
+public abstract class AbstractUserUtils implements UserUtils {
+
+    private final UserIdentityExtractor identityExtractor;
+
+    /**
+     * Snapshots keyed by the identity of the {@code Authentication}, which is immutable
+     * for token-based authentications. The keys are weak and the snapshots do not
+     * reference them, so an entry lives exactly as long as its authentication.
+     */
+    private final Cache<Authentication, IdentitySnapshot> snapshots = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    private SecurityMetrics securityMetrics = SecurityMetrics.NOOP;
+
+    /**
+     * Creates a new instance extracting identities with the given extractor.
+     *
+     * @param identityExtractor the provider-specific identity extractor
+     */
+    protected AbstractUserUtils(UserIdentityExtractor identityExtractor) {
+        this.identityExtractor = identityExtractor;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The identity is extracted once per authentication and memoized.</p>
+     */
+    @Override
+    public UserIdentity getCurrentIdentity() {
+        return currentSnapshot().identity;
+    }
+
+    @Override
+    public String getCurrentUserEmail() {
+        return currentSnapshot().identity.email();
+    }
+
+    @Override
+    public String getCurrentUserSubjectId() {
+        return currentSnapshot().identity.subject();
+    }
+
+    @Override
+    public Long getCurrentUserId() {
+        IdentitySnapshot snapshot = currentSnapshot();
+        if (snapshot.identity.userId() == 0L) {
+            securityMetrics.recordFallback(SecurityMetrics.Fallback.USER_ID);
+        }
+        return snapshot.userId;
+    }
+
+    @Override
+    public Long getCurrentCompanyId() {
+        IdentitySnapshot snapshot = currentSnapshot();
+        if (snapshot.identity.companyId() == 0L) {
+            securityMetrics.recordFallback(SecurityMetrics.Fallback.COMPANY_ID);
+        }
+        return snapshot.companyId;
+    }
+
+    @Override
+    public String getCurrentCompanyName() {
+        String companyName = currentSnapshot().identity.companyName();
+        if (companyName.isEmpty()) {
+            securityMetrics.recordFallback(SecurityMetrics.Fallback.COMPANY_NAME);
+        }
+        return companyName;
+    }
+
+    @Override
+    public String getCurrentUserRole() {
+        return currentSnapshot().identity.role();
+    }
+
+    /**
+     * Returns the identity extractor used by this instance.
+     *
+     * @return the identity extractor
+     */
+    public UserIdentityExtractor getIdentityExtractor() {
+        return identityExtractor;
+    }
+
+    /**
+     * Sets the metrics recording accessor fallbacks. Defaults to {@link SecurityMetrics#NOOP}.
+     *
+     * @param securityMetrics the metrics to record to
+     */
+    public void setSecurityMetrics(SecurityMetrics securityMetrics) {
+        Assert.notNull(securityMetrics, "securityMetrics cannot be null");
+        this.securityMetrics = securityMetrics;
+    }
+
+    /**
+     * Extracts the identity for the given authentication.
+     *
+     * <p>A {@link UserIdentityAuthenticationToken} already carries its decoded
+     * identity, which is returned as is. For opaque tokens, the identity is
+     * extracted from the attributes of the introspection response.</p>
+     *
+     * @param authentication the current authentication
+     * @return the extracted identity
+     * @throws IllegalStateException if the principal is neither a {@link Jwt} nor an
+     *                               {@link OAuth2AuthenticatedPrincipal}
+     */
+    protected UserIdentity resolveIdentity(Authentication authentication) {
+        if (authentication instanceof UserIdentityAuthenticationToken token) {
+            return token.getIdentity();
+        }
+        if (authentication.getPrincipal() instanceof Jwt jwt) {
+            return identityExtractor.extract(jwt.getClaims());
+        }
+        if (authentication.getPrincipal() instanceof OAuth2AuthenticatedPrincipal principal) {
+            return identityExtractor.extract(principal.getAttributes());
+        }
+        throw new IllegalStateException("Unsupported principal type: "
+                + authentication.getPrincipal().getClass().getName());
+    }
+
+    private IdentitySnapshot currentSnapshot() {
+        UserIdentity bound = UserIdentityContext.current();
+        if (bound != null) {
+            // already extracted; not memoized, so the ids are boxed again on each call
+            return new IdentitySnapshot(bound);
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new IllegalStateException("No authentication found in the security context");
+        }
+        IdentitySnapshot snapshot = snapshots.getIfPresent(authentication);
+        if (snapshot == null) {
+            snapshot = new IdentitySnapshot(resolveIdentity(authentication));
+            snapshots.put(authentication, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Identity memoized for one authentication, with the ids boxed once.
+     */
+    private static final class IdentitySnapshot {
+
+        private final UserIdentity identity;
+        private final Long userId;
+        private final Long companyId;
+
+        private IdentitySnapshot(UserIdentity identity) {
+            this.identity = identity;
+            this.userId = identity.userId();
+            this.companyId = identity.companyId();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.util.Assert;
+
+/**
+ * {@link JwtDecoder} recording decode failures to {@link SecurityAudit}.
+ *
+ * <p>Failures are classified like the decoder metrics, see
+ * {@link InstrumentedJwtDecoder#classify(JwtException)}. Successful decodes are not
+ * recorded here but by the authentication converters, which see every
+ * authenticated request, including those served by the decoded-token cache.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see SecurityAudit
+ */
+public class AuditingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+
+    private final SecurityAudit securityAudit;
+
+    /**
+     * Creates a new auditing decoder.
+     *
+     * @param delegate      the decoder performing the actual decoding
+     * @param securityAudit the audit to record to
+     */
+    public AuditingJwtDecoder(JwtDecoder delegate, SecurityAudit securityAudit) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(securityAudit, "securityAudit cannot be null");
+        this.delegate = delegate;
+        this.securityAudit = securityAudit;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        try {
+            return delegate.decode(token);
+        } catch (JwtException ex) {
+            securityAudit.authenticationFailed(InstrumentedJwtDecoder.classify(ex));
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the decoder performing the actual decoding.
+     *
+     * @return the delegate decoder
+     */
+    public JwtDecoder getDelegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,25 @@
+package dev.kush.securitycommon.common;
+
+/**
+ * Auth0 implementation of the UserIdentityExtractor interface.
+ *
+ * <p>Auth0 JWT tokens carry the user and company information within the
+ * "details.app_metadata" claim, while the email and roles are exposed as the
+ * "details.email" and "details.roles" claims. The user ID, company ID and company
+ * name are read from the "erp_user_id", "company_id" and "company_name" entries of
+ * "details.app_metadata", and the role is the first entry of "details.roles".</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see Auth0UserUtils
+ * @see ClaimMapping#auth0()
+ */
+public class Auth0UserIdentityExtractor extends ClaimMappingUserIdentityExtractor {
+
+    /**
+     * Creates a new extractor using the Auth0 claim layout.
+     */
+    public Auth0UserIdentityExtractor() {
+        super(ClaimMapping.auth0());
+    }
+}
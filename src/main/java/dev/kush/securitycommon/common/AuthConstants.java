@@ -56,6 +56,13 @@ public class AuthConstants {
 
     // Auth0 related constants
 
+    /**
+     * Auth0 access token type.
+     * Auth0 access tokens carry this value in the "typ" JOSE header, which is
+     * verified when decoding tokens for the "auth0" identity provider.
+     */
+    public static final String AUTH0_ACCESS_TOKEN_TYPE = "at+jwt";
+
     /**
      * Auth0 JWT claim name for the user ID.
      * Used to extract the user's internal ID from Auth0 JWT tokens.
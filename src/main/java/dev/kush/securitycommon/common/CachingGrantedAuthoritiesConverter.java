@@ -0,0 +1,193 @@
+package dev.kush.securitycommon.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Granted authorities converter that reuses authority instances across requests.
+ *
+ * <p>It maps the role claim to authorities like Spring Security's
+ * {@code JwtGrantedAuthoritiesConverter} (a space-delimited string or a list of
+ * strings, each prefixed with the authority prefix), but avoids rebuilding them on
+ * every request:</p>
+ * <ul>
+ * <li>each distinct role is converted once into a canonical {@link GrantedAuthority},
+ * so equal roles share the same authority and authority string instances;</li>
+ * <li>the authority collection is memoized per distinct role set, so tokens of users
+ * with the same roles convert with a single cache lookup;</li>
+ * <li>roles starting with one of the excluded prefixes, such as Keycloak's
+ * {@code default-*} roles, can be dropped before conversion.</li>
+ * </ul>
+ *
+ * <p>The returned collections are immutable and shared. Both caches are bounded;
+ * once a bound is reached, new roles are converted without being cached.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see JwtCustomizerConfig
+ */
+public class CachingGrantedAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+    private static final int DEFAULT_MAXIMUM_ROLES = 10_000;
+
+    private static final long DEFAULT_MAXIMUM_ROLE_SETS = 1_024;
+
+    private final ClaimPath authoritiesClaim;
+
+    private final String authorityPrefix;
+
+    private final List<String> excludedRolePrefixes;
+
+    private final int maximumRoles;
+
+    private final ConcurrentMap<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+
+    private final Cache<Object, Collection<GrantedAuthority>> roleSets;
+
+    /**
+     * Creates a new converter with the default cache bounds.
+     *
+     * @param authoritiesClaimName the claim holding the roles
+     * @param authorityPrefix      the prefix added to each role, e.g. "ROLE_"
+     * @param excludedRolePrefixes roles starting with any of these prefixes are dropped
+     */
+    public CachingGrantedAuthoritiesConverter(String authoritiesClaimName, String authorityPrefix,
+                                              Collection<String> excludedRolePrefixes) {
+        this(claimPath(authoritiesClaimName), authorityPrefix, excludedRolePrefixes);
+    }
+
+    /**
+     * Creates a new converter with the default cache bounds, reading the roles from a nested claim.
+     *
+     * @param authoritiesClaim     the path of the claim holding the roles
+     * @param authorityPrefix      the prefix added to each role, e.g. "ROLE_"
+     * @param excludedRolePrefixes roles starting with any of these prefixes are dropped
+     */
+    public CachingGrantedAuthoritiesConverter(ClaimPath authoritiesClaim, String authorityPrefix,
+                                              Collection<String> excludedRolePrefixes) {
+        this(authoritiesClaim, authorityPrefix, excludedRolePrefixes, DEFAULT_MAXIMUM_ROLES,
+                DEFAULT_MAXIMUM_ROLE_SETS);
+    }
+
+    /**
+     * Creates a new converter.
+     *
+     * @param authoritiesClaimName the claim holding the roles
+     * @param authorityPrefix      the prefix added to each role, e.g. "ROLE_"
+     * @param excludedRolePrefixes roles starting with any of these prefixes are dropped
+     * @param maximumRoles         the maximum number of canonical authorities kept
+     * @param maximumRoleSets      the maximum number of memoized role sets
+     */
+    public CachingGrantedAuthoritiesConverter(String authoritiesClaimName, String authorityPrefix,
+                                              Collection<String> excludedRolePrefixes,
+                                              int maximumRoles, long maximumRoleSets) {
+        this(claimPath(authoritiesClaimName), authorityPrefix, excludedRolePrefixes, maximumRoles, maximumRoleSets);
+    }
+
+    /**
+     * Creates a new converter reading the roles from a nested claim.
+     *
+     * @param authoritiesClaim     the path of the claim holding the roles
+     * @param authorityPrefix      the prefix added to each role, e.g. "ROLE_"
+     * @param excludedRolePrefixes roles starting with any of these prefixes are dropped
+     * @param maximumRoles         the maximum number of canonical authorities kept
+     * @param maximumRoleSets      the maximum number of memoized role sets
+     */
+    public CachingGrantedAuthoritiesConverter(ClaimPath authoritiesClaim, String authorityPrefix,
+                                              Collection<String> excludedRolePrefixes,
+                                              int maximumRoles, long maximumRoleSets) {
+        Assert.notNull(authoritiesClaim, "authoritiesClaim cannot be null");
+        Assert.notNull(authorityPrefix, "authorityPrefix cannot be null");
+        Assert.isTrue(maximumRoles >= 0, "maximumRoles cannot be negative");
+        this.authoritiesClaim = authoritiesClaim;
+        this.authorityPrefix = authorityPrefix;
+        this.excludedRolePrefixes = excludedRolePrefixes == null ? List.of() : List.copyOf(excludedRolePrefixes);
+        this.maximumRoles = maximumRoles;
+        this.roleSets = Caffeine.newBuilder()
+                .maximumSize(maximumRoleSets)
+                .build();
+    }
+
+    @Override
+    public Collection<GrantedAuthority> convert(Jwt jwt) {
+        Object roles = authoritiesClaim.resolve(jwt.getClaims());
+        if (roles == null) {
+            return List.of();
+        }
+        // a List claim is its own lookup key: List equality is element-wise
+        Object key = roles instanceof Collection<?> collection && !(roles instanceof List<?>)
+                ? new ArrayList<>(collection)
+                : roles;
+        Collection<GrantedAuthority> cached = roleSets.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        Collection<GrantedAuthority> converted = toAuthorities(roles);
+        Object immutableKey = key instanceof List<?> list ? immutableCopy(list) : key;
+        if (immutableKey != null) {
+            roleSets.put(immutableKey, converted);
+        }
+        return converted;
+    }
+
+    private Collection<GrantedAuthority> toAuthorities(Object roles) {
+        List<GrantedAuthority> converted = new ArrayList<>();
+        if (roles instanceof String string) {
+            for (String role : StringUtils.tokenizeToStringArray(string, " ")) {
+                addAuthority(converted, role);
+            }
+        } else if (roles instanceof Collection<?> collection) {
+            for (Object role : collection) {
+                if (role != null) {
+                    addAuthority(converted, role.toString());
+                }
+            }
+        }
+        return List.copyOf(converted);
+    }
+
+    private void addAuthority(List<GrantedAuthority> converted, String role) {
+        for (String excludedPrefix : excludedRolePrefixes) {
+            if (role.startsWith(excludedPrefix)) {
+                return;
+            }
+        }
+        GrantedAuthority authority = authorities.get(role);
+        if (authority == null) {
+            authority = new SimpleGrantedAuthority(authorityPrefix + role);
+            if (authorities.size() < maximumRoles) {
+                GrantedAuthority existing = authorities.putIfAbsent(role, authority);
+                if (existing != null) {
+                    authority = existing;
+                }
+            }
+        }
+        converted.add(authority);
+    }
+
+    private static ClaimPath claimPath(String authoritiesClaimName) {
+        Assert.hasText(authoritiesClaimName, "authoritiesClaimName cannot be empty");
+        return ClaimPath.of(authoritiesClaimName);
+    }
+
+    private static List<?> immutableCopy(List<?> list) {
+        for (Object element : list) {
+            if (element == null) {
+                return null;
+            }
+        }
+        return List.copyOf(list);
+    }
+}
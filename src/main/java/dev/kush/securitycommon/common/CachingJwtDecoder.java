@@ -0,0 +1,216 @@
+package dev.kush.securitycommon.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@link JwtDecoder} that caches successfully decoded tokens.
+ *
+ * <p>Clients such as single page applications send the same access token many
+ * times during its lifetime. This decoder keeps the {@link Jwt} produced by the
+ * delegate for each distinct token, so signature verification and claim
+ * validation run once per token instead of once per request.</p>
+ *
+ * <ul>
+ * <li>Entries are keyed by the SHA-256 hash of the raw token; the token value is
+ * compared again on every hit, so a hash collision can only cause a miss.</li>
+ * <li>Entries expire at the token's "exp" claim, and never later than the
+ * configured maximum time to live.</li>
+ * <li>The cache is bounded and evicts with Caffeine's W-TinyLFU policy.</li>
+ * <li>Failed decodes are never cached.</li>
+ * </ul>
+ *
+ * <p>Note that a cached token stays accepted until it leaves the cache even if its
+ * signing key is removed from the JWK set in the meantime; the maximum time to live
+ * bounds that window.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see JwtDecoderCacheConfiguration
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(CachingJwtDecoder::sha256);
+
+    private final JwtDecoder delegate;
+
+    private final Cache<TokenHash, Jwt> cache;
+
+    private final Clock clock;
+
+    /**
+     * Creates a new caching decoder.
+     *
+     * @param delegate       the decoder performing the actual verification
+     * @param maximumSize    the maximum number of cached tokens
+     * @param maxTimeToLive  the maximum time a token stays cached, regardless of its expiry
+     */
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration maxTimeToLive) {
+        this(delegate, maximumSize, maxTimeToLive, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a new caching decoder using the given clock to evaluate token expiry.
+     *
+     * @param delegate       the decoder performing the actual verification
+     * @param maximumSize    the maximum number of cached tokens
+     * @param maxTimeToLive  the maximum time a token stays cached, regardless of its expiry
+     * @param clock          the clock used to compute the remaining token lifetime
+     */
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration maxTimeToLive, Clock clock) {
+        this(delegate, maximumSize, maxTimeToLive, clock, Ticker.systemTicker());
+    }
+
+    /**
+     * Creates a new caching decoder using the given time sources for token expiry and evictions.
+     *
+     * @param delegate       the decoder performing the actual verification
+     * @param maximumSize    the maximum number of cached tokens
+     * @param maxTimeToLive  the maximum time a token stays cached, regardless of its expiry
+     * @param clock          the clock used to compute the remaining token lifetime
+     * @param ticker         the nanosecond time source of the cache, {@link System#nanoTime()} by default
+     */
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration maxTimeToLive, Clock clock,
+                             Ticker ticker) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+        Assert.isTrue(maxTimeToLive != null && !maxTimeToLive.isNegative(), "maxTimeToLive cannot be negative");
+        Assert.notNull(clock, "clock cannot be null");
+        Assert.notNull(ticker, "ticker cannot be null");
+        this.delegate = delegate;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(maxTimeToLive))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        TokenHash key = TokenHash.of(token);
+        Jwt cached = cache.getIfPresent(key);
+        if (cached != null && cached.getTokenValue().equals(token)) {
+            return cached;
+        }
+        Jwt jwt = delegate.decode(token);
+        cache.put(key, jwt);
+        return jwt;
+    }
+
+    /**
+     * Returns the decoder performing the actual verification.
+     *
+     * @return the delegate decoder
+     */
+    public JwtDecoder getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the number of decodes served from the cache.
+     *
+     * @return the cache hit count
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * Returns the number of decodes delegated because the token was not cached.
+     *
+     * @return the cache miss count
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * Returns the number of tokens evicted because the cache was full.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    /**
+     * Returns the approximate number of cached tokens.
+     *
+     * @return the estimated cache size
+     */
+    public long getEstimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * SHA-256 of a raw token, held as four longs to keep the key compact.
+     */
+    private record TokenHash(long h0, long h1, long h2, long h3) {
+
+        static TokenHash of(String token) {
+            MessageDigest digest = SHA_256.get();
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenHash(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    /**
+     * Expires each entry when its token expires, capped by the maximum time to live.
+     */
+    private final class TokenExpiry implements Expiry<TokenHash, Jwt> {
+
+        private final Duration maxTimeToLive;
+
+        private TokenExpiry(Duration maxTimeToLive) {
+            this.maxTimeToLive = maxTimeToLive;
+        }
+
+        @Override
+        public long expireAfterCreate(TokenHash key, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            if (expiresAt == null) {
+                return maxTimeToLive.toNanos();
+            }
+            Instant now = clock.instant();
+            if (!expiresAt.isAfter(now)) {
+                return 0L;
+            }
+            Duration remaining = Duration.between(now, expiresAt);
+            return remaining.compareTo(maxTimeToLive) < 0 ? remaining.toNanos() : maxTimeToLive.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenHash key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenHash key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where an identity provider puts each {@link UserIdentity} field in its tokens.
+ *
+ * <p>Presets exist for Auth0 and Keycloak, see {@link #forProvider(String)}. Other
+ * identity providers are supported by configuring the paths, either in code or
+ * through the "identity.claims.*" properties, without adding new classes.</p>
+ *
+ * @param subject                     the path of the subject
+ * @param email                       the path of the email address
+ * @param userId                      the path of the internal user ID
+ * @param companyId                   the path of the company ID
+ * @param companyName                 the path of the company name
+ * @param roles                       the path of the roles
+ * @param primaryRoleExcludedPrefixes roles starting with one of these prefixes are never
+ *                                    chosen as the primary role, e.g. Keycloak's "default-"
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see ClaimPath
+ * @see ClaimMappingUserIdentityExtractor
+ */
+public record ClaimMapping(ClaimPath subject, ClaimPath email, ClaimPath userId, ClaimPath companyId,
+                           ClaimPath companyName, ClaimPath roles, List<String> primaryRoleExcludedPrefixes) {
+
+    /**
+     * Field names accepted by {@link #withPaths(Map)}.
+     */
+    public static final List<String> FIELD_NAMES =
+            List.of("subject", "email", "user-id", "company-id", "company-name", "roles");
+
+    /**
+     * Creates a new mapping. Paths must not be null.
+     */
+    public ClaimMapping {
+        if (subject == null || email == null || userId == null || companyId == null
+                || companyName == null || roles == null) {
+            throw new IllegalArgumentException("claim paths cannot be null");
+        }
+        primaryRoleExcludedPrefixes = primaryRoleExcludedPrefixes == null
+                ? List.of()
+                : List.copyOf(primaryRoleExcludedPrefixes);
+    }
+
+    /**
+     * Returns the Auth0 claim layout.
+     *
+     * <p>The user and company information is read from the "details.app_metadata"
+     * claim, the email and roles from the "details.email" and "details.roles" claims.
+     * These claim names contain dots and are single top-level keys.</p>
+     *
+     * @return the Auth0 mapping
+     */
+    public static ClaimMapping auth0() {
+        return new ClaimMapping(
+                ClaimPath.of(JwtClaimNames.SUB),
+                ClaimPath.of(AuthConstants.AUTH0_EMAIL_CLAIM),
+                ClaimPath.of(AuthConstants.AUTH0_APP_METADATA_CLAIM, AuthConstants.AUTH0_USER_ID_CLAIM),
+                ClaimPath.of(AuthConstants.AUTH0_APP_METADATA_CLAIM, AuthConstants.AUTH0_COMPANY_ID_CLAIM),
+                ClaimPath.of(AuthConstants.AUTH0_APP_METADATA_CLAIM, AuthConstants.AUTH0_COMPANY_NAME_CLAIM),
+                ClaimPath.of(AuthConstants.AUTH0_ROLE_CLAIM),
+                List.of());
+    }
+
+    /**
+     * Returns the Keycloak claim layout.
+     *
+     * <p>The user and company information is read from the "details" claim, the email
+     * and roles from the top-level "email" and "roles" claims. Keycloak's
+     * {@code default-*} realm roles are never chosen as the primary role.</p>
+     *
+     * @return the Keycloak mapping
+     */
+    public static ClaimMapping keycloak() {
+        return new ClaimMapping(
+                ClaimPath.of(JwtClaimNames.SUB),
+                ClaimPath.of(AuthConstants.KEYCLOAK_EMAIL_CLAIM),
+                ClaimPath.of(AuthConstants.KEYCLOAK_DETAILS_CLAIM, AuthConstants.KEYCLOAK_USER_ID_CLAIM),
+                ClaimPath.of(AuthConstants.KEYCLOAK_DETAILS_CLAIM, AuthConstants.KEYCLOAK_COMPANY_ID_CLAIM),
+                ClaimPath.of(AuthConstants.KEYCLOAK_DETAILS_CLAIM, AuthConstants.KEYCLOAK_COMPANY_NAME_CLAIM),
+                ClaimPath.of(AuthConstants.KEYCLOAK_ROLE_CLAIM),
+                List.of("default-"));
+    }
+
+    /**
+     * Returns a copy of this mapping with some paths replaced.
+     *
+     * <p>The keys are the field names used by the "identity.claims.*" properties:
+     * "subject", "email", "user-id", "company-id", "company-name" and "roles". The
+     * values are compiled with {@link ClaimPath#compile(String)}; blank values and
+     * fields without an entry keep the path of this mapping.</p>
+     *
+     * @param expressions the path expression of each replaced field
+     * @return the resulting mapping
+     * @throws IllegalArgumentException if a key is unknown or an expression is malformed
+     */
+    public ClaimMapping withPaths(Map<String, String> expressions) {
+        for (String name : expressions.keySet()) {
+            if (!FIELD_NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown claim '" + name + "', expected one of " + FIELD_NAMES);
+            }
+        }
+        return new ClaimMapping(
+                path(expressions, "subject", subject),
+                path(expressions, "email", email),
+                path(expressions, "user-id", userId),
+                path(expressions, "company-id", companyId),
+                path(expressions, "company-name", companyName),
+                path(expressions, "roles", roles),
+                primaryRoleExcludedPrefixes);
+    }
+
+    /**
+     * Returns a copy of this mapping with other primary role excluded prefixes.
+     *
+     * @param prefixes roles starting with one of these prefixes are never chosen as the primary role
+     * @return the resulting mapping
+     */
+    public ClaimMapping withPrimaryRoleExcludedPrefixes(List<String> prefixes) {
+        return new ClaimMapping(subject, email, userId, companyId, companyName, roles, prefixes);
+    }
+
+    /**
+     * Returns the preset matching the configured identity provider.
+     *
+     * @param identityProvider the configured identity provider (e.g. "keycloak" or "auth0")
+     * @return the Keycloak mapping for "keycloak", otherwise the Auth0 mapping
+     */
+    public static ClaimMapping forProvider(String identityProvider) {
+        return "keycloak".equalsIgnoreCase(identityProvider) ? keycloak() : auth0();
+    }
+
+    private static ClaimPath path(Map<String, String> expressions, String name, ClaimPath current) {
+        String expression = expressions.get(name);
+        return expression == null || expression.isBlank() ? current : ClaimPath.compile(expression.trim());
+    }
+}
@@ -0,0 +1,73 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UserIdentityExtractor reading each field through the compiled paths of a {@link ClaimMapping}.
+ *
+ * <p>Missing claims fall back to the defaults documented on {@link UserIdentity}.
+ * The role is the first entry of the roles claim that does not start with one of
+ * the mapping's primary role excluded prefixes.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see ClaimMapping
+ */
+public class ClaimMappingUserIdentityExtractor implements UserIdentityExtractor {
+
+    private final ClaimMapping claimMapping;
+
+    /**
+     * Creates a new extractor.
+     *
+     * @param claimMapping the claim layout of the identity provider
+     */
+    public ClaimMappingUserIdentityExtractor(ClaimMapping claimMapping) {
+        Assert.notNull(claimMapping, "claimMapping cannot be null");
+        this.claimMapping = claimMapping;
+    }
+
+    @Override
+    public UserIdentity extract(Map<String, Object> claims) {
+        List<String> roles = claimMapping.roles().resolveStringList(claims);
+        return new UserIdentity(
+                claimMapping.subject().resolveString(claims, null),
+                claimMapping.email().resolveString(claims, null),
+                claimMapping.userId().resolveLong(claims),
+                claimMapping.companyId().resolveLong(claims),
+                claimMapping.companyName().resolveString(claims, ""),
+                primaryRole(roles),
+                roles);
+    }
+
+    /**
+     * Returns the claim layout used by this extractor.
+     *
+     * @return the claim mapping
+     */
+    public ClaimMapping getClaimMapping() {
+        return claimMapping;
+    }
+
+    private String primaryRole(List<String> roles) {
+        List<String> excludedPrefixes = claimMapping.primaryRoleExcludedPrefixes();
+        for (String candidate : roles) {
+            if (!startsWithAny(candidate, excludedPrefixes)) {
+                return candidate;
+            }
+        }
+        return "";
+    }
+
+    private static boolean startsWithAny(String role, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (role.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
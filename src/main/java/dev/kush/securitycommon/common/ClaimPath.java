@@ -0,0 +1,297 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled accessor for a claim nested in a token's claims.
+ *
+ * <p>A path is parsed once, typically at startup, into a sequence of map keys and
+ * list indexes. Resolving it walks the claim maps directly, without splitting
+ * strings or going through Spring's claim conversion service, and the typed
+ * accessors convert the value in place: integral numbers are read with
+ * {@link Number#longValue()} and strings are parsed, so no intermediate boxed or
+ * string value is created.</p>
+ *
+ * <p>Path syntax:</p>
+ * <ul>
+ * <li>{@code details.company_id} - the "company_id" entry of the "details" claim</li>
+ * <li>{@code roles[0]} - the first element of the "roles" claim</li>
+ * <li>{@code ["details.app_metadata"].erp_user_id} - a quoted key, for claim names
+ * containing dots, such as Auth0 custom claims</li>
+ * <li>{@code ["https://example.com/company_id"]} - a namespaced claim</li>
+ * </ul>
+ *
+ * <p>Instances are immutable and thread-safe. Resolving a path never throws: a
+ * missing entry, a value of the wrong type or an index out of bounds resolves to
+ * {@code null}, and the typed accessors return their default value.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see ClaimMapping
+ */
+public final class ClaimPath {
+
+    private final String expression;
+
+    /**
+     * Map key of each segment, or null for a list index segment.
+     */
+    private final String[] keys;
+
+    /**
+     * List index of each segment, or -1 for a map key segment.
+     */
+    private final int[] indexes;
+
+    private ClaimPath(String expression, String[] keys, int[] indexes) {
+        this.expression = expression;
+        this.keys = keys;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Compiles a path expression.
+     *
+     * @param expression the path, see the class documentation for the syntax
+     * @return the compiled path
+     * @throws IllegalArgumentException if the expression is empty or malformed
+     */
+    public static ClaimPath compile(String expression) {
+        Assert.hasText(expression, "expression cannot be empty");
+        List<String> keys = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int length = expression.length();
+        int position = 0;
+        boolean expectKey = true;
+        while (position < length) {
+            char c = expression.charAt(position);
+            if (c == '[') {
+                int end = expression.indexOf(']', position);
+                if (end < 0) {
+                    throw invalid(expression, "unclosed '['");
+                }
+                String content = expression.substring(position + 1, end);
+                char quote = content.isEmpty() ? 0 : content.charAt(0);
+                if (quote == '"' || quote == '\'') {
+                    end = expression.indexOf(quote + "]", position + 2);
+                    if (end < 0) {
+                        throw invalid(expression, "unclosed quoted key");
+                    }
+                    keys.add(expression.substring(position + 2, end));
+                    indexes.add(-1);
+                    position = end + 2;
+                } else {
+                    keys.add(null);
+                    indexes.add(parseIndex(expression, content));
+                    position = end + 1;
+                }
+                expectKey = false;
+            } else if (c == '.') {
+                if (expectKey) {
+                    throw invalid(expression, "empty key at position " + position);
+                }
+                expectKey = true;
+                position++;
+            } else {
+                if (!expectKey) {
+                    throw invalid(expression, "expected '.' or '[' at position " + position);
+                }
+                int end = position;
+                while (end < length && expression.charAt(end) != '.' && expression.charAt(end) != '[') {
+                    end++;
+                }
+                keys.add(expression.substring(position, end));
+                indexes.add(-1);
+                position = end;
+                expectKey = false;
+            }
+        }
+        if (expectKey) {
+            throw invalid(expression, "trailing '.'");
+        }
+        int[] indexArray = new int[indexes.size()];
+        for (int i = 0; i < indexArray.length; i++) {
+            indexArray[i] = indexes.get(i);
+        }
+        return new ClaimPath(expression, keys.toArray(new String[0]), indexArray);
+    }
+
+    /**
+     * Creates a path from literal map keys, which are not parsed.
+     *
+     * <p>For example {@code ClaimPath.of("details.app_metadata", "company_id")} reads
+     * the "company_id" entry of the claim named "details.app_metadata".</p>
+     *
+     * @param keys the map key of each level
+     * @return the path
+     */
+    public static ClaimPath of(String... keys) {
+        Assert.notEmpty(keys, "keys cannot be empty");
+        Assert.noNullElements(keys, "keys cannot contain null elements");
+        StringBuilder expression = new StringBuilder();
+        int[] indexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            expression.append("[\"").append(keys[i]).append("\"]");
+            indexes[i] = -1;
+        }
+        return new ClaimPath(expression.toString(), keys.clone(), indexes);
+    }
+
+    /**
+     * Resolves the raw claim value.
+     *
+     * @param claims the token claims
+     * @return the value, or null if the path does not resolve
+     */
+    public Object resolve(Map<String, Object> claims) {
+        Object current = claims;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                if (!(current instanceof Map<?, ?> map)) {
+                    return null;
+                }
+                current = map.get(keys[i]);
+            } else {
+                if (!(current instanceof List<?> list) || indexes[i] >= list.size()) {
+                    return null;
+                }
+                current = list.get(indexes[i]);
+            }
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Resolves the claim as a {@code long}.
+     *
+     * @param claims the token claims
+     * @return the numeric value, or 0L if missing or not an integer
+     */
+    public long resolveLong(Map<String, Object> claims) {
+        return ClaimValues.asLong(resolve(claims));
+    }
+
+    /**
+     * Resolves the claim as a {@link String}.
+     *
+     * @param claims       the token claims
+     * @param defaultValue the value returned when the claim is missing
+     * @return the string form of the value, or {@code defaultValue} if missing
+     */
+    public String resolveString(Map<String, Object> claims, String defaultValue) {
+        return ClaimValues.asString(resolve(claims), defaultValue);
+    }
+
+    /**
+     * Resolves the claim as a list of strings. A single string is a one-element list.
+     *
+     * @param claims the token claims
+     * @return the values as strings, or an empty list if missing
+     */
+    public List<String> resolveStringList(Map<String, Object> claims) {
+        return ClaimValues.asStringList(resolve(claims));
+    }
+
+    /**
+     * Sets the claim at this path, creating the missing intermediate maps and lists.
+     *
+     * <p>This is the inverse of {@link #resolve(Map)}, used to build claims laid out
+     * like the tokens of an identity provider, for example for synthetic tokens.
+     * Lists are padded with {@code null} up to the index.</p>
+     *
+     * @param claims the mutable claims to write to
+     * @param value  the claim value
+     * @throws IllegalArgumentException if an existing claim on the path is not a map or a list as expected
+     */
+    @SuppressWarnings("unchecked")
+    public void put(Map<String, Object> claims, Object value) {
+        Assert.notNull(claims, "claims cannot be null");
+        Object current = claims;
+        int last = keys.length - 1;
+        for (int i = 0; i <= last; i++) {
+            Object next;
+            if (keys[i] != null) {
+                if (!(current instanceof Map<?, ?>)) {
+                    throw conflict(i);
+                }
+                Map<String, Object> map = (Map<String, Object>) current;
+                next = i == last ? value : map.get(keys[i]);
+                if (next == null && i < last) {
+                    next = container(i + 1);
+                }
+                map.put(keys[i], next);
+            } else {
+                if (!(current instanceof List<?>)) {
+                    throw conflict(i);
+                }
+                List<Object> list = (List<Object>) current;
+                while (list.size() <= indexes[i]) {
+                    list.add(null);
+                }
+                next = i == last ? value : list.get(indexes[i]);
+                if (next == null && i < last) {
+                    next = container(i + 1);
+                }
+                list.set(indexes[i], next);
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * Returns the expression this path was compiled from.
+     *
+     * @return the path expression
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ClaimPath other && expression.equals(other.expression);
+    }
+
+    @Override
+    public int hashCode() {
+        return expression.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private Object container(int segment) {
+        return keys[segment] != null ? new LinkedHashMap<String, Object>() : new ArrayList<>();
+    }
+
+    private IllegalArgumentException conflict(int segment) {
+        return new IllegalArgumentException("Claim path '" + expression
+                + "' conflicts with an existing claim at segment " + segment);
+    }
+
+    private static int parseIndex(String expression, String content) {
+        try {
+            int index = Integer.parseInt(content.trim());
+            if (index < 0) {
+                throw invalid(expression, "negative index " + index);
+            }
+            return index;
+        } catch (NumberFormatException ex) {
+            throw invalid(expression, "'" + content + "' is neither an index nor a quoted key");
+        }
+    }
+
+    private static IllegalArgumentException invalid(String expression, String reason) {
+        return new IllegalArgumentException("Invalid claim path '" + expression + "': " + reason);
+    }
+}
@@ -0,0 +1,94 @@
+package dev.kush.securitycommon.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lenient conversions for raw claim values.
+ *
+ * <p>Claim maps produced by the JWT decoder hold JSON values as {@link String},
+ * {@link Number}, {@link Boolean}, {@link Map} and {@link List} instances. These
+ * helpers convert them without going through Spring's claim conversion service,
+ * and never throw for missing or malformed values.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+final class ClaimValues {
+
+    private ClaimValues() {
+    }
+
+    /**
+     * Converts a claim value to a {@code long}.
+     *
+     * <p>Integral numbers are read directly, other values are parsed from their string
+     * form. Like {@link Long#parseLong(String)}, fractions such as {@code 12.0} and
+     * surrounding whitespace are not accepted.</p>
+     *
+     * @param value the raw claim value, may be null
+     * @return the numeric value, or 0L if the value is missing or not an integer
+     */
+    static long asLong(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Converts a claim value to a {@link String}.
+     *
+     * @param value        the raw claim value, may be null
+     * @param defaultValue the value returned when the claim is missing
+     * @return the string form of the value, or {@code defaultValue} if missing
+     */
+    static String asString(Object value, String defaultValue) {
+        return value == null ? defaultValue : value.toString();
+    }
+
+    /**
+     * Returns the claim value as a nested claim map.
+     *
+     * @param value the raw claim value, may be null
+     * @return the value as a map, or null if it is not a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> asMap(Object value) {
+        return value instanceof Map<?, ?> map ? (Map<String, Object>) map : null;
+    }
+
+    /**
+     * Converts a claim value to a list of strings.
+     *
+     * <p>A single string is treated as a one-element list, mirroring
+     * {@code ClaimAccessor#getClaimAsStringList}.</p>
+     *
+     * @param value the raw claim value, may be null
+     * @return the values as strings, or an empty list if missing
+     */
+    static List<String> asStringList(Object value) {
+        if (value instanceof Collection<?> collection) {
+            List<String> strings = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                if (element != null) {
+                    strings.add(element.toString());
+                }
+            }
+            return strings;
+        }
+        if (value == null) {
+            return List.of();
+        }
+        return List.of(value.toString());
+    }
+}
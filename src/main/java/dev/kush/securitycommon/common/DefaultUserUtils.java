@@ -0,0 +1,25 @@
+package dev.kush.securitycommon.common;
+
+/**
+ * UserUtils implementation for any identity provider.
+ *
+ * <p>The claims are read with the given {@link UserIdentityExtractor}, typically a
+ * {@link ClaimMappingUserIdentityExtractor} configured through the
+ * "identity.claims.*" properties. This is the implementation registered by
+ * {@link UserUtilsAutoConfiguration}.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see ClaimMapping
+ */
+public class DefaultUserUtils extends AbstractUserUtils {
+
+    /**
+     * Creates a new instance extracting identities with the given extractor.
+     *
+     * @param identityExtractor the identity extractor
+     */
+    public DefaultUserUtils(UserIdentityExtractor identityExtractor) {
+        super(identityExtractor);
+    }
+}
@@ -1,20 +1,21 @@
 package dev.kush.securitycommon.common;
 
-import com.nimbusds.jose.JOSEObjectType;
-import com.nimbusds.jose.proc.DefaultJOSEObjectTypeVerifier;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.JwkSetUriJwtDecoderBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
-import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -39,8 +40,21 @@ public class JwtCustomizerConfig {
      * FRONTEND_ORIGINS=http://localhost:5174,http://host.docker.internal:5174
      * or use "*" for permissive dev mode (no credentials).
      */
-    @Value("${frontend.origins:http://localhost:5174,http://host.docker.internal:5174}")
-    private String frontendOrigins;
+    private final String frontendOrigins;
+
+    /**
+     * Creates the configuration.
+     *
+     * <p>Values are injected through the constructor rather than into fields, so the
+     * configuration can be instantiated by the code generated for AOT processing
+     * without reflection.</p>
+     *
+     * @param frontendOrigins the comma separated allowed origins
+     */
+    public JwtCustomizerConfig(
+            @Value("${frontend.origins:http://localhost:5174,http://host.docker.internal:5174}") String frontendOrigins) {
+        this.frontendOrigins = frontendOrigins;
+    }
 
     /**
      * Parses the frontend origins from a comma-separated string.
@@ -62,47 +76,148 @@ public class JwtCustomizerConfig {
      * necessary because Auth0 access tokens have a specific JWT type that needs
      * to be explicitly validated.</p>
      * 
-     * <p>The customizer is only active when the identity provider is configured
-     * as "auth0" or when no identity provider is explicitly configured (default).</p>
+     * <p>The type is chosen when the customizer runs, from the "identity.provider"
+     * property: "at+jwt" for "auth0" or when no identity provider is explicitly
+     * configured (default), "JWT" or no type otherwise, which is the Nimbus default.
+     * The bean is registered unconditionally so that, with AOT processing, the
+     * identity provider is still read at runtime instead of at build time.</p>
      * 
+     * @param identityProvider the configured identity provider (e.g., "keycloak" or "auth0")
      * @return a JWT decoder builder customizer that sets up Auth0-compatible token validation
+     * @see JwtProcessorSupport#typeVerifier(String)
      */
     @Bean
-    @ConditionalOnProperty(name = "identity.provider", havingValue = "auth0", matchIfMissing = true)
-    public JwkSetUriJwtDecoderBuilderCustomizer customizer() {
+    public JwkSetUriJwtDecoderBuilderCustomizer customizer(@Value("${identity.provider:auth0}") String identityProvider) {
         return builder -> builder.jwtProcessorCustomizer(processor ->
-            processor.setJWSTypeVerifier(new DefaultJOSEObjectTypeVerifier<>(new JOSEObjectType("at+jwt")))
+            processor.setJWSTypeVerifier(JwtProcessorSupport.typeVerifier(identityProvider))
         );
     }
 
+    /**
+     * Creates the granted authorities converter shared by the authentication converters.
+     *
+     * <p>This converter extracts user roles from the roles claim of the configured
+     * {@link ClaimMapping} (by default the identity provider's preset, see
+     * "identity.claims.roles"). It sets the authority prefix to "ROLE_" to align with
+     * Spring Security's role conventions. Authority instances are reused across
+     * requests, and roles starting with one of the prefixes listed in
+     * "identity.roles.excluded-prefixes" (for example "default-") are dropped.</p>
+     *
+     * @param claimMapping         the claim mapping of the configured identity provider
+     * @param excludedRolePrefixes the role prefixes to drop before conversion
+     * @return a converter mapping the provider's role claim to "ROLE_" prefixed authorities
+     * @see CachingGrantedAuthoritiesConverter
+     */
+    @Bean
+    @ConditionalOnMissingBean(CachingGrantedAuthoritiesConverter.class)
+    CachingGrantedAuthoritiesConverter grantedAuthoritiesConverter(
+            ClaimMapping claimMapping,
+            @Value("${identity.roles.excluded-prefixes:}") String[] excludedRolePrefixes) {
+        List<String> excluded = Arrays.stream(excludedRolePrefixes)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        return new CachingGrantedAuthoritiesConverter(claimMapping.roles(), "ROLE_", excluded);
+    }
+
     /**
      * Creates a JWT authentication converter that extracts roles from JWT tokens.
      *
-     * <p>This converter is configured to extract user roles from the appropriate
-     * claim based on the configured identity provider (Keycloak or Auth0). It sets
-     * the authority prefix to "ROLE_" to align with Spring Security's role
-     * conventions.</p>
+     * <p>The roles are mapped to "ROLE_" prefixed authorities by the shared
+     * {@link CachingGrantedAuthoritiesConverter}.</p>
+     *
+     * <p>When a {@link SecurityMetrics} bean is available, the conversion time is
+     * recorded. {@code JwtAuthenticationConverter} cannot be extended, so the
+     * recorded time covers the authorities conversion, which is where its time is
+     * spent.</p>
+     *
+     * <p>When a {@link SecurityAudit} bean is available, each conversion is recorded
+     * as a successful authentication, for the same reason after the authorities
+     * conversion. The identity of the token is extracted by the audit, off the
+     * request path.</p>
      *
      * <p>The converter is only created if no other JwtAuthenticationConverter bean
      * is already defined in the application context.</p>
      *
-     * @param identityProvider the configured identity provider (e.g., "keycloak" or "auth0")
+     * @param grantedAuthoritiesConverter the converter mapping roles to authorities
+     * @param securityMetrics             the optional metrics recording the conversion time
+     * @param securityAudit               the optional audit recording successful authentications
      * @return a JwtAuthenticationConverter that extracts roles from the JWT token
      */
     @Bean
     @ConditionalOnMissingBean(JwtAuthenticationConverter.class)
-    JwtAuthenticationConverter jwtAuthenticationConverter(@Value("${identity.provider}") String identityProvider) {
+    JwtAuthenticationConverter jwtAuthenticationConverter(CachingGrantedAuthoritiesConverter grantedAuthoritiesConverter,
+                                                          ObjectProvider<SecurityMetrics> securityMetrics,
+                                                          ObjectProvider<SecurityAudit> securityAudit) {
         JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+        jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(
+                audited(timed(grantedAuthoritiesConverter, securityMetrics.getIfAvailable()),
+                        securityAudit.getIfAvailable()));
+        return jwtAuthenticationConverter;
+    }
 
-        JwtGrantedAuthoritiesConverter jwtGrantedAuthoritiesConverter = new JwtGrantedAuthoritiesConverter();
-        if ("keycloak".equalsIgnoreCase(identityProvider)) {
-            jwtGrantedAuthoritiesConverter.setAuthoritiesClaimName(AuthConstants.KEYCLOAK_ROLE_CLAIM);
-        } else {
-            jwtGrantedAuthoritiesConverter.setAuthoritiesClaimName(AuthConstants.AUTH0_ROLE_CLAIM);
+    /**
+     * Wraps the authorities converter so that each conversion is recorded, if metrics are available.
+     */
+    private static Converter<Jwt, Collection<GrantedAuthority>> timed(
+            Converter<Jwt, Collection<GrantedAuthority>> converter, SecurityMetrics securityMetrics) {
+        if (securityMetrics == null || securityMetrics == SecurityMetrics.NOOP) {
+            return converter;
         }
-        jwtGrantedAuthoritiesConverter.setAuthorityPrefix("ROLE_");
-        jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(jwtGrantedAuthoritiesConverter);
-        return jwtAuthenticationConverter;
+        return jwt -> {
+            long start = System.nanoTime();
+            try {
+                return converter.convert(jwt);
+            } finally {
+                securityMetrics.recordConversion(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Wraps the authorities converter so that each conversion is audited, if an audit is available.
+     */
+    private static Converter<Jwt, Collection<GrantedAuthority>> audited(
+            Converter<Jwt, Collection<GrantedAuthority>> converter, SecurityAudit securityAudit) {
+        if (securityAudit == null || securityAudit == SecurityAudit.NOOP) {
+            return converter;
+        }
+        return jwt -> {
+            Collection<GrantedAuthority> authorities = converter.convert(jwt);
+            securityAudit.authenticationSucceeded(jwt);
+            return authorities;
+        };
+    }
+
+    /**
+     * Creates a converter that produces {@link UserIdentityAuthenticationToken}s.
+     *
+     * <p>The token carries the user and tenant claims already decoded according to
+     * the configured {@link ClaimMapping},
+     * together with the same "ROLE_" prefixed authorities as
+     * {@link #jwtAuthenticationConverter(CachingGrantedAuthoritiesConverter, ObjectProvider, ObjectProvider)}. It has
+     * to be registered on the resource server explicitly, see
+     * {@link UserIdentityAuthenticationConverter}.</p>
+     *
+     * @param identityExtractor           the extractor reading the mapped identity claims
+     * @param grantedAuthoritiesConverter the converter mapping roles to authorities
+     * @param securityMetrics             the optional metrics recording the conversion time
+     * @param securityAudit               the optional audit recording successful authentications
+     * @return a converter producing tokens with pre-extracted identity claims
+     */
+    @Bean
+    @ConditionalOnMissingBean(UserIdentityAuthenticationConverter.class)
+    UserIdentityAuthenticationConverter userIdentityAuthenticationConverter(
+            UserIdentityExtractor identityExtractor,
+            CachingGrantedAuthoritiesConverter grantedAuthoritiesConverter,
+            ObjectProvider<SecurityMetrics> securityMetrics,
+            ObjectProvider<SecurityAudit> securityAudit) {
+        UserIdentityAuthenticationConverter converter = new UserIdentityAuthenticationConverter(
+                identityExtractor,
+                grantedAuthoritiesConverter);
+        securityMetrics.ifAvailable(converter::setSecurityMetrics);
+        securityAudit.ifAvailable(converter::setSecurityAudit);
+        return converter;
     }
 
     /**
@@ -0,0 +1,83 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Duration;
+
+/**
+ * Auto-configuration for the opt-in decoded-token cache.
+ *
+ * <p>When "identity.decoder.cache.enabled" is set to {@code true}, every
+ * {@link JwtDecoder} bean in the application context, including the one Spring Boot
+ * creates for the resource server, is wrapped in a {@link CachingJwtDecoder}. This
+ * works for both "auth0" and "keycloak" identity providers.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.decoder.cache.maximum-size" - maximum number of cached tokens (default 10000)</li>
+ * <li>"identity.decoder.cache.max-time-to-live" - upper bound on how long a token stays
+ * cached, regardless of its "exp" claim (default 10m)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see CachingJwtDecoder
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "identity.decoder.cache.enabled", havingValue = "true")
+public class JwtDecoderCacheConfiguration {
+
+    /**
+     * Creates a bean post processor wrapping JWT decoders in a {@link CachingJwtDecoder}.
+     *
+     * <p>The method is static so the post processor can be registered before the
+     * decoder beans are instantiated. It runs right after the prefilter, see
+     * {@link JwtPrefilterConfiguration}, so that cached tokens skip the prefilter
+     * while other decoder wrappers, such as {@link InstrumentedJwtDecoder}, are
+     * applied around the cache and also observe cache hits.</p>
+     *
+     * @param maximumSize   the maximum number of cached tokens
+     * @param maxTimeToLive the maximum time a token stays cached
+     * @return a bean post processor applying the decoded-token cache
+     */
+    @Bean
+    static CachingJwtDecoderPostProcessor cachingJwtDecoderPostProcessor(
+            @Value("${identity.decoder.cache.maximum-size:10000}") long maximumSize,
+            @Value("${identity.decoder.cache.max-time-to-live:10m}") Duration maxTimeToLive) {
+        return new CachingJwtDecoderPostProcessor(maximumSize, maxTimeToLive);
+    }
+
+    /**
+     * Bean post processor wrapping JWT decoders in a {@link CachingJwtDecoder}.
+     */
+    static final class CachingJwtDecoderPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final long maximumSize;
+
+        private final Duration maxTimeToLive;
+
+        private CachingJwtDecoderPostProcessor(long maximumSize, Duration maxTimeToLive) {
+            this.maximumSize = maximumSize;
+            this.maxTimeToLive = maxTimeToLive;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof JwtDecoder decoder && !(bean instanceof CachingJwtDecoder)) {
+                return new CachingJwtDecoder(decoder, maximumSize, maxTimeToLive);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package dev.kush.securitycommon.common;
+
+import dev.kush.securitycommon.jwk.JwkSourceAutoConfiguration;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Auto-configuration for the fast-reject token prefilter.
+ *
+ * <p>The resource server's {@link JwtDecoder}, as created by Spring Boot from the
+ * "spring.security.oauth2.resourceserver.jwt" properties or by
+ * {@link JwkSourceAutoConfiguration}, is wrapped in a {@link PrefilteringJwtDecoder},
+ * rejecting malformed, oversized, expired and foreign tokens before their signature
+ * is verified. The expected issuer and audiences are those of the resource server,
+ * and the "typ" rule is the one of the configured "identity.provider". The
+ * prefilter is enabled by default and can be switched off with
+ * "identity.decoder.prefilter.enabled=false".</p>
+ *
+ * <p>Decoder beans defined by the application are left alone, since they may
+ * accept other issuers, audiences or token types. They can be wrapped in a
+ * {@link PrefilteringJwtDecoder} explicitly.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.decoder.prefilter.max-token-length" - maximum length of a token (default 8192)</li>
+ * <li>"identity.decoder.prefilter.clock-skew" - clock skew allowed when checking "exp" (default 60s)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see PrefilteringJwtDecoder
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "identity.decoder.prefilter.enabled", havingValue = "true", matchIfMissing = true)
+public class JwtPrefilterConfiguration {
+
+    /**
+     * Creates a bean post processor wrapping JWT decoders in a {@link PrefilteringJwtDecoder}.
+     *
+     * <p>The method is static so the post processor can be registered before the
+     * decoder beans are instantiated. It runs with the highest precedence, before
+     * the decoded-token cache is applied around it, so that cached tokens are not
+     * parsed again.</p>
+     *
+     * @param identityProvider the configured identity provider (e.g., "keycloak" or "auth0")
+     * @param issuerUri        the expected issuer, if any
+     * @param audiences        the accepted audiences, if any
+     * @param maxTokenLength   the maximum length of a token
+     * @param clockSkew        the clock skew allowed when checking "exp"
+     * @return a bean post processor applying the prefilter
+     */
+    @Bean
+    static PrefilteringJwtDecoderPostProcessor prefilteringJwtDecoderPostProcessor(
+            @Value("${identity.provider:auth0}") String identityProvider,
+            @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri:}") String issuerUri,
+            @Value("${spring.security.oauth2.resourceserver.jwt.audiences:}") String[] audiences,
+            @Value("${identity.decoder.prefilter.max-token-length:8192}") int maxTokenLength,
+            @Value("${identity.decoder.prefilter.clock-skew:60s}") Duration clockSkew) {
+        List<String> audienceList = Arrays.stream(audiences)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        return new PrefilteringJwtDecoderPostProcessor(identityProvider, issuerUri, audienceList,
+                maxTokenLength, clockSkew);
+    }
+
+    /**
+     * Bean post processor wrapping the resource server's JWT decoder in a {@link PrefilteringJwtDecoder}.
+     *
+     * <p>A decoder is recognized by the configuration class declaring its factory
+     * method, which is known both with and without AOT processing.</p>
+     */
+    static final class PrefilteringJwtDecoderPostProcessor implements BeanPostProcessor, BeanFactoryAware, Ordered {
+
+        private static final Set<String> DECODER_CONFIGURATIONS = Set.of(
+                "org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerJwtConfiguration$JwtDecoderConfiguration",
+                JwkSourceAutoConfiguration.class.getName());
+
+        private ConfigurableListableBeanFactory beanFactory;
+
+        private final String identityProvider;
+
+        private final String issuerUri;
+
+        private final List<String> audiences;
+
+        private final int maxTokenLength;
+
+        private final Duration clockSkew;
+
+        private PrefilteringJwtDecoderPostProcessor(String identityProvider, String issuerUri, List<String> audiences,
+                                                    int maxTokenLength, Duration clockSkew) {
+            this.identityProvider = identityProvider;
+            this.issuerUri = issuerUri;
+            this.audiences = audiences;
+            this.maxTokenLength = maxTokenLength;
+            this.clockSkew = clockSkew;
+        }
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+            if (beanFactory instanceof ConfigurableListableBeanFactory listableBeanFactory) {
+                this.beanFactory = listableBeanFactory;
+            }
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof JwtDecoder decoder && !(bean instanceof PrefilteringJwtDecoder)
+                    && !(bean instanceof CachingJwtDecoder) && isResourceServerDecoder(beanName)) {
+                PrefilteringJwtDecoder prefilter = new PrefilteringJwtDecoder(decoder, identityProvider, issuerUri,
+                        audiences);
+                prefilter.setMaxTokenLength(maxTokenLength);
+                prefilter.setClockSkew(clockSkew);
+                return prefilter;
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        private boolean isResourceServerDecoder(String beanName) {
+            if (beanFactory == null || !beanFactory.containsBeanDefinition(beanName)) {
+                return false;
+            }
+            String configurationName = beanFactory.getMergedBeanDefinition(beanName).getFactoryBeanName();
+            if (configurationName == null) {
+                return false;
+            }
+            Class<?> configuration = beanFactory.getType(configurationName, false);
+            return configuration != null
+                    && DECODER_CONFIGURATIONS.contains(ClassUtils.getUserClass(configuration).getName());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.proc.DefaultJOSEObjectTypeVerifier;
+import com.nimbusds.jose.proc.JOSEObjectTypeVerifier;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shared building blocks for the JWT processors created by this library.
+ *
+ * <p>Every decoder built here applies the same rules as the Spring Boot decoder
+ * customized by {@link JwtCustomizerConfig}: Auth0 access tokens must carry the
+ * "at+jwt" type header, and claims are validated like Spring Boot does based on
+ * the configured issuer and audiences.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public final class JwtProcessorSupport {
+
+    private JwtProcessorSupport() {
+    }
+
+    /**
+     * Creates the JOSE "typ" header verifier for the given identity provider.
+     *
+     * @param identityProvider the configured identity provider (e.g. "keycloak" or "auth0")
+     * @param <C>              the security context type
+     * @return a verifier accepting "at+jwt" for Auth0, and "JWT" or no type, the Nimbus default, otherwise
+     */
+    public static <C extends SecurityContext> JOSEObjectTypeVerifier<C> typeVerifier(String identityProvider) {
+        if ("auth0".equalsIgnoreCase(identityProvider)) {
+            return new DefaultJOSEObjectTypeVerifier<>(new JOSEObjectType(AuthConstants.AUTH0_ACCESS_TOKEN_TYPE));
+        }
+        return new DefaultJOSEObjectTypeVerifier<>(JOSEObjectType.JWT, null);
+    }
+
+    /**
+     * Creates the claim validator used by the decoders of this library.
+     *
+     * <p>Timestamps are always validated. The issuer is validated when an issuer is
+     * configured, and the "aud" claim must contain at least one of the configured
+     * audiences when any is configured.</p>
+     *
+     * @param issuerUri the expected issuer, may be null or empty
+     * @param audiences the accepted audiences, may be empty
+     * @return the token validator
+     */
+    public static OAuth2TokenValidator<Jwt> validator(String issuerUri, Collection<String> audiences) {
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+        validators.add(StringUtils.hasText(issuerUri)
+                ? JwtValidators.createDefaultWithIssuer(issuerUri)
+                : JwtValidators.createDefault());
+        if (audiences != null && !audiences.isEmpty()) {
+            List<String> accepted = List.copyOf(audiences);
+            validators.add(new JwtClaimValidator<List<String>>(JwtClaimNames.AUD,
+                    aud -> aud != null && !Collections.disjoint(aud, accepted)));
+        }
+        return new DelegatingOAuth2TokenValidator<>(validators);
+    }
+}
@@ -0,0 +1,25 @@
+package dev.kush.securitycommon.common;
+
+/**
+ * Keycloak implementation of the UserIdentityExtractor interface.
+ *
+ * <p>Keycloak JWT tokens carry the user and company information within the
+ * "details" claim, while the email and roles are exposed as the top-level
+ * "email" and "roles" claims. The user ID, company ID and company name are read
+ * from the "user_id", "company_id" and "company_name" entries of "details", and
+ * the role is the first entry of "roles" that is not a {@code default-*} role.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see KeycloakUserUtils
+ * @see ClaimMapping#keycloak()
+ */
+public class KeycloakUserIdentityExtractor extends ClaimMappingUserIdentityExtractor {
+
+    /**
+     * Creates a new extractor using the Keycloak claim layout.
+     */
+    public KeycloakUserIdentityExtractor() {
+        super(ClaimMapping.keycloak());
+    }
+}
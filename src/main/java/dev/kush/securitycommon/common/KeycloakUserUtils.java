@@ -1,11 +1,5 @@
 package dev.kush.securitycommon.common;
 
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.oauth2.jwt.Jwt;
-
-import java.util.List;
-import java.util.Map;
-
 /**
  * Keycloak implementation of the UserUtils interface.
  *
@@ -16,118 +10,28 @@ import java.util.Map;
  *
  * <p>Similar to Auth0, Keycloak JWT tokens contain nested claims within the
  * "details" structure, and this implementation handles the extraction
- * of these nested values using Keycloak-specific claim names.</p>
+ * of these nested values using Keycloak-specific claim names through the
+ * {@link KeycloakUserIdentityExtractor}. The extracted identity is memoized
+ * per authentication, see {@link AbstractUserUtils}.</p>
  *
- * <p>This component is conditionally registered only when the identity provider
- * is configured as "keycloak" via the "identity.provider" property.</p>
+ * <p>It is not registered as a bean: the auto-configured UserUtils bean is a
+ * {@link DefaultUserUtils} applying the "identity.provider" claim mapping, also
+ * available as "keycloakUserUtils" for Keycloak, see {@link UserUtilsAutoConfiguration}.
+ * This subclass can be instantiated directly, for example in tests or in an
+ * application defining its own UserUtils bean.</p>
  *
  * @author Kush Parsaniya
  * @since 0.0.1
  * @see UserUtils
  * @see AuthConstants
+ * @see KeycloakUserIdentityExtractor
  */
-public class KeycloakUserUtils implements UserUtils {
-
-    /**
-     * {@inheritDoc}
-     *
-     * <p>For Keycloak, the email is extracted from the "details.email" claim
-     * in the JWT token.</p>
-     */
-    @Override
-    public String getCurrentUserEmail() {
-        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return jwt.getClaimAsString(AuthConstants.KEYCLOAK_EMAIL_CLAIM);
-    }
+public class KeycloakUserUtils extends AbstractUserUtils {
 
     /**
-     * {@inheritDoc}
-     *
-     * <p>The subject ID is extracted from the standard "sub" claim of the JWT token.</p>
+     * Creates a new instance using the Keycloak claim layout.
      */
-    @Override
-    public String getCurrentUserSubjectId() {
-        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return jwt.getSubject();
+    public KeycloakUserUtils() {
+        super(new KeycloakUserIdentityExtractor());
     }
-
-    /**
-     * {@inheritDoc}
-     *
-     * <p>For Keycloak, the user ID is extracted from the "user_id" claim within
-     * the "details" nested structure. If the details is not
-     * available or an error occurs, returns 0L.</p>
-     *
-     * @return the user's internal ID, or 0L if not available or on error
-     */
-    @Override
-    public Long getCurrentUserId() {
-        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        final Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.KEYCLOAK_DETAILS_CLAIM);
-        if (detailsMap == null) {
-            return 0L;
-        }
-        return Long.parseLong(detailsMap.get(AuthConstants.KEYCLOAK_USER_ID_CLAIM).toString());
-    }
-
-    /**
-     * {@inheritDoc}
-     *
-     * <p>For Keycloak, the company ID is extracted from the "company_id" claim within
-     * the "details" nested structure. If the details is not
-     * available, returns 0L.</p>
-     *
-     * @return the user's company ID, or 0L if not available
-     */
-    @Override
-    public Long getCurrentCompanyId() {
-        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        final Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.KEYCLOAK_DETAILS_CLAIM);
-        if (detailsMap == null) {
-            return 0L;
-        }
-        return Long.parseLong(detailsMap.get(AuthConstants.KEYCLOAK_COMPANY_ID_CLAIM).toString());
-    }
-
-    /**
-     * {@inheritDoc}
-     *
-     * <p>For Keycloak, the company name is extracted from the "company_name" claim within
-     * the "details" nested structure. If the details is not
-     * available or the company name is not set, returns an empty string.</p>
-     *
-     * @return the user's company name, or empty string if not available
-     */
-    @Override
-    public String getCurrentCompanyName() {
-        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        final Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.KEYCLOAK_DETAILS_CLAIM);
-        if (detailsMap == null) {
-            return "";
-        }
-        return detailsMap.getOrDefault(AuthConstants.KEYCLOAK_COMPANY_NAME_CLAIM,"").toString();
-    }
-
-    /**
-     * {@inheritDoc}
-     *
-     * <p>For Keycloak, roles are extracted from the "roles" claim which
-     * contains a list of role strings. This method returns the first role
-     * from the list, or an empty string if no roles are available.</p>
-     *
-     * @return the user's first role, or empty string if no roles are available
-     */
-    @Override
-    public String getCurrentUserRole() {
-        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = jwt.getClaimAsStringList(AuthConstants.KEYCLOAK_ROLE_CLAIM);
-        if (roles == null || roles.isEmpty()) {
-            return "";
-        }
-        return roles.stream()
-                .filter(role -> !role.startsWith("default-")) // remove all default-* roles
-                .findFirst() // pick first non-default role
-                .orElse(""); // return empty if nothing left
-    }
-
 }
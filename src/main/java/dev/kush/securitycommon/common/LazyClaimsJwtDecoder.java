@@ -0,0 +1,181 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.BadJWSException;
+import com.nimbusds.jose.proc.JOSEObjectTypeVerifier;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.security.Key;
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link JwtDecoder} verifying signed tokens like {@code NimbusJwtDecoder}, but
+ * deferring the conversion of nested claims until they are read.
+ *
+ * <p>{@code NimbusJwtDecoder} parses the whole payload into Java collections
+ * before verifying the signature, including nested objects and arrays that most
+ * requests never read, such as Auth0 "app_metadata" blobs or large role lists.
+ * This decoder verifies the signature over the raw token, then reads only the
+ * top level of the payload. Nested objects and arrays are kept as views of the
+ * payload text and parsed level by level when {@link UserUtils}, the authorities
+ * converter or the application first reads them.</p>
+ *
+ * <p>Apart from that, tokens are processed the same way: the "typ" header is
+ * checked by the given verifier, keys are selected for the header and algorithm,
+ * registered claims are converted by a {@link MappedJwtClaimSetConverter}, and
+ * the resulting {@link Jwt} is checked by the token validator. Failures are
+ * reported with the exceptions and messages of {@code NimbusJwtDecoder}, so they
+ * are classified the same by {@link InstrumentedJwtDecoder}. Encrypted and
+ * unsecured tokens are rejected.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public class LazyClaimsJwtDecoder implements JwtDecoder {
+
+    private static final String DECODING_ERROR_MESSAGE_TEMPLATE = "An error occurred while attempting to decode the Jwt: %s";
+
+    private final JWSKeySelector<SecurityContext> keySelector;
+
+    private final JWSVerifierFactory verifierFactory;
+
+    private final JOSEObjectTypeVerifier<SecurityContext> typeVerifier;
+
+    private Converter<Map<String, Object>, Map<String, Object>> claimSetConverter =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+
+    private OAuth2TokenValidator<Jwt> jwtValidator = JwtValidators.createDefault();
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param keySelector     the selector of the candidate verification keys
+     * @param verifierFactory the factory of the signature verifiers
+     * @param typeVerifier    the verifier of the "typ" header
+     */
+    public LazyClaimsJwtDecoder(JWSKeySelector<SecurityContext> keySelector,
+                                JWSVerifierFactory verifierFactory,
+                                JOSEObjectTypeVerifier<SecurityContext> typeVerifier) {
+        Assert.notNull(keySelector, "keySelector cannot be null");
+        Assert.notNull(verifierFactory, "verifierFactory cannot be null");
+        Assert.notNull(typeVerifier, "typeVerifier cannot be null");
+        this.keySelector = keySelector;
+        this.verifierFactory = verifierFactory;
+        this.typeVerifier = typeVerifier;
+    }
+
+    /**
+     * Sets the validator applied to the decoded tokens.
+     *
+     * @param jwtValidator the token validator (default: timestamps only)
+     */
+    public void setJwtValidator(OAuth2TokenValidator<Jwt> jwtValidator) {
+        Assert.notNull(jwtValidator, "jwtValidator cannot be null");
+        this.jwtValidator = jwtValidator;
+    }
+
+    /**
+     * Sets the converter applied to the claims before the token is built.
+     *
+     * @param claimSetConverter the claim set converter (default: registered claims only)
+     */
+    public void setClaimSetConverter(Converter<Map<String, Object>, Map<String, Object>> claimSetConverter) {
+        Assert.notNull(claimSetConverter, "claimSetConverter cannot be null");
+        this.claimSetConverter = claimSetConverter;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        JWSObject jwsObject = parse(token);
+        verify(jwsObject);
+        Jwt jwt = createJwt(token, jwsObject);
+        return validate(jwt);
+    }
+
+    private static JWSObject parse(String token) {
+        try {
+            return JWSObject.parse(token);
+        } catch (ParseException ex) {
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        }
+    }
+
+    private void verify(JWSObject jwsObject) {
+        JWSHeader header = jwsObject.getHeader();
+        try {
+            typeVerifier.verify(header.getType(), null);
+            List<? extends Key> keys = keySelector.selectJWSKeys(header, null);
+            if (keys == null || keys.isEmpty()) {
+                throw new BadJOSEException("Signed JWT rejected: Another algorithm expected, or no matching key(s) found");
+            }
+            for (Key key : keys) {
+                if (jwsObject.verify(verifierFactory.createJWSVerifier(header, key))) {
+                    return;
+                }
+            }
+            throw new BadJWSException("Signed JWT rejected: Invalid signature");
+        } catch (RemoteKeySourceException ex) {
+            String message = ex.getMessage() != null ? ex.getMessage() : "Couldn't retrieve remote JWK set";
+            throw new JwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, message), ex);
+        } catch (JOSEException ex) {
+            throw new JwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        } catch (BadJOSEException ex) {
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        }
+    }
+
+    private Jwt createJwt(String token, JWSObject jwsObject) {
+        try {
+            Map<String, Object> headers = new LinkedHashMap<>(jwsObject.getHeader().toJSONObject());
+            Map<String, Object> claims = claimSetConverter.convert(LazyJson.parseObject(jwsObject.getPayload().toString()));
+            return Jwt.withTokenValue(token)
+                    .headers(h -> h.putAll(headers))
+                    .claims(c -> c.putAll(claims))
+                    .build();
+        } catch (IllegalArgumentException ex) {
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, "Malformed payload: " + ex.getMessage()), ex);
+        }
+    }
+
+    private Jwt validate(Jwt jwt) {
+        OAuth2TokenValidatorResult result = jwtValidator.validate(jwt);
+        if (result.hasErrors()) {
+            Collection<OAuth2Error> errors = result.getErrors();
+            throw new JwtValidationException(validationMessage(errors), errors);
+        }
+        return jwt;
+    }
+
+    private static String validationMessage(Collection<OAuth2Error> errors) {
+        for (OAuth2Error error : errors) {
+            if (StringUtils.hasLength(error.getDescription())) {
+                return String.format(DECODING_ERROR_MESSAGE_TEMPLATE, error.getDescription());
+            }
+        }
+        return "Unable to validate Jwt";
+    }
+}
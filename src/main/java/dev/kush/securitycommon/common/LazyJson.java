@@ -0,0 +1,504 @@
+package dev.kush.securitycommon.common;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimal JSON reader materializing nested objects and arrays on first access.
+ *
+ * <p>Only one level is parsed at a time: strings, numbers, booleans and nulls are
+ * read right away, while nested objects and arrays are skipped over and returned
+ * as a {@link Map} or {@link List} view of their range in the source text. A view
+ * parses its own level the first time it is read, so claims that are never
+ * accessed, such as large metadata blobs, are never converted into collections.</p>
+ *
+ * <p>Skipping still validates the syntax of the nested levels, without allocating,
+ * so a malformed text is rejected by {@link #parseObject(String)} with an
+ * {@link IllegalArgumentException}, and reading a view later cannot fail.</p>
+ *
+ * <p>Values are read like the JSON parser of Nimbus: numbers as {@code Long} when
+ * integral and in range, and as {@code Double} otherwise; duplicate keys are
+ * rejected at the top level, while nested objects keep the last value. Unlike
+ * Nimbus, syntax outside the JSON grammar, such as leading zeros or trailing
+ * commas, is rejected. Views are unmodifiable and thread-safe, and serialize as
+ * plain collections.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+final class LazyJson {
+
+    private final String source;
+
+    private final int end;
+
+    private int pos;
+
+    private LazyJson(String source, int start, int end) {
+        this.source = source;
+        this.pos = start;
+        this.end = end;
+    }
+
+    /**
+     * Reads the top level of a JSON object.
+     *
+     * @param json the JSON text
+     * @return a mutable map of the top-level members, with lazy nested objects and arrays
+     * @throws IllegalArgumentException if the text is not a JSON object
+     */
+    static Map<String, Object> parseObject(String json) {
+        LazyJson reader = new LazyJson(json, 0, json.length());
+        Map<String, Object> object = reader.readObject(true);
+        reader.expectEnd();
+        return object;
+    }
+
+    private Map<String, Object> readObject(boolean rejectDuplicates) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = readString();
+            if (rejectDuplicates && object.containsKey(key)) {
+                throw error("Duplicate key '" + key + "'");
+            }
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            object.put(key, readValue());
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return object;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return array;
+        }
+        while (true) {
+            skipWhitespace();
+            array.add(readValue());
+            skipWhitespace();
+            char c = next();
+            if (c == ']') {
+                return array;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private Object readValue() {
+        return switch (peek()) {
+            case '{' -> {
+                int start = pos;
+                skipContainer();
+                yield new LazyObject(source, start, pos);
+            }
+            case '[' -> {
+                int start = pos;
+                skipContainer();
+                yield new LazyArray(source, start, pos);
+            }
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> readNumber();
+        };
+    }
+
+    /**
+     * Skips an object or array, validating its syntax without building it.
+     *
+     * <p>Iterative rather than recursive, so deeply nested input cannot overflow
+     * the stack. Only the kind of each open level is tracked.</p>
+     */
+    private void skipContainer() {
+        BitSet objects = new BitSet();
+        int depth = 0;
+        while (true) {
+            char c = peek();
+            if (c == '{' || c == '[') {
+                pos++;
+                objects.set(depth++, c == '{');
+                skipWhitespace();
+                if (peek() != (c == '{' ? '}' : ']')) {
+                    if (c == '{') {
+                        skipKey();
+                    }
+                    continue;
+                }
+                pos++;
+                depth--;
+            } else {
+                skipScalar();
+            }
+            while (true) {
+                if (depth == 0) {
+                    return;
+                }
+                boolean object = objects.get(depth - 1);
+                skipWhitespace();
+                char separator = next();
+                if (separator == ',') {
+                    skipWhitespace();
+                    if (object) {
+                        skipKey();
+                    }
+                    break;
+                }
+                if (separator != (object ? '}' : ']')) {
+                    throw error(object ? "Expected ',' or '}'" : "Expected ',' or ']'");
+                }
+                depth--;
+            }
+        }
+    }
+
+    private void skipKey() {
+        skipString();
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+    }
+
+    private void skipScalar() {
+        switch (peek()) {
+            case '"' -> skipString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> scanNumber();
+        }
+    }
+
+    private void skipString() {
+        expect('"');
+        scanString(null);
+    }
+
+    private String readString() {
+        expect('"');
+        int start = pos;
+        // fast path: no escape sequence
+        while (pos < end) {
+            char c = source.charAt(pos);
+            if (c == '"') {
+                return source.substring(start, pos++);
+            }
+            if (c == '\\') {
+                break;
+            }
+            if (c < 0x20) {
+                throw error("Control character in string");
+            }
+            pos++;
+        }
+        StringBuilder builder = new StringBuilder(pos - start + 16);
+        builder.append(source, start, pos);
+        scanString(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Reads the rest of a string after its opening quote, appending it to the
+     * builder unless null.
+     */
+    private void scanString(StringBuilder builder) {
+        while (pos < end) {
+            char c = source.charAt(pos++);
+            if (c == '"') {
+                return;
+            }
+            if (c < 0x20) {
+                throw error("Control character in string");
+            }
+            if (c != '\\') {
+                if (builder != null) {
+                    builder.append(c);
+                }
+                continue;
+            }
+            char escaped = next();
+            char unescaped = switch (escaped) {
+                case '"', '\\', '/' -> escaped;
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                case 'u' -> readUnicodeEscape();
+                default -> throw error("Invalid escape sequence");
+            };
+            if (builder != null) {
+                builder.append(unescaped);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private char readUnicodeEscape() {
+        if (pos + 4 > end || source.charAt(pos) == '+' || source.charAt(pos) == '-') {
+            throw error("Invalid unicode escape");
+        }
+        try {
+            char c = (char) Integer.parseInt(source, pos, pos + 4, 16);
+            pos += 4;
+            return c;
+        } catch (NumberFormatException ex) {
+            throw error("Invalid unicode escape");
+        }
+    }
+
+    private Number readNumber() {
+        int start = pos;
+        boolean integral = scanNumber();
+        String number = source.substring(start, pos);
+        if (integral) {
+            try {
+                return Long.parseLong(number);
+            } catch (NumberFormatException ex) {
+                // out of range, read as a double
+            }
+        }
+        return Double.parseDouble(number);
+    }
+
+    /**
+     * Skips a number, returning whether it has neither fraction nor exponent.
+     */
+    private boolean scanNumber() {
+        boolean integral = true;
+        skipChar('-');
+        if (!skipChar('0') && skipDigits() == 0) {
+            throw error("Unexpected character");
+        }
+        if (skipChar('.')) {
+            integral = false;
+            if (skipDigits() == 0) {
+                throw error("Invalid number");
+            }
+        }
+        if (skipChar('e') || skipChar('E')) {
+            integral = false;
+            if (!skipChar('+')) {
+                skipChar('-');
+            }
+            if (skipDigits() == 0) {
+                throw error("Invalid number");
+            }
+        }
+        return integral;
+    }
+
+    private boolean skipChar(char c) {
+        if (pos < end && source.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private int skipDigits() {
+        int start = pos;
+        while (pos < end && source.charAt(pos) >= '0' && source.charAt(pos) <= '9') {
+            pos++;
+        }
+        return pos - start;
+    }
+
+    private Object readLiteral(String literal, Object value) {
+        if (pos + literal.length() > end || !source.startsWith(literal, pos)) {
+            throw error("Unexpected character");
+        }
+        pos += literal.length();
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            char c = source.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private void expectEnd() {
+        skipWhitespace();
+        if (pos != end) {
+            throw error("Unexpected trailing content");
+        }
+    }
+
+    private char peek() {
+        if (pos >= end) {
+            throw error("Unexpected end of JSON");
+        }
+        return source.charAt(pos);
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos + " of the JSON text");
+    }
+
+    /**
+     * Object view parsing its members on first access.
+     */
+    static final class LazyObject extends AbstractMap<String, Object> implements Serializable {
+
+        private final transient String source;
+
+        private final transient int start;
+
+        private final transient int end;
+
+        private transient volatile Map<String, Object> members;
+
+        LazyObject(String source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns whether the members have been parsed.
+         *
+         * @return true once the object has been read
+         */
+        boolean isMaterialized() {
+            return members != null;
+        }
+
+        private Map<String, Object> members() {
+            Map<String, Object> result = members;
+            if (result == null) {
+                LazyJson reader = new LazyJson(source, start, end);
+                result = Collections.unmodifiableMap(reader.readObject(false));
+                reader.expectEnd();
+                members = result;
+            }
+            return result;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return members().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return members().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return members().size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return members().entrySet();
+        }
+
+        @Serial
+        private Object writeReplace() {
+            return new LinkedHashMap<>(members());
+        }
+    }
+
+    /**
+     * Array view parsing its elements on first access.
+     */
+    static final class LazyArray extends AbstractList<Object> implements Serializable {
+
+        private final transient String source;
+
+        private final transient int start;
+
+        private final transient int end;
+
+        private transient volatile List<Object> elements;
+
+        LazyArray(String source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns whether the elements have been parsed.
+         *
+         * @return true once the array has been read
+         */
+        boolean isMaterialized() {
+            return elements != null;
+        }
+
+        private List<Object> elements() {
+            List<Object> result = elements;
+            if (result == null) {
+                LazyJson reader = new LazyJson(source, start, end);
+                result = Collections.unmodifiableList(reader.readArray());
+                reader.expectEnd();
+                elements = result;
+            }
+            return result;
+        }
+
+        @Override
+        public Object get(int index) {
+            return elements().get(index);
+        }
+
+        @Override
+        public int size() {
+            return elements().size();
+        }
+
+        @Serial
+        private Object writeReplace() {
+            return new ArrayList<>(elements());
+        }
+    }
+}
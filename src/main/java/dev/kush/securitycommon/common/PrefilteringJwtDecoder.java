@@ -0,0 +1,289 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JOSEObjectTypeVerifier;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link JwtDecoder} rejecting tokens that cannot pass validation before they
+ * reach the signature verification of the delegate.
+ *
+ * <p>Only the encoded header and the top level of the payload are read, without
+ * any cryptography, so junk and expired tokens sent in bursts by misbehaving
+ * clients cost little CPU. A token is rejected when:</p>
+ * <ul>
+ * <li>it is longer than the maximum length, or is not made of three non-empty
+ * Base64URL parts holding JSON objects, or its "alg" is missing or "none";</li>
+ * <li>its "typ" header is rejected by the same verifier as the decoder, see
+ * {@link JwtProcessorSupport#typeVerifier(String)};</li>
+ * <li>its "exp" has passed, allowing for the clock skew of the validators;</li>
+ * <li>its "iss" is not the configured issuer, or its "aud" contains none of the
+ * configured audiences.</li>
+ * </ul>
+ *
+ * <p>These are only the checks the delegate is certain to fail as well: claims
+ * that are missing or of an unexpected type are left to it, and nothing is
+ * trusted before the signature is verified. Rejections raise the exceptions and
+ * error descriptions of the delegate's validators, so they result in the same
+ * 401 response and are classified the same by {@link InstrumentedJwtDecoder}.
+ * Rejections are counted per {@link Rejection} reason.</p>
+ *
+ * <p>The prefilter belongs under the decoded-token cache, so that cached tokens
+ * are not parsed again.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see JwtPrefilterConfiguration
+ */
+public class PrefilteringJwtDecoder implements JwtDecoder {
+
+    private static final String DECODING_ERROR_MESSAGE_TEMPLATE = "An error occurred while attempting to decode the Jwt: %s";
+
+    private static final String ERROR_URI = "https://tools.ietf.org/html/rfc6750#section-3.1";
+
+    private static final Base64.Decoder BASE64URL = Base64.getUrlDecoder();
+
+    /**
+     * Reason a token was rejected.
+     */
+    public enum Rejection {
+
+        /**
+         * The token is longer than the maximum length.
+         */
+        OVERSIZED,
+
+        /**
+         * The token is not a signed JWT in compact serialization.
+         */
+        MALFORMED,
+
+        /**
+         * The "typ" header is not accepted.
+         */
+        TYPE,
+
+        /**
+         * The "exp" claim has passed.
+         */
+        EXPIRED,
+
+        /**
+         * The "iss" claim is not the configured issuer.
+         */
+        ISSUER,
+
+        /**
+         * The "aud" claim contains none of the configured audiences.
+         */
+        AUDIENCE
+    }
+
+    private final JwtDecoder delegate;
+
+    private final JOSEObjectTypeVerifier<SecurityContext> typeVerifier;
+
+    private final String issuer;
+
+    private final Set<String> audiences;
+
+    private final LongAdder passed = new LongAdder();
+
+    private final LongAdder[] rejected = new LongAdder[Rejection.values().length];
+
+    private int maxTokenLength = 8192;
+
+    private Duration clockSkew = Duration.ofSeconds(60);
+
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Creates a new prefiltering decoder.
+     *
+     * @param delegate         the decoder verifying the tokens that pass
+     * @param identityProvider the configured identity provider, selecting the "typ" rule
+     * @param issuer           the expected issuer, may be null or empty
+     * @param audiences        the accepted audiences, may be empty
+     */
+    public PrefilteringJwtDecoder(JwtDecoder delegate, String identityProvider, String issuer,
+                                  Collection<String> audiences) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        this.delegate = delegate;
+        this.typeVerifier = JwtProcessorSupport.typeVerifier(identityProvider);
+        this.issuer = StringUtils.hasText(issuer) ? issuer : null;
+        this.audiences = audiences == null ? Set.of() : Set.copyOf(audiences);
+        for (int i = 0; i < rejected.length; i++) {
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        prefilter(token);
+        passed.increment();
+        return delegate.decode(token);
+    }
+
+    /**
+     * Returns the decoder the tokens that pass are sent to.
+     *
+     * @return the delegate decoder
+     */
+    public JwtDecoder getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Sets the maximum length of a token. Defaults to 8192 characters.
+     *
+     * @param maxTokenLength the maximum length
+     */
+    public void setMaxTokenLength(int maxTokenLength) {
+        Assert.isTrue(maxTokenLength > 0, "maxTokenLength must be positive");
+        this.maxTokenLength = maxTokenLength;
+    }
+
+    /**
+     * Sets the clock skew allowed when checking "exp". Defaults to 60 seconds, like
+     * the timestamp validator of Spring Security.
+     *
+     * @param clockSkew the allowed clock skew
+     */
+    public void setClockSkew(Duration clockSkew) {
+        Assert.isTrue(clockSkew != null && !clockSkew.isNegative(), "clockSkew cannot be negative");
+        this.clockSkew = clockSkew;
+    }
+
+    /**
+     * Sets the clock used to check "exp".
+     *
+     * @param clock the clock
+     */
+    public void setClock(Clock clock) {
+        Assert.notNull(clock, "clock cannot be null");
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the number of tokens that passed the prefilter.
+     *
+     * @return the passed token count
+     */
+    public long getPassedCount() {
+        return passed.sum();
+    }
+
+    /**
+     * Returns the number of tokens rejected for the given reason.
+     *
+     * @param rejection the rejection reason
+     * @return the rejected token count
+     */
+    public long getRejectedCount(Rejection rejection) {
+        return rejected[rejection.ordinal()].sum();
+    }
+
+    private void prefilter(String token) {
+        if (token.length() > maxTokenLength) {
+            throw malformed(Rejection.OVERSIZED, "Token exceeds " + maxTokenLength + " characters");
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot < 0 || secondDot == firstDot + 1 || secondDot == token.length() - 1
+                || token.indexOf('.', secondDot + 1) >= 0) {
+            throw malformed(Rejection.MALFORMED, "Expected a signed JWT with three parts");
+        }
+        Map<String, Object> header = json(token, 0, firstDot);
+        Map<String, Object> claims = json(token, firstDot + 1, secondDot);
+
+        Object algorithm = header.get("alg");
+        if (!(algorithm instanceof String alg) || "none".equalsIgnoreCase(alg)) {
+            throw malformed(Rejection.MALFORMED, "Missing or unsupported algorithm");
+        }
+        checkType(header.get("typ"));
+        checkExpiry(claims.get(JwtClaimNames.EXP));
+        if (issuer != null && !issuer.equals(claims.get(JwtClaimNames.ISS))) {
+            throw invalid(Rejection.ISSUER, "The iss claim is not valid");
+        }
+        if (!audiences.isEmpty() && !hasAcceptedAudience(claims.get(JwtClaimNames.AUD))) {
+            throw invalid(Rejection.AUDIENCE, "The aud claim is not valid");
+        }
+    }
+
+    private Map<String, Object> json(String token, int start, int end) {
+        try {
+            byte[] decoded = BASE64URL.decode(token.substring(start, end));
+            return LazyJson.parseObject(new String(decoded, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            throw malformed(Rejection.MALFORMED, "Malformed token");
+        }
+    }
+
+    private void checkType(Object type) {
+        if (type != null && !(type instanceof String)) {
+            throw malformed(Rejection.TYPE, "Invalid typ header");
+        }
+        try {
+            typeVerifier.verify(type != null ? new JOSEObjectType((String) type) : null, null);
+        } catch (BadJOSEException ex) {
+            rejected[Rejection.TYPE.ordinal()].increment();
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        }
+    }
+
+    private void checkExpiry(Object exp) {
+        if (exp instanceof Number seconds) {
+            Instant expiresAt = Instant.ofEpochSecond(seconds.longValue());
+            if (clock.instant().minus(clockSkew).isAfter(expiresAt)) {
+                throw invalid(Rejection.EXPIRED, "Jwt expired at " + expiresAt);
+            }
+        }
+    }
+
+    private boolean hasAcceptedAudience(Object aud) {
+        if (aud instanceof String single) {
+            return audiences.contains(single);
+        }
+        if (aud instanceof List<?> list) {
+            for (Object value : list) {
+                if (audiences.contains(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private BadJwtException malformed(Rejection rejection, String message) {
+        rejected[rejection.ordinal()].increment();
+        return new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, message));
+    }
+
+    private JwtValidationException invalid(Rejection rejection, String description) {
+        rejected[rejection.ordinal()].increment();
+        OAuth2Error error = new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN, description, ERROR_URI);
+        return new JwtValidationException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, description), List.of(error));
+    }
+}
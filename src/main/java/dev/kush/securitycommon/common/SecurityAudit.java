@@ -0,0 +1,65 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Recording surface for the security audit trail.
+ *
+ * <p>Like {@link SecurityMetrics}, the library calls these methods on the request
+ * path, so implementations must return quickly and must not perform I/O on the
+ * calling thread. All methods are no-ops by default, see {@link #NOOP}.</p>
+ *
+ * <p>An implementation writing to a pluggable sink from a background thread is
+ * auto-configured when "identity.audit.enabled" is set to {@code true}.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see AuditingJwtDecoder
+ */
+public interface SecurityAudit {
+
+    /**
+     * Implementation that records nothing.
+     */
+    SecurityAudit NOOP = new SecurityAudit() {
+    };
+
+    /**
+     * Records a token converted into an authentication.
+     *
+     * <p>The identity is not extracted by the caller, so implementations can defer
+     * the extraction off the request path.</p>
+     *
+     * @param jwt the decoded token
+     */
+    default void authenticationSucceeded(Jwt jwt) {
+    }
+
+    /**
+     * Records a token converted into an authentication, with its identity already extracted.
+     *
+     * @param jwt      the decoded token
+     * @param identity the identity carried by the token
+     */
+    default void authenticationSucceeded(Jwt jwt, UserIdentity identity) {
+        authenticationSucceeded(jwt);
+    }
+
+    /**
+     * Records a token that failed to decode.
+     *
+     * @param reason the classified failure reason
+     */
+    default void authenticationFailed(SecurityMetrics.DecodeFailure reason) {
+    }
+
+    /**
+     * Records a check of a company or user id against the current identity.
+     *
+     * @param identity the identity of the caller, or null if it has none
+     * @param resource the accessed resource, e.g. "OrderService.findOrders"
+     * @param granted  whether access was granted
+     */
+    default void tenantAccessed(UserIdentity identity, String resource, boolean granted) {
+    }
+}
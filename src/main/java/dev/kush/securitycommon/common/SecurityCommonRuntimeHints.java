@@ -0,0 +1,163 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runtime hints for running applications using this library as GraalVM native images.
+ *
+ * <p>The auto-configurations themselves need no hints: they use constructor and
+ * method parameter injection, which the code generated by AOT processing calls
+ * directly. The hints cover what is only reached reflectively at runtime:</p>
+ * <ul>
+ * <li>Java serialization of the authentications, for example when the security
+ * context is stored in the HTTP session. This includes the decoded claims, whose
+ * nested objects are maps of Nimbus' shaded Gson, or the lazy views of
+ * {@link LazyClaimsJwtDecoder}, and whose timestamps are
+ * {@link java.time.Instant}s converted by Spring's claim conversion;</li>
+ * <li>JSON binding of {@link UserIdentity}, which applications commonly return
+ * from endpoints or put in messages;</li>
+ * <li>Caffeine's cache and entry classes. Caffeine generates one class per
+ * combination of cache features, loads the one matching a builder by name and
+ * accesses its fields through {@code VarHandle}s. The caches of this library use
+ * many combinations (weak keys, expiry, refresh, statistics), so every generated
+ * class is registered, together with the fields of its internal buffers.</li>
+ * </ul>
+ *
+ * <p>Nimbus needs no reflection hints on these paths: it parses headers, claims and
+ * JWK sets into maps and lists with the built-in adapters of its shaded Gson, and
+ * builds keys and verifiers through JCA lookups, whose security services
+ * native-image registers itself. Only the shaded Gson map type is registered, for
+ * serialization.</p>
+ *
+ * <p>Types of the JDK, Nimbus and Caffeine internals are registered by name and
+ * only when present, since they are not part of a public API.</p>
+ *
+ * <p>The registrar is listed in "META-INF/spring/aot.factories". Run
+ * {@code ./gradlew -Pnative nativeSmokeTest} to build the sample resource server as
+ * a native image and authenticate a locally signed token with it.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public class SecurityCommonRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<? extends Serializable>> SERIALIZED_TYPES = List.of(
+            UserIdentityAuthenticationToken.class,
+            UserIdentity.class,
+            JwtAuthenticationToken.class,
+            AbstractOAuth2TokenAuthenticationToken.class,
+            AbstractAuthenticationToken.class,
+            SimpleGrantedAuthority.class,
+            Jwt.class,
+            AbstractOAuth2Token.class,
+            LazyJson.LazyObject.class,
+            LazyJson.LazyArray.class);
+
+    private static final List<String> SERIALIZED_TYPE_NAMES = List.of(
+            "java.time.Ser",
+            "java.time.Instant",
+            "java.util.CollSer",
+            "java.util.ImmutableCollections$ListN",
+            "java.util.ImmutableCollections$List12",
+            "java.util.Collections$UnmodifiableMap",
+            "java.util.Collections$UnmodifiableCollection",
+            "java.util.Collections$UnmodifiableList",
+            "java.util.Collections$UnmodifiableRandomAccessList",
+            "java.util.Collections$UnmodifiableSet",
+            "java.util.LinkedHashMap",
+            "java.util.ArrayList",
+            "java.lang.Long",
+            "java.lang.Number",
+            "java.lang.Double",
+            "java.lang.Boolean",
+            "com.nimbusds.jose.shaded.gson.internal.LinkedTreeMap");
+
+    private static final String CAFFEINE_PACKAGE = "com.github.benmanes.caffeine.cache";
+
+    /**
+     * Simple names of the generated cache and entry classes, e.g. "SSMSA" or "PSW".
+     */
+    private static final Pattern CAFFEINE_GENERATED_NAME = Pattern.compile("[A-Z]+");
+
+    /**
+     * Caffeine classes whose fields are accessed through {@code VarHandle}s.
+     */
+    private static final List<String> CAFFEINE_FIELD_TYPE_NAMES = List.of(
+            "BBHeader$ReadAndWriteCounterRef",
+            "BBHeader$ReadCounterRef",
+            "BLCHeader$DrainStatusRef",
+            "BaseMpscLinkedArrayQueue",
+            "BaseMpscLinkedArrayQueueColdProducerFields",
+            "BaseMpscLinkedArrayQueueConsumerFields",
+            "BaseMpscLinkedArrayQueueProducerFields",
+            "BoundedLocalCache",
+            "StripedBuffer",
+            "UnboundedLocalCache");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<? extends Serializable> type : SERIALIZED_TYPES) {
+            hints.serialization().registerType(type);
+        }
+        for (String typeName : SERIALIZED_TYPE_NAMES) {
+            if (ClassUtils.isPresent(typeName, classLoader)) {
+                hints.serialization().registerType(TypeReference.of(typeName));
+            }
+        }
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), UserIdentity.class);
+        if (ClassUtils.isPresent(CAFFEINE_PACKAGE + ".Caffeine", classLoader)) {
+            registerCaffeineHints(hints, classLoader);
+        }
+    }
+
+    private static void registerCaffeineHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String simpleName : CAFFEINE_FIELD_TYPE_NAMES) {
+            String typeName = CAFFEINE_PACKAGE + "." + simpleName;
+            if (ClassUtils.isPresent(typeName, classLoader)) {
+                hints.reflection().registerType(TypeReference.of(typeName), MemberCategory.DECLARED_FIELDS);
+            }
+        }
+        for (String typeName : caffeineGeneratedTypeNames(classLoader)) {
+            hints.reflection().registerType(TypeReference.of(typeName),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+        }
+    }
+
+    private static List<String> caffeineGeneratedTypeNames(ClassLoader classLoader) {
+        String pattern = "classpath*:" + ClassUtils.convertClassNameToResourcePath(CAFFEINE_PACKAGE) + "/*.class";
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver(classLoader).getResources(pattern);
+            return Arrays.stream(resources)
+                    .map(Resource::getFilename)
+                    .filter(filename -> filename != null && filename.endsWith(ClassUtils.CLASS_FILE_SUFFIX))
+                    .map(filename -> filename.substring(0, filename.length() - ClassUtils.CLASS_FILE_SUFFIX.length()))
+                    .filter(simpleName -> CAFFEINE_GENERATED_NAME.matcher(simpleName).matches())
+                    .map(simpleName -> CAFFEINE_PACKAGE + "." + simpleName)
+                    .distinct()
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot list the Caffeine classes", ex);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package dev.kush.securitycommon.common;
+
+/**
+ * Recording surface for the time and outcomes of the security pipeline.
+ *
+ * <p>The library calls these methods on the request path, so implementations must
+ * be cheap and must not allocate: durations are passed as primitive nanoseconds and
+ * outcomes as enum constants, which lets implementations pre-register one meter per
+ * constant. All methods are no-ops by default, see {@link #NOOP}.</p>
+ *
+ * <p>A Micrometer-backed implementation is auto-configured when Micrometer is on
+ * the classpath and a {@code MeterRegistry} bean is available.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see InstrumentedJwtDecoder
+ */
+public interface SecurityMetrics {
+
+    /**
+     * Implementation that records nothing.
+     */
+    SecurityMetrics NOOP = new SecurityMetrics() {
+    };
+
+    /**
+     * Records a successful token decode.
+     *
+     * @param durationNanos the decode time in nanoseconds
+     */
+    default void recordDecodeSuccess(long durationNanos) {
+    }
+
+    /**
+     * Records a failed token decode.
+     *
+     * @param reason        the classified failure reason
+     * @param durationNanos the decode time in nanoseconds
+     */
+    default void recordDecodeFailure(DecodeFailure reason, long durationNanos) {
+    }
+
+    /**
+     * Records the conversion of a decoded token into an authentication.
+     *
+     * @param durationNanos the conversion time in nanoseconds
+     */
+    default void recordConversion(long durationNanos) {
+    }
+
+    /**
+     * Records a UserUtils accessor returning its default value because the claim was missing.
+     *
+     * @param field the field that fell back to its default
+     */
+    default void recordFallback(Fallback field) {
+    }
+
+    /**
+     * Reasons a token can fail to decode.
+     */
+    enum DecodeFailure {
+
+        /**
+         * The JOSE "typ" header was rejected, e.g. a token without "at+jwt" for Auth0.
+         */
+        TYPE_REJECTED,
+
+        /**
+         * The token is expired or not yet valid.
+         */
+        EXPIRED,
+
+        /**
+         * A claim such as the issuer or audience failed validation.
+         */
+        INVALID_CLAIMS,
+
+        /**
+         * The signature is invalid or no matching key was found.
+         */
+        BAD_SIGNATURE,
+
+        /**
+         * The token could not be parsed.
+         */
+        MALFORMED,
+
+        /**
+         * The token id was revoked or the subject disabled.
+         */
+        REVOKED,
+
+        /**
+         * Any other failure, e.g. the JWK set could not be retrieved.
+         */
+        OTHER
+    }
+
+    /**
+     * UserUtils fields that fall back to a default value when their claim is missing.
+     */
+    enum Fallback {
+
+        /**
+         * {@link UserUtils#getCurrentUserId()} returned 0L.
+         */
+        USER_ID,
+
+        /**
+         * {@link UserUtils#getCurrentCompanyId()} returned 0L.
+         */
+        COMPANY_ID,
+
+        /**
+         * {@link UserUtils#getCurrentCompanyName()} returned an empty string.
+         */
+        COMPANY_NAME
+    }
+}
@@ -0,0 +1,46 @@
+package dev.kush.securitycommon.common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Immutable, typed snapshot of the current user's identity.
+ *
+ * <p>A {@code UserIdentity} is extracted once from the claims of an authenticated
+ * token and then shared by every {@link UserUtils} accessor for the lifetime of that
+ * authentication, so the claim maps are walked and the numeric ids parsed only once
+ * per request instead of once per call.</p>
+ *
+ * <p>Missing values follow the {@link UserUtils} contract: numeric ids default to
+ * {@code 0L}, the company name and role default to an empty string, and the email
+ * and subject may be {@code null}.</p>
+ *
+ * @param subject     the standard "sub" claim, or null if not available
+ * @param email       the user's email address, or null if not available
+ * @param userId      the user's internal ID, or 0L if not available
+ * @param companyId   the user's company ID, or 0L if not available
+ * @param companyName the user's company name, or empty string if not available
+ * @param role        the user's primary role as returned by {@link UserUtils#getCurrentUserRole()}
+ * @param roles       all roles carried by the token, never null
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see UserIdentityExtractor
+ */
+public record UserIdentity(String subject,
+                           String email,
+                           long userId,
+                           long companyId,
+                           String companyName,
+                           String role,
+                           List<String> roles) implements Serializable {
+
+    /**
+     * Normalizes optional values so accessors never have to null-check.
+     */
+    public UserIdentity {
+        companyName = companyName == null ? "" : companyName;
+        role = role == null ? "" : role;
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+}
@@ -0,0 +1,100 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+
+/**
+ * Converts a {@link Jwt} into a {@link UserIdentityAuthenticationToken}.
+ *
+ * <p>This is a drop-in alternative to {@code JwtAuthenticationConverter}: the
+ * granted authorities are computed the same way, and in addition the user and
+ * tenant claims are decoded once using the provider-specific
+ * {@link UserIdentityExtractor}. Register it on the resource server with:</p>
+ *
+ * <pre>{@code
+ * http.oauth2ResourceServer(oauth2 -> oauth2
+ *         .jwt(jwt -> jwt.jwtAuthenticationConverter(userIdentityAuthenticationConverter)));
+ * }</pre>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see UserIdentityAuthenticationToken
+ * @see JwtCustomizerConfig
+ */
+public class UserIdentityAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+    private final UserIdentityExtractor identityExtractor;
+
+    private final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter;
+
+    private String principalClaimName = JwtClaimNames.SUB;
+
+    private SecurityMetrics securityMetrics = SecurityMetrics.NOOP;
+
+    private SecurityAudit securityAudit = SecurityAudit.NOOP;
+
+    /**
+     * Creates a new converter.
+     *
+     * @param identityExtractor    the provider-specific identity extractor
+     * @param authoritiesConverter the converter computing the granted authorities
+     */
+    public UserIdentityAuthenticationConverter(UserIdentityExtractor identityExtractor,
+                                               Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter) {
+        Assert.notNull(identityExtractor, "identityExtractor cannot be null");
+        Assert.notNull(authoritiesConverter, "authoritiesConverter cannot be null");
+        this.identityExtractor = identityExtractor;
+        this.authoritiesConverter = authoritiesConverter;
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        long start = System.nanoTime();
+        try {
+            Collection<GrantedAuthority> authorities = authoritiesConverter.convert(jwt);
+            UserIdentity identity = identityExtractor.extract(jwt.getClaims());
+            String name = jwt.getClaimAsString(principalClaimName);
+            UserIdentityAuthenticationToken token = new UserIdentityAuthenticationToken(jwt, authorities, name, identity);
+            securityAudit.authenticationSucceeded(jwt, identity);
+            return token;
+        } finally {
+            securityMetrics.recordConversion(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Sets the claim used as the principal name. Defaults to "sub".
+     *
+     * @param principalClaimName the principal claim name
+     */
+    public void setPrincipalClaimName(String principalClaimName) {
+        Assert.hasText(principalClaimName, "principalClaimName cannot be empty");
+        this.principalClaimName = principalClaimName;
+    }
+
+    /**
+     * Sets the metrics recording the conversion time. Defaults to {@link SecurityMetrics#NOOP}.
+     *
+     * @param securityMetrics the metrics to record to
+     */
+    public void setSecurityMetrics(SecurityMetrics securityMetrics) {
+        Assert.notNull(securityMetrics, "securityMetrics cannot be null");
+        this.securityMetrics = securityMetrics;
+    }
+
+    /**
+     * Sets the audit recording each successful conversion. Defaults to {@link SecurityAudit#NOOP}.
+     *
+     * @param securityAudit the audit to record to
+     */
+    public void setSecurityAudit(SecurityAudit securityAudit) {
+        Assert.notNull(securityAudit, "securityAudit cannot be null");
+        this.securityAudit = securityAudit;
+    }
+}
@@ -0,0 +1,110 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.io.Serial;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JWT authentication token carrying the user and tenant claims already decoded.
+ *
+ * <p>The token is produced by {@link UserIdentityAuthenticationConverter} while the
+ * request is authenticated. Hot paths such as repository tenant filters can read
+ * {@link #getCompanyId()} or {@link #getUserId()} as plain fields instead of
+ * walking the raw {@link Jwt} claim map and parsing strings on every lookup:</p>
+ *
+ * <pre>{@code
+ * if (authentication instanceof UserIdentityAuthenticationToken token) {
+ *     long companyId = token.getCompanyId();
+ * }
+ * }</pre>
+ *
+ * <p>{@link UserUtils} implementations recognize this token and reuse its
+ * identity instead of extracting the claims again.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see UserIdentityAuthenticationConverter
+ */
+public class UserIdentityAuthenticationToken extends JwtAuthenticationToken {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final UserIdentity identity;
+
+    private final long userId;
+
+    private final long companyId;
+
+    private final String companyName;
+
+    private final List<String> roles;
+
+    /**
+     * Creates a new authenticated token.
+     *
+     * @param jwt         the decoded JWT
+     * @param authorities the authorities granted to the user
+     * @param name        the principal name
+     * @param identity    the identity extracted from the JWT claims
+     */
+    public UserIdentityAuthenticationToken(Jwt jwt, Collection<? extends GrantedAuthority> authorities,
+                                           String name, UserIdentity identity) {
+        super(jwt, authorities, name);
+        this.identity = identity;
+        this.userId = identity.userId();
+        this.companyId = identity.companyId();
+        this.companyName = identity.companyName().intern();
+        this.roles = identity.roles();
+    }
+
+    /**
+     * Returns the identity extracted from the JWT claims.
+     *
+     * @return the user's identity
+     */
+    public UserIdentity getIdentity() {
+        return identity;
+    }
+
+    /**
+     * Returns the user's internal ID.
+     *
+     * @return the user ID, or 0L if not available
+     */
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the user's company ID.
+     *
+     * @return the company ID, or 0L if not available
+     */
+    public long getCompanyId() {
+        return companyId;
+    }
+
+    /**
+     * Returns the user's company name. The value is interned, so tokens of the
+     * same tenant share a single instance.
+     *
+     * @return the company name, or empty string if not available
+     */
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    /**
+     * Returns all roles carried by the token, without the authority prefix.
+     *
+     * @return the unmodifiable role list, never null
+     */
+    public List<String> getRoles() {
+        return roles;
+    }
+}
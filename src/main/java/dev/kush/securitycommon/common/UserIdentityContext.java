@@ -0,0 +1,124 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Scoped carrier for a {@link UserIdentity}, independent of the Spring Security context.
+ *
+ * <p>The security context is a thread-local that is not visible in executor tasks,
+ * virtual threads or {@code StructuredTaskScope} subtasks. Instead of copying the
+ * whole {@code SecurityContext} into every task, bind just the immutable identity
+ * for the dynamic extent of the task:</p>
+ *
+ * <pre>{@code
+ * UserIdentity identity = userUtils.getCurrentIdentity();
+ * scope.fork(UserIdentityContext.wrap(identity, () -> repository.findByCompany(userUtils.getCurrentCompanyId())));
+ * }</pre>
+ *
+ * <p>{@link UserUtils} implementations extending {@link AbstractUserUtils} consult
+ * the bound identity first and fall back to the security context.</p>
+ *
+ * <p>Bindings follow {@code ScopedValue} semantics: a binding is visible only while
+ * {@link #runWhere} or {@link #callWhere} executes, nested bindings shadow outer ones,
+ * and the previous binding is restored on exit. The carrier is backed by a plain
+ * (non-inheritable) thread-local because {@code ScopedValue} is still a preview API
+ * on the Java 21 baseline of this library; the API is shaped so the implementation
+ * can switch to {@code ScopedValue} without changes for callers.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see UserIdentityTaskDecorator
+ */
+public final class UserIdentityContext {
+
+    private static final ThreadLocal<UserIdentity> CURRENT = new ThreadLocal<>();
+
+    private UserIdentityContext() {
+    }
+
+    /**
+     * Returns the identity bound to the current scope.
+     *
+     * @return the bound identity, or null if none is bound
+     */
+    public static UserIdentity current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs an operation with the given identity bound.
+     *
+     * @param identity  the identity to bind
+     * @param operation the operation to run
+     */
+    public static void runWhere(UserIdentity identity, Runnable operation) {
+        Assert.notNull(identity, "identity cannot be null");
+        UserIdentity previous = CURRENT.get();
+        CURRENT.set(identity);
+        try {
+            operation.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Calls an operation with the given identity bound.
+     *
+     * @param identity  the identity to bind
+     * @param operation the operation to call
+     * @param <T>       the result type
+     * @return the result of the operation
+     * @throws Exception if the operation throws
+     */
+    public static <T> T callWhere(UserIdentity identity, Callable<T> operation) throws Exception {
+        Assert.notNull(identity, "identity cannot be null");
+        UserIdentity previous = CURRENT.get();
+        CURRENT.set(identity);
+        try {
+            return operation.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Decorates a task so that it runs with the given identity bound.
+     *
+     * @param identity the identity to bind, or null to run the task unchanged
+     * @param task     the task to decorate
+     * @return the decorated task
+     */
+    public static Runnable wrap(UserIdentity identity, Runnable task) {
+        if (identity == null) {
+            return task;
+        }
+        return () -> runWhere(identity, task);
+    }
+
+    /**
+     * Decorates a task, such as a {@code StructuredTaskScope} subtask, so that it
+     * runs with the given identity bound.
+     *
+     * @param identity the identity to bind, or null to run the task unchanged
+     * @param task     the task to decorate
+     * @param <T>      the result type
+     * @return the decorated task
+     */
+    public static <T> Callable<T> wrap(UserIdentity identity, Callable<T> task) {
+        if (identity == null) {
+            return task;
+        }
+        return () -> callWhere(identity, task);
+    }
+
+    private static void restore(UserIdentity previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
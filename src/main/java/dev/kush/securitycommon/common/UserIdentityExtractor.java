@@ -0,0 +1,46 @@
+package dev.kush.securitycommon.common;
+
+import java.util.Map;
+
+/**
+ * Strategy for building a {@link UserIdentity} from a token's claims.
+ *
+ * <p>Each identity provider lays out its custom claims differently, so an extractor
+ * encapsulates the provider-specific claim names and conversions. Extraction is
+ * performed once per authentication and the result is memoized by the
+ * {@link UserUtils} implementations.</p>
+ *
+ * <p>Implementations must be thread-safe and must not throw for missing or
+ * malformed custom claims; they fall back to the defaults documented on
+ * {@link UserIdentity} instead.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see Auth0UserIdentityExtractor
+ * @see KeycloakUserIdentityExtractor
+ * @see ClaimMappingUserIdentityExtractor
+ */
+@FunctionalInterface
+public interface UserIdentityExtractor {
+
+    /**
+     * Extracts the identity carried by the given claims.
+     *
+     * @param claims the token claims (e.g. {@code Jwt#getClaims()}), never null
+     * @return the extracted identity, never null
+     */
+    UserIdentity extract(Map<String, Object> claims);
+
+    /**
+     * Returns the extractor matching the configured identity provider.
+     *
+     * @param identityProvider the configured identity provider (e.g. "keycloak" or "auth0")
+     * @return the Keycloak extractor for "keycloak", otherwise the Auth0 extractor
+     */
+    static UserIdentityExtractor forProvider(String identityProvider) {
+        if ("keycloak".equalsIgnoreCase(identityProvider)) {
+            return new KeycloakUserIdentityExtractor();
+        }
+        return new Auth0UserIdentityExtractor();
+    }
+}
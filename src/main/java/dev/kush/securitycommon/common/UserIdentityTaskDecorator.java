@@ -0,0 +1,60 @@
+package dev.kush.securitycommon.common;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+import org.springframework.util.Assert;
+
+/**
+ * {@link TaskDecorator} propagating the submitting thread's identity to executor tasks.
+ *
+ * <p>The identity is captured when the task is submitted, either from the
+ * {@link UserIdentityContext} or from the current token authentication, and bound
+ * with {@link UserIdentityContext} while the task runs. Only the immutable
+ * {@link UserIdentity} is carried, not the {@code SecurityContext}.</p>
+ *
+ * <p>Spring Boot applies a {@code TaskDecorator} bean to its auto-configured task
+ * executor, including the virtual-thread one. Other executors can be decorated with
+ * {@link #decorate(Runnable)} directly.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see UserIdentityContext
+ */
+public class UserIdentityTaskDecorator implements TaskDecorator {
+
+    private final UserUtils userUtils;
+
+    /**
+     * Creates a new decorator resolving identities with the given UserUtils.
+     *
+     * @param userUtils the UserUtils used to resolve the submitting thread's identity
+     */
+    public UserIdentityTaskDecorator(UserUtils userUtils) {
+        Assert.notNull(userUtils, "userUtils cannot be null");
+        this.userUtils = userUtils;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return UserIdentityContext.wrap(captureIdentity(), runnable);
+    }
+
+    /**
+     * Captures the identity of the current thread.
+     *
+     * @return the bound or authenticated identity, or null if there is none
+     */
+    public UserIdentity captureIdentity() {
+        UserIdentity bound = UserIdentityContext.current();
+        if (bound != null) {
+            return bound;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof AbstractOAuth2TokenAuthenticationToken<?>) {
+            return userUtils.getCurrentIdentity();
+        }
+        return null;
+    }
+}
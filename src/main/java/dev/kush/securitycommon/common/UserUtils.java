@@ -1,5 +1,7 @@
 package dev.kush.securitycommon.common;
 
+import java.util.List;
+
 /**
  * Interface for retrieving current user and company information from JWT tokens.
  * 
@@ -72,4 +74,25 @@ public interface UserUtils {
      * @return the user's role, or empty string if not available
      */
     String getCurrentUserRole();
+
+    /**
+     * Retrieves a typed snapshot of the currently authenticated user's identity.
+     *
+     * <p>The default implementation assembles the snapshot from the individual
+     * accessors. Implementations backed by a {@link UserIdentityExtractor} return
+     * the identity memoized for the current authentication instead.</p>
+     *
+     * @return the current user's identity
+     */
+    default UserIdentity getCurrentIdentity() {
+        String role = getCurrentUserRole();
+        return new UserIdentity(
+                getCurrentUserSubjectId(),
+                getCurrentUserEmail(),
+                getCurrentUserId(),
+                getCurrentCompanyId(),
+                getCurrentCompanyName(),
+                role,
+                role == null || role.isEmpty() ? List.of() : List.of(role));
+    }
 }
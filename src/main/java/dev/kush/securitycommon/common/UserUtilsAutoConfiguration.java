@@ -1,64 +1,185 @@
 package dev.kush.securitycommon.common;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Auto-configuration class for UserUtils bean registration.
  * 
- * <p>This configuration class automatically registers the appropriate UserUtils
- * implementation based on the configured identity provider. It supports both
- * Auth0 and Keycloak identity providers through conditional bean registration.</p>
+ * <p>This configuration class registers the {@link ClaimMapping} describing where
+ * the configured identity provider puts the user and company claims, and a
+ * UserUtils implementation reading them.</p>
  * 
- * <p>The configuration uses the "identity.provider" property to determine which
- * implementation to register:
+ * <p>The mapping starts from the preset of the "identity.provider" property:
  * <ul>
- * <li>"auth0" or unspecified (default) - registers Auth0UserUtils</li>
- * <li>"keycloak" - registers KeycloakUserUtils</li>
+ * <li>"auth0" or unspecified (default) - {@link ClaimMapping#auth0()}</li>
+ * <li>"keycloak" - {@link ClaimMapping#keycloak()}</li>
  * </ul>
- * 
- * <p>This ensures that only one UserUtils implementation is active at a time,
- * preventing conflicts and ensuring proper dependency injection.</p>
+ * Each path can be overridden with the "identity.claims.subject", "identity.claims.email",
+ * "identity.claims.user-id", "identity.claims.company-id", "identity.claims.company-name"
+ * and "identity.claims.roles" properties, see {@link ClaimPath} for the syntax, and
+ * "identity.claims.primary-role-excluded-prefixes". This also allows other identity
+ * providers to be used, for example:</p>
+ *
+ * <pre>
+ * identity.provider=okta
+ * identity.claims.user-id=["https://example.com/user_id"]
+ * identity.claims.company-id=["https://example.com/company"].id
+ * identity.claims.roles=groups
+ * </pre>
+ *
+ * <p>The paths are compiled once at startup, so a malformed path fails the
+ * application start instead of the first request.</p>
+ *
+ * <p>The UserUtils bean is named "userUtils". For "auth0" and "keycloak" it is also
+ * registered under the names of the former provider-specific beans,
+ * "auth0UserUtils" and "keycloakUserUtils", so injection points qualified with
+ * them keep working. Any other "identity.provider" value starts from the Auth0
+ * preset, where no UserUtils bean used to be registered.</p>
+ *
+ * <p>When a {@link SecurityMetrics} bean is available, accessors falling back to
+ * their default value are counted.</p>
  * 
  * @author Kush Parsaniya
  * @since 0.0.1
  * @see UserUtils
- * @see Auth0UserUtils
- * @see KeycloakUserUtils
+ * @see ClaimMapping
  */
 @AutoConfiguration
 public class UserUtilsAutoConfiguration {
 
     /**
-     * Creates and registers an Auth0UserUtils bean.
-     * 
-     * <p>This bean is registered when the identity provider is configured as "auth0"
-     * or when no identity provider is explicitly specified (default behavior).
-     * The Auth0UserUtils implementation handles JWT tokens from Auth0 identity provider.</p>
-     * 
-     * @return a new instance of Auth0UserUtils
-     * @see Auth0UserUtils
+     * Creates the claim mapping of the configured identity provider.
+     *
+     * @param identityProvider the configured identity provider (e.g., "keycloak" or "auth0")
+     * @param environment      the environment holding the "identity.claims.*" overrides
+     * @return the claim mapping
+     */
+    @Bean
+    @ConditionalOnMissingBean(ClaimMapping.class)
+    public ClaimMapping claimMapping(@Value("${identity.provider:auth0}") String identityProvider,
+                                     Environment environment) {
+        Map<String, String> expressions = new HashMap<>();
+        for (String name : ClaimMapping.FIELD_NAMES) {
+            String expression = environment.getProperty("identity.claims." + name);
+            if (expression != null) {
+                expressions.put(name, expression);
+            }
+        }
+        ClaimMapping claimMapping = ClaimMapping.forProvider(identityProvider).withPaths(expressions);
+        String[] primaryRoleExcludedPrefixes = environment.getProperty(
+                "identity.claims.primary-role-excluded-prefixes", String[].class);
+        return primaryRoleExcludedPrefixes == null
+                ? claimMapping
+                : claimMapping.withPrimaryRoleExcludedPrefixes(Arrays.asList(primaryRoleExcludedPrefixes));
+    }
+
+    /**
+     * Creates the extractor building a {@link UserIdentity} from the mapped claims.
+     *
+     * <p>It is shared by the UserUtils bean and the authentication converters.</p>
+     *
+     * @param claimMapping the claim mapping
+     * @return the identity extractor
      */
     @Bean
-    @ConditionalOnProperty(name = "identity.provider", havingValue = "auth0", matchIfMissing = true)
-    public UserUtils auth0UserUtils() {
-        return new Auth0UserUtils();
+    @ConditionalOnMissingBean(UserIdentityExtractor.class)
+    public UserIdentityExtractor userIdentityExtractor(ClaimMapping claimMapping) {
+        return new ClaimMappingUserIdentityExtractor(claimMapping);
     }
 
     /**
-     * Creates and registers a KeycloakUserUtils bean.
-     * 
-     * <p>This bean is registered when the identity provider is explicitly configured
-     * as "keycloak". The KeycloakUserUtils implementation handles JWT tokens from
-     * Keycloak identity provider.</p>
-     * 
-     * @return a new instance of KeycloakUserUtils
-     * @see KeycloakUserUtils
+     * Creates and registers the UserUtils bean.
+     *
+     * <p>The bean is only created if no other UserUtils bean is already defined in
+     * the application context.</p>
+     *
+     * @param identityExtractor the identity extractor
+     * @param securityMetrics   the optional metrics counting accessor fallbacks
+     * @return a new instance of DefaultUserUtils
+     * @see DefaultUserUtils
      */
     @Bean
-    @ConditionalOnProperty(name = "identity.provider", havingValue = "keycloak")
-    public UserUtils keycloakUserUtils() {
-        return new KeycloakUserUtils();
+    @ConditionalOnMissingBean(UserUtils.class)
+    public UserUtils userUtils(UserIdentityExtractor identityExtractor,
+                               ObjectProvider<SecurityMetrics> securityMetrics) {
+        DefaultUserUtils userUtils = new DefaultUserUtils(identityExtractor);
+        securityMetrics.ifAvailable(userUtils::setSecurityMetrics);
+        return userUtils;
+    }
+
+    /**
+     * Creates a bean factory post processor registering the provider-specific alias of
+     * the UserUtils bean.
+     *
+     * <p>The method is static so the post processor can be registered before the
+     * other beans are instantiated.</p>
+     *
+     * @param identityProvider the configured identity provider (e.g., "keycloak" or "auth0")
+     * @return a bean factory post processor registering "auth0UserUtils" or "keycloakUserUtils"
+     */
+    @Bean
+    static UserUtilsAliasRegistrar userUtilsAliasRegistrar(@Value("${identity.provider:auth0}") String identityProvider) {
+        return new UserUtilsAliasRegistrar(identityProvider);
+    }
+
+    /**
+     * Creates and registers a UserIdentityTaskDecorator bean.
+     *
+     * <p>This bean is registered when "identity.propagation.enabled" is set to
+     * {@code true}. Spring Boot applies it to the auto-configured task executor, so
+     * {@code @Async} methods and other executor tasks, including ones running on
+     * virtual threads, see the submitting request's identity through UserUtils.</p>
+     *
+     * @param userUtils the UserUtils used to capture the submitting thread's identity
+     * @return a new instance of UserIdentityTaskDecorator
+     * @see UserIdentityContext
+     */
+    @Bean
+    @ConditionalOnMissingBean(TaskDecorator.class)
+    @ConditionalOnProperty(name = "identity.propagation.enabled", havingValue = "true")
+    public UserIdentityTaskDecorator userIdentityTaskDecorator(UserUtils userUtils) {
+        return new UserIdentityTaskDecorator(userUtils);
+    }
+
+    /**
+     * Bean factory post processor registering the name of the former provider-specific
+     * UserUtils bean as an alias of "userUtils".
+     */
+    static final class UserUtilsAliasRegistrar implements BeanFactoryPostProcessor {
+
+        private static final String USER_UTILS_BEAN_NAME = "userUtils";
+
+        private final String alias;
+
+        UserUtilsAliasRegistrar(String identityProvider) {
+            if ("keycloak".equalsIgnoreCase(identityProvider)) {
+                this.alias = "keycloakUserUtils";
+            } else if ("auth0".equalsIgnoreCase(identityProvider)) {
+                this.alias = "auth0UserUtils";
+            } else {
+                this.alias = null;
+            }
+        }
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+            if (alias != null && beanFactory.containsBeanDefinition(USER_UTILS_BEAN_NAME)
+                    && !beanFactory.containsBean(alias)) {
+                beanFactory.registerAlias(USER_UTILS_BEAN_NAME, alias);
+            }
+        }
     }
 }
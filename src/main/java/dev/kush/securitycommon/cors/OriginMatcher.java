@@ -0,0 +1,202 @@
+package dev.kush.securitycommon.cors;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Compiled set of allowed CORS origins.
+ *
+ * <p>Exact origins such as {@code https://app.example.com} are held in a hash set.
+ * Wildcard subdomain patterns such as {@code https://*.example.com} or
+ * {@code https://*.example.com:8443} are compiled into a trie of their suffixes,
+ * read from the end of the origin, so matching costs one walk over the origin
+ * regardless of the number of patterns. The single pattern {@code *} allows any
+ * origin.</p>
+ *
+ * <p>Matching is case-insensitive and does not allocate for lower-case origins,
+ * which is what browsers send.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see PrecompiledCorsFilter
+ */
+public final class OriginMatcher {
+
+    private static final String WILDCARD_SUBDOMAIN = "*.";
+
+    private final boolean anyOrigin;
+
+    private final Set<String> exactOrigins;
+
+    private final SuffixNode suffixes;
+
+    private OriginMatcher(boolean anyOrigin, Set<String> exactOrigins, SuffixNode suffixes) {
+        this.anyOrigin = anyOrigin;
+        this.exactOrigins = exactOrigins;
+        this.suffixes = suffixes;
+    }
+
+    /**
+     * Compiles the allowed origin patterns.
+     *
+     * @param patterns exact origins, wildcard subdomain patterns, or {@code *}
+     * @return the compiled matcher
+     * @throws IllegalArgumentException if a pattern has a wildcard anywhere but as
+     *                                  the first label of the host
+     */
+    public static OriginMatcher compile(Collection<String> patterns) {
+        Assert.notNull(patterns, "patterns cannot be null");
+        boolean anyOrigin = false;
+        Set<String> exactOrigins = new HashSet<>();
+        SuffixNode suffixes = new SuffixNode();
+        for (String rawPattern : patterns) {
+            String pattern = normalize(rawPattern);
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            if ("*".equals(pattern)) {
+                anyOrigin = true;
+                continue;
+            }
+            int schemeEnd = pattern.indexOf("://");
+            int wildcard = pattern.indexOf('*');
+            if (wildcard < 0) {
+                exactOrigins.add(pattern);
+            } else if (schemeEnd > 0 && wildcard == schemeEnd + 3
+                    && pattern.startsWith(WILDCARD_SUBDOMAIN, wildcard)
+                    && pattern.indexOf('*', wildcard + 1) < 0) {
+                // "https://*.example.com" -> scheme "https://" and suffix ".example.com"
+                suffixes.add(pattern.substring(wildcard + 1), pattern.substring(0, wildcard));
+            } else {
+                throw new IllegalArgumentException("Unsupported origin pattern '" + rawPattern
+                        + "', wildcards are only allowed as the first host label, e.g. https://*.example.com");
+            }
+        }
+        return new OriginMatcher(anyOrigin, Set.copyOf(exactOrigins), suffixes);
+    }
+
+    /**
+     * Returns whether the origin is allowed.
+     *
+     * @param origin the value of the "Origin" request header
+     * @return true if the origin matches an exact origin or a wildcard pattern
+     */
+    public boolean matches(String origin) {
+        if (anyOrigin) {
+            return true;
+        }
+        if (origin == null || origin.isEmpty()) {
+            return false;
+        }
+        // returns the same instance when the origin is already lower case
+        String candidate = origin.toLowerCase(Locale.ROOT);
+        return exactOrigins.contains(candidate) || suffixes.matches(candidate);
+    }
+
+    /**
+     * Returns whether any origin is allowed.
+     *
+     * @return true if the patterns contain {@code *}
+     */
+    public boolean isAnyOrigin() {
+        return anyOrigin;
+    }
+
+    private static String normalize(String pattern) {
+        String normalized = pattern.trim().toLowerCase(Locale.ROOT);
+        return normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
+    }
+
+    /**
+     * Trie node over pattern suffixes, keyed from the last character.
+     */
+    private static final class SuffixNode {
+
+        private char[] keys = new char[0];
+
+        private SuffixNode[] children = new SuffixNode[0];
+
+        /**
+         * Schemes, such as "https://", of the patterns ending at this node, or null.
+         */
+        private String[] schemes;
+
+        void add(String suffix, String scheme) {
+            SuffixNode node = this;
+            for (int i = suffix.length() - 1; i >= 0; i--) {
+                node = node.childOrCreate(suffix.charAt(i));
+            }
+            node.schemes = node.schemes == null
+                    ? new String[]{scheme}
+                    : appendIfAbsent(node.schemes, scheme);
+        }
+
+        boolean matches(String origin) {
+            SuffixNode node = this;
+            for (int i = origin.length() - 1; i >= 0; i--) {
+                node = node.child(origin.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+                // suffix starts at i; the subdomain is origin[scheme.length(), i)
+                if (node.schemes != null) {
+                    for (String scheme : node.schemes) {
+                        if (i > scheme.length() && origin.startsWith(scheme)
+                                && isHostLabels(origin, scheme.length(), i)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        private SuffixNode child(char c) {
+            char[] k = keys;
+            for (int i = 0; i < k.length; i++) {
+                if (k[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private SuffixNode childOrCreate(char c) {
+            SuffixNode child = child(c);
+            if (child == null) {
+                child = new SuffixNode();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                keys[keys.length - 1] = c;
+                children = Arrays.copyOf(children, children.length + 1);
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+
+        private static boolean isHostLabels(String origin, int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = origin.charAt(i);
+                if (c == '/' || c == ':' || c == '@') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String[] appendIfAbsent(String[] values, String value) {
+            for (String existing : values) {
+                if (existing.equals(value)) {
+                    return values;
+                }
+            }
+            String[] appended = Arrays.copyOf(values, values.length + 1);
+            appended[values.length] = value;
+            return appended;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package dev.kush.securitycommon.cors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Auto-configuration for the precompiled CORS filter.
+ *
+ * <p>When "frontend.cors.mode" is set to "precompiled", a {@link PrecompiledCorsFilter}
+ * is registered with the highest precedence, ahead of the Spring Security filter
+ * chain. It applies the same policy as the {@code CorsConfigurationSource} of
+ * {@code JwtCustomizerConfig}: the origins listed in "frontend.origins", any header,
+ * and credentials unless the origins are "*". Wildcard subdomain patterns such as
+ * {@code https://*.example.com} are also accepted in this mode.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"frontend.cors.allowed-methods" - allowed methods (default *)</li>
+ * <li>"frontend.cors.max-age" - preflight cache duration in seconds (default 3600)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see PrecompiledCorsFilter
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "frontend.cors.mode", havingValue = "precompiled")
+public class PrecompiledCorsAutoConfiguration {
+
+    /**
+     * Registers the precompiled CORS filter ahead of the security filter chain.
+     *
+     * @param frontendOrigins the comma separated allowed origins
+     * @param allowedMethods  the allowed methods
+     * @param maxAge          the preflight cache duration in seconds
+     * @return the filter registration
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "precompiledCorsFilter")
+    public FilterRegistrationBean<PrecompiledCorsFilter> precompiledCorsFilter(
+            @Value("${frontend.origins:http://localhost:5174,http://host.docker.internal:5174}") String frontendOrigins,
+            @Value("${frontend.cors.allowed-methods:*}") String[] allowedMethods,
+            @Value("${frontend.cors.max-age:3600}") long maxAge) {
+        List<String> origins = Arrays.stream(frontendOrigins.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        PrecompiledCorsFilter filter = new PrecompiledCorsFilter(OriginMatcher.compile(origins),
+                Arrays.stream(allowedMethods).map(String::trim).filter(s -> !s.isEmpty()).toList(),
+                true, maxAge);
+        FilterRegistrationBean<PrecompiledCorsFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
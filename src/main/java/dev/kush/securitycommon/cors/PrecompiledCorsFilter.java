@@ -0,0 +1,153 @@
+package dev.kush.securitycommon.cors;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Servlet filter applying a fixed CORS policy with precomputed responses.
+ *
+ * <p>Spring's {@code CorsFilter} resolves a {@code CorsConfiguration} per request,
+ * scans the allowed origins linearly and builds the response headers each time,
+ * and preflight requests reach it only after the earlier filters of the security
+ * filter chain. This filter is registered ahead of the security filter chain and:</p>
+ * <ul>
+ * <li>matches the origin with a compiled {@link OriginMatcher};</li>
+ * <li>answers preflight requests itself with header values rendered at startup,
+ * so they never reach JWT processing;</li>
+ * <li>adds the CORS headers of actual requests before passing them on. Spring's
+ * CORS processing leaves responses that already carry them untouched.</li>
+ * </ul>
+ *
+ * <p>Like Spring's default processor, requests from origins that are not allowed, and
+ * preflights requesting a method that is not allowed, are rejected with 403.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see PrecompiledCorsAutoConfiguration
+ */
+public class PrecompiledCorsFilter implements Filter {
+
+    private static final String VARY = HttpHeaders.ORIGIN + ", " + HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD
+            + ", " + HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS;
+
+    private static final byte[] INVALID_CORS_REQUEST = "Invalid CORS request".getBytes(StandardCharsets.UTF_8);
+
+    private final OriginMatcher originMatcher;
+
+    private final Set<String> allowedMethods;
+
+    private final String allowMethodsHeader;
+
+    private final String allowCredentialsHeader;
+
+    private final String maxAgeHeader;
+
+    /**
+     * Creates a new filter.
+     *
+     * @param originMatcher    the allowed origins
+     * @param allowedMethods   the allowed methods, or {@code *} for any method
+     * @param allowCredentials whether credentials are allowed; ignored when any origin is allowed
+     * @param maxAgeSeconds    how long browsers may cache preflight responses
+     */
+    public PrecompiledCorsFilter(OriginMatcher originMatcher, Collection<String> allowedMethods,
+                                 boolean allowCredentials, long maxAgeSeconds) {
+        Assert.notNull(originMatcher, "originMatcher cannot be null");
+        Assert.notEmpty(allowedMethods, "allowedMethods cannot be empty");
+        this.originMatcher = originMatcher;
+        this.allowedMethods = allowedMethods.contains("*")
+                ? Set.of()
+                : Set.copyOf(allowedMethods.stream().map(m -> m.toUpperCase(Locale.ROOT)).toList());
+        this.allowMethodsHeader = this.allowedMethods.isEmpty() ? null : String.join(", ", this.allowedMethods);
+        // credentials must never be allowed together with any origin
+        this.allowCredentialsHeader = allowCredentials && !originMatcher.isAnyOrigin() ? "true" : null;
+        this.maxAgeHeader = Long.toString(maxAgeSeconds);
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        if (origin == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String requestMethod = request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD);
+        boolean preflight = requestMethod != null && "OPTIONS".equals(request.getMethod());
+        if (!originMatcher.matches(origin)) {
+            if (preflight || !isSameOrigin(request, origin)) {
+                reject(response);
+                return;
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+        response.addHeader(HttpHeaders.VARY, VARY);
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, originMatcher.isAnyOrigin() ? "*" : origin);
+        if (allowCredentialsHeader != null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, allowCredentialsHeader);
+        }
+        if (!preflight) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (allowMethodsHeader != null && !allowedMethods.contains(requestMethod)) {
+            reject(response);
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS,
+                allowMethodsHeader != null ? allowMethodsHeader : requestMethod);
+        String requestHeaders = request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS);
+        if (requestHeaders != null && !requestHeaders.isEmpty()) {
+            // any header is allowed, so the requested headers are echoed back
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, requestHeaders);
+        }
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_MAX_AGE, maxAgeHeader);
+        response.setStatus(HttpServletResponse.SC_OK);
+    }
+
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        response.getOutputStream().write(INVALID_CORS_REQUEST);
+        response.flushBuffer();
+    }
+
+    /**
+     * Returns whether the origin is the request's own, in which case the request is not a CORS request.
+     */
+    private static boolean isSameOrigin(HttpServletRequest request, String origin) {
+        String scheme = request.getScheme();
+        String host = request.getServerName();
+        int port = request.getServerPort();
+        int schemeEnd = scheme.length();
+        if (!origin.regionMatches(true, 0, scheme, 0, schemeEnd)
+                || !origin.startsWith("://", schemeEnd)
+                || !origin.regionMatches(true, schemeEnd + 3, host, 0, host.length())) {
+            return false;
+        }
+        int hostEnd = schemeEnd + 3 + host.length();
+        if (hostEnd == origin.length()) {
+            return ("http".equalsIgnoreCase(scheme) && port == 80)
+                    || ("https".equalsIgnoreCase(scheme) && port == 443);
+        }
+        String portString = Integer.toString(port);
+        return origin.charAt(hostEnd) == ':'
+                && origin.length() - hostEnd - 1 == portString.length()
+                && origin.startsWith(portString, hostEnd + 1);
+    }
+}
@@ -0,0 +1,262 @@
+package dev.kush.securitycommon.enrichment;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link UserIdentityExtractor} filling the attributes missing from a token with an
+ * {@link IdentityEnrichmentLoader}.
+ *
+ * <p>The delegate extracts the identity from the claims as usual. When the user id
+ * or the company id is missing, the user's profile is looked up by "sub"; when the
+ * company name is still missing, it is looked up by company id. Identities carrying
+ * all three attributes are returned as is, without any lookup.</p>
+ *
+ * <p>Lookups go through a near-cache per key type:</p>
+ * <ul>
+ * <li>the caches are bounded and entries expire after the time-to-live, so changes
+ * in the application's data are picked up; unknown keys are cached too;</li>
+ * <li>entries read after the refresh interval are reloaded in the background while
+ * the current value keeps being served, so busy users never wait for a lookup;</li>
+ * <li>concurrent requests for a key that is not cached share a single lookup, run
+ * on the first requesting thread.</li>
+ * </ul>
+ *
+ * <p>A failed lookup is logged, not cached, and the identity is returned without
+ * the missing attributes, so an unavailable database degrades to the defaults of
+ * {@code UserUtils} rather than failing authentication. A failed background
+ * refresh keeps the current value.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see IdentityEnrichmentAutoConfiguration
+ */
+public class EnrichingUserIdentityExtractor implements UserIdentityExtractor, DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(EnrichingUserIdentityExtractor.class);
+
+    private final UserIdentityExtractor delegate;
+
+    private final ExecutorService refreshExecutor;
+
+    private final NearCache<String, UserProfile> users;
+
+    private final NearCache<Long, String> companyNames;
+
+    private final LongAdder loadFailures;
+
+    private volatile boolean failing;
+
+    /**
+     * Creates a new enriching extractor.
+     *
+     * @param delegate     the extractor reading the identity from the claims
+     * @param loader       the lookup of the missing attributes
+     * @param maximumSize  the maximum number of cached users, and of cached companies
+     * @param timeToLive   the time after which a cached value expires
+     * @param refreshAfter the time after which a cached value is reloaded in the background when read
+     */
+    public EnrichingUserIdentityExtractor(UserIdentityExtractor delegate, IdentityEnrichmentLoader loader,
+                                          long maximumSize, Duration timeToLive, Duration refreshAfter) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(loader, "loader cannot be null");
+        Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+        Assert.isTrue(timeToLive != null && timeToLive.isPositive(), "timeToLive must be positive");
+        Assert.isTrue(refreshAfter != null && refreshAfter.isPositive() && refreshAfter.compareTo(timeToLive) < 0,
+                "refreshAfter must be positive and shorter than timeToLive");
+        this.delegate = delegate;
+        this.refreshExecutor = Executors.newFixedThreadPool(2, daemonThreadFactory());
+        this.loadFailures = new LongAdder();
+        this.users = new NearCache<>(loader::loadUser, maximumSize, timeToLive, refreshAfter);
+        this.companyNames = new NearCache<>(loader::loadCompanyName, maximumSize, timeToLive, refreshAfter);
+    }
+
+    private EnrichingUserIdentityExtractor(UserIdentityExtractor delegate, EnrichingUserIdentityExtractor shared) {
+        this.delegate = delegate;
+        this.refreshExecutor = shared.refreshExecutor;
+        this.loadFailures = shared.loadFailures;
+        this.users = shared.users;
+        this.companyNames = shared.companyNames;
+    }
+
+    @Override
+    public UserIdentity extract(Map<String, Object> claims) {
+        UserIdentity identity = delegate.extract(claims);
+        long userId = identity.userId();
+        long companyId = identity.companyId();
+        String companyName = identity.companyName();
+        if (userId != 0L && companyId != 0L && !companyName.isEmpty()) {
+            return identity;
+        }
+        if ((userId == 0L || companyId == 0L) && identity.subject() != null) {
+            UserProfile profile = users.get(identity.subject());
+            if (profile != null) {
+                userId = userId != 0L ? userId : profile.userId();
+                companyId = companyId != 0L ? companyId : profile.companyId();
+                companyName = !companyName.isEmpty() ? companyName : profile.companyName();
+            }
+        }
+        if (companyName.isEmpty() && companyId != 0L) {
+            String name = companyNames.get(companyId);
+            if (name != null) {
+                companyName = name;
+            }
+        }
+        if (userId == identity.userId() && companyId == identity.companyId()
+                && companyName.equals(identity.companyName())) {
+            return identity;
+        }
+        return new UserIdentity(identity.subject(), identity.email(), userId, companyId, companyName,
+                identity.role(), identity.roles());
+    }
+
+    /**
+     * Returns an extractor enriching the identities of another delegate through the
+     * caches of this one.
+     *
+     * <p>The returned extractor is not meant to be a bean: it shares the counters and
+     * the background refresh of this extractor, which stops when this one is destroyed.</p>
+     *
+     * @param delegate the extractor reading the identity from the claims
+     * @return an enriching extractor sharing the caches of this one
+     */
+    public EnrichingUserIdentityExtractor withDelegate(UserIdentityExtractor delegate) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return new EnrichingUserIdentityExtractor(delegate, this);
+    }
+
+    /**
+     * Stops the background refresh, including that of the extractors returned by
+     * {@link #withDelegate(UserIdentityExtractor)}.
+     */
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the extractor reading the identity from the claims.
+     *
+     * @return the delegate extractor
+     */
+    public UserIdentityExtractor getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the number of lookups served from the caches.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return users.cache.synchronous().stats().hitCount() + companyNames.cache.synchronous().stats().hitCount();
+    }
+
+    /**
+     * Returns the number of lookups that were not cached.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return users.cache.synchronous().stats().missCount() + companyNames.cache.synchronous().stats().missCount();
+    }
+
+    /**
+     * Returns the number of lookups that failed on a request thread.
+     *
+     * @return the load failure count
+     */
+    public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    private static CustomizableThreadFactory daemonThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("identity-enrichment-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * Bounded, refresh-ahead cache of the values of one loader, including unknown keys.
+     */
+    private final class NearCache<K, V> {
+
+        private final Function<K, V> loader;
+
+        private final AsyncLoadingCache<K, Optional<V>> cache;
+
+        private NearCache(Function<K, V> loader, long maximumSize, Duration timeToLive, Duration refreshAfter) {
+            this.loader = loader;
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(timeToLive)
+                    .refreshAfterWrite(refreshAfter)
+                    .executor(refreshExecutor)
+                    .recordStats()
+                    .buildAsync(key -> Optional.ofNullable(loader.apply(key)));
+        }
+
+        private V get(K key) {
+            CompletableFuture<Optional<V>> cached = cache.getIfPresent(key);
+            if (cached == null) {
+                CompletableFuture<Optional<V>> lookup = new CompletableFuture<>();
+                cached = cache.asMap().putIfAbsent(key, lookup);
+                if (cached == null) {
+                    return load(key, lookup);
+                }
+            }
+            try {
+                return cached.join().orElse(null);
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                // the lookup of another request failed and was logged by it
+                return null;
+            } catch (CancellationException ex) {
+                return null;
+            }
+        }
+
+        private V load(K key, CompletableFuture<Optional<V>> lookup) {
+            try {
+                Optional<V> value = Optional.ofNullable(loader.apply(key));
+                lookup.complete(value);
+                failing = false;
+                return value.orElse(null);
+            } catch (RuntimeException ex) {
+                // failed futures are removed by the cache; waiting requests get no value either
+                lookup.completeExceptionally(ex);
+                loadFailures.increment();
+                if (!failing) {
+                    failing = true;
+                    logger.warn("Failed to load the identity attributes missing from a token, "
+                            + "further failures are counted until a lookup succeeds", ex);
+                }
+                return null;
+            } catch (Error ex) {
+                // complete the lookup, otherwise every later request for the key would wait on it forever
+                lookup.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+    }
+}
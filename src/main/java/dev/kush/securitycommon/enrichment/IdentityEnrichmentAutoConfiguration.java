@@ -0,0 +1,102 @@
+package dev.kush.securitycommon.enrichment;
+
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Auto-configuration for filling the identity attributes missing from tokens.
+ *
+ * <p>When the application defines an {@link IdentityEnrichmentLoader} bean, every
+ * {@link UserIdentityExtractor} bean is wrapped in an
+ * {@link EnrichingUserIdentityExtractor}. The UserUtils bean, the authentication
+ * converters and the other components reading identities through the extractor
+ * then see the loaded user id, company id and company name for tokens that lack
+ * them. The per-issuer extractors of the multi-issuer support are not beans; they
+ * share the caches of the wrapped extractor bean, see
+ * {@link EnrichingUserIdentityExtractor#withDelegate(UserIdentityExtractor)}. It can be
+ * switched off with "identity.enrichment.enabled=false".</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.enrichment.maximum-size" - maximum number of cached users, and of cached companies (default 10000)</li>
+ * <li>"identity.enrichment.time-to-live" - time after which a cached value expires (default 10m)</li>
+ * <li>"identity.enrichment.refresh-after" - time after which a cached value is reloaded in the
+ * background when read (default 8m)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see EnrichingUserIdentityExtractor
+ */
+@AutoConfiguration
+@ConditionalOnBean(IdentityEnrichmentLoader.class)
+@ConditionalOnProperty(name = "identity.enrichment.enabled", havingValue = "true", matchIfMissing = true)
+public class IdentityEnrichmentAutoConfiguration {
+
+    /**
+     * Creates a bean post processor wrapping identity extractors in an {@link EnrichingUserIdentityExtractor}.
+     *
+     * <p>The method is static so the post processor can be registered before the
+     * extractor beans are instantiated.</p>
+     *
+     * @param loader       the lookup of the missing attributes, resolved when the first extractor is created
+     * @param maximumSize  the maximum number of cached users, and of cached companies
+     * @param timeToLive   the time after which a cached value expires
+     * @param refreshAfter the time after which a cached value is reloaded in the background when read
+     * @return a bean post processor adding the enrichment to identity extractors
+     */
+    @Bean
+    static EnrichingUserIdentityExtractorPostProcessor enrichingUserIdentityExtractorPostProcessor(
+            ObjectProvider<IdentityEnrichmentLoader> loader,
+            @Value("${identity.enrichment.maximum-size:10000}") long maximumSize,
+            @Value("${identity.enrichment.time-to-live:10m}") Duration timeToLive,
+            @Value("${identity.enrichment.refresh-after:8m}") Duration refreshAfter) {
+        return new EnrichingUserIdentityExtractorPostProcessor(loader, maximumSize, timeToLive, refreshAfter);
+    }
+
+    /**
+     * Bean post processor wrapping identity extractors in an {@link EnrichingUserIdentityExtractor}.
+     */
+    static final class EnrichingUserIdentityExtractorPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<IdentityEnrichmentLoader> loader;
+
+        private final long maximumSize;
+
+        private final Duration timeToLive;
+
+        private final Duration refreshAfter;
+
+        private EnrichingUserIdentityExtractorPostProcessor(ObjectProvider<IdentityEnrichmentLoader> loader,
+                                                            long maximumSize, Duration timeToLive,
+                                                            Duration refreshAfter) {
+            this.loader = loader;
+            this.maximumSize = maximumSize;
+            this.timeToLive = timeToLive;
+            this.refreshAfter = refreshAfter;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof UserIdentityExtractor extractor) || bean instanceof EnrichingUserIdentityExtractor) {
+                return bean;
+            }
+            return new EnrichingUserIdentityExtractor(extractor, loader.getObject(), maximumSize, timeToLive,
+                    refreshAfter);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
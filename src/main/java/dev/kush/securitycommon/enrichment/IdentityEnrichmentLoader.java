@@ -0,0 +1,37 @@
+package dev.kush.securitycommon.enrichment;
+
+/**
+ * Application-supplied lookup of the identity attributes missing from a token.
+ *
+ * <p>Implement the methods matching the data the application holds, typically by
+ * querying its own user and company tables. Both return null when the key is
+ * unknown, which is cached as well, so unknown users are not looked up on every
+ * request. Results are cached by {@link EnrichingUserIdentityExtractor}, so the
+ * loader is called about once per key and time-to-live.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see EnrichingUserIdentityExtractor
+ */
+public interface IdentityEnrichmentLoader {
+
+    /**
+     * Loads the profile of a user, used when the token lacks the user id or the company id.
+     *
+     * @param subject the "sub" claim of the token
+     * @return the user's profile, or null if unknown
+     */
+    default UserProfile loadUser(String subject) {
+        return null;
+    }
+
+    /**
+     * Loads the name of a company, used when the token lacks the company name.
+     *
+     * @param companyId the company ID, from the token or the user's profile
+     * @return the company name, or null if unknown
+     */
+    default String loadCompanyName(long companyId) {
+        return null;
+    }
+}
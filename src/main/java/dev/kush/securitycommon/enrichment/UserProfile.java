@@ -0,0 +1,24 @@
+package dev.kush.securitycommon.enrichment;
+
+/**
+ * User attributes loaded by an {@link IdentityEnrichmentLoader}.
+ *
+ * <p>Only the attributes missing from the token are taken from the profile, so
+ * unknown values can be left at 0L or empty.</p>
+ *
+ * @param userId      the user's internal ID, or 0L if not available
+ * @param companyId   the user's company ID, or 0L if not available
+ * @param companyName the user's company name, or empty string if not available
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public record UserProfile(long userId, long companyId, String companyName) {
+
+    /**
+     * Normalizes the company name so it is never null.
+     */
+    public UserProfile {
+        companyName = companyName == null ? "" : companyName;
+    }
+}
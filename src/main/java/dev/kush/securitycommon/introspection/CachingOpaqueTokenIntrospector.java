@@ -0,0 +1,235 @@
+package dev.kush.securitycommon.introspection;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * {@link OpaqueTokenIntrospector} that caches successful introspection results.
+ *
+ * <p>Without a cache every request carrying an opaque token costs a round trip to
+ * the authorization server. This introspector keeps the principal returned by the
+ * delegate for each distinct token:</p>
+ * <ul>
+ * <li>Entries are keyed by the SHA-256 hash of the raw token, so the cache does not
+ * keep live credentials in the heap.</li>
+ * <li>Entries expire at the token's "exp" attribute, and never later than the
+ * configured maximum time to live.</li>
+ * <li>The cache is bounded and evicts with Caffeine's W-TinyLFU policy.</li>
+ * <li>Concurrent requests carrying the same uncached token are coalesced: the first
+ * one calls the delegate on its own thread and the others wait for its result, so
+ * a burst of requests causes a single introspection call.</li>
+ * <li>Failed introspections, including inactive tokens, are never cached.</li>
+ * </ul>
+ *
+ * <p>Note that a cached token stays accepted until it leaves the cache even if it is
+ * revoked in the meantime; the maximum time to live bounds that window.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see OpaqueTokenIntrospectionCacheConfiguration
+ */
+public class CachingOpaqueTokenIntrospector implements OpaqueTokenIntrospector {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 =
+            ThreadLocal.withInitial(CachingOpaqueTokenIntrospector::sha256);
+
+    private final OpaqueTokenIntrospector delegate;
+
+    private final AsyncCache<TokenHash, OAuth2AuthenticatedPrincipal> cache;
+
+    private final Clock clock;
+
+    /**
+     * Creates a new caching introspector.
+     *
+     * @param delegate      the introspector calling the authorization server
+     * @param maximumSize   the maximum number of cached tokens
+     * @param maxTimeToLive the maximum time a token stays cached, regardless of its expiry
+     */
+    public CachingOpaqueTokenIntrospector(OpaqueTokenIntrospector delegate, long maximumSize, Duration maxTimeToLive) {
+        this(delegate, maximumSize, maxTimeToLive, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a new caching introspector using the given clock to evaluate token expiry.
+     *
+     * @param delegate      the introspector calling the authorization server
+     * @param maximumSize   the maximum number of cached tokens
+     * @param maxTimeToLive the maximum time a token stays cached, regardless of its expiry
+     * @param clock         the clock used to compute the remaining token lifetime
+     */
+    public CachingOpaqueTokenIntrospector(OpaqueTokenIntrospector delegate, long maximumSize,
+                                          Duration maxTimeToLive, Clock clock) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+        Assert.isTrue(maxTimeToLive != null && !maxTimeToLive.isNegative(), "maxTimeToLive cannot be negative");
+        Assert.notNull(clock, "clock cannot be null");
+        this.delegate = delegate;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(maxTimeToLive))
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public OAuth2AuthenticatedPrincipal introspect(String token) {
+        TokenHash key = TokenHash.of(token);
+        CompletableFuture<OAuth2AuthenticatedPrincipal> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return join(cached);
+        }
+        CompletableFuture<OAuth2AuthenticatedPrincipal> introspection = new CompletableFuture<>();
+        CompletableFuture<OAuth2AuthenticatedPrincipal> inFlight = cache.asMap().putIfAbsent(key, introspection);
+        if (inFlight != null) {
+            return join(inFlight);
+        }
+        try {
+            OAuth2AuthenticatedPrincipal principal = delegate.introspect(token);
+            introspection.complete(principal);
+            return principal;
+        } catch (Throwable ex) {
+            // failed futures are removed by the cache; waiting requests see the same failure.
+            // Errors complete it too, otherwise the in-flight future would block every later request.
+            introspection.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the introspector calling the authorization server.
+     *
+     * @return the delegate introspector
+     */
+    public OpaqueTokenIntrospector getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the number of introspections served from the cache, including coalesced ones.
+     *
+     * @return the cache hit count
+     */
+    public long getHitCount() {
+        return cache.synchronous().stats().hitCount();
+    }
+
+    /**
+     * Returns the number of introspections delegated because the token was not cached.
+     *
+     * @return the cache miss count
+     */
+    public long getMissCount() {
+        return cache.synchronous().stats().missCount();
+    }
+
+    /**
+     * Returns the approximate number of cached tokens.
+     *
+     * @return the estimated cache size
+     */
+    public long getEstimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private static OAuth2AuthenticatedPrincipal join(CompletableFuture<OAuth2AuthenticatedPrincipal> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * SHA-256 of a raw token, held as four longs to keep the key compact.
+     *
+     * <p>Unlike a decoded JWT, the principal does not carry the token value to
+     * compare on a hit, so the token is hashed as UTF-8 to keep distinct tokens distinct.</p>
+     */
+    private record TokenHash(long h0, long h1, long h2, long h3) {
+
+        static TokenHash of(String token) {
+            MessageDigest digest = SHA_256.get();
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+            return new TokenHash(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    /**
+     * Expires each entry when its token expires, capped by the maximum time to live.
+     */
+    private final class TokenExpiry implements Expiry<TokenHash, OAuth2AuthenticatedPrincipal> {
+
+        private final Duration maxTimeToLive;
+
+        private TokenExpiry(Duration maxTimeToLive) {
+            this.maxTimeToLive = maxTimeToLive;
+        }
+
+        @Override
+        public long expireAfterCreate(TokenHash key, OAuth2AuthenticatedPrincipal principal, long currentTime) {
+            Instant expiresAt = expiresAt(principal.getAttribute(OAuth2TokenIntrospectionClaimNames.EXP));
+            if (expiresAt == null) {
+                return maxTimeToLive.toNanos();
+            }
+            Instant now = clock.instant();
+            if (!expiresAt.isAfter(now)) {
+                return 0L;
+            }
+            Duration remaining = Duration.between(now, expiresAt);
+            return remaining.compareTo(maxTimeToLive) < 0 ? remaining.toNanos() : maxTimeToLive.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenHash key, OAuth2AuthenticatedPrincipal principal, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, principal, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenHash key, OAuth2AuthenticatedPrincipal principal, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+
+        private static Instant expiresAt(Object exp) {
+            if (exp instanceof Instant instant) {
+                return instant;
+            }
+            if (exp instanceof Number seconds) {
+                return Instant.ofEpochSecond(seconds.longValue());
+            }
+            return null;
+        }
+    }
+}
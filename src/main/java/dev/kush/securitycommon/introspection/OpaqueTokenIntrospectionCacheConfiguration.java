@@ -0,0 +1,83 @@
+package dev.kush.securitycommon.introspection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+
+import java.time.Duration;
+
+/**
+ * Auto-configuration for the opt-in introspection result cache.
+ *
+ * <p>When "identity.introspection.cache.enabled" is set to {@code true}, every
+ * {@link OpaqueTokenIntrospector} bean in the application context, including the one
+ * Spring Boot creates from "spring.security.oauth2.resourceserver.opaquetoken.*", is
+ * wrapped in a {@link CachingOpaqueTokenIntrospector}. The UserUtils beans read the
+ * user and company claims from the introspection response with the configured claim
+ * mapping.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.introspection.cache.maximum-size" - maximum number of cached tokens (default 10000)</li>
+ * <li>"identity.introspection.cache.max-time-to-live" - upper bound on how long a token stays
+ * cached, regardless of its "exp" attribute (default 5m)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see CachingOpaqueTokenIntrospector
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "identity.introspection.cache.enabled", havingValue = "true")
+public class OpaqueTokenIntrospectionCacheConfiguration {
+
+    /**
+     * Creates a bean post processor wrapping introspectors in a {@link CachingOpaqueTokenIntrospector}.
+     *
+     * <p>The method is static so the post processor can be registered before the
+     * introspector beans are instantiated.</p>
+     *
+     * @param maximumSize   the maximum number of cached tokens
+     * @param maxTimeToLive the maximum time a token stays cached
+     * @return a bean post processor applying the introspection result cache
+     */
+    @Bean
+    static CachingOpaqueTokenIntrospectorPostProcessor cachingOpaqueTokenIntrospectorPostProcessor(
+            @Value("${identity.introspection.cache.maximum-size:10000}") long maximumSize,
+            @Value("${identity.introspection.cache.max-time-to-live:5m}") Duration maxTimeToLive) {
+        return new CachingOpaqueTokenIntrospectorPostProcessor(maximumSize, maxTimeToLive);
+    }
+
+    /**
+     * Bean post processor wrapping introspectors in a {@link CachingOpaqueTokenIntrospector}.
+     */
+    static final class CachingOpaqueTokenIntrospectorPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final long maximumSize;
+
+        private final Duration maxTimeToLive;
+
+        private CachingOpaqueTokenIntrospectorPostProcessor(long maximumSize, Duration maxTimeToLive) {
+            this.maximumSize = maximumSize;
+            this.maxTimeToLive = maxTimeToLive;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof OpaqueTokenIntrospector introspector
+                    && !(bean instanceof CachingOpaqueTokenIntrospector)) {
+                return new CachingOpaqueTokenIntrospector(introspector, maximumSize, maxTimeToLive);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
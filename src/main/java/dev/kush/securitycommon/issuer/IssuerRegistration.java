@@ -0,0 +1,37 @@
+package dev.kush.securitycommon.issuer;
+
+import dev.kush.securitycommon.common.ClaimMapping;
+
+import java.util.List;
+
+/**
+ * A trusted issuer and how its tokens are decoded and mapped.
+ *
+ * @param issuer           the exact value of the "iss" claim
+ * @param identityProvider the identity provider type (e.g. "keycloak" or "auth0"), selecting
+ *                         the JOSE "typ" header verifier
+ * @param jwkSetUri        the JWK set endpoint, or null to discover it from the issuer
+ * @param jwsAlgorithms    the accepted JWS algorithms, or empty for RS256
+ * @param audiences        the accepted audiences, or empty to accept any
+ * @param claimMapping     where the issuer puts the user and company claims
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see IssuerRoutingAuthenticationManagerResolver
+ */
+public record IssuerRegistration(String issuer, String identityProvider, String jwkSetUri,
+                                 List<String> jwsAlgorithms, List<String> audiences, ClaimMapping claimMapping) {
+
+    /**
+     * Creates a new registration.
+     */
+    public IssuerRegistration {
+        if (issuer == null || issuer.isBlank()) {
+            throw new IllegalArgumentException("issuer cannot be empty");
+        }
+        if (claimMapping == null) {
+            throw new IllegalArgumentException("claimMapping cannot be null");
+        }
+        jwsAlgorithms = jwsAlgorithms == null ? List.of() : List.copyOf(jwsAlgorithms);
+        audiences = audiences == null ? List.of() : List.copyOf(audiences);
+    }
+}
@@ -0,0 +1,216 @@
+package dev.kush.securitycommon.issuer;
+
+import dev.kush.securitycommon.common.CachingGrantedAuthoritiesConverter;
+import dev.kush.securitycommon.common.ClaimMappingUserIdentityExtractor;
+import dev.kush.securitycommon.common.JwtProcessorSupport;
+import dev.kush.securitycommon.common.SecurityAudit;
+import dev.kush.securitycommon.common.SecurityMetrics;
+import dev.kush.securitycommon.common.UserIdentityAuthenticationConverter;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.security.oauth2.server.resource.authentication.JwtIssuerAuthenticationManagerResolver;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Resolves the {@link AuthenticationManager} of a trusted issuer.
+ *
+ * <p>Each registered issuer gets its own decoder, with the JOSE "typ" header
+ * verifier of its identity provider type and its own JWK set, and its own
+ * {@link UserIdentityAuthenticationConverter} applying the issuer's
+ * {@link dev.kush.securitycommon.common.ClaimMapping}. Auth0 and Keycloak tenants
+ * can therefore be served by the same application.</p>
+ *
+ * <p>The per-issuer identity extractors are not beans, so bean post processors do not
+ * apply to them; use {@link #setIdentityExtractorDecorator(UnaryOperator)} to wrap
+ * them instead.</p>
+ *
+ * <p>The issuer lookup is a single hash map lookup. The authentication manager of an
+ * issuer, including its decoder, is built on first use and shared by all later
+ * requests. Unknown issuers resolve to {@code null}, which
+ * {@link JwtIssuerAuthenticationManagerResolver} reports as an invalid token.</p>
+ *
+ * <p>Register it on the resource server with:</p>
+ *
+ * <pre>{@code
+ * http.oauth2ResourceServer(oauth2 -> oauth2
+ *         .authenticationManagerResolver(jwtIssuerAuthenticationManagerResolver));
+ * }</pre>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see MultiIssuerAutoConfiguration
+ */
+public class IssuerRoutingAuthenticationManagerResolver implements AuthenticationManagerResolver<String> {
+
+    private final Map<String, IssuerRegistration> registrations;
+
+    private final Function<IssuerRegistration, JwtDecoder> decoderFactory;
+
+    private final ConcurrentMap<String, AuthenticationManager> authenticationManagers = new ConcurrentHashMap<>();
+
+    private List<String> excludedRolePrefixes = List.of();
+
+    private SecurityMetrics securityMetrics = SecurityMetrics.NOOP;
+
+    private SecurityAudit securityAudit = SecurityAudit.NOOP;
+
+    private UnaryOperator<UserIdentityExtractor> identityExtractorDecorator = UnaryOperator.identity();
+
+    /**
+     * Creates a new resolver building decoders with {@link #createJwtDecoder(IssuerRegistration)}.
+     *
+     * @param registrations the trusted issuers
+     */
+    public IssuerRoutingAuthenticationManagerResolver(Collection<IssuerRegistration> registrations) {
+        this(registrations, IssuerRoutingAuthenticationManagerResolver::createJwtDecoder);
+    }
+
+    /**
+     * Creates a new resolver.
+     *
+     * @param registrations  the trusted issuers
+     * @param decoderFactory creates the decoder of an issuer, called once per issuer
+     */
+    public IssuerRoutingAuthenticationManagerResolver(Collection<IssuerRegistration> registrations,
+                                                      Function<IssuerRegistration, JwtDecoder> decoderFactory) {
+        Assert.notEmpty(registrations, "registrations cannot be empty");
+        Assert.notNull(decoderFactory, "decoderFactory cannot be null");
+        Map<String, IssuerRegistration> byIssuer = new HashMap<>();
+        for (IssuerRegistration registration : registrations) {
+            Assert.isTrue(byIssuer.put(registration.issuer(), registration) == null,
+                    () -> "Duplicate issuer " + registration.issuer());
+        }
+        this.registrations = Map.copyOf(byIssuer);
+        this.decoderFactory = decoderFactory;
+    }
+
+    @Override
+    public AuthenticationManager resolve(String issuer) {
+        if (issuer == null) {
+            return null;
+        }
+        AuthenticationManager authenticationManager = authenticationManagers.get(issuer);
+        if (authenticationManager != null) {
+            return authenticationManager;
+        }
+        IssuerRegistration registration = registrations.get(issuer);
+        if (registration == null) {
+            return null;
+        }
+        return authenticationManagers.computeIfAbsent(issuer, key -> createAuthenticationManager(registration));
+    }
+
+    /**
+     * Returns a request-level resolver reading the unverified "iss" claim of the bearer token.
+     *
+     * @return a resolver to register on the resource server
+     */
+    public JwtIssuerAuthenticationManagerResolver toRequestResolver() {
+        return new JwtIssuerAuthenticationManagerResolver(this);
+    }
+
+    /**
+     * Returns the trusted issuers.
+     *
+     * @return the registrations keyed by issuer
+     */
+    public Map<String, IssuerRegistration> getRegistrations() {
+        return registrations;
+    }
+
+    /**
+     * Sets the role prefixes dropped before roles are converted to authorities.
+     *
+     * @param excludedRolePrefixes the excluded role prefixes
+     */
+    public void setExcludedRolePrefixes(List<String> excludedRolePrefixes) {
+        Assert.notNull(excludedRolePrefixes, "excludedRolePrefixes cannot be null");
+        this.excludedRolePrefixes = List.copyOf(excludedRolePrefixes);
+    }
+
+    /**
+     * Sets the metrics recording the conversion time. Defaults to {@link SecurityMetrics#NOOP}.
+     *
+     * @param securityMetrics the metrics to record to
+     */
+    public void setSecurityMetrics(SecurityMetrics securityMetrics) {
+        Assert.notNull(securityMetrics, "securityMetrics cannot be null");
+        this.securityMetrics = securityMetrics;
+    }
+
+    /**
+     * Sets the audit recording each successful conversion. Defaults to {@link SecurityAudit#NOOP}.
+     *
+     * @param securityAudit the audit to record to
+     */
+    public void setSecurityAudit(SecurityAudit securityAudit) {
+        Assert.notNull(securityAudit, "securityAudit cannot be null");
+        this.securityAudit = securityAudit;
+    }
+
+    /**
+     * Sets the decorator applied to the identity extractor of each issuer, for example
+     * to fill the attributes missing from its tokens. Defaults to the identity function.
+     *
+     * @param identityExtractorDecorator wraps the claim mapping extractor of an issuer, called once per issuer
+     */
+    public void setIdentityExtractorDecorator(UnaryOperator<UserIdentityExtractor> identityExtractorDecorator) {
+        Assert.notNull(identityExtractorDecorator, "identityExtractorDecorator cannot be null");
+        this.identityExtractorDecorator = identityExtractorDecorator;
+    }
+
+    /**
+     * Creates the decoder of an issuer.
+     *
+     * <p>The keys are read from the registration's JWK set URI, or discovered from the
+     * issuer's OpenID configuration on first use. The decoder applies the type
+     * verifier of the registration's identity provider and validates the issuer and
+     * audiences.</p>
+     *
+     * @param registration the issuer registration
+     * @return the decoder
+     */
+    public static JwtDecoder createJwtDecoder(IssuerRegistration registration) {
+        NimbusJwtDecoder.JwkSetUriJwtDecoderBuilder builder = StringUtils.hasText(registration.jwkSetUri())
+                ? NimbusJwtDecoder.withJwkSetUri(registration.jwkSetUri())
+                : NimbusJwtDecoder.withIssuerLocation(registration.issuer());
+        for (String algorithm : registration.jwsAlgorithms()) {
+            builder.jwsAlgorithm(SignatureAlgorithm.from(algorithm));
+        }
+        NimbusJwtDecoder jwtDecoder = builder
+                .jwtProcessorCustomizer(processor ->
+                        processor.setJWSTypeVerifier(JwtProcessorSupport.typeVerifier(registration.identityProvider())))
+                .build();
+        jwtDecoder.setJwtValidator(JwtProcessorSupport.validator(registration.issuer(), registration.audiences()));
+        return jwtDecoder;
+    }
+
+    private AuthenticationManager createAuthenticationManager(IssuerRegistration registration) {
+        UserIdentityExtractor identityExtractor = identityExtractorDecorator.apply(
+                new ClaimMappingUserIdentityExtractor(registration.claimMapping()));
+        UserIdentityAuthenticationConverter authenticationConverter = new UserIdentityAuthenticationConverter(
+                identityExtractor, new CachingGrantedAuthoritiesConverter(registration.claimMapping().roles(),
+                        "ROLE_", excludedRolePrefixes));
+        authenticationConverter.setSecurityMetrics(securityMetrics);
+        authenticationConverter.setSecurityAudit(securityAudit);
+        JwtAuthenticationProvider authenticationProvider =
+                new JwtAuthenticationProvider(decoderFactory.apply(registration));
+        authenticationProvider.setJwtAuthenticationConverter(authenticationConverter);
+        return authenticationProvider::authenticate;
+    }
+}
@@ -0,0 +1,55 @@
+package dev.kush.securitycommon.issuer;
+
+import dev.kush.securitycommon.common.ClaimMappingUserIdentityExtractor;
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * UserIdentityExtractor applying the claim mapping of the token's issuer.
+ *
+ * <p>Authentications created by {@link IssuerRoutingAuthenticationManagerResolver}
+ * already carry their identity. This extractor covers the remaining cases, such as
+ * a {@code JwtAuthenticationToken} created elsewhere, so that UserUtils reads the
+ * claims of each issuer the same way.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see IssuerRegistration
+ */
+public class IssuerRoutingUserIdentityExtractor implements UserIdentityExtractor {
+
+    private final Map<String, UserIdentityExtractor> extractors;
+
+    private final UserIdentityExtractor defaultExtractor;
+
+    /**
+     * Creates a new extractor.
+     *
+     * @param registrations    the trusted issuers
+     * @param defaultExtractor the extractor used for tokens of other issuers
+     */
+    public IssuerRoutingUserIdentityExtractor(Collection<IssuerRegistration> registrations,
+                                              UserIdentityExtractor defaultExtractor) {
+        Assert.notNull(registrations, "registrations cannot be null");
+        Assert.notNull(defaultExtractor, "defaultExtractor cannot be null");
+        Map<String, UserIdentityExtractor> byIssuer = new HashMap<>();
+        for (IssuerRegistration registration : registrations) {
+            byIssuer.put(registration.issuer(), new ClaimMappingUserIdentityExtractor(registration.claimMapping()));
+        }
+        this.extractors = Map.copyOf(byIssuer);
+        this.defaultExtractor = defaultExtractor;
+    }
+
+    @Override
+    public UserIdentity extract(Map<String, Object> claims) {
+        Object issuer = claims.get(JwtClaimNames.ISS);
+        UserIdentityExtractor extractor = issuer == null ? null : extractors.get(issuer.toString());
+        return (extractor != null ? extractor : defaultExtractor).extract(claims);
+    }
+}
@@ -0,0 +1,176 @@
+package dev.kush.securitycommon.issuer;
+
+import dev.kush.securitycommon.common.AuditingJwtDecoder;
+import dev.kush.securitycommon.common.CachingJwtDecoder;
+import dev.kush.securitycommon.common.ClaimMapping;
+import dev.kush.securitycommon.common.ClaimMappingUserIdentityExtractor;
+import dev.kush.securitycommon.common.InstrumentedJwtDecoder;
+import dev.kush.securitycommon.common.JwtCustomizerConfig;
+import dev.kush.securitycommon.common.PrefilteringJwtDecoder;
+import dev.kush.securitycommon.common.SecurityAudit;
+import dev.kush.securitycommon.common.SecurityMetrics;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import dev.kush.securitycommon.common.UserUtilsAutoConfiguration;
+import dev.kush.securitycommon.enrichment.EnrichingUserIdentityExtractor;
+import dev.kush.securitycommon.revocation.RevocationChecker;
+import dev.kush.securitycommon.revocation.RevocationCheckingJwtDecoder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtIssuerAuthenticationManagerResolver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Auto-configuration for routing tokens to the decoder of their issuer.
+ *
+ * <p>When "identity.multi-issuer.enabled" is set to {@code true}, this configuration
+ * registers an {@link IssuerRoutingAuthenticationManagerResolver} for the issuers
+ * listed under "identity.multi-issuer.issuers", see {@link MultiIssuerProperties},
+ * and a {@link JwtIssuerAuthenticationManagerResolver} to register on the resource
+ * server. The UserUtils beans read each token with the claim mapping of its
+ * issuer; tokens of other issuers use the "identity.provider" mapping.</p>
+ *
+ * <p>The per-issuer decoders are not beans, so the prefilter
+ * ("identity.decoder.prefilter.*"), the decoded-token cache
+ * ("identity.decoder.cache.*"), the revocation check ("identity.revocation.*"), the
+ * audit of decode failures ("identity.audit.*") and the decoder metrics are applied here.
+ * Neither are the per-issuer identity extractors: when the identity extractor bean
+ * is an {@link EnrichingUserIdentityExtractor}, see
+ * {@link dev.kush.securitycommon.enrichment.IdentityEnrichmentAutoConfiguration},
+ * each of them is enriched through the caches of that bean.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see IssuerRoutingAuthenticationManagerResolver
+ */
+@AutoConfiguration(before = {UserUtilsAutoConfiguration.class, JwtCustomizerConfig.class})
+@ConditionalOnProperty(name = "identity.multi-issuer.enabled", havingValue = "true")
+@EnableConfigurationProperties(MultiIssuerProperties.class)
+public class MultiIssuerAutoConfiguration {
+
+    /**
+     * Creates the resolver of the per-issuer authentication managers.
+     *
+     * @param properties           the trusted issuers
+     * @param excludedRolePrefixes the role prefixes to drop before conversion
+     * @param prefilterEnabled     whether tokens are prefiltered before verification
+     * @param maxTokenLength       the maximum length of a token
+     * @param clockSkew            the clock skew allowed by the prefilter when checking "exp"
+     * @param cacheEnabled         whether decoded tokens are cached
+     * @param cacheMaximumSize     the maximum number of cached tokens per issuer
+     * @param cacheMaxTimeToLive   the maximum time a token stays cached
+     * @param securityMetrics      the optional metrics recording decoding and conversion
+     * @param revocationChecker    the optional checker rejecting revoked tokens
+     * @param securityAudit        the optional audit recording decode failures and successful conversions
+     * @param identityExtractor    the optional identity extractor bean, whose enrichment is applied per issuer
+     * @return the issuer-routing resolver
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public IssuerRoutingAuthenticationManagerResolver issuerRoutingAuthenticationManagerResolver(
+            MultiIssuerProperties properties,
+            @Value("${identity.roles.excluded-prefixes:}") String[] excludedRolePrefixes,
+            @Value("${identity.decoder.prefilter.enabled:true}") boolean prefilterEnabled,
+            @Value("${identity.decoder.prefilter.max-token-length:8192}") int maxTokenLength,
+            @Value("${identity.decoder.prefilter.clock-skew:60s}") Duration clockSkew,
+            @Value("${identity.decoder.cache.enabled:false}") boolean cacheEnabled,
+            @Value("${identity.decoder.cache.maximum-size:10000}") long cacheMaximumSize,
+            @Value("${identity.decoder.cache.max-time-to-live:10m}") Duration cacheMaxTimeToLive,
+            ObjectProvider<SecurityMetrics> securityMetrics,
+            ObjectProvider<RevocationChecker> revocationChecker,
+            ObjectProvider<SecurityAudit> securityAudit,
+            ObjectProvider<UserIdentityExtractor> identityExtractor) {
+        SecurityMetrics metrics = securityMetrics.getIfAvailable();
+        SecurityAudit audit = securityAudit.getIfAvailable();
+        IssuerRoutingAuthenticationManagerResolver resolver = new IssuerRoutingAuthenticationManagerResolver(
+                registrations(properties),
+                registration -> {
+                    JwtDecoder jwtDecoder = IssuerRoutingAuthenticationManagerResolver.createJwtDecoder(registration);
+                    if (prefilterEnabled) {
+                        PrefilteringJwtDecoder prefilter = new PrefilteringJwtDecoder(jwtDecoder,
+                                registration.identityProvider(), registration.issuer(), registration.audiences());
+                        prefilter.setMaxTokenLength(maxTokenLength);
+                        prefilter.setClockSkew(clockSkew);
+                        jwtDecoder = prefilter;
+                    }
+                    if (cacheEnabled) {
+                        jwtDecoder = new CachingJwtDecoder(jwtDecoder, cacheMaximumSize, cacheMaxTimeToLive);
+                    }
+                    RevocationChecker checker = revocationChecker.getIfAvailable();
+                    if (checker != null) {
+                        jwtDecoder = new RevocationCheckingJwtDecoder(jwtDecoder, checker);
+                    }
+                    if (audit != null) {
+                        jwtDecoder = new AuditingJwtDecoder(jwtDecoder, audit);
+                    }
+                    return metrics != null ? new InstrumentedJwtDecoder(jwtDecoder, metrics) : jwtDecoder;
+                });
+        resolver.setExcludedRolePrefixes(Arrays.stream(excludedRolePrefixes)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList());
+        if (metrics != null) {
+            resolver.setSecurityMetrics(metrics);
+        }
+        if (audit != null) {
+            resolver.setSecurityAudit(audit);
+        }
+        if (identityExtractor.getIfUnique() instanceof EnrichingUserIdentityExtractor enriching) {
+            resolver.setIdentityExtractorDecorator(enriching::withDelegate);
+        }
+        return resolver;
+    }
+
+    /**
+     * Creates the request-level resolver reading the unverified "iss" claim of the bearer token.
+     *
+     * @param issuerRoutingResolver the resolver of the per-issuer authentication managers
+     * @return the resolver to register on the resource server
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public JwtIssuerAuthenticationManagerResolver jwtIssuerAuthenticationManagerResolver(
+            IssuerRoutingAuthenticationManagerResolver issuerRoutingResolver) {
+        return issuerRoutingResolver.toRequestResolver();
+    }
+
+    /**
+     * Creates the identity extractor applying the claim mapping of the token's issuer.
+     *
+     * @param properties   the trusted issuers
+     * @param claimMapping the "identity.provider" mapping, used for other issuers
+     * @return the issuer-routing identity extractor
+     */
+    @Bean
+    @ConditionalOnMissingBean(UserIdentityExtractor.class)
+    public IssuerRoutingUserIdentityExtractor issuerRoutingUserIdentityExtractor(MultiIssuerProperties properties,
+                                                                                 ClaimMapping claimMapping) {
+        return new IssuerRoutingUserIdentityExtractor(registrations(properties),
+                new ClaimMappingUserIdentityExtractor(claimMapping));
+    }
+
+    private static List<IssuerRegistration> registrations(MultiIssuerProperties properties) {
+        List<IssuerRegistration> registrations = new ArrayList<>();
+        for (MultiIssuerProperties.Issuer issuer : properties.getIssuers()) {
+            registrations.add(new IssuerRegistration(
+                    issuer.getIssuerUri(),
+                    issuer.getProvider(),
+                    issuer.getJwkSetUri(),
+                    issuer.getJwsAlgorithms(),
+                    issuer.getAudiences(),
+                    ClaimMapping.forProvider(issuer.getProvider()).withPaths(issuer.getClaims())));
+        }
+        return registrations;
+    }
+}
@@ -0,0 +1,139 @@
+package dev.kush.securitycommon.issuer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Properties of the trusted issuers, bound from "identity.multi-issuer".
+ *
+ * <pre>
+ * identity.multi-issuer.enabled=true
+ * identity.multi-issuer.issuers[0].issuer-uri=https://tenant.eu.auth0.com/
+ * identity.multi-issuer.issuers[0].provider=auth0
+ * identity.multi-issuer.issuers[1].issuer-uri=https://sso.example.com/realms/tenant
+ * identity.multi-issuer.issuers[1].provider=keycloak
+ * identity.multi-issuer.issuers[1].claims.company-id=details.company.id
+ * </pre>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see MultiIssuerAutoConfiguration
+ */
+@ConfigurationProperties("identity.multi-issuer")
+public class MultiIssuerProperties {
+
+    /**
+     * Whether issuer routing is enabled.
+     */
+    private boolean enabled;
+
+    /**
+     * The trusted issuers.
+     */
+    private List<Issuer> issuers = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Issuer> getIssuers() {
+        return issuers;
+    }
+
+    public void setIssuers(List<Issuer> issuers) {
+        this.issuers = issuers;
+    }
+
+    /**
+     * A trusted issuer.
+     */
+    public static class Issuer {
+
+        /**
+         * The exact value of the "iss" claim of the issuer's tokens.
+         */
+        private String issuerUri;
+
+        /**
+         * The identity provider type, "auth0" or "keycloak".
+         */
+        private String provider = "auth0";
+
+        /**
+         * The JWK set endpoint. Discovered from the issuer when not set.
+         */
+        private String jwkSetUri;
+
+        /**
+         * The accepted JWS algorithms. Defaults to RS256.
+         */
+        private List<String> jwsAlgorithms = new ArrayList<>();
+
+        /**
+         * The accepted audiences. Any audience is accepted when empty.
+         */
+        private List<String> audiences = new ArrayList<>();
+
+        /**
+         * Claim path overrides, keyed by "subject", "email", "user-id", "company-id",
+         * "company-name" or "roles".
+         */
+        private Map<String, String> claims = new LinkedHashMap<>();
+
+        public String getIssuerUri() {
+            return issuerUri;
+        }
+
+        public void setIssuerUri(String issuerUri) {
+            this.issuerUri = issuerUri;
+        }
+
+        public String getProvider() {
+            return provider;
+        }
+
+        public void setProvider(String provider) {
+            this.provider = provider;
+        }
+
+        public String getJwkSetUri() {
+            return jwkSetUri;
+        }
+
+        public void setJwkSetUri(String jwkSetUri) {
+            this.jwkSetUri = jwkSetUri;
+        }
+
+        public List<String> getJwsAlgorithms() {
+            return jwsAlgorithms;
+        }
+
+        public void setJwsAlgorithms(List<String> jwsAlgorithms) {
+            this.jwsAlgorithms = jwsAlgorithms;
+        }
+
+        public List<String> getAudiences() {
+            return audiences;
+        }
+
+        public void setAudiences(List<String> audiences) {
+            this.audiences = audiences;
+        }
+
+        public Map<String, String> getClaims() {
+            return claims;
+        }
+
+        public void setClaims(Map<String, String> claims) {
+            this.claims = claims;
+        }
+    }
+}
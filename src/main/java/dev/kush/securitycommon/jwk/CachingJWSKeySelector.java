@@ -0,0 +1,145 @@
+package dev.kush.securitycommon.jwk;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.util.Assert;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * JWS key selector that converts each JWK into a Java key only once.
+ *
+ * <p>Nimbus' {@code JWSVerificationKeySelector} converts the matching JWKs into
+ * {@link Key} instances for every token, which for RSA and EC keys means running a
+ * {@code KeyFactory}. This selector matches keys the same way, by algorithm and by
+ * the header's "kid", but memoizes the converted key per JWK instance. Combined with
+ * {@link CachingJWSVerifierFactory}, each distinct signing key is converted and gets
+ * its verifier built once, and every token signed with it reuses them.</p>
+ *
+ * <p>The memo holds JWKs weakly, and the verifier is stored next to the converted
+ * key, so the keys and verifiers of a replaced JWK set, such as after a
+ * {@link RefreshingJwkSource} refresh, are released with it.</p>
+ *
+ * @param <C> the security context type
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see CachingJWSVerifierFactory
+ */
+public class CachingJWSKeySelector<C extends SecurityContext> implements JWSKeySelector<C> {
+
+    private final Set<JWSAlgorithm> algorithms;
+
+    private final JWKSource<C> jwkSource;
+
+    private final Cache<JWK, Optional<SelectedKey>> keys = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * Index from a converted key to its memo entry. The entries are only weakly
+     * referenced here; they are kept alive by {@link #keys}, i.e. by their JWK.
+     */
+    private final Cache<Key, SelectedKey> selectedKeys = Caffeine.newBuilder()
+            .weakKeys()
+            .weakValues()
+            .build();
+
+    /**
+     * Creates a new key selector.
+     *
+     * @param algorithms the accepted JWS algorithms
+     * @param jwkSource  the source of the verification keys
+     */
+    public CachingJWSKeySelector(Set<JWSAlgorithm> algorithms, JWKSource<C> jwkSource) {
+        Assert.notEmpty(algorithms, "algorithms cannot be empty");
+        Assert.notNull(jwkSource, "jwkSource cannot be null");
+        this.algorithms = Set.copyOf(algorithms);
+        this.jwkSource = jwkSource;
+    }
+
+    @Override
+    public List<Key> selectJWSKeys(JWSHeader header, C context) throws KeySourceException {
+        if (!algorithms.contains(header.getAlgorithm())) {
+            return List.of();
+        }
+        JWKMatcher matcher = JWKMatcher.forJWSHeader(header);
+        if (matcher == null) {
+            return List.of();
+        }
+        List<JWK> jwks = jwkSource.get(new JWKSelector(matcher), context);
+        List<Key> selected = new ArrayList<>(jwks.size());
+        for (JWK jwk : jwks) {
+            keys.get(jwk, this::select).ifPresent(selectedKey -> selected.add(selectedKey.key));
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the memo entry of a key returned by {@link #selectJWSKeys}.
+     *
+     * @param key the selected key
+     * @return the entry, or null if the key was not selected by this instance or its JWK was released
+     */
+    SelectedKey selectedKey(Key key) {
+        return selectedKeys.getIfPresent(key);
+    }
+
+    private Optional<SelectedKey> select(JWK jwk) {
+        Key key = toKey(jwk);
+        if (key == null) {
+            return Optional.empty();
+        }
+        SelectedKey selectedKey = new SelectedKey(key);
+        selectedKeys.put(key, selectedKey);
+        return Optional.of(selectedKey);
+    }
+
+    private static Key toKey(JWK jwk) {
+        try {
+            if (jwk instanceof RSAKey rsaKey) {
+                return rsaKey.toRSAPublicKey();
+            }
+            if (jwk instanceof ECKey ecKey) {
+                return ecKey.toECPublicKey();
+            }
+            if (jwk instanceof OctetSequenceKey octetSequenceKey) {
+                return octetSequenceKey.toSecretKey();
+            }
+        } catch (JOSEException ex) {
+            // malformed key, skipped like JWSVerificationKeySelector does
+        }
+        return null;
+    }
+
+    /**
+     * A JWK converted into a Java key, with the verifier built for it on first use.
+     */
+    static final class SelectedKey {
+
+        final Key key;
+
+        volatile JWSVerifier verifier;
+
+        private SelectedKey(Key key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.kush.securitycommon.jwk;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+import org.springframework.util.Assert;
+
+import java.security.Key;
+import java.util.Set;
+
+/**
+ * JWS verifier factory that reuses the verifier built for a key.
+ *
+ * <p>The Nimbus verifiers are immutable and thread-safe, and depend only on the key,
+ * so one verifier is built per key instance and shared by all tokens signed with
+ * it. The verifier is stored with the key in the memo of the
+ * {@link CachingJWSKeySelector} that selected it, so it is released together with
+ * its JWK. Keys from any other source get a new verifier each time.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see CachingJWSKeySelector
+ */
+public class CachingJWSVerifierFactory implements JWSVerifierFactory {
+
+    private final DefaultJWSVerifierFactory delegate = new DefaultJWSVerifierFactory();
+
+    private final CachingJWSKeySelector<?> keySelector;
+
+    /**
+     * Creates a new verifier factory reusing the verifiers of the keys selected by the given selector.
+     *
+     * @param keySelector the key selector of the same JWT processor
+     */
+    public CachingJWSVerifierFactory(CachingJWSKeySelector<?> keySelector) {
+        Assert.notNull(keySelector, "keySelector cannot be null");
+        this.keySelector = keySelector;
+    }
+
+    @Override
+    public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+        CachingJWSKeySelector.SelectedKey selectedKey = keySelector.selectedKey(key);
+        if (selectedKey == null) {
+            return delegate.createJWSVerifier(header, key);
+        }
+        JWSVerifier verifier = selectedKey.verifier;
+        if (verifier == null || !verifier.supportedJWSAlgorithms().contains(header.getAlgorithm())) {
+            verifier = delegate.createJWSVerifier(header, key);
+            selectedKey.verifier = verifier;
+        }
+        return verifier;
+    }
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        return delegate.supportedJWSAlgorithms();
+    }
+
+    @Override
+    public JCAContext getJCAContext() {
+        return delegate.getJCAContext();
+    }
+}
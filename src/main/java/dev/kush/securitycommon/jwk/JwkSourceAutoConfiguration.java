@@ -0,0 +1,144 @@
+package dev.kush.securitycommon.jwk;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import dev.kush.securitycommon.common.JwtProcessorSupport;
+import dev.kush.securitycommon.common.LazyClaimsJwtDecoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Auto-configuration for the prefetching, background-refreshed JWK source.
+ *
+ * <p>When "identity.jwks.prefetch.enabled" is set to {@code true} and a JWK set URI
+ * is configured through "spring.security.oauth2.resourceserver.jwt.jwk-set-uri",
+ * this configuration registers a {@link RefreshingJwkSource} and a {@link JwtDecoder}
+ * backed by it. The decoder replaces the one Spring Boot would create and applies
+ * the same rules: the "at+jwt" type header for Auth0, the configured JWS algorithms,
+ * issuer and audiences.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.jwks.refresh-interval" - maximum interval between refreshes (default 5m)</li>
+ * <li>"identity.jwks.failure-retry-interval" - delay before retrying a failed refresh (default 30s)</li>
+ * <li>"identity.jwks.unknown-kid-refetch-interval" - minimum interval between refetches
+ * triggered by an unknown key id (default 30s)</li>
+ * <li>"identity.jwks.timeout" - connect and read timeout of the JWK set request (default 5s)</li>
+ * <li>"identity.decoder.lazy-claims.enabled" - whether nested claims are only parsed when
+ * read, see {@link LazyClaimsJwtDecoder} (default false)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see RefreshingJwkSource
+ */
+@AutoConfiguration(beforeName = "org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration")
+@ConditionalOnProperty(name = "identity.jwks.prefetch.enabled", havingValue = "true")
+public class JwkSourceAutoConfiguration {
+
+    /**
+     * Creates the JWK source, fetching the keys eagerly when the bean is initialized.
+     *
+     * @param jwkSetUri                the JWK set endpoint of the identity provider
+     * @param refreshInterval          the maximum interval between refreshes
+     * @param failureRetryInterval     the delay before retrying a failed refresh
+     * @param unknownKidRefetchInterval the minimum interval between unknown key id refetches
+     * @param timeout                  the connect and read timeout of the JWK set request
+     * @return the refreshing JWK source
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "spring.security.oauth2.resourceserver.jwt.jwk-set-uri")
+    public RefreshingJwkSource refreshingJwkSource(
+            @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+            @Value("${identity.jwks.refresh-interval:5m}") Duration refreshInterval,
+            @Value("${identity.jwks.failure-retry-interval:30s}") Duration failureRetryInterval,
+            @Value("${identity.jwks.unknown-kid-refetch-interval:30s}") Duration unknownKidRefetchInterval,
+            @Value("${identity.jwks.timeout:5s}") Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) timeout.toMillis());
+        requestFactory.setReadTimeout((int) timeout.toMillis());
+
+        RefreshingJwkSource jwkSource = new RefreshingJwkSource(URI.create(jwkSetUri), new RestTemplate(requestFactory));
+        jwkSource.setRefreshInterval(refreshInterval);
+        jwkSource.setFailureRetryInterval(failureRetryInterval);
+        jwkSource.setUnknownKeyRefetchInterval(unknownKidRefetchInterval);
+        jwkSource.setRefreshTimeout(timeout);
+        return jwkSource;
+    }
+
+    /**
+     * Creates a JWT decoder verifying signatures against the refreshing JWK source.
+     *
+     * @param jwkSource        the refreshing JWK source
+     * @param identityProvider the configured identity provider (e.g., "keycloak" or "auth0")
+     * @param jwsAlgorithms    the accepted JWS algorithms
+     * @param issuerUri        the expected issuer, if any
+     * @param audiences        the accepted audiences, if any
+     * @param lazyClaims       whether nested claims are only parsed when read
+     * @return the JWT decoder
+     */
+    @Bean
+    @ConditionalOnMissingBean(JwtDecoder.class)
+    @ConditionalOnProperty(name = "spring.security.oauth2.resourceserver.jwt.jwk-set-uri")
+    public JwtDecoder jwtDecoderByRefreshingJwkSource(
+            RefreshingJwkSource jwkSource,
+            @Value("${identity.provider:auth0}") String identityProvider,
+            @Value("${spring.security.oauth2.resourceserver.jwt.jws-algorithms:RS256}") String[] jwsAlgorithms,
+            @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri:}") String issuerUri,
+            @Value("${spring.security.oauth2.resourceserver.jwt.audiences:}") String[] audiences,
+            @Value("${identity.decoder.lazy-claims.enabled:false}") boolean lazyClaims) {
+        Set<JWSAlgorithm> algorithms = new LinkedHashSet<>();
+        for (String algorithm : jwsAlgorithms) {
+            algorithms.add(JWSAlgorithm.parse(algorithm.trim()));
+        }
+
+        // each JWK is converted and gets its verifier built once, not once per token
+        CachingJWSKeySelector<SecurityContext> keySelector = new CachingJWSKeySelector<>(algorithms, jwkSource);
+        CachingJWSVerifierFactory verifierFactory = new CachingJWSVerifierFactory(keySelector);
+        OAuth2TokenValidator<Jwt> validator = JwtProcessorSupport.validator(issuerUri, audienceList(audiences));
+
+        if (lazyClaims) {
+            LazyClaimsJwtDecoder jwtDecoder = new LazyClaimsJwtDecoder(keySelector, verifierFactory,
+                    JwtProcessorSupport.typeVerifier(identityProvider));
+            jwtDecoder.setJwtValidator(validator);
+            return jwtDecoder;
+        }
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(keySelector);
+        jwtProcessor.setJWSVerifierFactory(verifierFactory);
+        jwtProcessor.setJWSTypeVerifier(JwtProcessorSupport.typeVerifier(identityProvider));
+        // claims are validated by the Spring Security validators below
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        jwtDecoder.setJwtValidator(validator);
+        return jwtDecoder;
+    }
+
+    private static List<String> audienceList(String[] audiences) {
+        return Arrays.stream(audiences)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+}
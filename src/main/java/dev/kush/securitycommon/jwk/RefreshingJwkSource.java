@@ -0,0 +1,333 @@
+package dev.kush.securitycommon.jwk;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestOperations;
+
+import java.net.URI;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link JWKSource} that keeps the JWK set in memory and refreshes it in the background.
+ *
+ * <p>Compared to fetching the JWK set lazily on the request path, this source:</p>
+ * <ul>
+ * <li>fetches the keys eagerly when the bean is initialized, so the first request
+ * after startup does not block on the identity provider;</li>
+ * <li>refreshes the keys on a scheduler, before the "max-age" announced by the
+ * identity provider elapses and at least every refresh interval;</li>
+ * <li>keeps serving the current (possibly stale) set while a refresh is in flight,
+ * and keeps it when a refresh fails;</li>
+ * <li>refetches on an unknown "kid" at most once per unknown-key refetch interval,
+ * so a flood of tokens with bogus key ids cannot stampede the identity provider.
+ * Concurrent refreshes are coalesced into a single HTTP call.</li>
+ * </ul>
+ *
+ * <p>Fetches run on the refresh thread, so a request waiting for a refetch, including
+ * the one that triggered it, waits at most the refresh timeout.</p>
+ *
+ * <p>The JWK set URI can point to any HTTP endpoint, including a local stub server.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see JwkSourceAutoConfiguration
+ */
+public class RefreshingJwkSource implements JWKSource<SecurityContext>, InitializingBean, DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(RefreshingJwkSource.class);
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private static final MediaType JWK_SET_JSON = MediaType.parseMediaType("application/jwk-set+json");
+
+    private final URI jwkSetUri;
+
+    private final RestOperations restOperations;
+
+    private final AtomicReference<CompletableFuture<JWKSet>> inFlight = new AtomicReference<>();
+
+    private final AtomicLong lastUnknownKeyRefetch;
+
+    private volatile JWKSet jwkSet = new JWKSet();
+
+    private volatile Duration nextRefreshDelay;
+
+    private Duration refreshInterval = Duration.ofMinutes(5);
+
+    private Duration failureRetryInterval = Duration.ofSeconds(30);
+
+    private Duration unknownKeyRefetchInterval = Duration.ofSeconds(30);
+
+    private Duration refreshTimeout = Duration.ofSeconds(5);
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean stopped;
+
+    /**
+     * Creates a new source for the given JWK set URI.
+     *
+     * @param jwkSetUri      the JWK set endpoint of the identity provider
+     * @param restOperations the client used to fetch the JWK set
+     */
+    public RefreshingJwkSource(URI jwkSetUri, RestOperations restOperations) {
+        Assert.notNull(jwkSetUri, "jwkSetUri cannot be null");
+        Assert.notNull(restOperations, "restOperations cannot be null");
+        this.jwkSetUri = jwkSetUri;
+        this.restOperations = restOperations;
+        this.nextRefreshDelay = this.refreshInterval;
+        this.lastUnknownKeyRefetch = new AtomicLong(System.nanoTime() - this.unknownKeyRefetchInterval.toNanos());
+    }
+
+    /**
+     * Fetches the JWK set and starts the background refresh.
+     *
+     * <p>The initial fetch is awaited for at most the refresh timeout. A failed or
+     * slower initial fetch is logged and retried by the scheduler, so an unavailable
+     * identity provider does not prevent the application from starting.</p>
+     */
+    @Override
+    public void afterPropertiesSet() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory());
+        CompletableFuture<JWKSet> initial = refresh();
+        initial.whenComplete(this::scheduleNextRefresh);
+        try {
+            initial.get(this.refreshTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ex) {
+            // logged when the fetch completes, and retried by the scheduler
+        }
+    }
+
+    /**
+     * Stops the background refresh.
+     */
+    @Override
+    public void destroy() {
+        this.stopped = true;
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        List<JWK> matches = jwkSelector.select(this.jwkSet);
+        if (!matches.isEmpty() || !tryAcquireUnknownKeyRefetch()) {
+            return matches;
+        }
+        return jwkSelector.select(awaitRefresh());
+    }
+
+    /**
+     * Returns the JWK set currently served, which may be stale while a refresh is in flight.
+     *
+     * @return the current JWK set, empty until the first successful fetch
+     */
+    public JWKSet getJwkSet() {
+        return this.jwkSet;
+    }
+
+    /**
+     * Refreshes the JWK set from the identity provider.
+     *
+     * <p>If a refresh is already in flight, its result is returned instead of
+     * issuing a second request. Otherwise the fetch runs on the refresh thread, or on
+     * the calling thread before {@link #afterPropertiesSet()}.</p>
+     *
+     * @return a future completed with the refreshed JWK set
+     */
+    public CompletableFuture<JWKSet> refresh() {
+        CompletableFuture<JWKSet> pending = new CompletableFuture<>();
+        CompletableFuture<JWKSet> existing = this.inFlight.compareAndExchange(null, pending);
+        if (existing != null) {
+            return existing;
+        }
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler == null) {
+            fetchInto(pending);
+            return pending;
+        }
+        try {
+            scheduler.execute(() -> fetchInto(pending));
+        } catch (RejectedExecutionException ex) {
+            // destroyed
+            this.inFlight.set(null);
+            pending.completeExceptionally(ex);
+        }
+        return pending;
+    }
+
+    /**
+     * Sets the maximum interval between two scheduled refreshes. Defaults to 5 minutes.
+     *
+     * @param refreshInterval the refresh interval
+     */
+    public void setRefreshInterval(Duration refreshInterval) {
+        Assert.isTrue(refreshInterval != null && !refreshInterval.isNegative() && !refreshInterval.isZero(),
+                "refreshInterval must be positive");
+        this.refreshInterval = refreshInterval;
+        this.nextRefreshDelay = refreshInterval;
+    }
+
+    /**
+     * Sets the delay before retrying a failed scheduled refresh. Defaults to 30 seconds.
+     *
+     * @param failureRetryInterval the retry delay
+     */
+    public void setFailureRetryInterval(Duration failureRetryInterval) {
+        Assert.isTrue(failureRetryInterval != null && !failureRetryInterval.isNegative()
+                && !failureRetryInterval.isZero(), "failureRetryInterval must be positive");
+        this.failureRetryInterval = failureRetryInterval;
+    }
+
+    /**
+     * Sets the minimum interval between two refetches triggered by an unknown key id.
+     * Defaults to 30 seconds.
+     *
+     * @param unknownKeyRefetchInterval the minimum refetch interval
+     */
+    public void setUnknownKeyRefetchInterval(Duration unknownKeyRefetchInterval) {
+        Assert.isTrue(unknownKeyRefetchInterval != null && !unknownKeyRefetchInterval.isNegative(),
+                "unknownKeyRefetchInterval cannot be negative");
+        this.unknownKeyRefetchInterval = unknownKeyRefetchInterval;
+        this.lastUnknownKeyRefetch.set(System.nanoTime() - unknownKeyRefetchInterval.toNanos());
+    }
+
+    /**
+     * Sets how long a request waits for a refetch triggered by an unknown key id, and
+     * how long initialization waits for the initial fetch. Defaults to 5 seconds.
+     *
+     * @param refreshTimeout the maximum wait
+     */
+    public void setRefreshTimeout(Duration refreshTimeout) {
+        Assert.isTrue(refreshTimeout != null && !refreshTimeout.isNegative(), "refreshTimeout cannot be negative");
+        this.refreshTimeout = refreshTimeout;
+    }
+
+    private void fetchInto(CompletableFuture<JWKSet> pending) {
+        try {
+            JWKSet fetched = fetch();
+            this.jwkSet = fetched;
+            pending.complete(fetched);
+        } catch (Exception ex) {
+            pending.completeExceptionally(ex);
+        } catch (Error ex) {
+            // complete the refresh, otherwise every later refetch would wait on it until it times out
+            pending.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            this.inFlight.set(null);
+        }
+    }
+
+    private JWKSet fetch() throws ParseException {
+        RequestEntity<Void> request = RequestEntity.get(this.jwkSetUri)
+                .accept(MediaType.APPLICATION_JSON, JWK_SET_JSON)
+                .build();
+        ResponseEntity<String> response = this.restOperations.exchange(request, String.class);
+        String body = response.getBody();
+        if (body == null) {
+            throw new ParseException("Empty JWK set response from " + this.jwkSetUri, 0);
+        }
+        JWKSet fetched = JWKSet.parse(body);
+        this.nextRefreshDelay = refreshDelay(response.getHeaders().getCacheControl());
+        return fetched;
+    }
+
+    /**
+     * Refreshes ahead of the announced "max-age", at three quarters of its value,
+     * but never later than the configured refresh interval.
+     */
+    private Duration refreshDelay(String cacheControl) {
+        if (cacheControl != null) {
+            Matcher matcher = MAX_AGE.matcher(cacheControl);
+            if (matcher.find()) {
+                Duration refreshAhead = Duration.ofSeconds(Long.parseLong(matcher.group(1)) * 3 / 4);
+                if (!refreshAhead.isZero() && refreshAhead.compareTo(this.refreshInterval) < 0) {
+                    return refreshAhead;
+                }
+            }
+        }
+        return this.refreshInterval;
+    }
+
+    private boolean tryAcquireUnknownKeyRefetch() {
+        long now = System.nanoTime();
+        long last = this.lastUnknownKeyRefetch.get();
+        if (now - last < this.unknownKeyRefetchInterval.toNanos()) {
+            return false;
+        }
+        return this.lastUnknownKeyRefetch.compareAndSet(last, now);
+    }
+
+    private JWKSet awaitRefresh() throws KeySourceException {
+        try {
+            return refresh().get(this.refreshTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new KeySourceException("Interrupted while retrieving the JWK set", ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            throw new KeySourceException("Couldn't retrieve the JWK set from " + this.jwkSetUri, ex);
+        }
+    }
+
+    private void scheduledRefresh() {
+        if (!this.stopped) {
+            refresh().whenComplete(this::scheduleNextRefresh);
+        }
+    }
+
+    private void scheduleNextRefresh(JWKSet fetched, Throwable failure) {
+        Duration delay;
+        if (failure == null) {
+            delay = this.nextRefreshDelay;
+        } else {
+            logger.warn("Failed to refresh the JWK set from " + this.jwkSetUri + ", serving the cached keys", failure);
+            delay = this.failureRetryInterval.compareTo(this.refreshInterval) < 0
+                    ? this.failureRetryInterval
+                    : this.refreshInterval;
+        }
+        if (this.stopped) {
+            return;
+        }
+        try {
+            this.scheduler.schedule(this::scheduledRefresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // destroyed concurrently
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("jwks-refresh-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
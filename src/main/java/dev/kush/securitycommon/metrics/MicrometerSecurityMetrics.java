@@ -0,0 +1,233 @@
+package dev.kush.securitycommon.metrics;
+
+import dev.kush.securitycommon.audit.AuditLog;
+import dev.kush.securitycommon.common.CachingJwtDecoder;
+import dev.kush.securitycommon.common.PrefilteringJwtDecoder;
+import dev.kush.securitycommon.common.SecurityMetrics;
+import dev.kush.securitycommon.revocation.RevocationChecker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.util.Assert;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SecurityMetrics} recording to a Micrometer {@link MeterRegistry}.
+ *
+ * <p>Every meter is registered up front, one per outcome, failure reason and
+ * fallback field, and looked up by enum ordinal afterwards. Recording therefore
+ * never builds tags or resolves meters on the request path.</p>
+ *
+ * <p>Registered meters:
+ * <ul>
+ * <li>"security.jwt.decode" - timer tagged with "outcome" (success or failure) and
+ * "reason" (none, type_rejected, expired, invalid_claims, bad_signature, malformed, revoked or other)</li>
+ * <li>"security.authentication.conversion" - timer of the token to authentication conversion</li>
+ * <li>"security.userutils.fallbacks" - counter tagged with "field" (user_id, company_id or
+ * company_name), incremented when an accessor returns its default value</li>
+ * <li>"security.jwt.decode.cache.hits", "security.jwt.decode.cache.misses",
+ * "security.jwt.decode.cache.evictions" and "security.jwt.decode.cache.size" - statistics
+ * of each {@link CachingJwtDecoder}, tagged with "decoder" (the bean name)</li>
+ * <li>"security.revocation.checks", "security.revocation.filter.matches",
+ * "security.revocation.revoked" and "security.revocation.false-positives" - counts of the
+ * {@link RevocationChecker}, and "security.revocation.filter.bytes" and
+ * "security.revocation.filter.false-positive-rate" - size and estimated false positive
+ * rate of its filter</li>
+ * <li>"security.prefilter.passed" and "security.prefilter.rejected" - counts of each
+ * {@link PrefilteringJwtDecoder}, tagged with "decoder" (the bean name), the latter also
+ * with "reason" (oversized, malformed, type, expired, issuer or audience)</li>
+ * <li>"security.audit.queue.depth" and "security.audit.queue.capacity" - pending events and
+ * size of the buffer of the {@link AuditLog}, and "security.audit.dropped",
+ * "security.audit.written" and "security.audit.sink.failures" - its counts</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see SecurityMetricsAutoConfiguration
+ */
+public class MicrometerSecurityMetrics implements SecurityMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer decodeSuccess;
+
+    private final Timer[] decodeFailures;
+
+    private final Timer conversion;
+
+    private final Counter[] fallbacks;
+
+    /**
+     * Creates a new instance and registers its meters.
+     *
+     * @param meterRegistry the registry to register the meters in
+     */
+    public MicrometerSecurityMetrics(MeterRegistry meterRegistry) {
+        Assert.notNull(meterRegistry, "meterRegistry cannot be null");
+        this.meterRegistry = meterRegistry;
+        this.decodeSuccess = decodeTimer("success", "none");
+        DecodeFailure[] reasons = DecodeFailure.values();
+        this.decodeFailures = new Timer[reasons.length];
+        for (DecodeFailure reason : reasons) {
+            decodeFailures[reason.ordinal()] = decodeTimer("failure", tagValue(reason));
+        }
+        this.conversion = Timer.builder("security.authentication.conversion")
+                .description("Time to convert a decoded token into an authentication")
+                .register(meterRegistry);
+        Fallback[] fields = Fallback.values();
+        this.fallbacks = new Counter[fields.length];
+        for (Fallback field : fields) {
+            fallbacks[field.ordinal()] = Counter.builder("security.userutils.fallbacks")
+                    .description("UserUtils accessors returning their default value because the claim is missing")
+                    .tag("field", tagValue(field))
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void recordDecodeSuccess(long durationNanos) {
+        decodeSuccess.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordDecodeFailure(DecodeFailure reason, long durationNanos) {
+        decodeFailures[reason.ordinal()].record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordConversion(long durationNanos) {
+        conversion.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordFallback(Fallback field) {
+        fallbacks[field.ordinal()].increment();
+    }
+
+    /**
+     * Registers the statistics of a decoded-token cache.
+     *
+     * <p>The values are read from the cache when the registry is scraped, so the
+     * cache itself is not instrumented.</p>
+     *
+     * @param decoder     the caching decoder
+     * @param decoderName the name used for the "decoder" tag, usually the bean name
+     */
+    public void bindJwtDecoderCache(CachingJwtDecoder decoder, String decoderName) {
+        FunctionCounter.builder("security.jwt.decode.cache.hits", decoder, CachingJwtDecoder::getHitCount)
+                .description("Tokens served from the decoded-token cache")
+                .tag("decoder", decoderName)
+                .register(meterRegistry);
+        FunctionCounter.builder("security.jwt.decode.cache.misses", decoder, CachingJwtDecoder::getMissCount)
+                .description("Tokens decoded because they were not cached")
+                .tag("decoder", decoderName)
+                .register(meterRegistry);
+        FunctionCounter.builder("security.jwt.decode.cache.evictions", decoder, CachingJwtDecoder::getEvictionCount)
+                .description("Tokens evicted from the decoded-token cache")
+                .tag("decoder", decoderName)
+                .register(meterRegistry);
+        Gauge.builder("security.jwt.decode.cache.size", decoder, CachingJwtDecoder::getEstimatedSize)
+                .description("Approximate number of tokens in the decoded-token cache")
+                .tag("decoder", decoderName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers the statistics of a revocation checker.
+     *
+     * <p>Like the cache statistics, the values are read when the registry is scraped.
+     * Comparing "security.revocation.false-positives" with "security.revocation.checks"
+     * gives the measured false positive rate of the filter.</p>
+     *
+     * @param checker the revocation checker
+     */
+    public void bindRevocationChecker(RevocationChecker checker) {
+        FunctionCounter.builder("security.revocation.checks", checker, RevocationChecker::getCheckCount)
+                .description("Tokens checked for revocation")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.revocation.filter.matches", checker, RevocationChecker::getFilterMatchCount)
+                .description("Revocation filter matches sent to the authoritative lookup")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.revocation.revoked", checker, RevocationChecker::getRevokedCount)
+                .description("Tokens rejected as revoked")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.revocation.false-positives", checker, RevocationChecker::getFalsePositiveCount)
+                .description("Revocation filter matches not confirmed by the authoritative lookup")
+                .register(meterRegistry);
+        Gauge.builder("security.revocation.filter.bytes", checker, RevocationChecker::getFilterMemoryBytes)
+                .description("Memory used by the revocation filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("security.revocation.filter.false-positive-rate", checker,
+                        RevocationChecker::getEstimatedFalsePositiveRate)
+                .description("False positive rate of the revocation filter, estimated from its fill ratio")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers the counters of a token prefilter.
+     *
+     * <p>Like the cache statistics, the values are read when the registry is scraped.
+     * "security.prefilter.rejected" counts the tokens rejected before signature
+     * verification, tagged with the {@link PrefilteringJwtDecoder.Rejection} reason.</p>
+     *
+     * @param prefilter   the prefiltering decoder
+     * @param decoderName the name used for the "decoder" tag, usually the bean name
+     */
+    public void bindPrefilter(PrefilteringJwtDecoder prefilter, String decoderName) {
+        FunctionCounter.builder("security.prefilter.passed", prefilter, PrefilteringJwtDecoder::getPassedCount)
+                .description("Tokens passed on to signature verification by the prefilter")
+                .tag("decoder", decoderName)
+                .register(meterRegistry);
+        for (PrefilteringJwtDecoder.Rejection rejection : PrefilteringJwtDecoder.Rejection.values()) {
+            FunctionCounter.builder("security.prefilter.rejected", prefilter, p -> p.getRejectedCount(rejection))
+                    .description("Tokens rejected by the prefilter before signature verification")
+                    .tag("decoder", decoderName)
+                    .tag("reason", tagValue(rejection))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Registers the statistics of an audit log.
+     *
+     * <p>Like the cache statistics, the values are read when the registry is scraped.
+     * A queue depth close to the capacity, or a growing "security.audit.dropped",
+     * means the sink cannot keep up with the events.</p>
+     *
+     * @param auditLog the audit log
+     */
+    public void bindAuditLog(AuditLog auditLog) {
+        Gauge.builder("security.audit.queue.depth", auditLog, AuditLog::getQueueDepth)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("security.audit.queue.capacity", auditLog, AuditLog::getCapacity)
+                .description("Number of audit events the buffer holds")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.audit.dropped", auditLog, AuditLog::getDroppedCount)
+                .description("Audit events dropped because the buffer was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.audit.written", auditLog, AuditLog::getWrittenCount)
+                .description("Audit events written to the sink")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.audit.sink.failures", auditLog, AuditLog::getSinkFailureCount)
+                .description("Audit batches the sink failed to write or flush")
+                .register(meterRegistry);
+    }
+
+    private Timer decodeTimer(String outcome, String reason) {
+        return Timer.builder("security.jwt.decode")
+                .description("Time to decode and validate a JWT")
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,125 @@
+package dev.kush.securitycommon.metrics;
+
+import dev.kush.securitycommon.audit.AuditLog;
+import dev.kush.securitycommon.common.AuditingJwtDecoder;
+import dev.kush.securitycommon.common.CachingJwtDecoder;
+import dev.kush.securitycommon.common.InstrumentedJwtDecoder;
+import dev.kush.securitycommon.common.PrefilteringJwtDecoder;
+import dev.kush.securitycommon.common.SecurityMetrics;
+import dev.kush.securitycommon.revocation.RevocationCheckingJwtDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+/**
+ * Auto-configuration for the Micrometer meters of the security pipeline.
+ *
+ * <p>Active when Micrometer is on the classpath and a {@link MeterRegistry} bean is
+ * available, for example through Spring Boot Actuator. It can be switched off with
+ * "identity.metrics.enabled=false". When active:</p>
+ * <ul>
+ * <li>a {@link MicrometerSecurityMetrics} bean is registered, which the converters and
+ * UserUtils beans of this library pick up;</li>
+ * <li>every {@link JwtDecoder} bean is wrapped in an {@link InstrumentedJwtDecoder},
+ * outside of the decoded-token cache and the revocation check, and the statistics
+ * of the cache, of the revocation checker and of the prefilter are bound;</li>
+ * <li>the statistics of the {@link AuditLog}, if any, are bound.</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see MicrometerSecurityMetrics
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnBean(type = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnProperty(name = "identity.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class SecurityMetricsAutoConfiguration {
+
+    /**
+     * Creates the Micrometer-backed security metrics.
+     *
+     * @param meterRegistry the registry to register the meters in
+     * @param auditLog      the optional audit log whose statistics are bound
+     * @return the security metrics
+     */
+    @Bean
+    @ConditionalOnMissingBean(SecurityMetrics.class)
+    MicrometerSecurityMetrics securityMetrics(MeterRegistry meterRegistry, ObjectProvider<AuditLog> auditLog) {
+        MicrometerSecurityMetrics metrics = new MicrometerSecurityMetrics(meterRegistry);
+        auditLog.ifAvailable(metrics::bindAuditLog);
+        return metrics;
+    }
+
+    /**
+     * Creates a bean post processor wrapping JWT decoders in an {@link InstrumentedJwtDecoder}.
+     *
+     * <p>The method is static so the post processor can be registered before the
+     * decoder beans are instantiated.</p>
+     *
+     * @param securityMetrics the metrics to record to, resolved when the first decoder is created
+     * @return a bean post processor instrumenting JWT decoders
+     */
+    @Bean
+    static InstrumentedJwtDecoderPostProcessor instrumentedJwtDecoderPostProcessor(
+            ObjectProvider<SecurityMetrics> securityMetrics) {
+        return new InstrumentedJwtDecoderPostProcessor(securityMetrics);
+    }
+
+    /**
+     * Bean post processor wrapping JWT decoders in an {@link InstrumentedJwtDecoder}.
+     *
+     * <p>It runs with the lowest precedence so that the instrumentation is the
+     * outermost decoder and measures the time including cache lookups.</p>
+     */
+    static final class InstrumentedJwtDecoderPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<SecurityMetrics> securityMetrics;
+
+        private InstrumentedJwtDecoderPostProcessor(ObjectProvider<SecurityMetrics> securityMetrics) {
+            this.securityMetrics = securityMetrics;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof JwtDecoder decoder) || bean instanceof InstrumentedJwtDecoder) {
+                return bean;
+            }
+            SecurityMetrics metrics = securityMetrics.getIfAvailable();
+            if (metrics == null) {
+                return bean;
+            }
+            if (metrics instanceof MicrometerSecurityMetrics micrometerMetrics) {
+                JwtDecoder inner = decoder;
+                if (inner instanceof AuditingJwtDecoder auditingDecoder) {
+                    inner = auditingDecoder.getDelegate();
+                }
+                if (inner instanceof RevocationCheckingJwtDecoder revocationDecoder) {
+                    micrometerMetrics.bindRevocationChecker(revocationDecoder.getRevocationChecker());
+                    inner = revocationDecoder.getDelegate();
+                }
+                if (inner instanceof CachingJwtDecoder cachingDecoder) {
+                    micrometerMetrics.bindJwtDecoderCache(cachingDecoder, beanName);
+                    inner = cachingDecoder.getDelegate();
+                }
+                if (inner instanceof PrefilteringJwtDecoder prefilter) {
+                    micrometerMetrics.bindPrefilter(prefilter, beanName);
+                }
+            }
+            return new InstrumentedJwtDecoder(decoder, metrics);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dev.kush.securitycommon.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Token bucket rate limiter keyed by a numeric id, such as a company or user id.
+ *
+ * <p>Each key gets a bucket of {@code limit} permits, refilled continuously at
+ * {@code limit} permits per {@code period}. The bucket is stored as a single
+ * timestamp, the theoretical arrival time of the generic cell rate algorithm,
+ * which is equivalent to a token bucket: acquiring a permit is one lock-free
+ * compare-and-set on that timestamp, and refilling needs no background work.</p>
+ *
+ * <p>The buckets are held in a bounded Caffeine cache, whose concurrent hash table
+ * does not serialize unrelated keys. A bucket idle for longer than the idle
+ * timeout, or than the time it takes to refill, is evicted, since a new bucket
+ * would be in the same state. Under memory pressure, the least frequently used
+ * buckets are evicted first, which at worst grants an evicted key a full bucket
+ * again.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see TenantRateLimitFilter
+ */
+public class RateLimiter {
+
+    private static final Function<Long, AtomicLong> NEW_BUCKET = key -> new AtomicLong(Long.MIN_VALUE);
+
+    private final long limit;
+
+    private final long emissionIntervalNanos;
+
+    private final long burstNanos;
+
+    private final Ticker ticker;
+
+    private final Cache<Long, AtomicLong> buckets;
+
+    /**
+     * Creates a new limiter.
+     *
+     * @param limit       the number of permits per period, which is also the burst size
+     * @param period      the period over which {@code limit} permits are refilled
+     * @param maximumKeys the maximum number of buckets kept in memory
+     * @param idleTimeout the time after which a bucket that is not used is evicted
+     */
+    public RateLimiter(long limit, Duration period, long maximumKeys, Duration idleTimeout) {
+        this(limit, period, maximumKeys, idleTimeout, Ticker.systemTicker());
+    }
+
+    /**
+     * Creates a new limiter using the given time source for refills and evictions.
+     *
+     * @param limit       the number of permits per period, which is also the burst size
+     * @param period      the period over which {@code limit} permits are refilled
+     * @param maximumKeys the maximum number of buckets kept in memory
+     * @param idleTimeout the time after which a bucket that is not used is evicted
+     * @param ticker      the nanosecond time source, {@link System#nanoTime()} by default
+     */
+    public RateLimiter(long limit, Duration period, long maximumKeys, Duration idleTimeout, Ticker ticker) {
+        Assert.isTrue(limit > 0, "limit must be positive");
+        Assert.isTrue(period != null && !period.isNegative() && !period.isZero(), "period must be positive");
+        Assert.isTrue(maximumKeys > 0, "maximumKeys must be positive");
+        Assert.notNull(idleTimeout, "idleTimeout cannot be null");
+        Assert.notNull(ticker, "ticker cannot be null");
+        this.limit = limit;
+        this.ticker = ticker;
+        this.emissionIntervalNanos = Math.max(1, period.toNanos() / limit);
+        this.burstNanos = emissionIntervalNanos * limit;
+        long expireNanos = Math.max(idleTimeout.toNanos(), burstNanos);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(expireNanos, TimeUnit.NANOSECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Tries to take a permit from the bucket of a key.
+     *
+     * @param key the key, e.g. a company id
+     * @return 0 if a permit was taken, otherwise the time in nanoseconds until one is available
+     */
+    public long tryAcquire(long key) {
+        AtomicLong bucket = buckets.get(key, NEW_BUCKET);
+        long now = ticker.read();
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + emissionIntervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of permits per period.
+     *
+     * @return the limit
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the approximate number of buckets in memory, after evicting the idle ones.
+     *
+     * @return the number of buckets
+     */
+    public long getEstimatedSize() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,72 @@
+package dev.kush.securitycommon.ratelimit;
+
+import dev.kush.securitycommon.common.UserUtils;
+import dev.kush.securitycommon.common.UserUtilsAutoConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+
+/**
+ * Auto-configuration for per-company and per-user rate limiting.
+ *
+ * <p>When "identity.rate-limit.enabled" is set to {@code true}, a
+ * {@link TenantRateLimitFilter} is registered right after the Spring Security
+ * filter chain, so it sees the authentication of the request. Each limit allows
+ * a number of requests per period, as a burst or spread over the period.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.rate-limit.company.limit" - requests per period and company, 0 for no limit (default 100)</li>
+ * <li>"identity.rate-limit.company.period" - period of the company limit (default 1s)</li>
+ * <li>"identity.rate-limit.user.limit" - requests per period and user, 0 for no limit (default 20)</li>
+ * <li>"identity.rate-limit.user.period" - period of the user limit (default 1s)</li>
+ * <li>"identity.rate-limit.maximum-keys" - maximum number of buckets kept per limit (default 500000)</li>
+ * <li>"identity.rate-limit.idle-timeout" - time after which an unused bucket is evicted (default 10m)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see TenantRateLimitFilter
+ */
+@AutoConfiguration(after = UserUtilsAutoConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "identity.rate-limit.enabled", havingValue = "true")
+public class TenantRateLimitAutoConfiguration {
+
+    /**
+     * Registers the rate limit filter after the security filter chain.
+     *
+     * @param userUtils     the UserUtils reading the ids of the current request
+     * @param companyLimit  the requests per period and company, 0 for no limit
+     * @param companyPeriod the period of the company limit
+     * @param userLimit     the requests per period and user, 0 for no limit
+     * @param userPeriod    the period of the user limit
+     * @param maximumKeys   the maximum number of buckets kept per limit
+     * @param idleTimeout   the time after which an unused bucket is evicted
+     * @return the filter registration
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "tenantRateLimitFilter")
+    public FilterRegistrationBean<TenantRateLimitFilter> tenantRateLimitFilter(
+            UserUtils userUtils,
+            @Value("${identity.rate-limit.company.limit:100}") long companyLimit,
+            @Value("${identity.rate-limit.company.period:1s}") Duration companyPeriod,
+            @Value("${identity.rate-limit.user.limit:20}") long userLimit,
+            @Value("${identity.rate-limit.user.period:1s}") Duration userPeriod,
+            @Value("${identity.rate-limit.maximum-keys:500000}") long maximumKeys,
+            @Value("${identity.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        TenantRateLimitFilter filter = new TenantRateLimitFilter(userUtils,
+                companyLimit > 0 ? new RateLimiter(companyLimit, companyPeriod, maximumKeys, idleTimeout) : null,
+                userLimit > 0 ? new RateLimiter(userLimit, userPeriod, maximumKeys, idleTimeout) : null);
+        FilterRegistrationBean<TenantRateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
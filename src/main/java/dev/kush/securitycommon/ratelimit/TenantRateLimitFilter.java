@@ -0,0 +1,115 @@
+package dev.kush.securitycommon.ratelimit;
+
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserUtils;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servlet filter applying per-company and per-user rate limits to token-authenticated requests.
+ *
+ * <p>The company and user ids are read through {@link UserUtils#getCurrentIdentity()},
+ * so they are extracted once per authentication, like everywhere else in the
+ * application. Requests that are not authenticated with a bearer token, and ids
+ * missing from the token (0), are not limited. The company limit is checked
+ * first; a request rejected by it does not consume a permit of the user limit.</p>
+ *
+ * <p>The filter fails open: if the ids cannot be read, for example because the
+ * token lacks a claim the configured extractor requires, the failure is logged
+ * and the request passes unlimited, leaving authorization to report it.</p>
+ *
+ * <p>Rejected requests get a "429 Too Many Requests" response with a
+ * "Retry-After" header in seconds, as well as "RateLimit-Limit",
+ * "RateLimit-Remaining" and "RateLimit-Reset" headers describing the exhausted
+ * limit.</p>
+ *
+ * <p>The filter must run after authentication, see
+ * {@link TenantRateLimitAutoConfiguration}.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see RateLimiter
+ */
+public class TenantRateLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] TOO_MANY_REQUESTS = "Too Many Requests".getBytes(StandardCharsets.UTF_8);
+
+    private final UserUtils userUtils;
+
+    private final RateLimiter companyLimiter;
+
+    private final RateLimiter userLimiter;
+
+    /**
+     * Creates a new filter.
+     *
+     * @param userUtils      the UserUtils reading the ids of the current request
+     * @param companyLimiter the limiter keyed by company id, or null for no company limit
+     * @param userLimiter    the limiter keyed by user id, or null for no user limit
+     */
+    public TenantRateLimitFilter(UserUtils userUtils, RateLimiter companyLimiter, RateLimiter userLimiter) {
+        this.userUtils = userUtils;
+        this.companyLimiter = companyLimiter;
+        this.userLimiter = userLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof AbstractOAuth2TokenAuthenticationToken<?>)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        UserIdentity identity;
+        try {
+            identity = userUtils.getCurrentIdentity();
+        } catch (RuntimeException ex) {
+            logger.debug("Cannot read the identity of the request, not rate limiting it", ex);
+            chain.doFilter(request, response);
+            return;
+        }
+        if (reject(companyLimiter, identity.companyId(), response)
+                || reject(userLimiter, identity.userId(), response)) {
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static boolean reject(RateLimiter limiter, long key, HttpServletResponse response) throws IOException {
+        if (limiter == null || key == 0L) {
+            return false;
+        }
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos == 0) {
+            return false;
+        }
+        long retryAfterSeconds = retryAfterSeconds(waitNanos);
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setHeader("RateLimit-Limit", Long.toString(limiter.getLimit()));
+        response.setHeader("RateLimit-Remaining", "0");
+        response.setHeader("RateLimit-Reset", Long.toString(retryAfterSeconds));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getOutputStream().write(TOO_MANY_REQUESTS);
+        return true;
+    }
+
+    /**
+     * Rounds a wait up to whole seconds, at least one, as "Retry-After" has no fractions.
+     */
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+}
@@ -0,0 +1,100 @@
+package dev.kush.securitycommon.reactive;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserIdentityAuthenticationToken;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReactiveUserUtils} implementation backed by a {@link UserIdentityExtractor}.
+ *
+ * <p>The {@link Authentication} is read from the Reactor context of the subscriber
+ * rather than from the thread, since reactive pipelines hop between threads. As in
+ * the servlet implementation, the identity is memoized in a cache keyed by the
+ * identity of the {@code Authentication} instance and held with weak references, so
+ * entries disappear together with the exchange; here the cache is also bounded.
+ * A {@link UserIdentityAuthenticationToken} is used as is.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see ReactiveUserUtilsAutoConfiguration
+ */
+public class DefaultReactiveUserUtils implements ReactiveUserUtils {
+
+    private static final long MAXIMUM_MEMOIZED_IDENTITIES = 10_000;
+
+    private final UserIdentityExtractor identityExtractor;
+
+    private final Cache<Authentication, UserIdentity> identities = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(MAXIMUM_MEMOIZED_IDENTITIES)
+            .build();
+
+    /**
+     * Creates a new instance extracting identities with the given extractor.
+     *
+     * @param identityExtractor the provider-specific identity extractor
+     */
+    public DefaultReactiveUserUtils(UserIdentityExtractor identityExtractor) {
+        Assert.notNull(identityExtractor, "identityExtractor cannot be null");
+        this.identityExtractor = identityExtractor;
+    }
+
+    @Override
+    public Mono<UserIdentity> getCurrentIdentity() {
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .mapNotNull(this::resolveIdentity);
+    }
+
+    @Override
+    public Mono<String> getCurrentUserEmail() {
+        return getCurrentIdentity().mapNotNull(UserIdentity::email);
+    }
+
+    @Override
+    public Mono<String> getCurrentUserSubjectId() {
+        return getCurrentIdentity().mapNotNull(UserIdentity::subject);
+    }
+
+    @Override
+    public Mono<Long> getCurrentUserId() {
+        return getCurrentIdentity().map(UserIdentity::userId);
+    }
+
+    @Override
+    public Mono<Long> getCurrentCompanyId() {
+        return getCurrentIdentity().map(UserIdentity::companyId);
+    }
+
+    @Override
+    public Mono<String> getCurrentCompanyName() {
+        return getCurrentIdentity().map(UserIdentity::companyName);
+    }
+
+    @Override
+    public Mono<String> getCurrentUserRole() {
+        return getCurrentIdentity().map(UserIdentity::role);
+    }
+
+    private UserIdentity resolveIdentity(Authentication authentication) {
+        if (authentication instanceof UserIdentityAuthenticationToken token) {
+            return token.getIdentity();
+        }
+        if (authentication.getPrincipal() instanceof Jwt jwt) {
+            return identities.get(authentication, key -> identityExtractor.extract(jwt.getClaims()));
+        }
+        if (authentication.getPrincipal() instanceof OAuth2AuthenticatedPrincipal principal) {
+            return identities.get(authentication, key -> identityExtractor.extract(principal.getAttributes()));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,73 @@
+package dev.kush.securitycommon.reactive;
+
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link UserUtils} for WebFlux applications.
+ *
+ * <p>Values are read from the {@code ReactiveSecurityContextHolder} instead of the
+ * thread-local security context, so they are only available inside a reactive
+ * chain subscribed within an authenticated exchange. Each method emits the same
+ * value the corresponding {@link UserUtils} method returns; values that
+ * {@link UserUtils} would return as {@code null} complete the {@link Mono} empty.</p>
+ *
+ * <p>All methods complete empty when there is no authenticated user.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see UserUtils
+ * @see DefaultReactiveUserUtils
+ */
+public interface ReactiveUserUtils {
+
+    /**
+     * Retrieves the email address of the currently authenticated user.
+     *
+     * @return the user's email address, or empty if not available
+     */
+    Mono<String> getCurrentUserEmail();
+
+    /**
+     * Retrieves the subject identifier of the currently authenticated user.
+     *
+     * @return the user's subject ID, or empty if not available
+     */
+    Mono<String> getCurrentUserSubjectId();
+
+    /**
+     * Retrieves the internal user ID of the currently authenticated user.
+     *
+     * @return the user's internal ID, or 0L if not available or on error
+     */
+    Mono<Long> getCurrentUserId();
+
+    /**
+     * Retrieves the company ID associated with the currently authenticated user.
+     *
+     * @return the user's company ID, or 0L if not available or on error
+     */
+    Mono<Long> getCurrentCompanyId();
+
+    /**
+     * Retrieves the company name associated with the currently authenticated user.
+     *
+     * @return the user's company name, or empty string if not available
+     */
+    Mono<String> getCurrentCompanyName();
+
+    /**
+     * Retrieves the role of the currently authenticated user.
+     *
+     * @return the user's role, or empty string if not available
+     */
+    Mono<String> getCurrentUserRole();
+
+    /**
+     * Retrieves a typed snapshot of the currently authenticated user's identity.
+     *
+     * @return the current user's identity
+     */
+    Mono<UserIdentity> getCurrentIdentity();
+}
@@ -0,0 +1,60 @@
+package dev.kush.securitycommon.reactive;
+
+import com.nimbusds.jose.proc.JWKSecurityContext;
+import dev.kush.securitycommon.common.JwtProcessorSupport;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.reactive.JwkSetUriReactiveJwtDecoderBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Auto-configuration for reactive (WebFlux) applications.
+ *
+ * <p>This configuration is only active in reactive web applications. It registers
+ * a {@link ReactiveUserUtils} matching the configured identity provider and a
+ * reactive JWT decoder customizer applying the same type header verification
+ * ("at+jwt" for Auth0) as the servlet customizer of {@code JwtCustomizerConfig}.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see ReactiveUserUtils
+ */
+@AutoConfiguration
+@ConditionalOnClass(name = "reactor.core.publisher.Mono")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserUtilsAutoConfiguration {
+
+    /**
+     * Creates and registers a ReactiveUserUtils bean for the configured identity provider.
+     *
+     * @param identityExtractor the extractor reading the claims mapped by "identity.claims.*"
+     * @return a new instance of DefaultReactiveUserUtils
+     */
+    @Bean
+    @ConditionalOnMissingBean(ReactiveUserUtils.class)
+    public ReactiveUserUtils reactiveUserUtils(UserIdentityExtractor identityExtractor) {
+        return new DefaultReactiveUserUtils(identityExtractor);
+    }
+
+    /**
+     * Creates a reactive JWT decoder builder customizer for Auth0 integration.
+     *
+     * <p>The type is chosen from the "identity.provider" property when the customizer
+     * runs, like {@link dev.kush.securitycommon.common.JwtCustomizerConfig#customizer(String)},
+     * so that it is not fixed at build time by AOT processing.</p>
+     *
+     * @param identityProvider the configured identity provider (e.g., "keycloak" or "auth0")
+     * @return a reactive JWT decoder builder customizer that sets up Auth0-compatible token validation
+     */
+    @Bean
+    public JwkSetUriReactiveJwtDecoderBuilderCustomizer reactiveCustomizer(
+            @Value("${identity.provider:auth0}") String identityProvider) {
+        return builder -> builder.jwtProcessorCustomizer(processor ->
+                processor.setJWSTypeVerifier(JwtProcessorSupport.<JWKSecurityContext>typeVerifier(identityProvider))
+        );
+    }
+}
@@ -0,0 +1,320 @@
+package dev.kush.securitycommon.relay;
+
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestOperations;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Client-credentials access token cached until shortly before it expires.
+ *
+ * <p>The token is requested from the token endpoint on first use and shared by
+ * all callers. Once it enters its refresh window ("refresh-before" ahead of its
+ * expiry, at most half its lifetime), the next caller starts a refresh in the
+ * background and keeps getting the current token, so calls do not wait on the
+ * identity provider while a valid token exists. Only when there is no valid token
+ * does a caller wait for a request. Concurrent refreshes are coalesced into a
+ * single HTTP call.</p>
+ *
+ * <p>A failed background refresh is logged, and retried by the next caller while
+ * the current token is still valid. A token is considered expired 10 seconds
+ * (at most half its lifetime) before its "expires_in", so it is not sent about to
+ * expire. Responses without "expires_in" are cached for 5 minutes.</p>
+ *
+ * <p>The token URI can point to any HTTP endpoint, including a local stub server.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see TokenRelayAutoConfiguration
+ */
+public class ClientCredentialsTokenProvider implements DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(ClientCredentialsTokenProvider.class);
+
+    private static final Duration EXPIRY_SKEW = Duration.ofSeconds(10);
+
+    private static final Duration DEFAULT_EXPIRES_IN = Duration.ofMinutes(5);
+
+    private final URI tokenUri;
+
+    private final String clientId;
+
+    private final String clientSecret;
+
+    private final RestOperations restOperations;
+
+    private final AtomicReference<CompletableFuture<CachedToken>> inFlight = new AtomicReference<>();
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(daemonThreadFactory());
+
+    private volatile CachedToken token;
+
+    private ClientAuthenticationMethod clientAuthenticationMethod = ClientAuthenticationMethod.CLIENT_SECRET_BASIC;
+
+    private String scope;
+
+    private String audience;
+
+    private Duration refreshBefore = Duration.ofSeconds(60);
+
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Creates a new provider.
+     *
+     * @param tokenUri       the token endpoint of the identity provider
+     * @param clientId       the client id
+     * @param clientSecret   the client secret
+     * @param restOperations the client used to call the token endpoint
+     */
+    public ClientCredentialsTokenProvider(URI tokenUri, String clientId, String clientSecret,
+                                          RestOperations restOperations) {
+        Assert.notNull(tokenUri, "tokenUri cannot be null");
+        Assert.hasText(clientId, "clientId cannot be empty");
+        Assert.notNull(clientSecret, "clientSecret cannot be null");
+        Assert.notNull(restOperations, "restOperations cannot be null");
+        this.tokenUri = tokenUri;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.restOperations = restOperations;
+    }
+
+    /**
+     * Returns a valid access token, requesting one if none is cached.
+     *
+     * @return the access token value
+     * @throws IllegalStateException if no token could be obtained
+     */
+    public String getToken() {
+        CachedToken current = this.token;
+        Instant now = this.clock.instant();
+        if (current != null && now.isBefore(current.expiresAt())) {
+            if (!now.isBefore(current.refreshAt())) {
+                refreshInBackground();
+            }
+            return current.value();
+        }
+        try {
+            return refresh(false).join().value();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Failed to obtain a client credentials token from " + this.tokenUri,
+                    ex.getCause());
+        }
+    }
+
+    /**
+     * Returns a valid access token without blocking the calling thread.
+     *
+     * <p>The returned future is already completed when a valid token is cached.
+     * Otherwise the token is requested on a background thread.</p>
+     *
+     * @return a future completed with the access token value
+     */
+    public CompletableFuture<String> getTokenAsync() {
+        CachedToken current = this.token;
+        Instant now = this.clock.instant();
+        if (current != null && now.isBefore(current.expiresAt())) {
+            if (!now.isBefore(current.refreshAt())) {
+                refreshInBackground();
+            }
+            return CompletableFuture.completedFuture(current.value());
+        }
+        return refresh(true).thenApply(CachedToken::value);
+    }
+
+    /**
+     * Sets how the client authenticates to the token endpoint. Defaults to
+     * {@link ClientAuthenticationMethod#CLIENT_SECRET_BASIC}.
+     *
+     * @param clientAuthenticationMethod "client_secret_basic" or "client_secret_post"
+     */
+    public void setClientAuthenticationMethod(ClientAuthenticationMethod clientAuthenticationMethod) {
+        Assert.isTrue(ClientAuthenticationMethod.CLIENT_SECRET_BASIC.equals(clientAuthenticationMethod)
+                        || ClientAuthenticationMethod.CLIENT_SECRET_POST.equals(clientAuthenticationMethod),
+                "clientAuthenticationMethod must be client_secret_basic or client_secret_post");
+        this.clientAuthenticationMethod = clientAuthenticationMethod;
+    }
+
+    /**
+     * Sets the scope requested with the token, space separated.
+     *
+     * @param scope the scope, may be null
+     */
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Sets the "audience" parameter of the token request, required by Auth0.
+     *
+     * @param audience the audience, may be null
+     */
+    public void setAudience(String audience) {
+        this.audience = audience;
+    }
+
+    /**
+     * Sets how long before its expiry a token is refreshed in the background.
+     * Defaults to 60 seconds.
+     *
+     * @param refreshBefore the refresh window
+     */
+    public void setRefreshBefore(Duration refreshBefore) {
+        Assert.isTrue(refreshBefore != null && !refreshBefore.isNegative(), "refreshBefore cannot be negative");
+        this.refreshBefore = refreshBefore;
+    }
+
+    /**
+     * Sets the clock used to check the expiry of tokens.
+     *
+     * @param clock the clock
+     */
+    public void setClock(Clock clock) {
+        Assert.notNull(clock, "clock cannot be null");
+        this.clock = clock;
+    }
+
+    /**
+     * Stops the background refresh.
+     */
+    @Override
+    public void destroy() {
+        this.refreshExecutor.shutdownNow();
+    }
+
+    private void refreshInBackground() {
+        refresh(true).exceptionally(ex -> {
+            logger.warn("Failed to refresh the client credentials token from " + this.tokenUri
+                    + ", using the current token until it expires", ex);
+            return null;
+        });
+    }
+
+    /**
+     * Requests a new token, unless a request is already in flight, whose result is
+     * returned instead.
+     */
+    private CompletableFuture<CachedToken> refresh(boolean inBackground) {
+        CompletableFuture<CachedToken> pending = new CompletableFuture<>();
+        CompletableFuture<CachedToken> existing = this.inFlight.compareAndExchange(null, pending);
+        if (existing != null) {
+            return existing;
+        }
+        Runnable request = () -> {
+            try {
+                CachedToken fetched = fetch();
+                this.token = fetched;
+                pending.complete(fetched);
+            } catch (Exception ex) {
+                pending.completeExceptionally(ex);
+            } catch (Error ex) {
+                // callers joined on the request must not wait forever
+                pending.completeExceptionally(ex);
+                throw ex;
+            } finally {
+                this.inFlight.set(null);
+            }
+        };
+        if (inBackground) {
+            try {
+                this.refreshExecutor.execute(request);
+            } catch (RuntimeException ex) {
+                this.inFlight.set(null);
+                pending.completeExceptionally(ex);
+            }
+        } else {
+            request.run();
+        }
+        return pending;
+    }
+
+    private CachedToken fetch() throws ParseException {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "client_credentials");
+        if (StringUtils.hasText(this.scope)) {
+            form.add("scope", this.scope);
+        }
+        if (StringUtils.hasText(this.audience)) {
+            form.add("audience", this.audience);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        if (ClientAuthenticationMethod.CLIENT_SECRET_BASIC.equals(this.clientAuthenticationMethod)) {
+            // RFC 6749 section 2.3.1: credentials are form-encoded before basic encoding
+            headers.setBasicAuth(formEncode(this.clientId), formEncode(this.clientSecret), StandardCharsets.UTF_8);
+        } else {
+            form.add("client_id", this.clientId);
+            form.add("client_secret", this.clientSecret);
+        }
+        RequestEntity<MultiValueMap<String, String>> request = RequestEntity.post(this.tokenUri)
+                .headers(headers)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(form);
+        Instant requestedAt = this.clock.instant();
+        String body = this.restOperations.exchange(request, String.class).getBody();
+        if (body == null) {
+            throw new ParseException("Empty token response from " + this.tokenUri, 0);
+        }
+        Map<String, Object> response = JSONObjectUtils.parse(body);
+        String accessToken = JSONObjectUtils.getString(response, "access_token");
+        if (!StringUtils.hasText(accessToken)) {
+            throw new ParseException("Missing access_token in the token response from " + this.tokenUri, 0);
+        }
+        Object expiresIn = response.get("expires_in");
+        Duration lifetime = expiresIn == null ? DEFAULT_EXPIRES_IN
+                : Duration.ofSeconds(expiresIn instanceof Number number
+                        ? number.longValue()
+                        : Long.parseLong(expiresIn.toString().trim()));
+        // counted from the start of the request, the token may have been issued then
+        Instant expiresAt = requestedAt.plus(lifetime).minus(min(EXPIRY_SKEW, lifetime.dividedBy(2)));
+        Instant refreshAt = expiresAt.minus(min(this.refreshBefore, Duration.between(requestedAt, expiresAt).dividedBy(2)));
+        return new CachedToken(accessToken, refreshAt, expiresAt);
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static String formEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static CustomizableThreadFactory daemonThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("client-credentials-refresh-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * Cached token with the instants it should be refreshed and stops being used.
+     */
+    private record CachedToken(String value, Instant refreshAt, Instant expiresAt) {
+    }
+}
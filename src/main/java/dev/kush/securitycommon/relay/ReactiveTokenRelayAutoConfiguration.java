@@ -0,0 +1,57 @@
+package dev.kush.securitycommon.relay;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Auto-configuration authenticating {@code WebClient} calls to downstream services.
+ *
+ * <p>Registers a {@link TokenRelayExchangeFilterFunction} sharing the
+ * client-credentials token of {@link TokenRelayAutoConfiguration}, and, when
+ * "identity.relay.hosts" lists the downstream hosts, adds it to every
+ * {@code WebClient} built from the builder of Spring Boot. It uses the same
+ * properties and is only active when WebFlux is on the classpath.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see TokenRelayExchangeFilterFunction
+ */
+@AutoConfiguration(after = TokenRelayAutoConfiguration.class)
+@ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+@ConditionalOnProperty(name = "identity.relay.enabled", havingValue = "true")
+public class ReactiveTokenRelayAutoConfiguration {
+
+    /**
+     * Creates the filter authenticating {@code WebClient} requests.
+     *
+     * @param clientCredentials the optional client-credentials token provider
+     * @param hosts             the hosts tokens are sent to, empty for any host
+     * @return the token relay filter
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenRelayExchangeFilterFunction tokenRelayExchangeFilterFunction(
+            ObjectProvider<ClientCredentialsTokenProvider> clientCredentials,
+            @Value("${identity.relay.hosts:}") String[] hosts) {
+        return new TokenRelayExchangeFilterFunction(clientCredentials.getIfAvailable(),
+                TokenRelayAutoConfiguration.hostList(hosts));
+    }
+
+    /**
+     * Adds the filter to the {@code WebClient}s built by Spring Boot, when the hosts are listed.
+     *
+     * @param filter the token relay filter
+     * @return the customizer
+     */
+    @Bean
+    @ConditionalOnProperty(name = "identity.relay.hosts")
+    public WebClientCustomizer tokenRelayWebClientCustomizer(TokenRelayExchangeFilterFunction filter) {
+        return builder -> builder.filter(filter);
+    }
+}
@@ -0,0 +1,69 @@
+package dev.kush.securitycommon.relay;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Helpers shared by the servlet and reactive relays.
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+final class RelayTokens {
+
+    private RelayTokens() {
+    }
+
+    /**
+     * Returns the bearer token the request was authenticated with.
+     *
+     * <p>This is the token behind the principal read by {@code UserUtils}: the
+     * decoded JWT, or the introspected opaque token.</p>
+     *
+     * @param authentication the current authentication, may be null
+     * @return the token value, or null if the request was not authenticated with a bearer token
+     */
+    static String bearerToken(Authentication authentication) {
+        if (authentication instanceof AbstractOAuth2TokenAuthenticationToken<?> tokenAuthentication
+                && authentication.isAuthenticated()) {
+            return tokenAuthentication.getToken().getTokenValue();
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether tokens may be sent to the host of the given URI.
+     *
+     * @param hosts the allowed hosts in lower case, empty to allow any host
+     * @param uri   the request URI
+     * @return true if the host is allowed
+     */
+    static boolean isAllowed(Set<String> hosts, URI uri) {
+        if (hosts.isEmpty()) {
+            return true;
+        }
+        String host = uri.getHost();
+        return host != null && hosts.contains(host.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Normalizes the allowed hosts for {@link #isAllowed(Set, URI)}.
+     *
+     * @param hosts the allowed hosts
+     * @return the trimmed, lower-case hosts
+     */
+    static Set<String> normalize(Iterable<String> hosts) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String host : hosts) {
+            if (host != null && !host.isBlank()) {
+                normalized.add(host.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return Set.copyOf(normalized);
+    }
+}
@@ -0,0 +1,141 @@
+package dev.kush.securitycommon.relay;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Auto-configuration authenticating calls to downstream services.
+ *
+ * <p>When "identity.relay.enabled" is set to {@code true}, a
+ * {@link TokenRelayClientHttpRequestInterceptor} is registered. It relays the
+ * bearer token of the current request, or sends a cached client-credentials
+ * token outside of requests when "identity.relay.client-credentials.token-uri"
+ * is set. When "identity.relay.hosts" lists the downstream hosts, the interceptor
+ * is added to every {@code RestClient} and {@code RestTemplate} built from the
+ * builders of Spring Boot, and only authenticates requests to these hosts.
+ * Without it, add the interceptor to the clients explicitly, so tokens are never
+ * sent to third parties by accident. See {@link ReactiveTokenRelayAutoConfiguration}
+ * for {@code WebClient}.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.relay.hosts" - comma separated hosts tokens are sent to</li>
+ * <li>"identity.relay.client-credentials.token-uri" - token endpoint of the identity provider</li>
+ * <li>"identity.relay.client-credentials.client-id" - client id</li>
+ * <li>"identity.relay.client-credentials.client-secret" - client secret</li>
+ * <li>"identity.relay.client-credentials.authentication-method" - "client_secret_basic"
+ * or "client_secret_post" (default client_secret_basic)</li>
+ * <li>"identity.relay.client-credentials.scope" - requested scope, space separated</li>
+ * <li>"identity.relay.client-credentials.audience" - requested audience, required by Auth0</li>
+ * <li>"identity.relay.client-credentials.refresh-before" - time before expiry a token is
+ * refreshed in the background (default 60s)</li>
+ * <li>"identity.relay.client-credentials.timeout" - connect and read timeout of the token
+ * request (default 5s)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see ClientCredentialsTokenProvider
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "identity.relay.enabled", havingValue = "true")
+public class TokenRelayAutoConfiguration {
+
+    /**
+     * Creates the cached client-credentials token.
+     *
+     * @param tokenUri             the token endpoint of the identity provider
+     * @param clientId             the client id
+     * @param clientSecret         the client secret
+     * @param authenticationMethod how the client authenticates to the token endpoint
+     * @param scope                the requested scope, if any
+     * @param audience             the requested audience, if any
+     * @param refreshBefore        the time before expiry a token is refreshed in the background
+     * @param timeout              the connect and read timeout of the token request
+     * @return the client-credentials token provider
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "identity.relay.client-credentials.token-uri")
+    public ClientCredentialsTokenProvider clientCredentialsTokenProvider(
+            @Value("${identity.relay.client-credentials.token-uri}") String tokenUri,
+            @Value("${identity.relay.client-credentials.client-id}") String clientId,
+            @Value("${identity.relay.client-credentials.client-secret}") String clientSecret,
+            @Value("${identity.relay.client-credentials.authentication-method:client_secret_basic}") String authenticationMethod,
+            @Value("${identity.relay.client-credentials.scope:}") String scope,
+            @Value("${identity.relay.client-credentials.audience:}") String audience,
+            @Value("${identity.relay.client-credentials.refresh-before:60s}") Duration refreshBefore,
+            @Value("${identity.relay.client-credentials.timeout:5s}") Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) timeout.toMillis());
+        requestFactory.setReadTimeout((int) timeout.toMillis());
+
+        ClientCredentialsTokenProvider provider = new ClientCredentialsTokenProvider(URI.create(tokenUri),
+                clientId, clientSecret, new RestTemplate(requestFactory));
+        provider.setClientAuthenticationMethod(new ClientAuthenticationMethod(authenticationMethod.trim()));
+        provider.setScope(scope);
+        provider.setAudience(audience);
+        provider.setRefreshBefore(refreshBefore);
+        return provider;
+    }
+
+    /**
+     * Creates the interceptor authenticating {@code RestClient} and {@code RestTemplate} requests.
+     *
+     * @param clientCredentials the optional client-credentials token provider
+     * @param hosts             the hosts tokens are sent to, empty for any host
+     * @return the token relay interceptor
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenRelayClientHttpRequestInterceptor tokenRelayClientHttpRequestInterceptor(
+            ObjectProvider<ClientCredentialsTokenProvider> clientCredentials,
+            @Value("${identity.relay.hosts:}") String[] hosts) {
+        return new TokenRelayClientHttpRequestInterceptor(clientCredentials.getIfAvailable(), hostList(hosts));
+    }
+
+    /**
+     * Adds the interceptor to the {@code RestClient}s built by Spring Boot, when the hosts are listed.
+     *
+     * @param interceptor the token relay interceptor
+     * @return the customizer
+     */
+    @Bean
+    @ConditionalOnProperty(name = "identity.relay.hosts")
+    public RestClientCustomizer tokenRelayRestClientCustomizer(TokenRelayClientHttpRequestInterceptor interceptor) {
+        return builder -> builder.requestInterceptor(interceptor);
+    }
+
+    /**
+     * Adds the interceptor to the {@code RestTemplate}s built by Spring Boot, when the hosts are listed.
+     *
+     * @param interceptor the token relay interceptor
+     * @return the customizer
+     */
+    @Bean
+    @ConditionalOnProperty(name = "identity.relay.hosts")
+    public RestTemplateCustomizer tokenRelayRestTemplateCustomizer(TokenRelayClientHttpRequestInterceptor interceptor) {
+        return restTemplate -> restTemplate.getInterceptors().add(interceptor);
+    }
+
+    static List<String> hostList(String[] hosts) {
+        return Arrays.stream(hosts)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,75 @@
+package dev.kush.securitycommon.relay;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link ClientHttpRequestInterceptor} authenticating outgoing {@code RestClient}
+ * and {@code RestTemplate} requests to downstream services.
+ *
+ * <p>When the current request was authenticated with a bearer token, that token
+ * is relayed. Otherwise, for example in background jobs, the token of the
+ * {@link ClientCredentialsTokenProvider} is sent, if one is configured. Requests
+ * that already carry an "Authorization" header, and requests to hosts that are
+ * not allowed, are sent unchanged.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see TokenRelayAutoConfiguration
+ */
+public class TokenRelayClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final ClientCredentialsTokenProvider clientCredentials;
+
+    private final Set<String> hosts;
+
+    /**
+     * Creates an interceptor sending tokens to any host.
+     *
+     * @param clientCredentials the provider of the token used outside of requests, may be null
+     */
+    public TokenRelayClientHttpRequestInterceptor(ClientCredentialsTokenProvider clientCredentials) {
+        this(clientCredentials, List.of());
+    }
+
+    /**
+     * Creates an interceptor sending tokens to the given hosts only.
+     *
+     * @param clientCredentials the provider of the token used outside of requests, may be null
+     * @param hosts             the hosts tokens are sent to, empty for any host
+     */
+    public TokenRelayClientHttpRequestInterceptor(ClientCredentialsTokenProvider clientCredentials,
+                                                  Collection<String> hosts) {
+        this.clientCredentials = clientCredentials;
+        this.hosts = RelayTokens.normalize(hosts);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+                && RelayTokens.isAllowed(this.hosts, request.getURI())) {
+            String token = RelayTokens.bearerToken(SecurityContextHolder.getContext().getAuthentication());
+            if (token == null && this.clientCredentials != null) {
+                try {
+                    token = this.clientCredentials.getToken();
+                } catch (IllegalStateException ex) {
+                    throw new IOException(ex.getMessage(), ex.getCause());
+                }
+            }
+            if (token != null) {
+                request.getHeaders().setBearerAuth(token);
+            }
+        }
+        return execution.execute(request, body);
+    }
+}
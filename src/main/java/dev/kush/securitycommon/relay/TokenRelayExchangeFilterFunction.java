@@ -0,0 +1,86 @@
+package dev.kush.securitycommon.relay;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link ExchangeFilterFunction} authenticating outgoing {@code WebClient} requests
+ * to downstream services.
+ *
+ * <p>The reactive counterpart of {@link TokenRelayClientHttpRequestInterceptor}:
+ * the bearer token of the current authentication is relayed, read from the
+ * Reactor context, or from the calling thread when the client is used from a
+ * servlet application. Otherwise the token of the
+ * {@link ClientCredentialsTokenProvider} is sent, if one is configured; it is only
+ * requested without blocking, when none is cached.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see TokenRelayAutoConfiguration
+ */
+public class TokenRelayExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private final ClientCredentialsTokenProvider clientCredentials;
+
+    private final Set<String> hosts;
+
+    /**
+     * Creates a filter sending tokens to any host.
+     *
+     * @param clientCredentials the provider of the token used outside of requests, may be null
+     */
+    public TokenRelayExchangeFilterFunction(ClientCredentialsTokenProvider clientCredentials) {
+        this(clientCredentials, List.of());
+    }
+
+    /**
+     * Creates a filter sending tokens to the given hosts only.
+     *
+     * @param clientCredentials the provider of the token used outside of requests, may be null
+     * @param hosts             the hosts tokens are sent to, empty for any host
+     */
+    public TokenRelayExchangeFilterFunction(ClientCredentialsTokenProvider clientCredentials,
+                                            Collection<String> hosts) {
+        this.clientCredentials = clientCredentials;
+        this.hosts = RelayTokens.normalize(hosts);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.headers().containsKey(HttpHeaders.AUTHORIZATION)
+                || !RelayTokens.isAllowed(this.hosts, request.url())) {
+            return next.exchange(request);
+        }
+        return token()
+                .map(token -> ClientRequest.from(request).headers(headers -> headers.setBearerAuth(token)).build())
+                .defaultIfEmpty(request)
+                .flatMap(next::exchange);
+    }
+
+    private Mono<String> token() {
+        Mono<String> relayed = ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .switchIfEmpty(Mono.fromSupplier(this::threadAuthentication))
+                .mapNotNull(RelayTokens::bearerToken);
+        if (this.clientCredentials == null) {
+            return relayed;
+        }
+        return relayed.switchIfEmpty(Mono.defer(() -> Mono.fromFuture(this.clientCredentials.getTokenAsync())));
+    }
+
+    private Authentication threadAuthentication() {
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
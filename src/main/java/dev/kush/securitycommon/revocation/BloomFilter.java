@@ -0,0 +1,154 @@
+package dev.kush.securitycommon.revocation;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings, sized for an expected number of entries and false positive rate.
+ *
+ * <p>The filter answers "definitely absent" or "possibly present" with a fixed
+ * memory footprint of about {@code -n * ln(p) / ln(2)^2} bits for {@code n} entries
+ * and a false positive rate {@code p}, for example 1.8 bytes per entry for 0.1%.
+ * Each string is hashed once into two 64-bit hashes, from which the
+ * {@code k} bit positions are derived (Kirsch-Mitzenmacher), so a lookup does not
+ * allocate.</p>
+ *
+ * <p>Lookups and additions are thread-safe and lock-free. Entries cannot be
+ * removed; a filter is rebuilt instead.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see RevocationChecker
+ */
+public final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+
+    private final long bitSize;
+
+    private final int hashCount;
+
+    private final AtomicLong setBits = new AtomicLong();
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param expectedInsertions the number of entries the filter is sized for
+     * @param falsePositiveRate  the false positive rate at the expected number of entries, between 0 and 1
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        Assert.isTrue(expectedInsertions > 0, "expectedInsertions must be positive");
+        Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be between 0 and 1");
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * 64;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitSize / expectedInsertions * LN2));
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param value the entry
+     */
+    public void put(CharSequence value) {
+        long hash1 = hash(value, 0L);
+        long hash2 = hash(value, 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            long mask = 1L << bit;
+            long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+            if ((previous & mask) == 0) {
+                setBits.incrementAndGet();
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Tests an entry.
+     *
+     * @param value the entry
+     * @return false if the entry was definitely never added, true if it possibly was
+     */
+    public boolean mightContain(CharSequence value) {
+        long hash1 = hash(value, 0L);
+        long hash2 = hash(value, 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of bits of the filter.
+     *
+     * @return the bit size
+     */
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    /**
+     * Returns the number of bits tested per entry.
+     *
+     * @return the hash function count
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Returns the memory used by the bits of the filter.
+     *
+     * @return the size in bytes
+     */
+    public long getMemoryBytes() {
+        return bitSize / 8;
+    }
+
+    /**
+     * Returns the number of {@link #put(CharSequence)} calls, including duplicates.
+     *
+     * @return the number of insertions
+     */
+    public long getInsertionCount() {
+        return insertions.get();
+    }
+
+    /**
+     * Returns the false positive rate of the filter in its current state.
+     *
+     * <p>It is computed from the fraction of bits set, so it reflects the actual
+     * number of distinct entries rather than the expected one.</p>
+     *
+     * @return the probability that an absent entry is reported as possibly present
+     */
+    public double getFalsePositiveRate() {
+        return Math.pow((double) setBits.get() / bitSize, hashCount);
+    }
+
+    private static long hash(CharSequence value, long seed) {
+        // FNV-1a over the UTF-16 code units, finalized with the MurmurHash3 mixer
+        long hash = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,162 @@
+package dev.kush.securitycommon.revocation;
+
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocation source reading an append-only file, which is also the authoritative {@link RevocationLookup}.
+ *
+ * <p>Each line holds one revocation, {@code jti:<token id>} or {@code sub:<subject>}.
+ * Blank lines and lines starting with '#' are ignored:</p>
+ *
+ * <pre>
+ * # revoked after the incident of 2024-03-01
+ * jti:6f1c0e8a-93b2-4f4e-b1a4-2d1c9f0e7a55
+ * sub:auth0|65e1a2b3c4d5e6f7a8b9c0d1
+ * </pre>
+ *
+ * <p>Lines appended to the file are fetched as deltas: the cursor is the byte
+ * offset after the last complete line, so a line being written is picked up on
+ * the next refresh. To remove entries, replace the file, for example with an
+ * atomic move; a replaced or truncated file is read again as a snapshot. A
+ * missing file is an empty snapshot.</p>
+ *
+ * <p>Lookups are answered from exact sets of the entries, kept in memory next to
+ * the filter and updated from the same fetched lines, so the file is only read on
+ * the refresh thread. Until the first fetch, nothing is revoked.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see RevocationAutoConfiguration
+ */
+public class FileRevocationSource implements RevocationSource, RevocationLookup {
+
+    private static final String TOKEN_ID_PREFIX = "jti:";
+
+    private static final String SUBJECT_PREFIX = "sub:";
+
+    private final Path file;
+
+    private volatile Entries entries = new Entries();
+
+    /**
+     * Creates a new source.
+     *
+     * @param file the revocation file
+     */
+    public FileRevocationSource(Path file) {
+        Assert.notNull(file, "file cannot be null");
+        this.file = file;
+    }
+
+    @Override
+    public RevocationUpdate fetch(String cursor) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            this.entries = new Entries();
+            return new RevocationUpdate(null, true, List.of(), List.of());
+        }
+        String identity = String.valueOf(attributes.fileKey() != null
+                ? attributes.fileKey()
+                : attributes.creationTime());
+        long offset = 0;
+        boolean snapshot = true;
+        if (cursor != null) {
+            int separator = cursor.lastIndexOf('@');
+            long previousOffset = separator < 0 ? -1 : parseOffset(cursor.substring(separator + 1));
+            if (separator >= 0 && cursor.substring(0, separator).equals(identity)
+                    && previousOffset >= 0 && previousOffset <= attributes.size()) {
+                offset = previousOffset;
+                snapshot = false;
+            }
+        }
+        if (!snapshot && offset == attributes.size()) {
+            return RevocationUpdate.unchanged(cursor);
+        }
+
+        byte[] content = read(offset, attributes.size());
+        int end = content.length;
+        while (end > 0 && content[end - 1] != '\n') {
+            end--;
+        }
+        List<String> tokenIds = new ArrayList<>();
+        List<String> subjects = new ArrayList<>();
+        for (String line : new String(content, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            String entry = line.trim();
+            if (entry.startsWith(TOKEN_ID_PREFIX) && entry.length() > TOKEN_ID_PREFIX.length()) {
+                tokenIds.add(entry.substring(TOKEN_ID_PREFIX.length()));
+            } else if (entry.startsWith(SUBJECT_PREFIX) && entry.length() > SUBJECT_PREFIX.length()) {
+                subjects.add(entry.substring(SUBJECT_PREFIX.length()));
+            }
+        }
+        Entries current = snapshot ? new Entries() : this.entries;
+        current.tokenIds.addAll(tokenIds);
+        current.subjects.addAll(subjects);
+        this.entries = current;
+        return new RevocationUpdate(identity + "@" + (offset + end), snapshot, tokenIds, subjects);
+    }
+
+    @Override
+    public boolean isTokenRevoked(String tokenId) {
+        return entries.tokenIds.contains(tokenId);
+    }
+
+    @Override
+    public boolean isSubjectDisabled(String subject) {
+        return entries.subjects.contains(subject);
+    }
+
+    /**
+     * Returns the revocation file.
+     *
+     * @return the file path
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    private byte[] read(long offset, long size) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            channel.position(offset);
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size - offset));
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // read until the size seen in the attributes, later appends are read next time
+            }
+            byte[] content = new byte[buffer.position()];
+            buffer.flip().get(content);
+            return content;
+        }
+    }
+
+    private static long parseOffset(String offset) {
+        try {
+            return Long.parseLong(offset);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Revoked token ids and disabled subjects, replaced as a whole on snapshots.
+     */
+    private record Entries(Set<String> tokenIds, Set<String> subjects) {
+
+        Entries() {
+            this(ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package dev.kush.securitycommon.revocation;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocation source and lookup held in memory.
+ *
+ * <p>It is a local stand-in for an external revocation service: the application
+ * revokes tokens and disables subjects through its methods, for example from an
+ * admin endpoint or a message listener, and the {@link RevocationChecker} picks the
+ * changes up as deltas. Enabling a subject again cannot be expressed as a delta,
+ * so the next fetch returns a snapshot.</p>
+ *
+ * <p>The revocations are kept in full, so this class is also the authoritative
+ * {@link RevocationLookup}. It is thread-safe.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see RevocationAutoConfiguration
+ */
+public class InMemoryRevocationSource implements RevocationSource, RevocationLookup {
+
+    private final Set<String> tokenIds = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> subjects = ConcurrentHashMap.newKeySet();
+
+    private final List<String> addedTokenIds = new ArrayList<>();
+
+    private final List<String> addedSubjects = new ArrayList<>();
+
+    /**
+     * Incremented whenever entries are removed, which invalidates earlier cursors.
+     */
+    private long generation;
+
+    /**
+     * Revokes a token.
+     *
+     * @param tokenId the "jti" claim of the token
+     */
+    public synchronized void revokeToken(String tokenId) {
+        Assert.hasText(tokenId, "tokenId cannot be empty");
+        if (tokenIds.add(tokenId)) {
+            addedTokenIds.add(tokenId);
+        }
+    }
+
+    /**
+     * Disables a subject, revoking all of its tokens.
+     *
+     * @param subject the "sub" claim of the subject's tokens
+     */
+    public synchronized void disableSubject(String subject) {
+        Assert.hasText(subject, "subject cannot be empty");
+        if (subjects.add(subject)) {
+            addedSubjects.add(subject);
+        }
+    }
+
+    /**
+     * Enables a previously disabled subject.
+     *
+     * @param subject the "sub" claim of the subject's tokens
+     */
+    public synchronized void enableSubject(String subject) {
+        if (subjects.remove(subject)) {
+            compact();
+        }
+    }
+
+    @Override
+    public synchronized RevocationUpdate fetch(String cursor) {
+        Position position = Position.parse(cursor);
+        if (position == null || position.generation != generation
+                || position.tokenIds > addedTokenIds.size() || position.subjects > addedSubjects.size()) {
+            return new RevocationUpdate(cursor(), true, List.copyOf(tokenIds), List.copyOf(subjects));
+        }
+        return new RevocationUpdate(cursor(), false,
+                List.copyOf(addedTokenIds.subList(position.tokenIds, addedTokenIds.size())),
+                List.copyOf(addedSubjects.subList(position.subjects, addedSubjects.size())));
+    }
+
+    @Override
+    public boolean isTokenRevoked(String tokenId) {
+        return tokenIds.contains(tokenId);
+    }
+
+    @Override
+    public boolean isSubjectDisabled(String subject) {
+        return subjects.contains(subject);
+    }
+
+    private void compact() {
+        generation++;
+        addedTokenIds.clear();
+        addedTokenIds.addAll(tokenIds);
+        addedSubjects.clear();
+        addedSubjects.addAll(subjects);
+    }
+
+    private String cursor() {
+        return generation + ":" + addedTokenIds.size() + ":" + addedSubjects.size();
+    }
+
+    private record Position(long generation, int tokenIds, int subjects) {
+
+        static Position parse(String cursor) {
+            if (cursor == null) {
+                return null;
+            }
+            String[] parts = cursor.split(":");
+            if (parts.length != 3) {
+                return null;
+            }
+            try {
+                return new Position(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package dev.kush.securitycommon.revocation;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Auto-configuration for rejecting revoked tokens.
+ *
+ * <p>When "identity.revocation.enabled" is set to {@code true}, every
+ * {@link JwtDecoder} bean is wrapped in a {@link RevocationCheckingJwtDecoder},
+ * outside of the decoded-token cache. The revocations come from:</p>
+ * <ul>
+ * <li>a {@link RevocationSource} bean defined by the application, for example
+ * reading a database change log;</li>
+ * <li>otherwise the file set with "identity.revocation.file", see {@link FileRevocationSource};</li>
+ * <li>otherwise an {@link InMemoryRevocationSource} bean, to revoke tokens from the
+ * application itself.</li>
+ * </ul>
+ * <p>Filter matches are confirmed with the application's {@link RevocationLookup}
+ * bean, or with the source when it is one, as the provided sources are.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.revocation.expected-entries" - number of revocations the filter is sized for (default 100000)</li>
+ * <li>"identity.revocation.false-positive-rate" - fraction of valid tokens sent to the lookup (default 0.001)</li>
+ * <li>"identity.revocation.refresh-interval" - interval between two polls of the source (default 30s)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see RevocationChecker
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "identity.revocation.enabled", havingValue = "true")
+public class RevocationAutoConfiguration {
+
+    /**
+     * Creates the source reading the configured revocation file.
+     *
+     * @param file the revocation file
+     * @return the file revocation source
+     */
+    @Bean
+    @ConditionalOnMissingBean(RevocationSource.class)
+    @ConditionalOnProperty(name = "identity.revocation.file")
+    public FileRevocationSource fileRevocationSource(@Value("${identity.revocation.file}") String file) {
+        return new FileRevocationSource(Path.of(file));
+    }
+
+    /**
+     * Creates the in-memory revocation source, used when no other source is configured.
+     *
+     * @return the in-memory revocation source
+     */
+    @Bean
+    @ConditionalOnMissingBean(RevocationSource.class)
+    public InMemoryRevocationSource inMemoryRevocationSource() {
+        return new InMemoryRevocationSource();
+    }
+
+    /**
+     * Creates the revocation checker.
+     *
+     * @param source            the revocation source
+     * @param lookups           the authoritative lookups
+     * @param expectedEntries   the number of revocations the filter is sized for
+     * @param falsePositiveRate the false positive rate of the filter
+     * @param refreshInterval   the interval between two polls of the source
+     * @return the revocation checker
+     * @throws IllegalStateException if there is no lookup to confirm filter matches
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RevocationChecker revocationChecker(
+            RevocationSource source,
+            ObjectProvider<RevocationLookup> lookups,
+            @Value("${identity.revocation.expected-entries:100000}") long expectedEntries,
+            @Value("${identity.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${identity.revocation.refresh-interval:30s}") Duration refreshInterval) {
+        RevocationLookup lookup = lookups.stream()
+                .filter(candidate -> candidate != source)
+                .findFirst()
+                .orElse(source instanceof RevocationLookup sourceLookup ? sourceLookup : null);
+        if (lookup == null) {
+            throw new IllegalStateException("No RevocationLookup bean to confirm the matches of the revocation filter");
+        }
+        RevocationChecker checker = new RevocationChecker(source, lookup);
+        checker.setExpectedInsertions(expectedEntries);
+        checker.setFalsePositiveRate(falsePositiveRate);
+        checker.setRefreshInterval(refreshInterval);
+        return checker;
+    }
+
+    /**
+     * Creates a bean post processor wrapping JWT decoders in a {@link RevocationCheckingJwtDecoder}.
+     *
+     * <p>The method is static so the post processor can be registered before the
+     * decoder beans are instantiated.</p>
+     *
+     * @param revocationChecker the checker, resolved when the first decoder is created
+     * @return a bean post processor adding the revocation check to JWT decoders
+     */
+    @Bean
+    static RevocationCheckingJwtDecoderPostProcessor revocationCheckingJwtDecoderPostProcessor(
+            ObjectProvider<RevocationChecker> revocationChecker) {
+        return new RevocationCheckingJwtDecoderPostProcessor(revocationChecker);
+    }
+
+    /**
+     * Bean post processor wrapping JWT decoders in a {@link RevocationCheckingJwtDecoder}.
+     *
+     * <p>It runs after the decoded-token cache is applied, so cached tokens are
+     * checked too, and before the decoder metrics, so revoked tokens are recorded
+     * as decode failures.</p>
+     */
+    static final class RevocationCheckingJwtDecoderPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<RevocationChecker> revocationChecker;
+
+        private RevocationCheckingJwtDecoderPostProcessor(ObjectProvider<RevocationChecker> revocationChecker) {
+            this.revocationChecker = revocationChecker;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof JwtDecoder decoder) || bean instanceof RevocationCheckingJwtDecoder) {
+                return bean;
+            }
+            return new RevocationCheckingJwtDecoder(decoder, revocationChecker.getObject());
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
+}
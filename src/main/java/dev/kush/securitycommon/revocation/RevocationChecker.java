@@ -0,0 +1,275 @@
+package dev.kush.securitycommon.revocation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks decoded tokens against revoked token ids and disabled subjects.
+ *
+ * <p>Revocations are kept in a {@link BloomFilter}, so checking a token that is
+ * not revoked, which is nearly every token, costs a few hashed bit lookups in
+ * memory. Only when the filter reports a possible match is the authoritative
+ * {@link RevocationLookup} queried, which weeds out the filter's false positives.</p>
+ *
+ * <p>The filter is kept current by polling a {@link RevocationSource} on a
+ * background thread. Deltas are added to the current filter; snapshots build a new
+ * filter, sized for at least twice the number of entries so the configured false
+ * positive rate holds, which is then swapped in. A failed refresh is logged and the
+ * current filter kept.</p>
+ *
+ * <p>The number of checks, filter matches, confirmed revocations and false
+ * positives are counted, so the actual false positive rate can be compared with
+ * the configured one.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see RevocationCheckingJwtDecoder
+ */
+public class RevocationChecker implements InitializingBean, DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(RevocationChecker.class);
+
+    private static final String TOKEN_ID_PREFIX = "j:";
+
+    private static final String SUBJECT_PREFIX = "s:";
+
+    private final RevocationSource source;
+
+    private final RevocationLookup lookup;
+
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder filterMatches = new LongAdder();
+
+    private final LongAdder revocations = new LongAdder();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    private long expectedInsertions = 100_000;
+
+    private double falsePositiveRate = 0.001;
+
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    private volatile BloomFilter filter;
+
+    private String cursor;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new checker.
+     *
+     * @param source the feed of revocations
+     * @param lookup the authoritative lookup for filter matches
+     */
+    public RevocationChecker(RevocationSource source, RevocationLookup lookup) {
+        Assert.notNull(source, "source cannot be null");
+        Assert.notNull(lookup, "lookup cannot be null");
+        this.source = source;
+        this.lookup = lookup;
+    }
+
+    /**
+     * Loads the revocations and starts the background refresh.
+     *
+     * <p>A failed initial load is logged and retried by the scheduler.</p>
+     */
+    @Override
+    public void afterPropertiesSet() {
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        refresh();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory());
+        long interval = refreshInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background refresh.
+     */
+    @Override
+    public void destroy() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Tells whether a token is revoked, by its id or by its subject.
+     *
+     * @param jwt the decoded token
+     * @return true if the token's "jti" is revoked or its "sub" is disabled
+     */
+    public boolean isRevoked(Jwt jwt) {
+        return isRevoked(jwt.getId(), jwt.getSubject());
+    }
+
+    /**
+     * Tells whether a token is revoked, by its id or by its subject.
+     *
+     * @param tokenId the "jti" claim, may be null
+     * @param subject the "sub" claim, may be null
+     * @return true if the token id is revoked or the subject is disabled
+     * @throws RuntimeException if the authoritative lookup fails
+     */
+    public boolean isRevoked(String tokenId, String subject) {
+        checks.increment();
+        BloomFilter current = this.filter;
+        if (tokenId != null && current.mightContain(TOKEN_ID_PREFIX + tokenId)) {
+            filterMatches.increment();
+            if (confirm(lookup.isTokenRevoked(tokenId))) {
+                return true;
+            }
+        }
+        if (subject != null && current.mightContain(SUBJECT_PREFIX + subject)) {
+            filterMatches.increment();
+            return confirm(lookup.isSubjectDisabled(subject));
+        }
+        return false;
+    }
+
+    /**
+     * Fetches the revocations added since the last refresh and applies them.
+     *
+     * <p>Called by the scheduler; can be called to apply a change immediately.</p>
+     */
+    public synchronized void refresh() {
+        RevocationUpdate update;
+        try {
+            update = source.fetch(cursor);
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Failed to refresh the revocations, keeping the current ones", ex);
+            return;
+        }
+        if (update.snapshot()) {
+            long entries = update.tokenIds().size() + update.subjects().size();
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, entries * 2), falsePositiveRate);
+            addAll(rebuilt, update);
+            this.filter = rebuilt;
+        } else {
+            addAll(this.filter, update);
+        }
+        this.cursor = update.cursor();
+    }
+
+    /**
+     * Sets the number of revocations the filter is sized for. Defaults to 100000.
+     *
+     * <p>With the default false positive rate, the filter uses about 1.8 bytes per
+     * expected revocation. A snapshot with more entries grows the filter.</p>
+     *
+     * @param expectedInsertions the expected number of revoked tokens and disabled subjects
+     */
+    public void setExpectedInsertions(long expectedInsertions) {
+        Assert.isTrue(expectedInsertions > 0, "expectedInsertions must be positive");
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Sets the false positive rate of the filter, that is the fraction of valid
+     * tokens sent to the authoritative lookup. Defaults to 0.001.
+     *
+     * @param falsePositiveRate the false positive rate, between 0 and 1
+     */
+    public void setFalsePositiveRate(double falsePositiveRate) {
+        Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be between 0 and 1");
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Sets the interval between two polls of the revocation source. Defaults to 30 seconds.
+     *
+     * @param refreshInterval the refresh interval
+     */
+    public void setRefreshInterval(Duration refreshInterval) {
+        Assert.isTrue(refreshInterval != null && !refreshInterval.isNegative() && !refreshInterval.isZero(),
+                "refreshInterval must be positive");
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Returns the memory used by the current filter.
+     *
+     * @return the size in bytes
+     */
+    public long getFilterMemoryBytes() {
+        return filter.getMemoryBytes();
+    }
+
+    /**
+     * Returns the false positive rate of the current filter, estimated from its fill ratio.
+     *
+     * @return the estimated false positive rate
+     */
+    public double getEstimatedFalsePositiveRate() {
+        return filter.getFalsePositiveRate();
+    }
+
+    /**
+     * Returns the number of checked tokens.
+     *
+     * @return the check count
+     */
+    public long getCheckCount() {
+        return checks.sum();
+    }
+
+    /**
+     * Returns the number of filter matches, each of which queried the authoritative lookup.
+     *
+     * @return the filter match count
+     */
+    public long getFilterMatchCount() {
+        return filterMatches.sum();
+    }
+
+    /**
+     * Returns the number of filter matches confirmed by the authoritative lookup.
+     *
+     * @return the revoked token count
+     */
+    public long getRevokedCount() {
+        return revocations.sum();
+    }
+
+    /**
+     * Returns the number of filter matches the authoritative lookup did not confirm.
+     *
+     * @return the false positive count
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    private boolean confirm(boolean revoked) {
+        (revoked ? revocations : falsePositives).increment();
+        return revoked;
+    }
+
+    private static void addAll(BloomFilter filter, RevocationUpdate update) {
+        for (String tokenId : update.tokenIds()) {
+            filter.put(TOKEN_ID_PREFIX + tokenId);
+        }
+        for (String subject : update.subjects()) {
+            filter.put(SUBJECT_PREFIX + subject);
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("revocation-refresh-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
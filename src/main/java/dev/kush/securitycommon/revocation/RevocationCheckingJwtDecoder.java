@@ -0,0 +1,81 @@
+package dev.kush.securitycommon.revocation;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * {@link JwtDecoder} rejecting revoked tokens after they are decoded.
+ *
+ * <p>The check runs on every call, including tokens served from a decoded-token
+ * cache, so a revocation takes effect at the next refresh of the
+ * {@link RevocationChecker} and before any authentication or UserUtils sees the
+ * token. Revoked tokens fail with a {@link JwtValidationException}, which the
+ * resource server reports as an "invalid_token" error. A failing authoritative
+ * lookup fails the request instead of letting the token through.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see RevocationChecker
+ */
+public class RevocationCheckingJwtDecoder implements JwtDecoder {
+
+    private static final OAuth2Error REVOKED = new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN,
+            "The token has been revoked", null);
+
+    private final JwtDecoder delegate;
+
+    private final RevocationChecker revocationChecker;
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param delegate          the decoder performing the actual decoding
+     * @param revocationChecker the revocation checker
+     */
+    public RevocationCheckingJwtDecoder(JwtDecoder delegate, RevocationChecker revocationChecker) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(revocationChecker, "revocationChecker cannot be null");
+        this.delegate = delegate;
+        this.revocationChecker = revocationChecker;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        Jwt jwt = delegate.decode(token);
+        boolean revoked;
+        try {
+            revoked = revocationChecker.isRevoked(jwt);
+        } catch (RuntimeException ex) {
+            throw new JwtException("Failed to check whether the token is revoked", ex);
+        }
+        if (revoked) {
+            throw new JwtValidationException(REVOKED.getDescription(), List.of(REVOKED));
+        }
+        return jwt;
+    }
+
+    /**
+     * Returns the decoder performing the actual decoding.
+     *
+     * @return the delegate decoder
+     */
+    public JwtDecoder getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the revocation checker.
+     *
+     * @return the revocation checker
+     */
+    public RevocationChecker getRevocationChecker() {
+        return revocationChecker;
+    }
+}
@@ -0,0 +1,31 @@
+package dev.kush.securitycommon.revocation;
+
+/**
+ * Authoritative revocation lookup, consulted only when the in-memory filter reports a possible match.
+ *
+ * <p>This is typically a database or cache query. Since the filter clears most
+ * tokens without calling it, it is on the request path only for revoked tokens
+ * and the filter's false positives.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see RevocationChecker
+ */
+public interface RevocationLookup {
+
+    /**
+     * Tells whether a token was revoked.
+     *
+     * @param tokenId the "jti" claim of the token
+     * @return true if the token is revoked
+     */
+    boolean isTokenRevoked(String tokenId);
+
+    /**
+     * Tells whether a subject was disabled, which revokes all of its tokens.
+     *
+     * @param subject the "sub" claim of the token
+     * @return true if the subject is disabled
+     */
+    boolean isSubjectDisabled(String subject);
+}
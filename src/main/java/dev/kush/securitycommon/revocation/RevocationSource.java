@@ -0,0 +1,28 @@
+package dev.kush.securitycommon.revocation;
+
+import java.io.IOException;
+
+/**
+ * Feed of revoked tokens and disabled subjects, polled by the {@link RevocationChecker}.
+ *
+ * <p>The first call receives a null cursor and returns a snapshot. Later calls
+ * receive the cursor of the previous update and return the revocations added
+ * since, or a new snapshot when entries were removed or the position is no longer
+ * available. Implementations are only called from the refresh thread.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see FileRevocationSource
+ * @see InMemoryRevocationSource
+ */
+public interface RevocationSource {
+
+    /**
+     * Fetches the revocations after the given position.
+     *
+     * @param cursor the cursor of the previous update, or null for a snapshot
+     * @return the update
+     * @throws IOException if the revocations cannot be read; the current state is kept
+     */
+    RevocationUpdate fetch(String cursor) throws IOException;
+}
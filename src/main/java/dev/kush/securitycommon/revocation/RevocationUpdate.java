@@ -0,0 +1,41 @@
+package dev.kush.securitycommon.revocation;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Revocations returned by a {@link RevocationSource}.
+ *
+ * <p>A snapshot lists every revocation and replaces the previous state, which is
+ * how entries are removed. Otherwise the update is a delta whose entries are added
+ * to the current state.</p>
+ *
+ * @param cursor    the position to fetch the next delta from, passed back to
+ *                  {@link RevocationSource#fetch(String)}
+ * @param snapshot  whether the update replaces all previous revocations
+ * @param tokenIds  the revoked token ids ("jti" claim)
+ * @param subjects  the disabled subjects ("sub" claim)
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ */
+public record RevocationUpdate(String cursor, boolean snapshot, Collection<String> tokenIds,
+                               Collection<String> subjects) {
+
+    /**
+     * Normalizes missing collections to empty ones.
+     */
+    public RevocationUpdate {
+        tokenIds = tokenIds == null ? List.of() : tokenIds;
+        subjects = subjects == null ? List.of() : subjects;
+    }
+
+    /**
+     * Returns an update without any change.
+     *
+     * @param cursor the unchanged cursor
+     * @return an empty delta
+     */
+    public static RevocationUpdate unchanged(String cursor) {
+        return new RevocationUpdate(cursor, false, List.of(), List.of());
+    }
+}
@@ -0,0 +1,358 @@
+package dev.kush.securitycommon.warmup;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import dev.kush.securitycommon.common.AbstractUserUtils;
+import dev.kush.securitycommon.common.AuthConstants;
+import dev.kush.securitycommon.common.ClaimMapping;
+import dev.kush.securitycommon.common.ClaimMappingUserIdentityExtractor;
+import dev.kush.securitycommon.common.ClaimPath;
+import dev.kush.securitycommon.common.JwtProcessorSupport;
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserIdentityAuthenticationConverter;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import dev.kush.securitycommon.common.UserUtils;
+import dev.kush.securitycommon.enrichment.EnrichingUserIdentityExtractor;
+import dev.kush.securitycommon.jwk.CachingJWSKeySelector;
+import dev.kush.securitycommon.jwk.CachingJWSVerifierFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Validates and warms up the token processing pipeline before the application accepts traffic.
+ *
+ * <p>The warm-up signs a synthetic token with a key generated at startup, laid out
+ * according to the configured {@link ClaimMapping} and carrying the type header of
+ * the identity provider ("at+jwt" for Auth0). It then repeatedly:</p>
+ * <ul>
+ * <li>decodes the token with a processor configured like the application's decoder:
+ * the same JOSE type verifier, JWS key selector, verifier factory and claim
+ * validators, only trusting the generated key instead of the JWK set;</li>
+ * <li>converts it with the {@link JwtAuthenticationConverter} and, if present, the
+ * {@link UserIdentityAuthenticationConverter} of the application, without the
+ * audit and metrics of the library's converters, see
+ * {@link SecurityWarmupAutoConfiguration};</li>
+ * <li>calls every {@link UserUtils} accessor with each resulting authentication.</li>
+ * </ul>
+ *
+ * <p>This loads and JIT-compiles the classes of the hot path, so the first requests
+ * are not slower than the following ones. It runs as an {@link ApplicationRunner},
+ * which Spring Boot calls before it reports the application as ready.</p>
+ *
+ * <p>The first round is checked: when the identity extractor is driven by the claim
+ * mapping, every field must read back the value written to its path, and the roles
+ * must be mapped to authorities. Any failure, for example two claim paths overlapping,
+ * throws an {@link IllegalStateException} and the application fails to start.</p>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see SecurityWarmupAutoConfiguration
+ */
+public class SecurityWarmup implements ApplicationRunner, Ordered {
+
+    private static final Log logger = LogFactory.getLog(SecurityWarmup.class);
+
+    private static final String SUBJECT = "security-warmup";
+
+    private static final String EMAIL = "security-warmup@localhost";
+
+    private static final long USER_ID = 1L;
+
+    private static final long COMPANY_ID = 1L;
+
+    private static final String COMPANY_NAME = "security-warmup";
+
+    private static final String ROLE = "security-warmup";
+
+    private final String identityProvider;
+
+    private final ClaimMapping claimMapping;
+
+    private final UserIdentityExtractor identityExtractor;
+
+    private final JwtAuthenticationConverter jwtAuthenticationConverter;
+
+    private final UserIdentityAuthenticationConverter userIdentityAuthenticationConverter;
+
+    private final UserUtils userUtils;
+
+    private JWSAlgorithm jwsAlgorithm = JWSAlgorithm.RS256;
+
+    private String issuerUri;
+
+    private List<String> audiences = List.of();
+
+    private int iterations = 500;
+
+    /**
+     * Creates a new warm-up.
+     *
+     * @param identityProvider                    the configured identity provider (e.g. "keycloak" or "auth0")
+     * @param claimMapping                        the claim layout used to build the synthetic token
+     * @param identityExtractor                   the extractor whose output is checked
+     * @param jwtAuthenticationConverter          the converter of the resource server
+     * @param userIdentityAuthenticationConverter the identity converter, may be null
+     * @param userUtils                           the UserUtils whose accessors are exercised
+     */
+    public SecurityWarmup(String identityProvider, ClaimMapping claimMapping,
+                          UserIdentityExtractor identityExtractor,
+                          JwtAuthenticationConverter jwtAuthenticationConverter,
+                          UserIdentityAuthenticationConverter userIdentityAuthenticationConverter,
+                          UserUtils userUtils) {
+        Assert.notNull(claimMapping, "claimMapping cannot be null");
+        Assert.notNull(identityExtractor, "identityExtractor cannot be null");
+        Assert.notNull(jwtAuthenticationConverter, "jwtAuthenticationConverter cannot be null");
+        Assert.notNull(userUtils, "userUtils cannot be null");
+        this.identityProvider = identityProvider;
+        this.claimMapping = claimMapping;
+        this.identityExtractor = identityExtractor;
+        this.jwtAuthenticationConverter = jwtAuthenticationConverter;
+        this.userIdentityAuthenticationConverter = userIdentityAuthenticationConverter;
+        this.userUtils = userUtils;
+    }
+
+    /**
+     * Sets the signing algorithm of the synthetic token, usually the first accepted
+     * JWS algorithm. RSA and EC algorithms are supported. Defaults to RS256.
+     *
+     * @param jwsAlgorithm the signing algorithm
+     */
+    public void setJwsAlgorithm(JWSAlgorithm jwsAlgorithm) {
+        Assert.notNull(jwsAlgorithm, "jwsAlgorithm cannot be null");
+        Assert.isTrue(JWSAlgorithm.Family.RSA.contains(jwsAlgorithm) || JWSAlgorithm.Family.EC.contains(jwsAlgorithm),
+                () -> "Unsupported warm-up algorithm " + jwsAlgorithm + ", expected an RSA or EC algorithm");
+        this.jwsAlgorithm = jwsAlgorithm;
+    }
+
+    /**
+     * Sets the issuer validated by the decoder and written to the synthetic token.
+     *
+     * @param issuerUri the expected issuer, may be null or empty
+     */
+    public void setIssuerUri(String issuerUri) {
+        this.issuerUri = issuerUri;
+    }
+
+    /**
+     * Sets the audiences validated by the decoder. The first one is written to the synthetic token.
+     *
+     * @param audiences the accepted audiences, may be empty
+     */
+    public void setAudiences(List<String> audiences) {
+        Assert.notNull(audiences, "audiences cannot be null");
+        this.audiences = List.copyOf(audiences);
+    }
+
+    /**
+     * Sets the number of decode and conversion rounds. Defaults to 500.
+     *
+     * @param iterations the number of rounds, at least 1
+     */
+    public void setIterations(int iterations) {
+        Assert.isTrue(iterations > 0, "iterations must be positive");
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    /**
+     * Runs the warm-up.
+     *
+     * @throws IllegalStateException if the pipeline fails or the claim configuration is inconsistent
+     */
+    public void warmUp() {
+        long start = System.nanoTime();
+        JWK key = generateKey();
+        NimbusJwtDecoder decoder = decoder(key);
+        String token = sign(key);
+        SecurityContext previous = SecurityContextHolder.getContext();
+        try {
+            for (int i = 0; i < iterations; i++) {
+                Jwt jwt = decode(decoder, token);
+                AbstractAuthenticationToken authentication = jwtAuthenticationConverter.convert(jwt);
+                UserIdentity identity = exercise(authentication);
+                if (i == 0) {
+                    verify(identityExtractor.extract(jwt.getClaims()), identity, authentication);
+                }
+                if (userIdentityAuthenticationConverter != null) {
+                    exercise(userIdentityAuthenticationConverter.convert(jwt));
+                }
+            }
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("Security warm-up completed: " + iterations + " rounds in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private NimbusJwtDecoder decoder(JWK key) {
+        DefaultJWTProcessor<com.nimbusds.jose.proc.SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        CachingJWSKeySelector<com.nimbusds.jose.proc.SecurityContext> keySelector = new CachingJWSKeySelector<>(
+                Set.of(jwsAlgorithm), new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK())));
+        jwtProcessor.setJWSKeySelector(keySelector);
+        jwtProcessor.setJWSVerifierFactory(new CachingJWSVerifierFactory(keySelector));
+        jwtProcessor.setJWSTypeVerifier(JwtProcessorSupport.typeVerifier(identityProvider));
+        // claims are validated by the Spring Security validators below
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(jwtProcessor);
+        decoder.setJwtValidator(JwtProcessorSupport.validator(issuerUri, audiences));
+        return decoder;
+    }
+
+    private Jwt decode(NimbusJwtDecoder decoder, String token) {
+        try {
+            return decoder.decode(token);
+        } catch (JwtException ex) {
+            throw new IllegalStateException("Security warm-up failed to decode the synthetic token: "
+                    + ex.getMessage(), ex);
+        }
+    }
+
+    private UserIdentity exercise(Authentication authentication) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        userUtils.getCurrentUserSubjectId();
+        userUtils.getCurrentUserEmail();
+        userUtils.getCurrentUserId();
+        userUtils.getCurrentCompanyId();
+        userUtils.getCurrentCompanyName();
+        userUtils.getCurrentUserRole();
+        return userUtils.getCurrentIdentity();
+    }
+
+    private void verify(UserIdentity extracted, UserIdentity current, Authentication authentication) {
+        UserIdentityExtractor extractor = identityExtractor instanceof EnrichingUserIdentityExtractor enriching
+                ? enriching.getDelegate()
+                : identityExtractor;
+        if (extractor instanceof ClaimMappingUserIdentityExtractor) {
+            check("subject", claimMapping.subject(), SUBJECT, extracted.subject());
+            check("email", claimMapping.email(), EMAIL, extracted.email());
+            check("user-id", claimMapping.userId(), USER_ID, extracted.userId());
+            check("company-id", claimMapping.companyId(), COMPANY_ID, extracted.companyId());
+            check("company-name", claimMapping.companyName(), COMPANY_NAME, extracted.companyName());
+            check("roles", claimMapping.roles(), List.of(ROLE), extracted.roles());
+            if (userUtils instanceof AbstractUserUtils && !extracted.equals(current)) {
+                throw new IllegalStateException("Security warm-up failed: UserUtils returned " + current
+                        + " but the configured claim mapping reads " + extracted);
+            }
+        }
+        if (!extracted.roles().isEmpty() && authentication.getAuthorities().isEmpty()) {
+            throw new IllegalStateException("Security warm-up failed: the roles " + extracted.roles()
+                    + " were not mapped to any authority, check \"identity.claims.roles\"");
+        }
+    }
+
+    private static void check(String field, ClaimPath path, Object expected, Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new IllegalStateException("Security warm-up failed: the " + field + " claim at '" + path
+                    + "' read back as '" + actual + "' instead of '" + expected
+                    + "', check \"identity.claims." + field + "\" against the other claim paths");
+        }
+    }
+
+    private String sign(JWK key) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        try {
+            claimMapping.subject().put(claims, SUBJECT);
+            claimMapping.email().put(claims, EMAIL);
+            claimMapping.userId().put(claims, USER_ID);
+            claimMapping.companyId().put(claims, COMPANY_ID);
+            claimMapping.companyName().put(claims, COMPANY_NAME);
+            claimMapping.roles().put(claims, List.of(ROLE));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("Security warm-up failed: " + ex.getMessage(), ex);
+        }
+        Instant now = Instant.now();
+        JWTClaimsSet.Builder claimsSet = new JWTClaimsSet.Builder()
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(1, ChronoUnit.HOURS)));
+        if (StringUtils.hasText(issuerUri)) {
+            claimsSet.issuer(issuerUri);
+        }
+        if (!audiences.isEmpty()) {
+            claimsSet.audience(audiences.get(0));
+        }
+        claims.forEach((name, value) -> {
+            if (!JwtClaimNames.ISS.equals(name) && !JwtClaimNames.AUD.equals(name)) {
+                claimsSet.claim(name, value);
+            }
+        });
+        JOSEObjectType type = "keycloak".equalsIgnoreCase(identityProvider)
+                ? JOSEObjectType.JWT
+                : new JOSEObjectType(AuthConstants.AUTH0_ACCESS_TOKEN_TYPE);
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(jwsAlgorithm).type(type).keyID(key.getKeyID()).build(),
+                claimsSet.build());
+        try {
+            JWSSigner signer = key instanceof RSAKey rsaKey ? new RSASSASigner(rsaKey) : new ECDSASigner((ECKey) key);
+            jwt.sign(signer);
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("Security warm-up failed to sign the synthetic token", ex);
+        }
+        return jwt.serialize();
+    }
+
+    private JWK generateKey() {
+        try {
+            if (JWSAlgorithm.Family.EC.contains(jwsAlgorithm)) {
+                return new ECKeyGenerator(Curve.forJWSAlgorithm(jwsAlgorithm).iterator().next())
+                        .keyID(SUBJECT)
+                        .generate();
+            }
+            return new RSAKeyGenerator(RSAKeyGenerator.MIN_KEY_SIZE_BITS).keyID(SUBJECT).generate();
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("Security warm-up failed to generate a signing key", ex);
+        }
+    }
+}
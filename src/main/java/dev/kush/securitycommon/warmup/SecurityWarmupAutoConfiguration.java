@@ -0,0 +1,154 @@
+package dev.kush.securitycommon.warmup;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import dev.kush.securitycommon.common.CachingGrantedAuthoritiesConverter;
+import dev.kush.securitycommon.common.ClaimMapping;
+import dev.kush.securitycommon.common.JwtCustomizerConfig;
+import dev.kush.securitycommon.common.UserIdentityAuthenticationConverter;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import dev.kush.securitycommon.common.UserUtils;
+import dev.kush.securitycommon.common.UserUtilsAutoConfiguration;
+import dev.kush.securitycommon.issuer.MultiIssuerAutoConfiguration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Auto-configuration for the startup warm-up of the security pipeline.
+ *
+ * <p>Opt-in with "identity.warmup.enabled=true". The {@link SecurityWarmup} runs
+ * before the application reports readiness, and the configuration is checked
+ * when the context starts:</p>
+ * <ul>
+ * <li>"identity.provider" must be "auth0" or "keycloak", unless the claim paths are
+ * configured with "identity.claims.*";</li>
+ * <li>exactly one UserUtils bean must exist.</li>
+ * </ul>
+ *
+ * <p>The authentication converters created by {@link JwtCustomizerConfig} record
+ * every conversion to the security audit and metrics. The warm-up uses copies of
+ * them without either, so its synthetic authentications are not recorded.
+ * Converters defined by the application are used as they are.</p>
+ *
+ * <p>Supported properties:
+ * <ul>
+ * <li>"identity.warmup.iterations" - number of decode and conversion rounds (default 500)</li>
+ * </ul>
+ *
+ * @author Kush Parsaniya
+ * @since 0.0.1
+ * @see SecurityWarmup
+ */
+@AutoConfiguration(after = {UserUtilsAutoConfiguration.class, JwtCustomizerConfig.class,
+        MultiIssuerAutoConfiguration.class})
+@ConditionalOnProperty(name = "identity.warmup.enabled", havingValue = "true")
+public class SecurityWarmupAutoConfiguration {
+
+    private static final List<String> PROVIDERS = List.of("auth0", "keycloak");
+
+    /**
+     * Creates the security warm-up.
+     *
+     * @param identityProvider                    the configured identity provider (e.g., "keycloak" or "auth0")
+     * @param environment                         the environment holding the "identity.claims.*" properties
+     * @param claimMapping                        the claim mapping
+     * @param identityExtractor                   the identity extractor
+     * @param jwtAuthenticationConverter          the JWT authentication converter
+     * @param userIdentityAuthenticationConverter the optional identity authentication converter
+     * @param userUtils                           the UserUtils beans
+     * @param jwsAlgorithms                       the accepted JWS algorithms, the first one signs the synthetic token
+     * @param issuerUri                           the expected issuer, if any
+     * @param audiences                           the accepted audiences, if any
+     * @param iterations                          the number of warm-up rounds
+     * @param grantedAuthoritiesConverter         the converter mapping roles to authorities
+     * @param beanFactory                         the bean factory, telling which converters are the library's
+     * @return the security warm-up
+     * @throws IllegalStateException if the identity provider or the UserUtils bean is inconsistent
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SecurityWarmup securityWarmup(
+            @Value("${identity.provider:auth0}") String identityProvider,
+            Environment environment,
+            ClaimMapping claimMapping,
+            UserIdentityExtractor identityExtractor,
+            JwtAuthenticationConverter jwtAuthenticationConverter,
+            ObjectProvider<UserIdentityAuthenticationConverter> userIdentityAuthenticationConverter,
+            ObjectProvider<UserUtils> userUtils,
+            @Value("${spring.security.oauth2.resourceserver.jwt.jws-algorithms:RS256}") String[] jwsAlgorithms,
+            @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri:}") String issuerUri,
+            @Value("${spring.security.oauth2.resourceserver.jwt.audiences:}") String[] audiences,
+            @Value("${identity.warmup.iterations:500}") int iterations,
+            ObjectProvider<CachingGrantedAuthoritiesConverter> grantedAuthoritiesConverter,
+            ConfigurableListableBeanFactory beanFactory) {
+        if (!PROVIDERS.contains(identityProvider.trim().toLowerCase(Locale.ROOT)) && !hasClaimPaths(environment)) {
+            throw new IllegalStateException("identity.provider '" + identityProvider + "' does not match any of "
+                    + PROVIDERS + "; configure its claim paths with the identity.claims.* properties");
+        }
+        UserUtils uniqueUserUtils = userUtils.getIfUnique();
+        if (uniqueUserUtils == null) {
+            throw new IllegalStateException("Expected a single UserUtils bean for identity.provider '"
+                    + identityProvider + "', found " + userUtils.stream().count());
+        }
+        JwtAuthenticationConverter warmupJwtAuthenticationConverter = jwtAuthenticationConverter;
+        UserIdentityAuthenticationConverter warmupUserIdentityAuthenticationConverter =
+                userIdentityAuthenticationConverter.getIfAvailable();
+        CachingGrantedAuthoritiesConverter authorities = grantedAuthoritiesConverter.getIfAvailable();
+        if (authorities != null) {
+            if (isDefinedByLibrary(beanFactory, JwtAuthenticationConverter.class)) {
+                warmupJwtAuthenticationConverter = new JwtAuthenticationConverter();
+                warmupJwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(authorities);
+            }
+            if (warmupUserIdentityAuthenticationConverter != null
+                    && isDefinedByLibrary(beanFactory, UserIdentityAuthenticationConverter.class)) {
+                warmupUserIdentityAuthenticationConverter =
+                        new UserIdentityAuthenticationConverter(identityExtractor, authorities);
+            }
+        }
+        SecurityWarmup warmup = new SecurityWarmup(identityProvider, claimMapping, identityExtractor,
+                warmupJwtAuthenticationConverter, warmupUserIdentityAuthenticationConverter, uniqueUserUtils);
+        if (jwsAlgorithms.length > 0) {
+            warmup.setJwsAlgorithm(JWSAlgorithm.parse(jwsAlgorithms[0].trim()));
+        }
+        warmup.setIssuerUri(issuerUri);
+        warmup.setAudiences(Arrays.stream(audiences)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList());
+        warmup.setIterations(iterations);
+        return warmup;
+    }
+
+    /**
+     * Tells whether the single bean of a type is declared by {@link JwtCustomizerConfig}.
+     */
+    private static boolean isDefinedByLibrary(ConfigurableListableBeanFactory beanFactory, Class<?> type) {
+        String[] names = beanFactory.getBeanNamesForType(type, true, false);
+        if (names.length != 1 || !beanFactory.containsBeanDefinition(names[0])) {
+            return false;
+        }
+        String configurationName = beanFactory.getMergedBeanDefinition(names[0]).getFactoryBeanName();
+        Class<?> configuration = configurationName != null ? beanFactory.getType(configurationName, false) : null;
+        return configuration != null && ClassUtils.getUserClass(configuration) == JwtCustomizerConfig.class;
+    }
+
+    private static boolean hasClaimPaths(Environment environment) {
+        for (String name : ClaimMapping.FIELD_NAMES) {
+            if (environment.containsProperty("identity.claims." + name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,242 @@
+package dev.kush.securitycommon.audit;
+
+import dev.kush.securitycommon.common.KeycloakUserIdentityExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditLogTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void writesEventsInOrderAcrossLaps() throws Exception {
+        InMemoryAuditSink sink = new InMemoryAuditSink();
+        AuditLog auditLog = auditLog(sink, 4);
+        auditLog.setOverflowPolicy(AuditLog.OverflowPolicy.BLOCK);
+        auditLog.setBlockTimeout(Duration.ofSeconds(5));
+        auditLog.setIdleWait(Duration.ofMillis(1));
+        auditLog.afterPropertiesSet();
+
+        for (int i = 0; i < 1000; i++) {
+            auditLog.tenantAccessed(null, "r" + i, true);
+        }
+        auditLog.destroy();
+
+        List<AuditEvent> events = sink.getEvents();
+        assertEquals(1000, events.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("r" + i, events.get(i).detail());
+            assertEquals(AuditEventType.TENANT_ACCESS_GRANTED, events.get(i).type());
+            assertEquals(NOW, events.get(i).timestamp());
+        }
+        assertEquals(1000, auditLog.getWrittenCount());
+        assertEquals(0, auditLog.getDroppedCount());
+    }
+
+    @Test
+    void dropsEventsWhenFull() throws Exception {
+        InMemoryAuditSink sink = new InMemoryAuditSink();
+        AuditLog auditLog = auditLog(sink, 4);
+
+        for (int i = 0; i < 6; i++) {
+            auditLog.tenantAccessed(null, "r" + i, false);
+        }
+        assertEquals(4, auditLog.getQueueDepth());
+        assertEquals(2, auditLog.getDroppedCount());
+
+        auditLog.afterPropertiesSet();
+        auditLog.destroy();
+        assertEquals(List.of("r0", "r1", "r2", "r3"), details(sink.getEvents()));
+        assertEquals(0, auditLog.getQueueDepth());
+    }
+
+    @Test
+    void blocksUntilTimeoutWhenFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryAuditSink sink = new InMemoryAuditSink() {
+            @Override
+            public synchronized void write(List<AuditEvent> batch) {
+                writing.countDown();
+                await(release);
+                super.write(batch);
+            }
+        };
+        AuditLog auditLog = auditLog(sink, 2);
+        auditLog.setOverflowPolicy(AuditLog.OverflowPolicy.BLOCK);
+        auditLog.setBlockTimeout(Duration.ofMillis(100));
+        auditLog.setIdleWait(Duration.ofMillis(1));
+        auditLog.afterPropertiesSet();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the writer holds r0 in the sink while r1 and r2 fill the buffer
+            auditLog.tenantAccessed(null, "r0", true);
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            auditLog.tenantAccessed(null, "r1", true);
+            auditLog.tenantAccessed(null, "r2", true);
+
+            long start = System.nanoTime();
+            auditLog.tenantAccessed(null, "r3", true);
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            assertEquals(1, auditLog.getDroppedCount());
+
+            auditLog.setBlockTimeout(Duration.ofSeconds(5));
+            Future<?> blocked = executor.submit(() -> auditLog.tenantAccessed(null, "r4", true));
+            Thread.sleep(50);
+            release.countDown();
+            blocked.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            auditLog.destroy();
+        }
+        assertEquals(List.of("r0", "r1", "r2", "r4"), details(sink.getEvents()));
+        assertEquals(1, auditLog.getDroppedCount());
+    }
+
+    @Test
+    void drainsPendingEventsOnDestroy() throws Exception {
+        List<String> calls = new ArrayList<>();
+        InMemoryAuditSink sink = new InMemoryAuditSink() {
+            @Override
+            public void flush() {
+                calls.add("flush");
+            }
+
+            @Override
+            public void close() {
+                calls.add("close");
+            }
+        };
+        AuditLog auditLog = auditLog(sink, 128);
+        auditLog.setIdleWait(Duration.ofMinutes(1));
+        auditLog.afterPropertiesSet();
+
+        for (int i = 0; i < 100; i++) {
+            auditLog.tenantAccessed(null, "r" + i, true);
+        }
+        auditLog.destroy();
+
+        assertEquals(100, sink.getEvents().size());
+        assertEquals(0, auditLog.getQueueDepth());
+        assertEquals("close", calls.get(calls.size() - 1));
+        assertEquals("flush", calls.get(calls.size() - 2));
+    }
+
+    @Test
+    void neitherLosesNorDuplicatesEventsUnderContention() throws Exception {
+        int producers = 8;
+        int eventsPerProducer = 20_000;
+        InMemoryAuditSink sink = new InMemoryAuditSink(producers * eventsPerProducer);
+        AuditLog auditLog = auditLog(sink, 64);
+        auditLog.setOverflowPolicy(AuditLog.OverflowPolicy.BLOCK);
+        auditLog.setBlockTimeout(Duration.ofSeconds(10));
+        auditLog.setBatchSize(16);
+        auditLog.setIdleWait(Duration.ofMillis(1));
+        auditLog.afterPropertiesSet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                String producer = "p" + p;
+                results.add(executor.submit(() -> {
+                    await(start);
+                    for (int i = 0; i < eventsPerProducer; i++) {
+                        auditLog.tenantAccessed(null, producer + ":" + i, true);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            auditLog.destroy();
+        }
+
+        List<AuditEvent> events = sink.getEvents();
+        assertEquals(producers * eventsPerProducer, events.size());
+        assertEquals(producers * eventsPerProducer, auditLog.getWrittenCount());
+        assertEquals(0, auditLog.getDroppedCount());
+        Set<String> seen = new HashSet<>();
+        int[] next = new int[producers];
+        for (AuditEvent event : events) {
+            assertTrue(seen.add(event.detail()), event::detail);
+            int separator = event.detail().indexOf(':');
+            int producer = Integer.parseInt(event.detail().substring(1, separator));
+            // events of one producer keep their order
+            assertEquals(next[producer]++, Integer.parseInt(event.detail().substring(separator + 1)));
+        }
+    }
+
+    @Test
+    void countsEveryEventUnderContentionWhenDropping() throws Exception {
+        int producers = 8;
+        int eventsPerProducer = 20_000;
+        InMemoryAuditSink sink = new InMemoryAuditSink(producers * eventsPerProducer);
+        AuditLog auditLog = auditLog(sink, 16);
+        auditLog.setIdleWait(Duration.ofMillis(1));
+        auditLog.afterPropertiesSet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                String producer = "p" + p;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < eventsPerProducer; i++) {
+                        auditLog.tenantAccessed(null, producer + ":" + i, true);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            auditLog.destroy();
+        }
+
+        List<AuditEvent> events = sink.getEvents();
+        assertEquals(events.size(), auditLog.getWrittenCount());
+        assertEquals(producers * eventsPerProducer, auditLog.getWrittenCount() + auditLog.getDroppedCount());
+        assertEquals(events.size(), new HashSet<>(details(events)).size());
+    }
+
+    private static AuditLog auditLog(AuditSink sink, int capacity) {
+        AuditLog auditLog = new AuditLog(sink, new KeycloakUserIdentityExtractor(), capacity);
+        auditLog.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        return auditLog;
+    }
+
+    private static List<String> details(List<AuditEvent> events) {
+        return events.stream().map(AuditEvent::detail).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package dev.kush.securitycommon.authorization;
+
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdentityAuthorizationManagerTest {
+
+    private static final UserIdentity IDENTITY = new UserIdentity("auth0|1", "jane@example.com", 42L, 7L,
+            "Acme", "admin", List.of("admin"));
+
+    private static final UserIdentity WITHOUT_IDS = new UserIdentity("auth0|1", "jane@example.com", 0L, 0L,
+            "", "admin", List.of("admin"));
+
+    private volatile UserIdentity identity = IDENTITY;
+
+    private final IdentityAuthorizationManager manager = new IdentityAuthorizationManager(userUtils());
+
+    private final OrderService orders = new OrderService();
+
+    @Test
+    void matchesRolesWithAndWithoutThePrefix() throws Exception {
+        assertTrue(granted(authenticated("ROLE_ADMIN"), orders, "manage"));
+        assertTrue(granted(authenticated("ROLE_MANAGER"), orders, "manage"));
+        assertTrue(granted(authenticated("ROLE_USER", "ROLE_MANAGER"), orders, "manage"));
+
+        assertFalse(granted(authenticated("ROLE_USER"), orders, "manage"));
+        assertFalse(granted(authenticated("ADMIN", "MANAGER"), orders, "manage"));
+        assertFalse(granted(authenticated(), orders, "manage"));
+    }
+
+    @Test
+    void comparesTheCompanyWithLongIntAndStringArguments() throws Exception {
+        Authentication authentication = authenticated("ROLE_USER");
+
+        assertTrue(granted(authentication, orders, "findByLong", 7L));
+        assertTrue(granted(authentication, orders, "findByInt", 7));
+        assertTrue(granted(authentication, orders, "findByString", "7"));
+        assertTrue(granted(authentication, orders, "findByString", " 7 "));
+
+        assertFalse(granted(authentication, orders, "findByLong", 8L));
+        assertFalse(granted(authentication, orders, "findByInt", 8));
+        assertFalse(granted(authentication, orders, "findByString", "8"));
+        assertFalse(granted(authentication, orders, "findByString", "seven"));
+        assertFalse(granted(authentication, orders, "findByString", (Object) null));
+    }
+
+    @Test
+    void comparesTheUser() throws Exception {
+        Authentication authentication = authenticated("ROLE_ADMIN");
+
+        assertTrue(granted(authentication, orders, "profile", 42L));
+        assertTrue(granted(authentication, orders, "profile", "42"));
+        assertFalse(granted(authentication, orders, "profile", 43L));
+        assertFalse(granted(authentication, orders, "profile", (Object) null));
+        // the role check still applies
+        assertFalse(granted(authenticated("ROLE_USER"), orders, "profile", 42L));
+    }
+
+    @Test
+    void deniesTokensWithoutCompanyOrUserId() throws Exception {
+        identity = WITHOUT_IDS;
+        Authentication authentication = authenticated("ROLE_ADMIN");
+
+        assertFalse(granted(authentication, orders, "findByLong", 0L));
+        assertFalse(granted(authentication, orders, "findByInt", 0));
+        assertFalse(granted(authentication, orders, "findByString", "0"));
+        assertFalse(granted(authentication, orders, "profile", 0L));
+    }
+
+    @Test
+    void appliesClassLevelAnnotations() throws Exception {
+        AdminService admin = new AdminService();
+
+        assertTrue(granted(authenticated("ROLE_ADMIN"), admin, "purge"));
+        assertFalse(granted(authenticated("ROLE_USER"), admin, "purge"));
+        // the method annotation replaces the class annotation
+        assertTrue(granted(authenticated("ROLE_USER"), admin, "read"));
+        assertFalse(granted(authenticated("ROLE_ADMIN"), admin, "read"));
+    }
+
+    @Test
+    void deniesUnauthenticatedCallers() throws Exception {
+        assertFalse(granted(null, orders, "manage"));
+        assertFalse(granted(new TestingAuthenticationToken("jane", null), orders, "findByLong", 7L));
+        // methods without the annotation are not checked
+        assertTrue(granted(null, orders, "open"));
+    }
+
+    @Test
+    void rejectsUnknownParameterNames() throws Exception {
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> granted(authenticated("ROLE_ADMIN"), orders, "misnamed", 7L));
+        assertTrue(ex.getMessage().contains("'tenantId'"), ex.getMessage());
+    }
+
+    private boolean granted(Authentication authentication, Object target, String methodName, Object... arguments)
+            throws NoSuchMethodException {
+        SimpleMethodInvocation invocation = new SimpleMethodInvocation(target, method(target, methodName), arguments);
+        return manager.authorize(() -> authentication, invocation).isGranted();
+    }
+
+    private static Method method(Object target, String methodName) throws NoSuchMethodException {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(methodName)) {
+                return method;
+            }
+        }
+        throw new NoSuchMethodException(methodName);
+    }
+
+    private static Authentication authenticated(String... authorities) {
+        return new TestingAuthenticationToken("jane", null, authorities);
+    }
+
+    private UserUtils userUtils() {
+        return new UserUtils() {
+            @Override
+            public UserIdentity getCurrentIdentity() {
+                return identity;
+            }
+
+            @Override
+            public String getCurrentUserEmail() {
+                return getCurrentIdentity().email();
+            }
+
+            @Override
+            public String getCurrentUserSubjectId() {
+                return getCurrentIdentity().subject();
+            }
+
+            @Override
+            public Long getCurrentUserId() {
+                return getCurrentIdentity().userId();
+            }
+
+            @Override
+            public Long getCurrentCompanyId() {
+                return getCurrentIdentity().companyId();
+            }
+
+            @Override
+            public String getCurrentCompanyName() {
+                return getCurrentIdentity().companyName();
+            }
+
+            @Override
+            public String getCurrentUserRole() {
+                return getCurrentIdentity().role();
+            }
+        };
+    }
+
+    static class OrderService {
+
+        @RequireIdentity(roles = {"ADMIN", "ROLE_MANAGER"})
+        public void manage() {
+        }
+
+        @RequireIdentity(sameCompany = "companyId")
+        public void findByLong(long companyId) {
+        }
+
+        @RequireIdentity(sameCompany = "companyId")
+        public void findByInt(int companyId) {
+        }
+
+        @RequireIdentity(sameCompany = "companyId")
+        public void findByString(String companyId) {
+        }
+
+        @RequireIdentity(roles = "ADMIN", sameUser = "userId")
+        public void profile(Long userId) {
+        }
+
+        @RequireIdentity(sameCompany = "tenantId")
+        public void misnamed(long companyId) {
+        }
+
+        public void open() {
+        }
+    }
+
+    @RequireIdentity(roles = "ADMIN")
+    static class AdminService {
+
+        public void purge() {
+        }
+
+        @RequireIdentity(roles = "USER")
+        public void read() {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package dev.kush.securitycommon.batch;
+
+import dev.kush.securitycommon.common.Auth0UserIdentityExtractor;
+import dev.kush.securitycommon.common.AuthConstants;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchIdentityResolverTest {
+
+    private final Map<String, AtomicInteger> decodes = new ConcurrentHashMap<>();
+
+    /**
+     * Decodes "company-N" into a token of company N and rejects anything else.
+     */
+    private final JwtDecoder decoder = token -> {
+        decodes.computeIfAbsent(token, key -> new AtomicInteger()).incrementAndGet();
+        if (!token.startsWith("company-")) {
+            throw new BadJwtException("An error occurred while attempting to decode the Jwt: Malformed token");
+        }
+        return Jwt.withTokenValue(token).header("alg", "RS256").subject("auth0|" + token)
+                .claim(AuthConstants.AUTH0_APP_METADATA_CLAIM,
+                        Map.of(AuthConstants.AUTH0_COMPANY_ID_CLAIM, token.substring("company-".length())))
+                .build();
+    };
+
+    private final BatchIdentityResolver resolver = new BatchIdentityResolver(decoder,
+            new Auth0UserIdentityExtractor());
+
+    @Test
+    void decodesDuplicateTokensOnce() {
+        List<BatchIdentityResult> results = resolver.resolve(List.of("company-1", "company-2", "company-1",
+                "company-1"));
+
+        assertEquals(4, results.size());
+        assertSame(results.get(0), results.get(2));
+        assertSame(results.get(0), results.get(3));
+        assertEquals(1L, results.get(0).getIdentityOrThrow().companyId());
+        assertEquals(2L, results.get(1).getIdentityOrThrow().companyId());
+        assertEquals(1, decodes.get("company-1").get());
+        assertEquals(1, decodes.get("company-2").get());
+    }
+
+    @Test
+    void reportsRejectedTokensWithoutFailingTheBatch() {
+        List<BatchIdentityResult> results = resolver.resolve(Arrays.asList("company-1", "forged", "", null,
+                "company-2", "forged"));
+
+        assertTrue(results.get(0).isResolved());
+        assertTrue(results.get(4).isResolved());
+        for (int i : new int[] {1, 2, 3, 5}) {
+            BatchIdentityResult result = results.get(i);
+            assertFalse(result.isResolved(), "token " + i);
+            assertNull(result.identity(), "token " + i);
+            assertThrows(JwtException.class, result::getIdentityOrThrow, "token " + i);
+        }
+        assertInstanceOf(BadJwtException.class, results.get(1).error());
+        assertSame(results.get(1), results.get(5));
+        assertEquals(1, decodes.get("forged").get());
+        // empty tokens are rejected before reaching the decoder
+        assertEquals(3, decodes.size());
+    }
+
+    @Test
+    void preservesTheOrderOfTheTokens() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tokens.add(i % 7 == 0 ? "forged-" + i : "company-" + (i % 200));
+        }
+
+        assertInOrder(tokens, resolver.resolve(tokens));
+
+        resolver.setParallel(true);
+        resolver.setParallelThreshold(4);
+        assertInOrder(tokens, resolver.resolve(tokens));
+        assertInOrder(tokens.subList(0, 3), resolver.resolve(tokens.subList(0, 3)));
+    }
+
+    private static void assertInOrder(List<String> tokens, List<BatchIdentityResult> results) {
+        assertEquals(tokens.size(), results.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            BatchIdentityResult result = results.get(i);
+            if (token.startsWith("company-")) {
+                assertEquals("auth0|" + token, result.getIdentityOrThrow().subject(), "token " + i);
+                assertEquals(Long.parseLong(token.substring("company-".length())),
+                        result.getIdentityOrThrow().companyId(), "token " + i);
+            } else {
+                assertFalse(result.isResolved(), "token " + i);
+            }
+        }
+    }
+}
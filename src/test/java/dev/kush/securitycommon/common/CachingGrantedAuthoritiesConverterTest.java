@@ -0,0 +1,110 @@
+package dev.kush.securitycommon.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingGrantedAuthoritiesConverterTest {
+
+    @Test
+    void sharesTheAuthoritiesOfIdenticalRoleSets() {
+        CachingGrantedAuthoritiesConverter converter = new CachingGrantedAuthoritiesConverter("roles", "ROLE_",
+                List.of());
+
+        Collection<GrantedAuthority> first = converter.convert(jwt(Map.of("roles", new ArrayList<>(
+                List.of("admin", "user")))));
+        Collection<GrantedAuthority> second = converter.convert(jwt(Map.of("roles", List.of("admin", "user"))));
+        assertSame(first, second);
+        assertSame(first, converter.convert(jwt(Map.of("roles", new LinkedHashSet<>(List.of("admin", "user"))))));
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_admin"), new SimpleGrantedAuthority("ROLE_user")),
+                List.copyOf(first));
+
+        Collection<GrantedAuthority> scoped = converter.convert(jwt(Map.of("roles", "admin user")));
+        assertSame(scoped, converter.convert(jwt(Map.of("roles", "admin user"))));
+        assertEquals(List.copyOf(first), List.copyOf(scoped));
+
+        // equal roles in different sets share the authority instances
+        Collection<GrantedAuthority> admin = converter.convert(jwt(Map.of("roles", List.of("admin"))));
+        assertSame(first.iterator().next(), admin.iterator().next());
+    }
+
+    @Test
+    void boundsTheCanonicalAuthorities() {
+        CachingGrantedAuthoritiesConverter converter = new CachingGrantedAuthoritiesConverter("roles", "ROLE_",
+                List.of(), 2, 100);
+
+        List<GrantedAuthority> first = List.copyOf(converter.convert(jwt(Map.of("roles", List.of("a", "b", "c")))));
+        List<GrantedAuthority> second = List.copyOf(converter.convert(jwt(Map.of("roles", List.of("c", "b", "a")))));
+
+        assertSame(first.get(0), second.get(2));
+        assertSame(first.get(1), second.get(1));
+        // "c" came after the bound was reached, so it is converted anew each time
+        assertNotSame(first.get(2), second.get(0));
+        assertEquals(first.get(2), second.get(0));
+    }
+
+    @Test
+    void dropsExcludedRolePrefixes() {
+        CachingGrantedAuthoritiesConverter converter = new CachingGrantedAuthoritiesConverter("roles", "ROLE_",
+                List.of("default-", "offline_"));
+
+        Collection<GrantedAuthority> authorities = converter.convert(jwt(Map.of("roles",
+                List.of("default-roles-acme", "admin", "offline_access", "uma_authorization"))));
+
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_admin"),
+                new SimpleGrantedAuthority("ROLE_uma_authorization")), List.copyOf(authorities));
+        assertTrue(converter.convert(jwt(Map.of("sub", "jane"))).isEmpty());
+    }
+
+    @Test
+    void convertsTheAuth0LayoutLikeSpringSecurity() {
+        Jwt jwt = jwt(Map.of(AuthConstants.AUTH0_ROLE_CLAIM, List.of("admin", "billing"),
+                "details.app_metadata", Map.of("company_id", 7)));
+        CachingGrantedAuthoritiesConverter converter = new CachingGrantedAuthoritiesConverter(
+                ClaimMapping.auth0().roles(), "ROLE_", List.of());
+
+        assertEquals(List.copyOf(spring(AuthConstants.AUTH0_ROLE_CLAIM).convert(jwt)),
+                List.copyOf(converter.convert(jwt)));
+    }
+
+    @Test
+    void convertsTheKeycloakLayoutLikeSpringSecurityWithoutDefaultRoles() {
+        Jwt jwt = jwt(Map.of(AuthConstants.KEYCLOAK_ROLE_CLAIM,
+                List.of("default-roles-acme", "admin", "offline_access"),
+                "details", Map.of("company_id", 7)));
+        CachingGrantedAuthoritiesConverter converter = new CachingGrantedAuthoritiesConverter(
+                ClaimMapping.keycloak().roles(), "ROLE_", List.of("default-"));
+
+        List<GrantedAuthority> expected = new ArrayList<>(spring(AuthConstants.KEYCLOAK_ROLE_CLAIM).convert(jwt));
+        expected.removeIf(authority -> authority.getAuthority().startsWith("ROLE_default-"));
+        assertEquals(expected, List.copyOf(converter.convert(jwt)));
+        assertEquals(List.copyOf(spring(AuthConstants.KEYCLOAK_ROLE_CLAIM).convert(jwt)), List.copyOf(
+                new CachingGrantedAuthoritiesConverter(ClaimMapping.keycloak().roles(), "ROLE_", List.of())
+                        .convert(jwt)));
+    }
+
+    private static JwtGrantedAuthoritiesConverter spring(String claimName) {
+        JwtGrantedAuthoritiesConverter converter = new JwtGrantedAuthoritiesConverter();
+        converter.setAuthoritiesClaimName(claimName);
+        converter.setAuthorityPrefix("ROLE_");
+        return converter;
+    }
+
+    private static Jwt jwt(Map<String, Object> claims) {
+        return Jwt.withTokenValue("token").header("alg", "RS256").subject("jane").claims(c -> c.putAll(claims))
+                .build();
+    }
+}
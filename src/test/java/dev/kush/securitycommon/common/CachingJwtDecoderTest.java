@@ -0,0 +1,132 @@
+package dev.kush.securitycommon.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingJwtDecoderTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final AtomicInteger decodes = new AtomicInteger();
+
+    @Test
+    void servesRepeatedTokensFromTheCache() {
+        CachingJwtDecoder decoder = decoder(token -> jwt(token, START.plus(Duration.ofMinutes(5))),
+                Duration.ofMinutes(10));
+
+        Jwt first = decoder.decode("token");
+        assertSame(first, decoder.decode("token"));
+        assertEquals(1, decodes.get());
+        assertEquals(1, decoder.getHitCount());
+
+        decoder.decode("other");
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void expiresAtTheTokenExpiry() {
+        CachingJwtDecoder decoder = decoder(token -> jwt(token, START.plus(Duration.ofMinutes(5))),
+                Duration.ofMinutes(10));
+
+        decoder.decode("token");
+        advance(Duration.ofMinutes(4));
+        decoder.decode("token");
+        assertEquals(1, decodes.get());
+        advance(Duration.ofMinutes(2));
+        decoder.decode("token");
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void expiresAtTheMaxTimeToLiveBeforeTheTokenExpiry() {
+        CachingJwtDecoder decoder = decoder(token -> jwt(token, START.plus(Duration.ofHours(1))),
+                Duration.ofMinutes(10));
+
+        decoder.decode("token");
+        advance(Duration.ofMinutes(9));
+        decoder.decode("token");
+        assertEquals(1, decodes.get());
+        advance(Duration.ofMinutes(2));
+        decoder.decode("token");
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        CachingJwtDecoder decoder = decoder(token -> {
+            if (decodes.get() == 1) {
+                throw new BadJwtException("invalid signature");
+            }
+            return jwt(token, START.plus(Duration.ofMinutes(5)));
+        }, Duration.ofMinutes(10));
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("token"));
+        decoder.decode("token");
+        decoder.decode("token");
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void comparesTheTokenValueOnHits() {
+        // the cached Jwt carries another token value, as the entry of a colliding token would
+        CachingJwtDecoder decoder = decoder(token -> jwt("other", START.plus(Duration.ofMinutes(5))),
+                Duration.ofMinutes(10));
+
+        Jwt first = decoder.decode("token");
+        assertNotSame(first, decoder.decode("token"));
+        assertEquals(2, decodes.get());
+    }
+
+    private CachingJwtDecoder decoder(Function<String, Jwt> delegate, Duration maxTimeToLive) {
+        JwtDecoder counting = token -> {
+            decodes.incrementAndGet();
+            return delegate.apply(token);
+        };
+        return new CachingJwtDecoder(counting, 100, maxTimeToLive, clock(), nanos::get);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private Clock clock() {
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return START.plusNanos(nanos.get());
+            }
+        };
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token).header("alg", "RS256").subject("jane").expiresAt(expiresAt).build();
+    }
+}
@@ -0,0 +1,222 @@
+package dev.kush.securitycommon.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the compiled claim paths with the claim walks of the original
+ * {@code Auth0UserUtils} and {@code KeycloakUserUtils}. Where those returned a
+ * value, the extractor must return the same value; where they threw, for example
+ * on a missing or non-numeric id, it returns the {@code 0L} or {@code ""} default.
+ */
+class ClaimMappingUserIdentityExtractorTest {
+
+    private static final List<Map<String, Object>> AUTH0_CLAIMS = List.of(
+            claims("sub", "auth0|1",
+                    "details.email", "jane@example.com",
+                    "details.app_metadata", Map.of("erp_user_id", "12", "company_id", 7L, "company_name", "Acme"),
+                    "details.roles", List.of("admin", "user")),
+            claims("sub", "auth0|2",
+                    "details.app_metadata", Map.of("erp_user_id", 12L, "company_id", "7")),
+            claims("sub", "auth0|3",
+                    "details.app_metadata", Map.of("company_name", 42L),
+                    "details.roles", List.of()),
+            claims("sub", "auth0|4",
+                    "details.app_metadata", Map.of("erp_user_id", "abc", "company_id", 7.5, "company_name", ""),
+                    "details.roles", "admin"),
+            claims("sub", "auth0|5",
+                    "details.app_metadata", "not-a-map",
+                    "details.email", 42L),
+            claims("sub", "auth0|6",
+                    "details", Map.of("app_metadata", Map.of("erp_user_id", 12L, "company_id", 7L)),
+                    "details.app_metadata", Map.of("erp_user_id", Integer.MAX_VALUE, "company_id", Long.MAX_VALUE)),
+            claims("iss", "https://tenant.auth0.com/"));
+
+    private static final List<Map<String, Object>> KEYCLOAK_CLAIMS = List.of(
+            claims("sub", "kc-1",
+                    "email", "jane@example.com",
+                    "details", Map.of("user_id", 12L, "company_id", "7", "company_name", "Acme"),
+                    "roles", List.of("default-roles-acme", "offline_access", "admin")),
+            claims("sub", "kc-2",
+                    "details", Map.of("user_id", "12", "company_id", 7L),
+                    "roles", List.of("default-roles-acme")),
+            claims("sub", "kc-3",
+                    "details", Map.of("company_name", "Acme"),
+                    "roles", List.of()),
+            claims("sub", "kc-4",
+                    "details", Map.of("user_id", "", "company_id", "x7"),
+                    "roles", "admin"),
+            claims("sub", "kc-5",
+                    "details", "not-a-map",
+                    "email", 42L),
+            claims("sub", "kc-6",
+                    "details.user_id", 12L,
+                    "details", Map.of("nested", Map.of("user_id", 13L))),
+            claims("iss", "https://keycloak.example.com/realms/acme"));
+
+    @Test
+    void auth0MatchesBaseline() {
+        UserIdentityExtractor extractor = new Auth0UserIdentityExtractor();
+        for (Map<String, Object> claims : AUTH0_CLAIMS) {
+            Jwt jwt = jwt(claims);
+            UserIdentity identity = extractor.extract(jwt.getClaims());
+            assertEquals(jwt.getClaimAsString(AuthConstants.AUTH0_EMAIL_CLAIM), identity.email(), claims::toString);
+            assertEquals(jwt.getSubject(), identity.subject(), claims::toString);
+            assertEquals(orDefault(jwt, Auth0Baseline::userId, 0L), identity.userId(), claims::toString);
+            assertEquals(orDefault(jwt, Auth0Baseline::companyId, 0L), identity.companyId(), claims::toString);
+            assertEquals(orDefault(jwt, Auth0Baseline::companyName, ""), identity.companyName(), claims::toString);
+            assertEquals(Auth0Baseline.role(jwt), identity.role(), claims::toString);
+        }
+    }
+
+    @Test
+    void keycloakMatchesBaseline() {
+        UserIdentityExtractor extractor = new KeycloakUserIdentityExtractor();
+        for (Map<String, Object> claims : KEYCLOAK_CLAIMS) {
+            Jwt jwt = jwt(claims);
+            UserIdentity identity = extractor.extract(jwt.getClaims());
+            assertEquals(jwt.getClaimAsString(AuthConstants.KEYCLOAK_EMAIL_CLAIM), identity.email(), claims::toString);
+            assertEquals(jwt.getSubject(), identity.subject(), claims::toString);
+            assertEquals(orDefault(jwt, KeycloakBaseline::userId, 0L), identity.userId(), claims::toString);
+            assertEquals(orDefault(jwt, KeycloakBaseline::companyId, 0L), identity.companyId(), claims::toString);
+            assertEquals(orDefault(jwt, KeycloakBaseline::companyName, ""), identity.companyName(), claims::toString);
+            assertEquals(KeycloakBaseline.role(jwt), identity.role(), claims::toString);
+        }
+    }
+
+    @Test
+    void documentsFallbacks() {
+        UserIdentity auth0 = new Auth0UserIdentityExtractor().extract(AUTH0_CLAIMS.get(3));
+        assertEquals(0L, auth0.userId());
+        assertEquals(0L, auth0.companyId());
+        assertEquals("", auth0.companyName());
+        assertEquals("admin", auth0.role());
+        assertEquals(List.of("admin"), auth0.roles());
+
+        UserIdentity empty = new KeycloakUserIdentityExtractor().extract(KEYCLOAK_CLAIMS.get(6));
+        assertEquals(new UserIdentity(null, null, 0L, 0L, "", "", List.of()), empty);
+    }
+
+    @Test
+    void configuredPathsReplacePresetPaths() {
+        ClaimMapping mapping = ClaimMapping.keycloak().withPaths(Map.of(
+                "user-id", "details.nested.user_id",
+                "company-id", "[\"details.user_id\"]",
+                "roles", ""));
+        UserIdentity identity = new ClaimMappingUserIdentityExtractor(mapping).extract(KEYCLOAK_CLAIMS.get(5));
+        assertEquals(13L, identity.userId());
+        assertEquals(12L, identity.companyId());
+        assertEquals(ClaimMapping.keycloak().roles(), mapping.roles());
+    }
+
+    private static <T> T orDefault(Jwt jwt, Function<Jwt, T> baseline, T defaultValue) {
+        try {
+            return baseline.apply(jwt);
+        } catch (RuntimeException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static Jwt jwt(Map<String, Object> claims) {
+        return Jwt.withTokenValue("token").header("alg", "RS256").claims(c -> c.putAll(claims)).build();
+    }
+
+    private static Map<String, Object> claims(Object... entries) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            claims.put((String) entries[i], entries[i + 1]);
+        }
+        return claims;
+    }
+
+    /**
+     * The claim walks of the original Auth0UserUtils.
+     */
+    private static final class Auth0Baseline {
+
+        static Long userId(Jwt jwt) {
+            Map<String, Object> detailsMap;
+            try {
+                detailsMap = jwt.getClaimAsMap(AuthConstants.AUTH0_APP_METADATA_CLAIM);
+                if (detailsMap == null) {
+                    return 0L;
+                }
+            } catch (Exception e) {
+                return 0L;
+            }
+            return Long.parseLong(detailsMap.get(AuthConstants.AUTH0_USER_ID_CLAIM).toString());
+        }
+
+        static Long companyId(Jwt jwt) {
+            Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.AUTH0_APP_METADATA_CLAIM);
+            if (detailsMap == null) {
+                return 0L;
+            }
+            return Long.parseLong(detailsMap.get(AuthConstants.AUTH0_COMPANY_ID_CLAIM).toString());
+        }
+
+        static String companyName(Jwt jwt) {
+            Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.AUTH0_APP_METADATA_CLAIM);
+            if (detailsMap == null) {
+                return "";
+            }
+            return detailsMap.getOrDefault(AuthConstants.AUTH0_COMPANY_NAME_CLAIM, "").toString();
+        }
+
+        static String role(Jwt jwt) {
+            List<String> roles = jwt.getClaimAsStringList(AuthConstants.AUTH0_ROLE_CLAIM);
+            if (roles == null || roles.isEmpty()) {
+                return "";
+            }
+            return roles.getFirst();
+        }
+    }
+
+    /**
+     * The claim walks of the original KeycloakUserUtils.
+     */
+    private static final class KeycloakBaseline {
+
+        static Long userId(Jwt jwt) {
+            Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.KEYCLOAK_DETAILS_CLAIM);
+            if (detailsMap == null) {
+                return 0L;
+            }
+            return Long.parseLong(detailsMap.get(AuthConstants.KEYCLOAK_USER_ID_CLAIM).toString());
+        }
+
+        static Long companyId(Jwt jwt) {
+            Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.KEYCLOAK_DETAILS_CLAIM);
+            if (detailsMap == null) {
+                return 0L;
+            }
+            return Long.parseLong(detailsMap.get(AuthConstants.KEYCLOAK_COMPANY_ID_CLAIM).toString());
+        }
+
+        static String companyName(Jwt jwt) {
+            Map<String, Object> detailsMap = jwt.getClaimAsMap(AuthConstants.KEYCLOAK_DETAILS_CLAIM);
+            if (detailsMap == null) {
+                return "";
+            }
+            return detailsMap.getOrDefault(AuthConstants.KEYCLOAK_COMPANY_NAME_CLAIM, "").toString();
+        }
+
+        static String role(Jwt jwt) {
+            List<String> roles = jwt.getClaimAsStringList(AuthConstants.KEYCLOAK_ROLE_CLAIM);
+            if (roles == null || roles.isEmpty()) {
+                return "";
+            }
+            return roles.stream()
+                    .filter(role -> !role.startsWith("default-"))
+                    .findFirst()
+                    .orElse("");
+        }
+    }
+}
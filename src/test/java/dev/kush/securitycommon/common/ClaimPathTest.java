@@ -0,0 +1,109 @@
+package dev.kush.securitycommon.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClaimPathTest {
+
+    private static final Map<String, Object> CLAIMS = Map.of(
+            "sub", "auth0|42",
+            "details", Map.of("company_id", 7L, "user_id", "12", "name", "Acme"),
+            "details.app_metadata", Map.of("erp_user_id", 12),
+            "https://example.com/company_id", "99",
+            "roles", List.of("admin", "user"));
+
+    @Test
+    void resolvesDottedPath() {
+        assertEquals(7L, ClaimPath.compile("details.company_id").resolve(CLAIMS));
+        assertEquals("12", ClaimPath.compile("details.user_id").resolve(CLAIMS));
+    }
+
+    @Test
+    void resolvesQuotedKeys() {
+        assertEquals(12, ClaimPath.compile("[\"details.app_metadata\"].erp_user_id").resolve(CLAIMS));
+        assertEquals(12, ClaimPath.compile("['details.app_metadata']['erp_user_id']").resolve(CLAIMS));
+        assertEquals("99", ClaimPath.compile("[\"https://example.com/company_id\"]").resolve(CLAIMS));
+    }
+
+    @Test
+    void resolvesListIndexes() {
+        assertEquals("admin", ClaimPath.compile("roles[0]").resolve(CLAIMS));
+        assertEquals("user", ClaimPath.compile("roles[1]").resolve(CLAIMS));
+        assertNull(ClaimPath.compile("roles[2]").resolve(CLAIMS));
+    }
+
+    @Test
+    void literalKeysAreNotParsed() {
+        ClaimPath path = ClaimPath.of("details.app_metadata", "erp_user_id");
+        assertEquals(12, path.resolve(CLAIMS));
+        assertEquals(path, ClaimPath.compile("[\"details.app_metadata\"][\"erp_user_id\"]"));
+        assertNull(ClaimPath.of("details.company_id").resolve(CLAIMS));
+    }
+
+    @Test
+    void missingOrWronglyTypedSegmentsResolveToNull() {
+        assertNull(ClaimPath.compile("missing").resolve(CLAIMS));
+        assertNull(ClaimPath.compile("details.missing").resolve(CLAIMS));
+        assertNull(ClaimPath.compile("sub.company_id").resolve(CLAIMS));
+        assertNull(ClaimPath.compile("details[0]").resolve(CLAIMS));
+        assertNull(ClaimPath.compile("roles.admin").resolve(CLAIMS));
+        assertNull(ClaimPath.compile("details.company_id.value").resolve(CLAIMS));
+    }
+
+    @Test
+    void resolvesTypedValuesWithDefaults() {
+        assertEquals(7L, ClaimPath.compile("details.company_id").resolveLong(CLAIMS));
+        assertEquals(12L, ClaimPath.compile("details.user_id").resolveLong(CLAIMS));
+        assertEquals(99L, ClaimPath.compile("[\"https://example.com/company_id\"]").resolveLong(CLAIMS));
+        assertEquals(0L, ClaimPath.compile("details.name").resolveLong(CLAIMS));
+        assertEquals(0L, ClaimPath.compile("details.missing").resolveLong(CLAIMS));
+        assertEquals("7", ClaimPath.compile("details.company_id").resolveString(CLAIMS, ""));
+        assertEquals("", ClaimPath.compile("details.missing").resolveString(CLAIMS, ""));
+        assertNull(ClaimPath.compile("details.missing").resolveString(CLAIMS, null));
+        assertEquals(List.of("admin", "user"), ClaimPath.compile("roles").resolveStringList(CLAIMS));
+        assertEquals(List.of("auth0|42"), ClaimPath.compile("sub").resolveStringList(CLAIMS));
+        assertEquals(List.of(), ClaimPath.compile("missing").resolveStringList(CLAIMS));
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> ClaimPath.compile(""));
+        assertThrows(IllegalArgumentException.class, () -> ClaimPath.compile("details."));
+        assertThrows(IllegalArgumentException.class, () -> ClaimPath.compile(".details"));
+        assertThrows(IllegalArgumentException.class, () -> ClaimPath.compile("details..company_id"));
+        assertThrows(IllegalArgumentException.class, () -> ClaimPath.compile("roles[0"));
+        assertThrows(IllegalArgumentException.class, () -> ClaimPath.compile("roles[-1]"));
+        assertThrows(IllegalArgumentException.class, () -> ClaimPath.compile("roles[first]"));
+        assertThrows(IllegalArgumentException.class, () -> ClaimPath.compile("[\"details]"));
+        assertThrows(IllegalArgumentException.class, () -> ClaimPath.compile("roles[0]admin"));
+    }
+
+    @Test
+    void putIsTheInverseOfResolve() {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        ClaimPath companyId = ClaimPath.compile("[\"details.app_metadata\"].company_id");
+        ClaimPath secondRole = ClaimPath.compile("details.roles[1]");
+        companyId.put(claims, 7L);
+        secondRole.put(claims, "admin");
+
+        assertEquals(7L, companyId.resolve(claims));
+        assertEquals("admin", secondRole.resolve(claims));
+        assertEquals(Arrays.asList(null, "admin"),
+                ClaimPath.compile("details.roles").resolve(claims));
+    }
+
+    @Test
+    void putRejectsConflictingClaims() {
+        Map<String, Object> claims = new LinkedHashMap<>(Map.of("details", "flat"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ClaimPath.compile("details.company_id").put(claims, 7L));
+    }
+}
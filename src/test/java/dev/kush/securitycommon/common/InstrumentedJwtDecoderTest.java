@@ -0,0 +1,186 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import dev.kush.securitycommon.revocation.InMemoryRevocationSource;
+import dev.kush.securitycommon.revocation.RevocationChecker;
+import dev.kush.securitycommon.revocation.RevocationCheckingJwtDecoder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InstrumentedJwtDecoderTest {
+
+    private static final String ISSUER = "https://tenant.auth0.com/";
+
+    private static final JOSEObjectType AT_JWT = new JOSEObjectType("at+jwt");
+
+    private static RSAKey rsaKey;
+
+    private static RSAKey otherKey;
+
+    private static RSAKey rotatedKey;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        rsaKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        otherKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        rotatedKey = new RSAKeyGenerator(2048).keyID("key-0").generate();
+    }
+
+    @Test
+    void classifiesNimbusRejections() throws Exception {
+        JwtDecoder nimbus = nimbus(new ImmutableJWKSet<>(new JWKSet(rsaKey.toPublicJWK())));
+
+        assertClassified(SecurityMetrics.DecodeFailure.TYPE_REJECTED, nimbus,
+                sign(rsaKey, JOSEObjectType.JWT, claims().build()));
+        assertClassified(SecurityMetrics.DecodeFailure.BAD_SIGNATURE, nimbus,
+                sign(otherKey, AT_JWT, claims().build()));
+        assertClassified(SecurityMetrics.DecodeFailure.BAD_SIGNATURE, nimbus,
+                sign(rotatedKey, AT_JWT, claims().build()));
+        assertClassified(SecurityMetrics.DecodeFailure.MALFORMED, nimbus, "not-a-token");
+        assertClassified(SecurityMetrics.DecodeFailure.MALFORMED, nimbus,
+                sign(rsaKey, AT_JWT, claims().build()).replaceFirst("\\.[^.]+\\.", ".e30x."));
+    }
+
+    @Test
+    void classifiesLazyClaimsRejectionsLikeNimbus() throws Exception {
+        LazyClaimsJwtDecoder lazy = new LazyClaimsJwtDecoder(
+                new JWSVerificationKeySelector<>(JWSAlgorithm.RS256,
+                        new ImmutableJWKSet<>(new JWKSet(rsaKey.toPublicJWK()))),
+                new DefaultJWSVerifierFactory(), JwtProcessorSupport.typeVerifier("auth0"));
+        lazy.setJwtValidator(JwtProcessorSupport.validator(ISSUER, List.of()));
+
+        assertClassified(SecurityMetrics.DecodeFailure.TYPE_REJECTED, lazy,
+                sign(rsaKey, JOSEObjectType.JWT, claims().build()));
+        assertClassified(SecurityMetrics.DecodeFailure.BAD_SIGNATURE, lazy,
+                sign(otherKey, AT_JWT, claims().build()));
+        assertClassified(SecurityMetrics.DecodeFailure.BAD_SIGNATURE, lazy,
+                sign(rotatedKey, AT_JWT, claims().build()));
+        assertClassified(SecurityMetrics.DecodeFailure.EXPIRED, lazy, sign(rsaKey, AT_JWT,
+                claims().expirationTime(Date.from(Instant.now().minusSeconds(3600))).build()));
+        assertClassified(SecurityMetrics.DecodeFailure.INVALID_CLAIMS, lazy,
+                sign(rsaKey, AT_JWT, claims().issuer("https://attacker.example.com/").build()));
+        assertClassified(SecurityMetrics.DecodeFailure.MALFORMED, lazy, "not-a-token");
+    }
+
+    @Test
+    void classifiesSpringValidationFailures() throws Exception {
+        JwtDecoder nimbus = nimbus(new ImmutableJWKSet<>(new JWKSet(rsaKey.toPublicJWK())));
+
+        assertClassified(SecurityMetrics.DecodeFailure.EXPIRED, nimbus, sign(rsaKey, AT_JWT,
+                claims().expirationTime(Date.from(Instant.now().minusSeconds(3600))).build()));
+        assertClassified(SecurityMetrics.DecodeFailure.EXPIRED, nimbus, sign(rsaKey, AT_JWT,
+                claims().notBeforeTime(Date.from(Instant.now().plusSeconds(3600))).build()));
+        assertClassified(SecurityMetrics.DecodeFailure.INVALID_CLAIMS, nimbus,
+                sign(rsaKey, AT_JWT, claims().issuer("https://attacker.example.com/").build()));
+    }
+
+    @Test
+    void classifiesRevokedTokens() throws Exception {
+        InMemoryRevocationSource revocations = new InMemoryRevocationSource();
+        revocations.revokeToken("t-1");
+        RevocationChecker checker = new RevocationChecker(revocations, revocations);
+        checker.afterPropertiesSet();
+        try {
+            JwtDecoder decoder = new RevocationCheckingJwtDecoder(
+                    nimbus(new ImmutableJWKSet<>(new JWKSet(rsaKey.toPublicJWK()))), checker);
+
+            assertClassified(SecurityMetrics.DecodeFailure.REVOKED, decoder,
+                    sign(rsaKey, AT_JWT, claims().jwtID("t-1").build()));
+        } finally {
+            checker.destroy();
+        }
+    }
+
+    @Test
+    void classifiesUnavailableKeysAsOther() throws Exception {
+        JWKSource<SecurityContext> unavailable = (selector, context) -> {
+            throw new RemoteKeySourceException("Connection refused", null);
+        };
+
+        assertClassified(SecurityMetrics.DecodeFailure.OTHER, nimbus(unavailable),
+                sign(rsaKey, AT_JWT, claims().build()));
+    }
+
+    @Test
+    void recordsTheOutcomeOfEachDecode() throws Exception {
+        List<String> recorded = new ArrayList<>();
+        SecurityMetrics metrics = new SecurityMetrics() {
+            @Override
+            public void recordDecodeSuccess(long durationNanos) {
+                recorded.add("success");
+            }
+
+            @Override
+            public void recordDecodeFailure(DecodeFailure reason, long durationNanos) {
+                recorded.add(reason.name());
+            }
+        };
+        JwtDecoder decoder = new InstrumentedJwtDecoder(
+                nimbus(new ImmutableJWKSet<>(new JWKSet(rsaKey.toPublicJWK()))), metrics);
+
+        decoder.decode(sign(rsaKey, AT_JWT, claims().build()));
+        assertThrows(JwtException.class, () -> decoder.decode(sign(otherKey, AT_JWT, claims().build())));
+        assertEquals(List.of("success", "BAD_SIGNATURE"), recorded);
+    }
+
+    private static void assertClassified(SecurityMetrics.DecodeFailure expected, JwtDecoder decoder, String token) {
+        JwtException ex = assertThrows(JwtException.class, () -> decoder.decode(token));
+        assertEquals(expected, InstrumentedJwtDecoder.classify(ex), ex.getMessage());
+    }
+
+    /**
+     * Builds a decoder like the Spring Boot one, with a key selector by "kid" so that
+     * unknown keys raise the Nimbus "no matching key" rejection.
+     */
+    private static JwtDecoder nimbus(JWKSource<SecurityContext> jwkSource) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        processor.setJWSTypeVerifier(JwtProcessorSupport.typeVerifier("auth0"));
+        // claims are validated by the Spring validators, as in the NimbusJwtDecoder builders
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(JwtProcessorSupport.validator(ISSUER, List.of()));
+        return decoder;
+    }
+
+    private static JWTClaimsSet.Builder claims() {
+        return new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("auth0|1")
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)));
+    }
+
+    private static String sign(RSAKey key, JOSEObjectType type, JWTClaimsSet claims) throws Exception {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).type(type).keyID(key.getKeyID()).build();
+        SignedJWT jwt = new SignedJWT(header, claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
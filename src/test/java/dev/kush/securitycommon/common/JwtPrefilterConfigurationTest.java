@@ -0,0 +1,56 @@
+package dev.kush.securitycommon.common;
+
+import dev.kush.securitycommon.jwk.JwkSourceAutoConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JwtPrefilterConfigurationTest {
+
+    private static final JwtDecoder DECODER = token -> Jwt.withTokenValue(token).header("alg", "none")
+            .claim("sub", "jane").build();
+
+    @Test
+    void wrapsTheResourceServerDecoderOnly() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        JwtPrefilterConfiguration.PrefilteringJwtDecoderPostProcessor postProcessor =
+                JwtPrefilterConfiguration.prefilteringJwtDecoderPostProcessor("auth0", "", new String[0], 8192,
+                        Duration.ofSeconds(60));
+        postProcessor.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(postProcessor);
+
+        beanFactory.registerBeanDefinition("jwkSourceAutoConfiguration",
+                new RootBeanDefinition(JwkSourceAutoConfiguration.class));
+        beanFactory.registerBeanDefinition("applicationConfiguration",
+                new RootBeanDefinition(ApplicationConfiguration.class));
+        // the shape of @Bean methods, as registered with or without AOT processing
+        beanFactory.registerBeanDefinition("jwtDecoderByRefreshingJwkSource",
+                decoderDefinition("jwkSourceAutoConfiguration"));
+        beanFactory.registerBeanDefinition("partnerJwtDecoder", decoderDefinition("applicationConfiguration"));
+        beanFactory.registerBeanDefinition("standaloneJwtDecoder", decoderDefinition(null));
+        beanFactory.registerSingleton("registeredJwtDecoder", DECODER);
+
+        PrefilteringJwtDecoder prefilter = assertInstanceOf(PrefilteringJwtDecoder.class,
+                beanFactory.getBean("jwtDecoderByRefreshingJwkSource"));
+        assertSame(DECODER, prefilter.getDelegate());
+        assertSame(DECODER, beanFactory.getBean("partnerJwtDecoder"));
+        assertSame(DECODER, beanFactory.getBean("standaloneJwtDecoder"));
+        assertSame(DECODER, beanFactory.getBean("registeredJwtDecoder"));
+    }
+
+    private static RootBeanDefinition decoderDefinition(String factoryBeanName) {
+        RootBeanDefinition definition = new RootBeanDefinition(JwtDecoder.class, () -> DECODER);
+        definition.setFactoryBeanName(factoryBeanName);
+        return definition;
+    }
+
+    static class ApplicationConfiguration {
+    }
+}
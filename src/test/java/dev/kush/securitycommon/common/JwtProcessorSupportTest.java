@@ -0,0 +1,35 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JOSEObjectTypeVerifier;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtProcessorSupportTest {
+
+    private static final JOSEObjectType AT_JWT = new JOSEObjectType("at+jwt");
+
+    @Test
+    void requiresTheAccessTokenTypeForAuth0() {
+        for (String provider : new String[] {"auth0", "Auth0", "AUTH0"}) {
+            JOSEObjectTypeVerifier<SecurityContext> verifier = JwtProcessorSupport.typeVerifier(provider);
+            assertDoesNotThrow(() -> verifier.verify(AT_JWT, null), provider);
+            assertThrows(BadJOSEException.class, () -> verifier.verify(JOSEObjectType.JWT, null), provider);
+            assertThrows(BadJOSEException.class, () -> verifier.verify(null, null), provider);
+        }
+    }
+
+    @Test
+    void keepsTheNimbusDefaultForOtherProviders() {
+        for (String provider : new String[] {"keycloak", "okta", ""}) {
+            JOSEObjectTypeVerifier<SecurityContext> verifier = JwtProcessorSupport.typeVerifier(provider);
+            assertDoesNotThrow(() -> verifier.verify(JOSEObjectType.JWT, null), provider);
+            assertDoesNotThrow(() -> verifier.verify(null, null), provider);
+            assertThrows(BadJOSEException.class, () -> verifier.verify(AT_JWT, null), provider);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.proc.DefaultJOSEObjectTypeVerifier;
+import com.nimbusds.jose.proc.SingleKeyJWSKeySelector;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyClaimsJwtDecoderTest {
+
+    private static RSAKey rsaKey;
+
+    private static RSAKey otherKey;
+
+    private static LazyClaimsJwtDecoder decoder;
+
+    private static JwtDecoder nimbusDecoder;
+
+    @BeforeAll
+    static void createDecoders() throws Exception {
+        rsaKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        otherKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        decoder = new LazyClaimsJwtDecoder(
+                new SingleKeyJWSKeySelector<>(JWSAlgorithm.RS256, rsaKey.toRSAPublicKey()),
+                new DefaultJWSVerifierFactory(),
+                new DefaultJOSEObjectTypeVerifier<>(JOSEObjectType.JWT, null));
+        nimbusDecoder = NimbusJwtDecoder.withPublicKey(rsaKey.toRSAPublicKey())
+                .jwtProcessorCustomizer(processor -> processor.setJWSTypeVerifier(
+                        new DefaultJOSEObjectTypeVerifier<>(JOSEObjectType.JWT, null)))
+                .build();
+    }
+
+    @Test
+    void decodesValidTokens() throws Exception {
+        String token = sign(rsaKey, JOSEObjectType.JWT, claims(Instant.now().plusSeconds(300)));
+
+        Jwt jwt = decoder.decode(token);
+        Jwt expected = nimbusDecoder.decode(token);
+        assertEquals(token, jwt.getTokenValue());
+        assertEquals("auth0|1", jwt.getSubject());
+        assertEquals(expected.getExpiresAt(), jwt.getExpiresAt());
+        assertEquals(expected.getHeaders(), jwt.getHeaders());
+        assertEquals(expected.getClaimAsStringList("roles"), jwt.getClaimAsStringList("roles"));
+        assertEquals(Map.of("erp_user_id", "12", "company_id", 7L), jwt.getClaimAsMap("details.app_metadata"));
+    }
+
+    @Test
+    void rejectsTamperedSignatures() throws Exception {
+        JWTClaimsSet claims = claims(Instant.now().plusSeconds(300));
+        String[] signed = sign(rsaKey, JOSEObjectType.JWT, claims).split("\\.");
+        String[] forged = sign(otherKey, JOSEObjectType.JWT, claims).split("\\.");
+
+        assertRejectedLikeNimbus(BadJwtException.class, signed[0] + "." + signed[1] + "." + forged[2]);
+    }
+
+    @Test
+    void rejectsUnexpectedTypes() throws Exception {
+        String token = sign(rsaKey, new JOSEObjectType("at+jwt"), claims(Instant.now().plusSeconds(300)));
+
+        assertRejectedLikeNimbus(BadJwtException.class, token);
+    }
+
+    @Test
+    void rejectsUnsecuredTokens() throws Exception {
+        String header = Base64URL.encode("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)).toString();
+        String payload = claims(Instant.now().plusSeconds(300)).toPayload().toBase64URL().toString();
+
+        assertRejectedLikeNimbus(BadJwtException.class, header + "." + payload + ".");
+    }
+
+    @Test
+    void rejectsExpiredTokens() throws Exception {
+        String token = sign(rsaKey, JOSEObjectType.JWT, claims(Instant.now().minusSeconds(3600)));
+
+        assertRejectedLikeNimbus(JwtValidationException.class, token);
+    }
+
+    @Test
+    void leavesNestedClaimsUnmaterializedUntilRead() throws Exception {
+        Jwt jwt = decoder.decode(sign(rsaKey, JOSEObjectType.JWT, claims(Instant.now().plusSeconds(300))));
+
+        LazyJson.LazyObject metadata = assertInstanceOf(LazyJson.LazyObject.class,
+                jwt.getClaims().get("details.app_metadata"));
+        LazyJson.LazyArray roles = assertInstanceOf(LazyJson.LazyArray.class, jwt.getClaims().get("roles"));
+        assertFalse(metadata.isMaterialized());
+        assertFalse(roles.isMaterialized());
+
+        assertEquals(7L, metadata.get("company_id"));
+        assertTrue(metadata.isMaterialized());
+        assertFalse(roles.isMaterialized());
+        assertEquals("admin", roles.get(0));
+        assertTrue(roles.isMaterialized());
+        assertSame(metadata, jwt.getClaims().get("details.app_metadata"));
+    }
+
+    private static void assertRejectedLikeNimbus(Class<? extends Exception> type, String token) {
+        assertThrows(type, () -> nimbusDecoder.decode(token));
+        assertThrows(type, () -> decoder.decode(token));
+    }
+
+    private static JWTClaimsSet claims(Instant expiresAt) {
+        return new JWTClaimsSet.Builder()
+                .subject("auth0|1")
+                .issueTime(Date.from(expiresAt.minusSeconds(600)))
+                .expirationTime(Date.from(expiresAt))
+                .claim("roles", List.of("admin", "user"))
+                .claim("details.app_metadata", Map.of("erp_user_id", "12", "company_id", 7))
+                .build();
+    }
+
+    private static String sign(RSAKey key, JOSEObjectType type, JWTClaimsSet claims) throws Exception {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).type(type).keyID(key.getKeyID()).build();
+        SignedJWT jwt = new SignedJWT(header, claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
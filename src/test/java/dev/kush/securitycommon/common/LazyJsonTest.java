@@ -0,0 +1,223 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.proc.DefaultJOSEObjectTypeVerifier;
+import com.nimbusds.jose.proc.SingleKeyJWSKeySelector;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyJsonTest {
+
+    private static final String AUTH0_PAYLOAD = """
+            {
+              "details.email": "jane.doe@example.com",
+              "details.app_metadata": {"erp_user_id": "12", "company_id": 7, "company_name": "Acme \\u0026 Sons",
+                                       "features": {"beta": true, "quota": 1.5e3, "tags": []}},
+              "details.roles": ["admin", "user"],
+              "iss": "https://acme.eu.auth0.com/",
+              "sub": "auth0|65e1a2b3c4d5e6f7a8b9c0d1",
+              "aud": ["https://api.acme.com", "https://acme.eu.auth0.com/userinfo"],
+              "iat": 1709280000,
+              "exp": 1709366400,
+              "scope": "openid profile email offline_access",
+              "azp": "hG3b8C2dQ0rT7uV1wX4yZ5aB6cD7eF8g",
+              "permissions": ["read:orders", "write:orders"]
+            }""";
+
+    private static final String KEYCLOAK_PAYLOAD = """
+            {"exp":1709366400,"iat":1709280000,"auth_time":1709279990,\
+            "jti":"6f1c0e8a-93b2-4f4e-b1a4-2d1c9f0e7a55","iss":"https://sso.acme.com/realms/acme",\
+            "aud":"account","sub":"f81d4fae-7dec-11d0-a765-00a0c91e6bf6","typ":"Bearer","azp":"erp-web",\
+            "session_state":"b7a1c2d3","acr":"1","allowed-origins":["https://erp.acme.com"],\
+            "realm_access":{"roles":["default-roles-acme","offline_access","uma_authorization"]},\
+            "resource_access":{"account":{"roles":["manage-account","manage-account-links","view-profile"]}},\
+            "scope":"openid email profile","sid":"b7a1c2d3","email_verified":true,\
+            "details":{"user_id":12,"company_id":"7","company_name":"Zo\\u00eb's \\"Caf\\u00e9\\"",\
+            "address":null},"roles":["default-roles-acme","admin"],"name":"Zo\\u00eb Doe",\
+            "preferred_username":"zoe","given_name":"Zo\\u00eb","family_name":"Doe","email":"zoe@acme.com"}""";
+
+    @Test
+    void matchesNimbusOnProviderPayloads() throws Exception {
+        for (String payload : List.of(AUTH0_PAYLOAD, KEYCLOAK_PAYLOAD)) {
+            Map<String, Object> nimbus = JSONObjectUtils.parse(payload);
+            Map<String, Object> lazy = LazyJson.parseObject(payload);
+            assertEquals(nimbus, lazy);
+            assertEquals(lazy, nimbus);
+            assertEquals(nimbus.toString(), lazy.toString());
+        }
+    }
+
+    @Test
+    void matchesNimbusOnValueEdgeCases() throws Exception {
+        List<String> values = List.of("0", "-0", "1", "-1", "1.0", "-0.0", "1e2", "1E+2", "1e-2", "2.5E-3",
+                "9223372036854775807", "-9223372036854775808", "9223372036854775808", "-9223372036854775809",
+                "123456789012345678901234567890", "1.7976931348623157e308", "4.9e-324",
+                "true", "false", "null", "\"\"", "\"\\\\\\\"\\/\\b\\f\\n\\r\\t\"",
+                "\"\\u00e9\\u20AC\"", "\"\\uD83D\\uDE00\"", "\"\\ud83d\"", "\"[{]}\"",
+                "{}", "[]", "[[]]", "{\"a\":{}}", "[1,\"a\",null,true,{\"b\":[2.5]}]");
+        for (String value : values) {
+            String payload = "{\"top\":" + value + ",\"nested\":{\"value\":" + value + "},\"array\":[" + value + "]}";
+            Map<String, Object> nimbus = JSONObjectUtils.parse(payload);
+            Map<String, Object> lazy = LazyJson.parseObject(payload);
+            assertEquals(nimbus, lazy, value);
+            assertEquals(types(nimbus), types(lazy), value);
+        }
+    }
+
+    @Test
+    void readsNumbersAsLongOrDouble() {
+        Map<String, Object> json = LazyJson.parseObject(
+                "{\"a\":9223372036854775807,\"b\":9223372036854775808,\"c\":-0,\"d\":10.0,\"e\":1e2}");
+        assertEquals(Long.MAX_VALUE, json.get("a"));
+        assertEquals(9.223372036854775808e18, json.get("b"));
+        assertEquals(0L, json.get("c"));
+        assertEquals(10.0, json.get("d"));
+        assertEquals(100.0, json.get("e"));
+    }
+
+    @Test
+    void decodesEscapesAndSurrogates() {
+        Map<String, Object> json = LazyJson.parseObject(
+                "{\"a\":\"q\\\"b\\\\s\\/\\b\\f\\n\\r\\t\",\"b\":[\"\\uD83D\\uDE00\"],\"c\":\"\\ud83d\",\"d\":\"\uD83D\uDE00\"}");
+        assertEquals("q\"b\\s/\b\f\n\r\t", json.get("a"));
+        assertEquals(List.of("\uD83D\uDE00"), json.get("b"));
+        assertEquals(0x1F600, ((String) ((List<?>) json.get("b")).get(0)).codePointAt(0));
+        assertEquals("\uD83D", json.get("c"));
+        assertEquals("\uD83D\uDE00", json.get("d"));
+    }
+
+    @Test
+    void rejectsDuplicateTopLevelKeysAndKeepsTheLastNestedValue() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> LazyJson.parseObject("{\"a\":1,\"a\":2}"));
+        String payload = "{\"a\":{\"b\":1,\"c\":2,\"b\":3},\"d\":[{\"e\":1,\"e\":{\"f\":2}}]}";
+        Map<String, Object> lazy = LazyJson.parseObject(payload);
+        assertEquals(JSONObjectUtils.parse(payload), lazy);
+        assertEquals(List.of("b", "c"), List.copyOf(((Map<?, ?>) lazy.get("a")).keySet()));
+        assertEquals(Map.of("b", 3L, "c", 2L), lazy.get("a"));
+    }
+
+    @Test
+    void rejectsMalformedNestedLevelsWhenParsing() {
+        List<String> malformed = List.of(
+                "{\"a\":{\"b\":1]}", "{\"a\":[1}}", "{\"a\":[1,]}", "{\"a\":[,1]}", "{\"a\":{,}}",
+                "{\"a\":{\"b\"}}", "{\"a\":{\"b\":}}", "{\"a\":{\"b\" 1}}", "{\"a\":{b:1}}", "{\"a\":{\"b\":1,}}",
+                "{\"a\":[1 2]}", "{\"a\":[}", "{\"a\":[1", "{\"a\":{\"b\":[1]}", "{\"a\":[\"]\"}",
+                "{\"a\":[01]}", "{\"a\":[1.]}", "{\"a\":[.5]}", "{\"a\":[-]}", "{\"a\":[+1]}", "{\"a\":[1e]}",
+                "{\"a\":[tru]}", "{\"a\":[nul]}", "{\"a\":[True]}", "{\"a\":[\"\\x\"]}", "{\"a\":[\"\\u12\"]}",
+                "{\"a\":[\"\\u+123\"]}", "{\"a\":[\"\\uZZZZ\"]}", "{\"a\":[\"tab\tin string\"]}",
+                "{\"a\":[]]}", "{\"a\":{}}}", "{\"a\":1", "[1]", "{\"a\":1} x", "");
+        for (String json : malformed) {
+            assertThrows(IllegalArgumentException.class, () -> LazyJson.parseObject(json), json);
+        }
+    }
+
+    @Test
+    void decoderRejectsMalformedNestedClaimsAsBadJwt() throws Exception {
+        byte[] secret = new byte[32];
+        LazyClaimsJwtDecoder decoder = new LazyClaimsJwtDecoder(
+                new SingleKeyJWSKeySelector<>(JWSAlgorithm.HS256, new SecretKeySpec(secret, "HmacSHA256")),
+                new DefaultJWSVerifierFactory(),
+                new DefaultJOSEObjectTypeVerifier<>(JOSEObjectType.JWT, null));
+        long exp = Instant.now().plusSeconds(300).getEpochSecond();
+
+        Jwt jwt = decoder.decode(sign(secret, "{\"sub\":\"jane\",\"exp\":" + exp + ",\"details\":{\"a\":[1]}}"));
+        assertEquals(Map.of("a", List.of(1L)), jwt.getClaimAsMap("details"));
+
+        String malformed = sign(secret, "{\"sub\":\"jane\",\"exp\":" + exp + ",\"details\":{\"a\":[1}]}");
+        assertThrows(BadJwtException.class, () -> decoder.decode(malformed));
+    }
+
+    @Test
+    void skipsDeeplyNestedLevelsWithoutRecursion() {
+        int depth = 200_000;
+        String nested = "[".repeat(depth) + "]".repeat(depth);
+        Map<String, Object> json = LazyJson.parseObject("{\"a\":" + nested + "}");
+        assertEquals(1, ((List<?>) json.get("a")).size());
+
+        String unbalanced = "[".repeat(depth) + "]".repeat(depth - 1) + "}";
+        assertThrows(IllegalArgumentException.class, () -> LazyJson.parseObject("{\"a\":" + unbalanced + "}"));
+    }
+
+    @Test
+    void materializesNestedLevelsOnFirstAccess() {
+        Map<String, Object> json = LazyJson.parseObject("{\"a\":{\"b\":{\"c\":1}},\"d\":[[1]]}");
+        LazyJson.LazyObject a = assertInstanceOf(LazyJson.LazyObject.class, json.get("a"));
+        LazyJson.LazyArray d = assertInstanceOf(LazyJson.LazyArray.class, json.get("d"));
+        assertFalse(a.isMaterialized());
+        assertFalse(d.isMaterialized());
+
+        LazyJson.LazyObject b = assertInstanceOf(LazyJson.LazyObject.class, a.get("b"));
+        assertTrue(a.isMaterialized());
+        assertFalse(b.isMaterialized());
+        assertEquals(1L, b.get("c"));
+        assertEquals(List.of(List.of(1L)), d);
+        assertThrows(UnsupportedOperationException.class, () -> a.put("x", 1));
+        assertThrows(UnsupportedOperationException.class, () -> d.add(1));
+    }
+
+    @Test
+    void serializesViewsAsPlainCollections() throws Exception {
+        Map<String, Object> json = LazyJson.parseObject(KEYCLOAK_PAYLOAD);
+        Map<String, Object> claims = new LinkedHashMap<>(json);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(claims);
+        }
+        Object copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = in.readObject();
+        }
+        assertEquals(claims, copy);
+        Map<?, ?> copied = (Map<?, ?>) copy;
+        assertInstanceOf(LinkedHashMap.class, copied.get("details"));
+        assertInstanceOf(LinkedHashMap.class, ((Map<?, ?>) copied.get("resource_access")).get("account"));
+        assertInstanceOf(ArrayList.class, copied.get("roles"));
+    }
+
+    private static String sign(byte[] secret, String payload) throws Exception {
+        JWSObject jws = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload(payload));
+        jws.sign(new MACSigner(secret));
+        return jws.serialize();
+    }
+
+    /**
+     * Replaces every leaf by its type, so {@code 1L} and {@code 1.0} differ.
+     */
+    private static Object types(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> types = new LinkedHashMap<>();
+            map.forEach((key, member) -> types.put(key, types(member)));
+            return types;
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(LazyJsonTest::types).toList();
+        }
+        return value == null ? null : value.getClass();
+    }
+}
@@ -0,0 +1,252 @@
+package dev.kush.securitycommon.common;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PrefilteringJwtDecoderTest {
+
+    private static final String ISSUER = "https://idp.example.com/";
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private static final JOSEObjectType AT_JWT = new JOSEObjectType("at+jwt");
+
+    private static RSAKey rsaKey;
+
+    private final AtomicInteger delegated = new AtomicInteger();
+
+    private final JwtDecoder delegate = token -> {
+        delegated.incrementAndGet();
+        return Jwt.withTokenValue(token).header("alg", "RS256").claim("sub", "jane").build();
+    };
+
+    @BeforeAll
+    static void generateKey() throws Exception {
+        rsaKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+    }
+
+    @Test
+    void rejectsOversizedTokens() throws Exception {
+        PrefilteringJwtDecoder prefilter = prefilter("okta", null, List.of());
+        String token = sign(JOSEObjectType.JWT, claims(NOW.plusSeconds(300)).build());
+        prefilter.setMaxTokenLength(token.length() - 1);
+
+        assertThrows(BadJwtException.class, () -> prefilter.decode(token));
+        assertEquals(1, prefilter.getRejectedCount(PrefilteringJwtDecoder.Rejection.OVERSIZED));
+
+        prefilter.setMaxTokenLength(token.length());
+        prefilter.decode(token);
+        assertEquals(1, delegated.get());
+    }
+
+    @Test
+    void rejectsTokensWithoutThreeNonEmptyParts() {
+        PrefilteringJwtDecoder prefilter = prefilter("okta", null, List.of());
+        String header = encode("{\"alg\":\"RS256\"}");
+        String payload = encode("{\"sub\":\"jane\"}");
+        List<String> malformed = List.of("token", header + "." + payload, header + "." + payload + ".sig.extra",
+                "." + payload + ".sig", header + "..sig", header + "." + payload + ".", "!!!." + payload + ".sig",
+                encode("not json") + "." + payload + ".sig", header + "." + encode("[1]") + ".sig");
+
+        for (String token : malformed) {
+            assertRejectedLikeDelegate(nimbus("okta", null, List.of()), prefilter, token);
+        }
+        assertEquals(malformed.size(), prefilter.getRejectedCount(PrefilteringJwtDecoder.Rejection.MALFORMED));
+        assertEquals(0, delegated.get());
+    }
+
+    @Test
+    void rejectsMissingAndNoneAlgorithms() {
+        PrefilteringJwtDecoder prefilter = prefilter("okta", null, List.of());
+        String payload = encode("{\"sub\":\"jane\"}");
+
+        for (String header : List.of("{\"typ\":\"JWT\"}", "{\"alg\":\"none\"}", "{\"alg\":\"NONE\"}", "{\"alg\":1}")) {
+            assertRejectedLikeDelegate(nimbus("okta", null, List.of()), prefilter,
+                    encode(header) + "." + payload + ".c2ln");
+        }
+        assertEquals(4, prefilter.getRejectedCount(PrefilteringJwtDecoder.Rejection.MALFORMED));
+        assertEquals(0, delegated.get());
+    }
+
+    @Test
+    void appliesTheTypeRuleOfTheProvider() throws Exception {
+        JWTClaimsSet claims = claims(NOW.plusSeconds(300)).build();
+        String accessToken = sign(AT_JWT, claims);
+        String jwt = sign(JOSEObjectType.JWT, claims);
+        String untyped = sign(null, claims);
+
+        PrefilteringJwtDecoder auth0 = prefilter("auth0", null, List.of());
+        auth0.decode(accessToken);
+        assertRejectedLikeDelegate(nimbus("auth0", null, List.of()), auth0, jwt);
+        assertRejectedLikeDelegate(nimbus("auth0", null, List.of()), auth0, untyped);
+        assertEquals(2, auth0.getRejectedCount(PrefilteringJwtDecoder.Rejection.TYPE));
+
+        for (String provider : List.of("keycloak", "okta")) {
+            PrefilteringJwtDecoder prefilter = prefilter(provider, null, List.of());
+            prefilter.decode(jwt);
+            prefilter.decode(untyped);
+            assertRejectedLikeDelegate(nimbus(provider, null, List.of()), prefilter, accessToken);
+            assertEquals(1, prefilter.getRejectedCount(PrefilteringJwtDecoder.Rejection.TYPE), provider);
+        }
+        assertEquals(5, delegated.get());
+    }
+
+    @Test
+    void rejectsExpiryBeyondTheClockSkew() throws Exception {
+        PrefilteringJwtDecoder prefilter = prefilter("okta", null, List.of());
+        prefilter.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        prefilter.decode(sign(JOSEObjectType.JWT, claims(NOW.minusSeconds(60)).build()));
+        String expired = sign(JOSEObjectType.JWT, claims(NOW.minusSeconds(61)).build());
+        JwtValidationException ex = assertThrows(JwtValidationException.class, () -> prefilter.decode(expired));
+        assertEquals("Jwt expired at " + NOW.minusSeconds(61), ex.getErrors().iterator().next().getDescription());
+        assertEquals(1, prefilter.getRejectedCount(PrefilteringJwtDecoder.Rejection.EXPIRED));
+        assertEquals(1, delegated.get());
+    }
+
+    @Test
+    void rejectsExpiredTokensLikeTheDelegate() throws Exception {
+        String expired = sign(JOSEObjectType.JWT, claims(Instant.now().minusSeconds(3600)).build());
+
+        assertRejectedLikeDelegate(nimbus("okta", null, List.of()), prefilter("okta", null, List.of()), expired);
+    }
+
+    @Test
+    void rejectsOtherIssuersLikeTheDelegate() throws Exception {
+        PrefilteringJwtDecoder prefilter = prefilter("okta", ISSUER, List.of());
+        Instant expiresAt = Instant.now().plusSeconds(300);
+
+        prefilter.decode(sign(JOSEObjectType.JWT, claims(expiresAt).issuer(ISSUER).build()));
+        for (String issuer : List.of("https://attacker.example.com/", "https://idp.example.com")) {
+            assertRejectedLikeDelegate(nimbus("okta", ISSUER, List.of()), prefilter,
+                    sign(JOSEObjectType.JWT, claims(expiresAt).issuer(issuer).build()));
+        }
+        assertRejectedLikeDelegate(nimbus("okta", ISSUER, List.of()), prefilter,
+                sign(JOSEObjectType.JWT, claims(expiresAt).build()));
+        assertEquals(3, prefilter.getRejectedCount(PrefilteringJwtDecoder.Rejection.ISSUER));
+        assertEquals(1, delegated.get());
+    }
+
+    @Test
+    void rejectsOtherAudiencesLikeTheDelegate() throws Exception {
+        PrefilteringJwtDecoder prefilter = prefilter("okta", null, List.of("api", "admin"));
+        Instant expiresAt = Instant.now().plusSeconds(300);
+
+        prefilter.decode(sign(JOSEObjectType.JWT, claims(expiresAt).audience("api").build()));
+        prefilter.decode(sign(JOSEObjectType.JWT, claims(expiresAt).audience(List.of("other", "admin")).build()));
+        for (JWTClaimsSet claims : List.of(claims(expiresAt).audience("other").build(),
+                claims(expiresAt).audience(List.of("other", "web")).build(), claims(expiresAt).build())) {
+            assertRejectedLikeDelegate(nimbus("okta", null, List.of("api", "admin")), prefilter,
+                    sign(JOSEObjectType.JWT, claims));
+        }
+        assertEquals(3, prefilter.getRejectedCount(PrefilteringJwtDecoder.Rejection.AUDIENCE));
+        assertEquals(2, delegated.get());
+    }
+
+    @Test
+    void countsEachRejectionReason() throws Exception {
+        PrefilteringJwtDecoder prefilter = prefilter("auth0", ISSUER, List.of("api"));
+        prefilter.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        prefilter.setMaxTokenLength(2048);
+        Instant expiresAt = NOW.plusSeconds(300);
+
+        prefilter.decode(sign(AT_JWT, claims(expiresAt).issuer(ISSUER).audience("api").build()));
+        decodeQuietly(prefilter, "x".repeat(2049));
+        decodeQuietly(prefilter, "x.y");
+        decodeQuietly(prefilter, sign(JOSEObjectType.JWT, claims(expiresAt).issuer(ISSUER).audience("api").build()));
+        decodeQuietly(prefilter, sign(AT_JWT, claims(NOW.minusSeconds(3600)).issuer(ISSUER).audience("api").build()));
+        decodeQuietly(prefilter, sign(AT_JWT, claims(expiresAt).issuer("https://other/").audience("api").build()));
+        decodeQuietly(prefilter, sign(AT_JWT, claims(expiresAt).issuer(ISSUER).audience("web").build()));
+
+        assertEquals(1, prefilter.getPassedCount());
+        for (PrefilteringJwtDecoder.Rejection rejection : PrefilteringJwtDecoder.Rejection.values()) {
+            assertEquals(1, prefilter.getRejectedCount(rejection), rejection.name());
+        }
+        assertEquals(1, delegated.get());
+    }
+
+    private PrefilteringJwtDecoder prefilter(String provider, String issuer, List<String> audiences) {
+        return new PrefilteringJwtDecoder(delegate, provider, issuer, audiences);
+    }
+
+    private static JwtDecoder nimbus(String provider, String issuer, List<String> audiences) {
+        try {
+            NimbusJwtDecoder decoder = NimbusJwtDecoder.withPublicKey(rsaKey.toRSAPublicKey())
+                    .jwtProcessorCustomizer(processor ->
+                            processor.setJWSTypeVerifier(JwtProcessorSupport.typeVerifier(provider)))
+                    .build();
+            decoder.setJwtValidator(JwtProcessorSupport.validator(issuer, audiences));
+            return decoder;
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Asserts the prefilter rejects the token without calling its delegate, with the
+     * exception type of the Nimbus decoder, and the error descriptions of its validators.
+     */
+    private void assertRejectedLikeDelegate(JwtDecoder nimbus, PrefilteringJwtDecoder prefilter, String token) {
+        int calls = delegated.get();
+        JwtException expected = assertThrows(JwtException.class, () -> nimbus.decode(token), token);
+        JwtException actual = assertThrows(JwtException.class, () -> prefilter.decode(token), token);
+        assertEquals(expected.getClass(), actual.getClass(), token);
+        if (expected instanceof JwtValidationException validation) {
+            assertEquals(validation.getMessage(), actual.getMessage());
+            assertEquals(descriptions(validation), descriptions((JwtValidationException) actual));
+        }
+        assertEquals(calls, delegated.get());
+    }
+
+    private static List<String> descriptions(JwtValidationException ex) {
+        return ex.getErrors().stream().map(OAuth2Error::getDescription).toList();
+    }
+
+    private static void decodeQuietly(JwtDecoder decoder, String token) {
+        assertThrows(JwtException.class, () -> decoder.decode(token));
+    }
+
+    private static JWTClaimsSet.Builder claims(Instant expiresAt) {
+        return new JWTClaimsSet.Builder()
+                .subject("jane")
+                .expirationTime(Date.from(expiresAt));
+    }
+
+    private static String sign(JOSEObjectType type, JWTClaimsSet claims) throws Exception {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).type(type).keyID(rsaKey.getKeyID()).build();
+        SignedJWT jwt = new SignedJWT(header, claims);
+        jwt.sign(new RSASSASigner(rsaKey));
+        return jwt.serialize();
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
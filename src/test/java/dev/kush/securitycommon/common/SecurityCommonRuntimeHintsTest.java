@@ -0,0 +1,151 @@
+package dev.kush.securitycommon.common;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecurityCommonRuntimeHintsTest {
+
+    private final RuntimeHints hints = registeredHints();
+
+    @Test
+    void isListedInAotFactories() {
+        List<RuntimeHintsRegistrar> registrars = SpringFactoriesLoader
+                .forResourceLocation("META-INF/spring/aot.factories")
+                .load(RuntimeHintsRegistrar.class);
+        assertTrue(registrars.stream().anyMatch(SecurityCommonRuntimeHints.class::isInstance));
+    }
+
+    @Test
+    void registersSerializationOfAuthentications() {
+        for (Class<?> type : List.of(UserIdentityAuthenticationToken.class, UserIdentity.class, Jwt.class,
+                SimpleGrantedAuthority.class, LazyJson.LazyObject.class, LazyJson.LazyArray.class)) {
+            assertTrue(RuntimeHintsPredicates.serialization().onType(type).test(hints), type::getName);
+        }
+        for (String typeName : List.of("java.time.Ser", "com.nimbusds.jose.shaded.gson.internal.LinkedTreeMap")) {
+            assertTrue(hints.serialization().javaSerializationHints()
+                    .anyMatch(hint -> hint.getType().getName().equals(typeName)), typeName);
+        }
+    }
+
+    @Test
+    void registersBindingOfUserIdentity() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(UserIdentity.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(UserIdentity.class, "companyId").test(hints));
+    }
+
+    @Test
+    void registersCaffeineInternals() {
+        for (String simpleName : List.of("BoundedLocalCache", "BLCHeader$DrainStatusRef", "StripedBuffer")) {
+            assertTrue(RuntimeHintsPredicates.reflection()
+                    .onType(TypeReference.of(Caffeine.class.getPackageName() + "." + simpleName))
+                    .withMemberCategory(MemberCategory.DECLARED_FIELDS).test(hints), simpleName);
+        }
+        assertFalse(RuntimeHintsPredicates.reflection().onType(Caffeine.class).test(hints));
+    }
+
+    /**
+     * Builds each cache the way this library does and checks that the generated
+     * cache and entry classes Caffeine picked are registered.
+     */
+    @Test
+    void registersCaffeineClassesOfTheLibraryCaches() throws Exception {
+        Expiry<Object, Object> expiry = new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                return TimeUnit.MINUTES.toNanos(1);
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+        List<Object> caches = List.of(
+                // CachingJwtDecoder, CachingOpaqueTokenIntrospector
+                Caffeine.newBuilder().maximumSize(10).expireAfter(expiry).recordStats().build(),
+                Caffeine.newBuilder().maximumSize(10).expireAfter(expiry).recordStats().buildAsync(),
+                // RateLimiter
+                Caffeine.newBuilder().maximumSize(10).expireAfterAccess(1, TimeUnit.MINUTES).build(),
+                // EnrichingUserIdentityExtractor
+                Caffeine.newBuilder().maximumSize(10).expireAfterWrite(Duration.ofMinutes(2))
+                        .refreshAfterWrite(Duration.ofMinutes(1)).executor(Runnable::run).recordStats()
+                        .buildAsync(key -> Optional.empty()),
+                // CachingGrantedAuthoritiesConverter, DefaultReactiveUserUtils
+                Caffeine.newBuilder().maximumSize(10).build(),
+                Caffeine.newBuilder().weakKeys().maximumSize(10).build(),
+                // AbstractUserUtils, IdentityAuthorizationManager, CachingJWSKeySelector
+                Caffeine.newBuilder().weakKeys().build(),
+                Caffeine.newBuilder().weakKeys().weakValues().build());
+
+        Object key = new Object();
+        for (Object cache : caches) {
+            Object localCache = field(cache, "cache");
+            Map<?, ?> data = (Map<?, ?>) field(localCache, "data");
+            put(cache, key);
+            Class<?> nodeType = data.values().iterator().next().getClass();
+
+            for (Class<?> generated : List.of(localCache.getClass(), nodeType)) {
+                assertTrue(RuntimeHintsPredicates.reflection().onType(generated)
+                        .withMemberCategories(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                                MemberCategory.DECLARED_FIELDS)
+                        .test(hints), generated::getName);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Object cache, Object key) {
+        if (cache instanceof Cache<?, ?> synchronous) {
+            ((Cache<Object, Object>) synchronous).put(key, key);
+        } else {
+            ((AsyncCache<Object, Object>) cache)
+                    .get(key, (Function<Object, Object>) Function.identity()).join();
+        }
+    }
+
+    private static Object field(Object target, String name) throws ReflectiveOperationException {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    field.setAccessible(true);
+                    return field.get(target);
+                }
+            }
+        }
+        throw new NoSuchFieldException(target.getClass().getName() + "." + name);
+    }
+
+    private static RuntimeHints registeredHints() {
+        RuntimeHints hints = new RuntimeHints();
+        new SecurityCommonRuntimeHints().registerHints(hints, SecurityCommonRuntimeHintsTest.class.getClassLoader());
+        return hints;
+    }
+}
@@ -0,0 +1,108 @@
+package dev.kush.securitycommon.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserIdentityAuthenticationConverterTest {
+
+    private final AtomicInteger extractions = new AtomicInteger();
+
+    private final UserIdentityExtractor countingExtractor = claims -> {
+        extractions.incrementAndGet();
+        return new Auth0UserIdentityExtractor().extract(claims);
+    };
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void carriesTheExtractedIdentity() {
+        Jwt jwt = jwt();
+        UserIdentityAuthenticationToken token = (UserIdentityAuthenticationToken) converter().convert(jwt);
+
+        UserIdentity identity = new Auth0UserIdentityExtractor().extract(jwt.getClaims());
+        assertEquals(identity, token.getIdentity());
+        assertEquals(42L, token.getUserId());
+        assertEquals(7L, token.getCompanyId());
+        assertEquals("Acme", token.getCompanyName());
+        assertEquals(List.of("admin", "billing"), token.getRoles());
+        assertSame(jwt, token.getToken());
+        assertTrue(token.isAuthenticated());
+        assertEquals(1, extractions.get());
+    }
+
+    @Test
+    void grantsTheSameAuthoritiesAndNameAsJwtAuthenticationConverter() {
+        Jwt jwt = jwt();
+        JwtGrantedAuthoritiesConverter authorities = new JwtGrantedAuthoritiesConverter();
+        authorities.setAuthoritiesClaimName(AuthConstants.AUTH0_ROLE_CLAIM);
+        authorities.setAuthorityPrefix("ROLE_");
+        JwtAuthenticationConverter spring = new JwtAuthenticationConverter();
+        spring.setJwtGrantedAuthoritiesConverter(authorities);
+
+        AbstractAuthenticationToken expected = spring.convert(jwt);
+        AbstractAuthenticationToken actual = converter().convert(jwt);
+
+        assertInstanceOf(JwtAuthenticationToken.class, actual);
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(List.copyOf(expected.getAuthorities()), List.copyOf(actual.getAuthorities()));
+
+        spring.setPrincipalClaimName("details.email");
+        UserIdentityAuthenticationConverter byEmail = converter();
+        byEmail.setPrincipalClaimName("details.email");
+        assertEquals(spring.convert(jwt).getName(), byEmail.convert(jwt).getName());
+    }
+
+    @Test
+    void userUtilsReuseTheIdentityWithoutExtractingAgain() {
+        UserIdentityAuthenticationToken token = (UserIdentityAuthenticationToken) converter().convert(jwt());
+        DefaultUserUtils userUtils = new DefaultUserUtils(countingExtractor);
+        assertEquals(1, extractions.get());
+
+        assertSame(token.getIdentity(), userUtils.resolveIdentity(token));
+        SecurityContextHolder.getContext().setAuthentication(token);
+        assertSame(token.getIdentity(), userUtils.getCurrentIdentity());
+        assertEquals(42L, userUtils.getCurrentUserId());
+        assertEquals(7L, userUtils.getCurrentCompanyId());
+        assertEquals(1, extractions.get());
+
+        // a plain JwtAuthenticationToken is extracted once, then memoized
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt()));
+        assertEquals(42L, userUtils.getCurrentUserId());
+        assertEquals(7L, userUtils.getCurrentCompanyId());
+        assertEquals(2, extractions.get());
+    }
+
+    private UserIdentityAuthenticationConverter converter() {
+        return new UserIdentityAuthenticationConverter(countingExtractor,
+                new CachingGrantedAuthoritiesConverter(AuthConstants.AUTH0_ROLE_CLAIM, "ROLE_", List.of()));
+    }
+
+    private static Jwt jwt() {
+        return Jwt.withTokenValue("token").header("alg", "RS256").subject("auth0|1")
+                .claim(AuthConstants.AUTH0_EMAIL_CLAIM, "jane@acme.example")
+                .claim(AuthConstants.AUTH0_ROLE_CLAIM, List.of("admin", "billing"))
+                .claim(AuthConstants.AUTH0_APP_METADATA_CLAIM, Map.of(
+                        AuthConstants.AUTH0_USER_ID_CLAIM, 42,
+                        AuthConstants.AUTH0_COMPANY_ID_CLAIM, 7,
+                        AuthConstants.AUTH0_COMPANY_NAME_CLAIM, "Acme"))
+                .build();
+    }
+}
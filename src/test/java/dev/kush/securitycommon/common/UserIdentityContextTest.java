@@ -0,0 +1,76 @@
+package dev.kush.securitycommon.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserIdentityContextTest {
+
+    private static final UserIdentity JANE = identity("jane", 7L);
+
+    private static final UserIdentity JOHN = identity("john", 8L);
+
+    @Test
+    void bindsTheIdentityForTheExtentOfTheOperation() throws Exception {
+        assertNull(UserIdentityContext.current());
+
+        UserIdentityContext.runWhere(JANE, () -> assertSame(JANE, UserIdentityContext.current()));
+        assertNull(UserIdentityContext.current());
+
+        assertSame(JANE, UserIdentityContext.callWhere(JANE, UserIdentityContext::current));
+        assertNull(UserIdentityContext.current());
+    }
+
+    @Test
+    void restoresTheOuterBindingAfterANestedOne() throws Exception {
+        UserIdentityContext.runWhere(JANE, () -> {
+            UserIdentityContext.runWhere(JOHN, () -> assertSame(JOHN, UserIdentityContext.current()));
+            assertSame(JANE, UserIdentityContext.current());
+
+            assertThrows(IllegalStateException.class, () -> UserIdentityContext.runWhere(JOHN, () -> {
+                throw new IllegalStateException("boom");
+            }));
+            assertSame(JANE, UserIdentityContext.current());
+        });
+
+        assertThrows(Exception.class, () -> UserIdentityContext.callWhere(JANE, () -> {
+            throw new Exception("boom");
+        }));
+        assertNull(UserIdentityContext.current());
+    }
+
+    @Test
+    void wrapsTasksOnlyWhenThereIsAnIdentity() throws Exception {
+        Runnable runnable = () -> assertSame(JANE, UserIdentityContext.current());
+        Callable<Long> callable = () -> UserIdentityContext.current().companyId();
+
+        UserIdentityContext.wrap(JANE, runnable).run();
+        assertEquals(7L, UserIdentityContext.wrap(JANE, callable).call());
+        assertNull(UserIdentityContext.current());
+
+        assertSame(runnable, UserIdentityContext.wrap(null, runnable));
+        assertSame(callable, UserIdentityContext.wrap(null, callable));
+    }
+
+    @Test
+    void makesTheBoundIdentityTheCurrentOneForUserUtils() {
+        UserUtils userUtils = new DefaultUserUtils(new Auth0UserIdentityExtractor());
+
+        UserIdentityContext.runWhere(JANE, () -> {
+            assertSame(JANE, userUtils.getCurrentIdentity());
+            assertEquals(7L, userUtils.getCurrentCompanyId());
+        });
+        assertThrows(IllegalStateException.class, userUtils::getCurrentIdentity);
+    }
+
+    static UserIdentity identity(String subject, long companyId) {
+        return new UserIdentity(subject, subject + "@acme.example", 1L, companyId, "Acme", "admin",
+                List.of("admin"));
+    }
+}
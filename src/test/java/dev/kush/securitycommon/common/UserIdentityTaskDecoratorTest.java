@@ -0,0 +1,111 @@
+package dev.kush.securitycommon.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserIdentityTaskDecoratorTest {
+
+    private final UserUtils userUtils = new DefaultUserUtils(new Auth0UserIdentityExtractor());
+
+    private final UserIdentityTaskDecorator decorator = new UserIdentityTaskDecorator(userUtils);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void propagatesTheAuthenticatedIdentityIntoTheTask() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt()));
+        AtomicReference<Long> companyId = new AtomicReference<>();
+
+        Runnable task = decorator.decorate(() -> companyId.set(userUtils.getCurrentCompanyId()));
+        SecurityContextHolder.clearContext();
+        executor.submit(task).get();
+
+        assertEquals(7L, companyId.get());
+    }
+
+    @Test
+    void propagatesABoundIdentityIntoTheTask() throws Exception {
+        UserIdentity jane = UserIdentityContextTest.identity("jane", 7L);
+        AtomicReference<UserIdentity> seen = new AtomicReference<>();
+
+        Runnable task = UserIdentityContext.callWhere(jane,
+                () -> decorator.decorate(() -> seen.set(UserIdentityContext.current())));
+        executor.submit(task).get();
+
+        assertSame(jane, seen.get());
+    }
+
+    @Test
+    void restoresThePreviousBindingAfterTheTask() {
+        UserIdentity jane = UserIdentityContextTest.identity("jane", 7L);
+        UserIdentity john = UserIdentityContextTest.identity("john", 8L);
+        Runnable completing = UserIdentityContext.wrap(jane, () -> assertSame(jane, UserIdentityContext.current()));
+        Runnable throwing = UserIdentityContext.wrap(jane, () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        // run on the caller thread, as with a CallerRunsPolicy
+        UserIdentityContext.runWhere(john, () -> {
+            completing.run();
+            assertSame(john, UserIdentityContext.current());
+            assertThrows(IllegalStateException.class, throwing::run);
+            assertSame(john, UserIdentityContext.current());
+        });
+        assertNull(UserIdentityContext.current());
+    }
+
+    @Test
+    void doesNotLeakTheIdentityOntoPooledThreads() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt()));
+        Runnable completing = decorator.decorate(() -> { });
+        Runnable throwing = decorator.decorate(() -> {
+            throw new IllegalStateException("boom");
+        });
+        SecurityContextHolder.clearContext();
+
+        executor.submit(completing).get();
+        assertNull(executor.submit(UserIdentityContext::current).get());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> executor.submit(throwing).get());
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertNull(executor.submit(UserIdentityContext::current).get());
+        assertThrows(ExecutionException.class, () -> executor.submit(userUtils::getCurrentIdentity).get());
+    }
+
+    @Test
+    void leavesTasksUnchangedWithoutATokenAuthentication() {
+        Runnable task = () -> { };
+        assertSame(task, decorator.decorate(task));
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("jane", "password"));
+        assertNull(decorator.captureIdentity());
+        assertSame(task, decorator.decorate(task));
+    }
+
+    private static Jwt jwt() {
+        return Jwt.withTokenValue("token").header("alg", "RS256").subject("auth0|1")
+                .claim(AuthConstants.AUTH0_APP_METADATA_CLAIM, Map.of(AuthConstants.AUTH0_COMPANY_ID_CLAIM, 7))
+                .build();
+    }
+}
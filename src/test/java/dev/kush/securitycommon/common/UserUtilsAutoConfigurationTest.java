@@ -0,0 +1,45 @@
+package dev.kush.securitycommon.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UserUtilsAutoConfigurationTest {
+
+    private static final UserUtils USER_UTILS = new DefaultUserUtils(new ClaimMappingUserIdentityExtractor(
+            ClaimMapping.keycloak()));
+
+    @Test
+    void registersTheFormerProviderSpecificBeanName() {
+        DefaultListableBeanFactory keycloak = beanFactory();
+        UserUtilsAutoConfiguration.userUtilsAliasRegistrar("keycloak").postProcessBeanFactory(keycloak);
+        assertSame(USER_UTILS, keycloak.getBean("keycloakUserUtils"));
+        assertArrayEquals(new String[] {"keycloakUserUtils"}, keycloak.getAliases("userUtils"));
+
+        DefaultListableBeanFactory auth0 = beanFactory();
+        UserUtilsAutoConfiguration.userUtilsAliasRegistrar("auth0").postProcessBeanFactory(auth0);
+        assertSame(USER_UTILS, auth0.getBean("auth0UserUtils"));
+    }
+
+    @Test
+    void leavesOtherProvidersAndExistingBeansAlone() {
+        DefaultListableBeanFactory okta = beanFactory();
+        UserUtilsAutoConfiguration.userUtilsAliasRegistrar("okta").postProcessBeanFactory(okta);
+        assertEquals(0, okta.getAliases("userUtils").length);
+
+        DefaultListableBeanFactory custom = beanFactory();
+        custom.registerSingleton("auth0UserUtils", new Object());
+        UserUtilsAutoConfiguration.userUtilsAliasRegistrar("auth0").postProcessBeanFactory(custom);
+        assertEquals(0, custom.getAliases("userUtils").length);
+    }
+
+    private static DefaultListableBeanFactory beanFactory() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("userUtils", new RootBeanDefinition(UserUtils.class, () -> USER_UTILS));
+        return beanFactory;
+    }
+}
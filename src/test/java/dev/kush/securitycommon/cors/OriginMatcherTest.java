@@ -0,0 +1,75 @@
+package dev.kush.securitycommon.cors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OriginMatcherTest {
+
+    private final OriginMatcher matcher = OriginMatcher.compile(List.of(
+            "https://app.example.com/",
+            "https://*.example.com",
+            "https://*.partner.io:8443",
+            "http://*.local.test"));
+
+    @Test
+    void matchesExactOrigins() {
+        assertTrue(matcher.matches("https://app.example.com"));
+        assertTrue(matcher.matches("HTTPS://APP.EXAMPLE.COM"));
+        assertFalse(matcher.matches("https://app.example.org"));
+        assertFalse(matcher.matches(null));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.isAnyOrigin());
+    }
+
+    @Test
+    void matchesSubdomainsOfWildcardPatterns() {
+        assertTrue(matcher.matches("https://tenant.example.com"));
+        assertTrue(matcher.matches("https://a.b.example.com"));
+        assertTrue(matcher.matches("https://Tenant.Example.com"));
+        assertTrue(matcher.matches("https://tenant.partner.io:8443"));
+        assertTrue(matcher.matches("http://dev.local.test"));
+
+        assertFalse(matcher.matches("https://example.com"));
+        assertFalse(matcher.matches("https://evilexample.com"));
+        assertFalse(matcher.matches("https://tenant.example.com.evil.com"));
+    }
+
+    @Test
+    void checksTheSchemeAndPort() {
+        assertFalse(matcher.matches("http://tenant.example.com"));
+        assertFalse(matcher.matches("https://dev.local.test"));
+        assertFalse(matcher.matches("https://tenant.example.com:8443"));
+        assertFalse(matcher.matches("https://tenant.partner.io"));
+        assertFalse(matcher.matches("https://tenant.partner.io:9443"));
+    }
+
+    @Test
+    void rejectsEmptyAndMalformedSubdomains() {
+        assertFalse(matcher.matches("https://.example.com"));
+        assertFalse(matcher.matches("https://evil.com/.example.com"));
+        assertFalse(matcher.matches("https://evil.com:443.example.com"));
+        assertFalse(matcher.matches("https://evil.com@tenant.example.com"));
+        assertFalse(matcher.matches("https:/.example.com"));
+    }
+
+    @Test
+    void matchesAnyOrigin() {
+        OriginMatcher any = OriginMatcher.compile(List.of("*"));
+
+        assertTrue(any.isAnyOrigin());
+        assertTrue(any.matches("https://anything.example"));
+    }
+
+    @Test
+    void rejectsUnsupportedPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> OriginMatcher.compile(List.of("https://a.*.example.com")));
+        assertThrows(IllegalArgumentException.class, () -> OriginMatcher.compile(List.of("*.example.com")));
+        assertThrows(IllegalArgumentException.class, () -> OriginMatcher.compile(List.of("https://*example.com")));
+        assertThrows(IllegalArgumentException.class, () -> OriginMatcher.compile(List.of("https://*.*.example.com")));
+    }
+}
@@ -0,0 +1,155 @@
+package dev.kush.securitycommon.cors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PrecompiledCorsFilterTest {
+
+    private final PrecompiledCorsFilter filter = new PrecompiledCorsFilter(
+            OriginMatcher.compile(List.of("https://app.example.com", "https://*.example.com")),
+            List.of("get", "POST"), true, 1800);
+
+    @Test
+    void passesRequestsWithoutOrigin() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/orders"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertNull(response.getHeader("Access-Control-Allow-Origin"));
+    }
+
+    @Test
+    void addsTheCorsHeadersToAllowedRequests() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.addHeader("Origin", "https://tenant.example.com");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals("https://tenant.example.com", response.getHeader("Access-Control-Allow-Origin"));
+        assertEquals("true", response.getHeader("Access-Control-Allow-Credentials"));
+        assertEquals("Origin, Access-Control-Request-Method, Access-Control-Request-Headers",
+                response.getHeader("Vary"));
+        assertNull(response.getHeader("Access-Control-Allow-Methods"));
+    }
+
+    @Test
+    void rejectsRequestsFromOtherOrigins() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.addHeader("Origin", "https://evil.example.org");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(403, response.getStatus());
+        assertEquals("Invalid CORS request", response.getContentAsString());
+        assertNull(response.getHeader("Access-Control-Allow-Origin"));
+    }
+
+    @Test
+    void passesSameOriginRequestsOnDefaultPorts() throws Exception {
+        MockHttpServletRequest http = new MockHttpServletRequest("POST", "/orders");
+        http.setServerName("api.internal");
+        http.setServerPort(80);
+        assertEquals(200, filter(http, "http://api.internal").getStatus());
+        assertEquals(200, filter(http, "http://api.internal:80").getStatus());
+        assertEquals(403, filter(http, "https://api.internal").getStatus());
+        assertEquals(403, filter(http, "http://api.internal:8080").getStatus());
+        assertEquals(403, filter(http, "http://api.internal.evil.com").getStatus());
+
+        MockHttpServletRequest https = new MockHttpServletRequest("POST", "/orders");
+        https.setScheme("https");
+        https.setServerName("api.internal");
+        https.setServerPort(443);
+        assertEquals(200, filter(https, "https://api.internal").getStatus());
+        assertEquals(403, filter(https, "http://api.internal").getStatus());
+    }
+
+    @Test
+    void passesSameOriginRequestsOnExplicitPorts() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders");
+        request.setScheme("https");
+        request.setServerName("api.internal");
+        request.setServerPort(8443);
+
+        assertEquals(200, filter(request, "https://api.internal:8443").getStatus());
+        assertEquals(403, filter(request, "https://api.internal").getStatus());
+        assertEquals(403, filter(request, "https://api.internal:84430").getStatus());
+        assertEquals(403, filter(request, "https://api.internal:443").getStatus());
+    }
+
+    @Test
+    void answersAllowedPreflights() throws Exception {
+        MockHttpServletRequest request = preflight("https://app.example.com", "POST");
+        request.addHeader("Access-Control-Request-Headers", "authorization, content-type");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals("https://app.example.com", response.getHeader("Access-Control-Allow-Origin"));
+        assertEquals(Set.of("GET", "POST"),
+                Set.of(response.getHeader("Access-Control-Allow-Methods").split(", ")));
+        assertEquals("authorization, content-type", response.getHeader("Access-Control-Allow-Headers"));
+        assertEquals("1800", response.getHeader("Access-Control-Max-Age"));
+        assertEquals("true", response.getHeader("Access-Control-Allow-Credentials"));
+    }
+
+    @Test
+    void rejectsPreflightsForOtherMethodsAndOrigins() throws Exception {
+        MockHttpServletResponse deleteResponse = new MockHttpServletResponse();
+        filter.doFilter(preflight("https://app.example.com", "DELETE"), deleteResponse, new MockFilterChain());
+        assertEquals(403, deleteResponse.getStatus());
+        assertNull(deleteResponse.getHeader("Access-Control-Allow-Methods"));
+
+        // preflights are CORS requests even from the server's own origin
+        MockHttpServletResponse originResponse = new MockHttpServletResponse();
+        filter.doFilter(preflight("http://localhost", "GET"), originResponse, new MockFilterChain());
+        assertEquals(403, originResponse.getStatus());
+        assertEquals("Invalid CORS request", originResponse.getContentAsString());
+    }
+
+    @Test
+    void neverAllowsCredentialsForAnyOrigin() throws Exception {
+        PrecompiledCorsFilter anyOrigin = new PrecompiledCorsFilter(OriginMatcher.compile(List.of("*")),
+                List.of("*"), true, 1800);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        anyOrigin.doFilter(preflight("https://anything.example", "PATCH"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertEquals("*", response.getHeader("Access-Control-Allow-Origin"));
+        assertEquals("PATCH", response.getHeader("Access-Control-Allow-Methods"));
+        assertNull(response.getHeader("Access-Control-Allow-Credentials"));
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request, String origin) throws Exception {
+        request.removeHeader("Origin");
+        request.addHeader("Origin", origin);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        assertEquals(response.getStatus() == 200, chain.getRequest() != null);
+        return response;
+    }
+
+    private static MockHttpServletRequest preflight(String origin, String method) {
+        MockHttpServletRequest request = new MockHttpServletRequest("OPTIONS", "/orders");
+        request.addHeader("Origin", origin);
+        request.addHeader("Access-Control-Request-Method", method);
+        return request;
+    }
+}
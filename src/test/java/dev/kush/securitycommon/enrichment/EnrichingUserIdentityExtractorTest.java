@@ -0,0 +1,132 @@
+package dev.kush.securitycommon.enrichment;
+
+import dev.kush.securitycommon.common.UserIdentity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class EnrichingUserIdentityExtractorTest {
+
+    private static final UserProfile PROFILE = new UserProfile(42L, 7L, "Acme");
+
+    @Test
+    void fillsMissingAttributesFromCachedProfile() {
+        AtomicInteger calls = new AtomicInteger();
+        EnrichingUserIdentityExtractor extractor = extractor(subject -> {
+            calls.incrementAndGet();
+            return PROFILE;
+        });
+        try {
+            UserIdentity identity = extractor.extract(Map.of());
+            assertEquals(42L, identity.userId());
+            assertEquals(7L, identity.companyId());
+            assertEquals("Acme", identity.companyName());
+            extractor.extract(Map.of());
+            assertEquals(1, calls.get());
+            assertEquals(1, extractor.getHitCount());
+        } finally {
+            extractor.destroy();
+        }
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        EnrichingUserIdentityExtractor extractor = extractor(subject -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("database unavailable");
+            }
+            return PROFILE;
+        });
+        try {
+            assertEquals(0L, extractor.extract(Map.of()).userId());
+            assertEquals(1, extractor.getLoadFailureCount());
+            assertEquals(42L, extractor.extract(Map.of()).userId());
+            assertEquals(2, calls.get());
+        } finally {
+            extractor.destroy();
+        }
+    }
+
+    @Test
+    void errorsDoNotLeaveTheKeyBlocked() {
+        AtomicInteger calls = new AtomicInteger();
+        EnrichingUserIdentityExtractor extractor = extractor(subject -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new StackOverflowError();
+            }
+            return PROFILE;
+        });
+        try {
+            assertThrows(StackOverflowError.class, () -> extractor.extract(Map.of()));
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> assertEquals(42L, extractor.extract(Map.of()).userId()));
+        } finally {
+            extractor.destroy();
+        }
+    }
+
+    @Test
+    void coalescesConcurrentLookups() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        EnrichingUserIdentityExtractor extractor = extractor(subject -> {
+            calls.incrementAndGet();
+            await(release);
+            return PROFILE;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<UserIdentity>> results = List.of(
+                    executor.submit(() -> extractor.extract(Map.of())),
+                    executor.submit(() -> extractor.extract(Map.of())),
+                    executor.submit(() -> extractor.extract(Map.of())),
+                    executor.submit(() -> extractor.extract(Map.of())));
+            while (calls.get() == 0) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<UserIdentity> result : results) {
+                assertEquals(42L, result.get(5, TimeUnit.SECONDS).userId());
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+            extractor.destroy();
+        }
+    }
+
+    private static EnrichingUserIdentityExtractor extractor(Function<String, UserProfile> loadUser) {
+        IdentityEnrichmentLoader loader = new IdentityEnrichmentLoader() {
+            @Override
+            public UserProfile loadUser(String subject) {
+                return loadUser.apply(subject);
+            }
+        };
+        return new EnrichingUserIdentityExtractor(
+                claims -> new UserIdentity("jane", null, 0L, 0L, "", "", List.of()),
+                loader, 100, Duration.ofMinutes(5), Duration.ofMinutes(1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package dev.kush.securitycommon.introspection;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.DefaultOAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class CachingOpaqueTokenIntrospectorTest {
+
+    private static final OAuth2AuthenticatedPrincipal PRINCIPAL =
+            new DefaultOAuth2AuthenticatedPrincipal("jane", Map.of("active", true), List.of());
+
+    @Test
+    void cachesSuccessfulIntrospections() {
+        AtomicInteger calls = new AtomicInteger();
+        CachingOpaqueTokenIntrospector introspector = introspector(token -> {
+            calls.incrementAndGet();
+            return PRINCIPAL;
+        });
+
+        assertSame(PRINCIPAL, introspector.introspect("token"));
+        assertSame(PRINCIPAL, introspector.introspect("token"));
+        assertEquals(1, calls.get());
+        assertEquals(1, introspector.getHitCount());
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        CachingOpaqueTokenIntrospector introspector = introspector(token -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new BadOpaqueTokenException("inactive");
+            }
+            return PRINCIPAL;
+        });
+
+        assertThrows(BadOpaqueTokenException.class, () -> introspector.introspect("token"));
+        assertSame(PRINCIPAL, introspector.introspect("token"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void errorsDoNotLeaveTheTokenBlocked() {
+        AtomicInteger calls = new AtomicInteger();
+        CachingOpaqueTokenIntrospector introspector = introspector(token -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new StackOverflowError();
+            }
+            return PRINCIPAL;
+        });
+
+        assertThrows(StackOverflowError.class, () -> introspector.introspect("token"));
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertSame(PRINCIPAL, introspector.introspect("token")));
+    }
+
+    @Test
+    void coalescesConcurrentIntrospections() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CachingOpaqueTokenIntrospector introspector = introspector(token -> {
+            calls.incrementAndGet();
+            await(release);
+            return PRINCIPAL;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<OAuth2AuthenticatedPrincipal>> results = List.of(
+                    executor.submit(() -> introspector.introspect("token")),
+                    executor.submit(() -> introspector.introspect("token")),
+                    executor.submit(() -> introspector.introspect("token")),
+                    executor.submit(() -> introspector.introspect("token")));
+            while (introspector.getHitCount() + introspector.getMissCount() < 4) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            for (Future<OAuth2AuthenticatedPrincipal> result : results) {
+                assertSame(PRINCIPAL, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static CachingOpaqueTokenIntrospector introspector(OpaqueTokenIntrospector delegate) {
+        return new CachingOpaqueTokenIntrospector(delegate, 100, Duration.ofMinutes(5));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
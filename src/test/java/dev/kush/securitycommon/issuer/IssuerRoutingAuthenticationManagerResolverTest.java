@@ -0,0 +1,210 @@
+package dev.kush.securitycommon.issuer;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import dev.kush.securitycommon.common.ClaimMapping;
+import dev.kush.securitycommon.common.ClaimMappingUserIdentityExtractor;
+import dev.kush.securitycommon.common.JwtProcessorSupport;
+import dev.kush.securitycommon.common.UserIdentityAuthenticationToken;
+import dev.kush.securitycommon.enrichment.EnrichingUserIdentityExtractor;
+import dev.kush.securitycommon.enrichment.IdentityEnrichmentLoader;
+import dev.kush.securitycommon.enrichment.UserProfile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IssuerRoutingAuthenticationManagerResolverTest {
+
+    private static final String AUTH0_ISSUER = "https://tenant.auth0.com/";
+
+    private static final String KEYCLOAK_ISSUER = "https://keycloak.example.com/realms/acme";
+
+    private static final IssuerRegistration AUTH0 = new IssuerRegistration(AUTH0_ISSUER, "auth0", null,
+            List.of(), List.of(), ClaimMapping.auth0());
+
+    private static final IssuerRegistration KEYCLOAK = new IssuerRegistration(KEYCLOAK_ISSUER, "keycloak", null,
+            List.of(), List.of(), ClaimMapping.keycloak());
+
+    private static RSAKey rsaKey;
+
+    private final Map<String, Integer> decodersCreated = new ConcurrentHashMap<>();
+
+    /**
+     * Builds decoders verifying against a local key instead of the issuer's JWK set, with
+     * the "typ" verifier of the registration like {@code createJwtDecoder}.
+     */
+    private final Function<IssuerRegistration, JwtDecoder> decoderFactory = registration -> {
+        decodersCreated.merge(registration.issuer(), 1, Integer::sum);
+        try {
+            return NimbusJwtDecoder.withPublicKey(rsaKey.toRSAPublicKey())
+                    .jwtProcessorCustomizer(processor -> processor.setJWSTypeVerifier(
+                            JwtProcessorSupport.typeVerifier(registration.identityProvider())))
+                    .build();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    };
+
+    @BeforeAll
+    static void generateKey() throws Exception {
+        rsaKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+    }
+
+    @Test
+    void resolvesUnknownAndMissingIssuersToNull() {
+        IssuerRoutingAuthenticationManagerResolver resolver = resolver();
+
+        assertNull(resolver.resolve(null));
+        assertNull(resolver.resolve("https://attacker.example.com/"));
+        assertNull(resolver.resolve(AUTH0_ISSUER.substring(0, AUTH0_ISSUER.length() - 1)));
+        assertEquals(Map.of(), decodersCreated);
+    }
+
+    @Test
+    void rejectsDuplicateIssuers() {
+        IssuerRegistration duplicate = new IssuerRegistration(AUTH0_ISSUER, "keycloak", null, List.of(), List.of(),
+                ClaimMapping.keycloak());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new IssuerRoutingAuthenticationManagerResolver(List.of(AUTH0, duplicate), decoderFactory));
+    }
+
+    @Test
+    void createsTheDecoderOfEachIssuerOnce() throws Exception {
+        IssuerRoutingAuthenticationManagerResolver resolver = resolver();
+
+        AuthenticationManager auth0 = resolver.resolve(AUTH0_ISSUER);
+        assertNotNull(auth0);
+        assertSame(auth0, resolver.resolve(AUTH0_ISSUER));
+        auth0.authenticate(bearer(auth0Token()));
+        auth0.authenticate(bearer(auth0Token()));
+        assertNotNull(resolver.resolve(KEYCLOAK_ISSUER));
+        assertSame(resolver.resolve(KEYCLOAK_ISSUER), resolver.resolve(KEYCLOAK_ISSUER));
+
+        assertEquals(Map.of(AUTH0_ISSUER, 1, KEYCLOAK_ISSUER, 1), decodersCreated);
+    }
+
+    @Test
+    void appliesTheTypeVerifierAndClaimMappingOfEachIssuer() throws Exception {
+        IssuerRoutingAuthenticationManagerResolver resolver = resolver();
+        AuthenticationManager auth0 = resolver.resolve(AUTH0_ISSUER);
+        AuthenticationManager keycloak = resolver.resolve(KEYCLOAK_ISSUER);
+
+        UserIdentityAuthenticationToken auth0Authentication = assertInstanceOf(
+                UserIdentityAuthenticationToken.class, auth0.authenticate(bearer(auth0Token())));
+        assertEquals(12L, auth0Authentication.getUserId());
+        assertEquals(7L, auth0Authentication.getCompanyId());
+        assertEquals("Acme", auth0Authentication.getCompanyName());
+
+        UserIdentityAuthenticationToken keycloakAuthentication = assertInstanceOf(
+                UserIdentityAuthenticationToken.class, keycloak.authenticate(bearer(keycloakToken())));
+        assertEquals(13L, keycloakAuthentication.getUserId());
+        assertEquals(8L, keycloakAuthentication.getCompanyId());
+        assertEquals("Globex", keycloakAuthentication.getCompanyName());
+
+        // Auth0 requires "at+jwt", Keycloak accepts "JWT" or no type
+        assertThrows(InvalidBearerTokenException.class, () -> auth0.authenticate(bearer(keycloakToken())));
+        assertThrows(InvalidBearerTokenException.class, () -> keycloak.authenticate(bearer(auth0Token())));
+    }
+
+    @Test
+    void enrichesTheIdentitiesOfEachIssuer() throws Exception {
+        IdentityEnrichmentLoader loader = new IdentityEnrichmentLoader() {
+            @Override
+            public UserProfile loadUser(String subject) {
+                return subject.equals("kc-2") ? new UserProfile(14L, 9L, "Initech") : null;
+            }
+        };
+        EnrichingUserIdentityExtractor enriching = new EnrichingUserIdentityExtractor(
+                new ClaimMappingUserIdentityExtractor(ClaimMapping.auth0()), loader, 100, Duration.ofMinutes(5),
+                Duration.ofMinutes(1));
+        try {
+            IssuerRoutingAuthenticationManagerResolver resolver = resolver();
+            resolver.setIdentityExtractorDecorator(enriching::withDelegate);
+            AuthenticationManager keycloak = resolver.resolve(KEYCLOAK_ISSUER);
+            String token = sign(JOSEObjectType.JWT, new JWTClaimsSet.Builder()
+                    .issuer(KEYCLOAK_ISSUER)
+                    .subject("kc-2")
+                    .claim("roles", List.of("admin"))
+                    .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                    .build());
+
+            UserIdentityAuthenticationToken authentication = assertInstanceOf(
+                    UserIdentityAuthenticationToken.class, keycloak.authenticate(bearer(token)));
+            assertEquals(14L, authentication.getUserId());
+            assertEquals(9L, authentication.getCompanyId());
+            assertEquals("Initech", authentication.getCompanyName());
+            // tokens carrying the attributes are not looked up
+            assertEquals(13L, assertInstanceOf(UserIdentityAuthenticationToken.class,
+                    keycloak.authenticate(bearer(keycloakToken()))).getUserId());
+
+            // the per-issuer extractors share the caches of the extractor bean
+            keycloak.authenticate(bearer(token));
+            assertEquals(1, enriching.getMissCount());
+            assertEquals(1, enriching.getHitCount());
+        } finally {
+            enriching.destroy();
+        }
+    }
+
+    private IssuerRoutingAuthenticationManagerResolver resolver() {
+        return new IssuerRoutingAuthenticationManagerResolver(List.of(AUTH0, KEYCLOAK), decoderFactory);
+    }
+
+    private static Authentication bearer(String token) {
+        return new BearerTokenAuthenticationToken(token);
+    }
+
+    private static String auth0Token() throws Exception {
+        return sign(new JOSEObjectType("at+jwt"), new JWTClaimsSet.Builder()
+                .issuer(AUTH0_ISSUER)
+                .subject("auth0|1")
+                .claim("details.app_metadata", Map.of("erp_user_id", 12L, "company_id", 7L, "company_name", "Acme"))
+                .claim("details.roles", List.of("admin"))
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                .build());
+    }
+
+    private static String keycloakToken() throws Exception {
+        return sign(JOSEObjectType.JWT, new JWTClaimsSet.Builder()
+                .issuer(KEYCLOAK_ISSUER)
+                .subject("kc-1")
+                .claim("details", Map.of("user_id", 13L, "company_id", 8L, "company_name", "Globex"))
+                .claim("roles", List.of("admin"))
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                .build());
+    }
+
+    private static String sign(JOSEObjectType type, JWTClaimsSet claims) throws Exception {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).type(type).keyID(rsaKey.getKeyID()).build();
+        SignedJWT jwt = new SignedJWT(header, claims);
+        jwt.sign(new RSASSASigner(rsaKey));
+        return jwt.serialize();
+    }
+}
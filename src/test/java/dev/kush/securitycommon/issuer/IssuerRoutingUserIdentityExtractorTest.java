@@ -0,0 +1,45 @@
+package dev.kush.securitycommon.issuer;
+
+import dev.kush.securitycommon.common.ClaimMapping;
+import dev.kush.securitycommon.common.ClaimMappingUserIdentityExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IssuerRoutingUserIdentityExtractorTest {
+
+    private static final String KEYCLOAK_ISSUER = "https://keycloak.example.com/realms/acme";
+
+    private static final Map<String, Object> KEYCLOAK_DETAILS = Map.of("user_id", 13L, "company_id", 8L);
+
+    private static final Map<String, Object> AUTH0_METADATA = Map.of("erp_user_id", 12L, "company_id", 7L);
+
+    private final IssuerRoutingUserIdentityExtractor extractor = new IssuerRoutingUserIdentityExtractor(
+            List.of(new IssuerRegistration(KEYCLOAK_ISSUER, "keycloak", null, List.of(), List.of(),
+                    ClaimMapping.keycloak())),
+            new ClaimMappingUserIdentityExtractor(ClaimMapping.auth0()));
+
+    @Test
+    void appliesTheMappingOfTheTokenIssuer() {
+        Map<String, Object> claims = Map.of("iss", KEYCLOAK_ISSUER, "sub", "kc-1", "details", KEYCLOAK_DETAILS,
+                "details.app_metadata", AUTH0_METADATA);
+
+        assertEquals(13L, extractor.extract(claims).userId());
+        assertEquals(8L, extractor.extract(claims).companyId());
+    }
+
+    @Test
+    void fallsBackToTheDefaultMapping() {
+        Map<String, Object> otherIssuer = Map.of("iss", "https://tenant.auth0.com/", "sub", "auth0|1",
+                "details", KEYCLOAK_DETAILS, "details.app_metadata", AUTH0_METADATA);
+        Map<String, Object> noIssuer = Map.of("sub", "auth0|1", "details", KEYCLOAK_DETAILS,
+                "details.app_metadata", AUTH0_METADATA);
+
+        assertEquals(12L, extractor.extract(otherIssuer).userId());
+        assertEquals(7L, extractor.extract(otherIssuer).companyId());
+        assertEquals(12L, extractor.extract(noIssuer).userId());
+    }
+}
@@ -0,0 +1,101 @@
+package dev.kush.securitycommon.jwk;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.security.Key;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CachingJWSVerifierFactoryTest {
+
+    private static final JWSHeader HEADER = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("key-1").build();
+
+    private static RSAKey rsaKey;
+
+    private final AtomicReference<JWKSet> jwkSet = new AtomicReference<>();
+
+    private final JWKSource<SecurityContext> jwkSource = (selector, context) -> selector.select(jwkSet.get());
+
+    private final CachingJWSKeySelector<SecurityContext> keySelector =
+            new CachingJWSKeySelector<>(Set.of(JWSAlgorithm.RS256), jwkSource);
+
+    private final CachingJWSVerifierFactory verifierFactory = new CachingJWSVerifierFactory(keySelector);
+
+    @BeforeAll
+    static void generateKey() throws Exception {
+        rsaKey = new RSAKeyGenerator(2048).keyID("key-1").generate().toPublicJWK();
+    }
+
+    @Test
+    void reusesKeyAndVerifierPerJwk() throws Exception {
+        jwkSet.set(new JWKSet(rsaKey));
+
+        Key key = selectKey();
+        JWSVerifier verifier = verifierFactory.createJWSVerifier(HEADER, key);
+
+        assertSame(key, selectKey());
+        assertSame(verifier, verifierFactory.createJWSVerifier(HEADER, selectKey()));
+    }
+
+    @Test
+    void refreshedJwkSetGetsNewKeysAndVerifiers() throws Exception {
+        jwkSet.set(new JWKSet(rsaKey));
+        Key key = selectKey();
+        JWSVerifier verifier = verifierFactory.createJWSVerifier(HEADER, key);
+
+        jwkSet.set(JWKSet.parse(new JWKSet(rsaKey).toString()));
+        Key refreshed = selectKey();
+
+        assertNotSame(key, refreshed);
+        assertNotSame(verifier, verifierFactory.createJWSVerifier(HEADER, refreshed));
+    }
+
+    @Test
+    void doesNotCacheVerifiersOfForeignKeys() throws Exception {
+        Key foreign = rsaKey.toRSAPublicKey();
+
+        assertNull(keySelector.selectedKey(foreign));
+        assertNotSame(verifierFactory.createJWSVerifier(HEADER, foreign),
+                verifierFactory.createJWSVerifier(HEADER, foreign));
+    }
+
+    @Test
+    void releasesKeysOfReplacedJwkSets() throws Exception {
+        jwkSet.set(JWKSet.parse(new JWKSet(rsaKey).toString()));
+        Key key = selectKey();
+        verifierFactory.createJWSVerifier(HEADER, key);
+        WeakReference<Key> released = new WeakReference<>(key);
+        key = null;
+        jwkSet.set(new JWKSet(rsaKey));
+
+        for (int i = 0; i < 50 && released.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+            // writes run the cache maintenance, which drops entries of collected JWKs
+            selectKey();
+        }
+        assertNull(released.get());
+    }
+
+    private Key selectKey() throws Exception {
+        List<Key> keys = keySelector.selectJWSKeys(HEADER, null);
+        assertEquals(1, keys.size());
+        return keys.getFirst();
+    }
+}
@@ -0,0 +1,161 @@
+package dev.kush.securitycommon.jwk;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshingJwkSourceTest {
+
+    private static RSAKey key1;
+
+    private static RSAKey key2;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile String body;
+
+    private volatile int status = 200;
+
+    private volatile String cacheControl;
+
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private HttpServer server;
+
+    private RefreshingJwkSource jwkSource;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        key1 = new RSAKeyGenerator(2048).keyID("key-1").generate().toPublicJWK();
+        key2 = new RSAKeyGenerator(2048).keyID("key-2").generate().toPublicJWK();
+    }
+
+    @BeforeEach
+    void startServer() throws Exception {
+        body = new JWKSet(key1).toString();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/jwks", exchange -> {
+            requests.incrementAndGet();
+            await(release);
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (cacheControl != null) {
+                exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+            }
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        URI jwkSetUri = URI.create("http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + "/jwks");
+        jwkSource = new RefreshingJwkSource(jwkSetUri, new RestTemplate());
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        jwkSource.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesTheKeysEagerly() {
+        jwkSource.afterPropertiesSet();
+
+        assertEquals(1, requests.get());
+        assertNotNull(jwkSource.getJwkSet().getKeyByKeyId("key-1"));
+    }
+
+    @Test
+    void refreshesAheadOfTheAnnouncedMaxAge() {
+        // refreshed after three quarters of the max-age, 1s, instead of the 5m refresh interval
+        cacheControl = "public, max-age=2";
+        jwkSource.afterPropertiesSet();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (requests.get() < 2) {
+                Thread.sleep(10);
+            }
+        });
+    }
+
+    @Test
+    void servesTheStaleSetWhenARefreshFails() throws Exception {
+        jwkSource.afterPropertiesSet();
+        status = 500;
+
+        assertThrows(ExecutionException.class, () -> jwkSource.refresh().get(5, TimeUnit.SECONDS));
+        assertEquals(2, requests.get());
+        assertNotNull(jwkSource.getJwkSet().getKeyByKeyId("key-1"));
+        assertEquals(1, jwkSource.get(selector("key-1"), null).size());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void rateLimitsUnknownKeyRefetches() throws Exception {
+        jwkSource.setUnknownKeyRefetchInterval(Duration.ofMinutes(1));
+        jwkSource.afterPropertiesSet();
+        body = new JWKSet(List.<JWK>of(key1, key2)).toString();
+
+        List<JWK> rotated = jwkSource.get(selector("key-2"), null);
+        assertEquals("key-2", rotated.get(0).getKeyID());
+        assertEquals(2, requests.get());
+
+        assertTrue(jwkSource.get(selector("key-3"), null).isEmpty());
+        assertTrue(jwkSource.get(selector("key-3"), null).isEmpty());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void unknownKeyRefetchWaitsAtMostTheRefreshTimeout() {
+        jwkSource.setRefreshTimeout(Duration.ofMillis(200));
+        jwkSource.afterPropertiesSet();
+        release = new CountDownLatch(1);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> assertThrows(KeySourceException.class, () -> jwkSource.get(selector("key-2"), null)));
+        assertNotNull(jwkSource.getJwkSet().getKeyByKeyId("key-1"));
+    }
+
+    private static JWKSelector selector(String keyId) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package dev.kush.securitycommon.metrics;
+
+import dev.kush.securitycommon.common.CachingJwtDecoder;
+import dev.kush.securitycommon.common.PrefilteringJwtDecoder;
+import dev.kush.securitycommon.common.SecurityMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MicrometerSecurityMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MicrometerSecurityMetrics metrics = new MicrometerSecurityMetrics(registry);
+
+    @Test
+    void registersOneDecodeTimerPerOutcomeUpFront() {
+        assertNotNull(registry.find("security.jwt.decode").tags("outcome", "success", "reason", "none").timer());
+        for (SecurityMetrics.DecodeFailure reason : SecurityMetrics.DecodeFailure.values()) {
+            assertNotNull(decodeFailures(reason), reason.name());
+        }
+        for (SecurityMetrics.Fallback field : SecurityMetrics.Fallback.values()) {
+            assertNotNull(registry.find("security.userutils.fallbacks")
+                    .tag("field", field.name().toLowerCase(Locale.ROOT)).counter(), field.name());
+        }
+    }
+
+    @Test
+    void recordsDecodesUnderTheirReason() {
+        metrics.recordDecodeSuccess(TimeUnit.MILLISECONDS.toNanos(2));
+        metrics.recordDecodeFailure(SecurityMetrics.DecodeFailure.BAD_SIGNATURE, TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.recordDecodeFailure(SecurityMetrics.DecodeFailure.BAD_SIGNATURE, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordDecodeFailure(SecurityMetrics.DecodeFailure.EXPIRED, TimeUnit.MILLISECONDS.toNanos(1));
+
+        Timer success = registry.get("security.jwt.decode").tags("outcome", "success", "reason", "none").timer();
+        assertEquals(1, success.count());
+        assertEquals(2.0, success.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        Timer badSignature = decodeFailures(SecurityMetrics.DecodeFailure.BAD_SIGNATURE);
+        assertEquals(2, badSignature.count());
+        assertEquals(8.0, badSignature.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(1, decodeFailures(SecurityMetrics.DecodeFailure.EXPIRED).count());
+        assertEquals(0, decodeFailures(SecurityMetrics.DecodeFailure.MALFORMED).count());
+    }
+
+    @Test
+    void recordsConversionsAndFallbacks() {
+        metrics.recordConversion(1_000);
+        metrics.recordFallback(SecurityMetrics.Fallback.COMPANY_ID);
+        metrics.recordFallback(SecurityMetrics.Fallback.COMPANY_ID);
+
+        assertEquals(1, registry.get("security.authentication.conversion").timer().count());
+        assertEquals(2.0, registry.get("security.userutils.fallbacks").tag("field", "company_id").counter().count());
+        assertEquals(0.0, registry.get("security.userutils.fallbacks").tag("field", "user_id").counter().count());
+    }
+
+    @Test
+    void readsTheCacheStatisticsWhenScraped() {
+        JwtDecoder delegate = token -> Jwt.withTokenValue(token).header("alg", "RS256").subject("jane")
+                .expiresAt(Instant.now().plusSeconds(300)).build();
+        CachingJwtDecoder cache = new CachingJwtDecoder(delegate, 100, Duration.ofMinutes(10));
+        metrics.bindJwtDecoderCache(cache, "jwtDecoder");
+
+        cache.decode("token");
+        cache.decode("token");
+        cache.decode("other");
+
+        assertEquals(1.0, registry.get("security.jwt.decode.cache.hits").tag("decoder", "jwtDecoder")
+                .functionCounter().count());
+        assertEquals(2.0, registry.get("security.jwt.decode.cache.misses").tag("decoder", "jwtDecoder")
+                .functionCounter().count());
+        assertEquals(cache.getEstimatedSize(), registry.get("security.jwt.decode.cache.size")
+                .tag("decoder", "jwtDecoder").gauge().value());
+    }
+
+    @Test
+    void readsThePrefilterCountsWhenScraped() {
+        JwtDecoder delegate = token -> Jwt.withTokenValue(token).header("alg", "RS256").subject("jane").build();
+        PrefilteringJwtDecoder prefilter = new PrefilteringJwtDecoder(delegate, "okta", null, List.of());
+        metrics.bindPrefilter(prefilter, "jwtDecoder");
+
+        assertThrows(JwtException.class, () -> prefilter.decode("x.y"));
+        assertThrows(JwtException.class, () -> prefilter.decode("x.y.z.w"));
+
+        assertEquals(2.0, registry.get("security.prefilter.rejected")
+                .tags("decoder", "jwtDecoder", "reason", "malformed").functionCounter().count());
+        assertEquals(0.0, registry.get("security.prefilter.rejected")
+                .tags("decoder", "jwtDecoder", "reason", "expired").functionCounter().count());
+        assertEquals(0.0, registry.get("security.prefilter.passed").tag("decoder", "jwtDecoder")
+                .functionCounter().count());
+    }
+
+    private Timer decodeFailures(SecurityMetrics.DecodeFailure reason) {
+        return registry.find("security.jwt.decode")
+                .tags("outcome", "failure", "reason", reason.name().toLowerCase(Locale.ROOT))
+                .timer();
+    }
+}
@@ -0,0 +1,153 @@
+package dev.kush.securitycommon.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(-5_000 * MILLIS);
+
+    @Test
+    void grantsTheBurstThenSpacesPermitsByTheEmissionInterval() {
+        RateLimiter limiter = limiter(10, Duration.ofSeconds(1), Duration.ofMinutes(10));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquire(7), "permit " + i);
+        }
+        assertEquals(100 * MILLIS, limiter.tryAcquire(7));
+
+        advance(40 * MILLIS);
+        assertEquals(60 * MILLIS, limiter.tryAcquire(7));
+        advance(60 * MILLIS);
+        assertEquals(0, limiter.tryAcquire(7));
+        assertEquals(100 * MILLIS, limiter.tryAcquire(7));
+    }
+
+    @Test
+    void refillsContinuouslyUpToTheBurst() {
+        RateLimiter limiter = limiter(10, Duration.ofSeconds(1), Duration.ofMinutes(10));
+        drain(limiter, 7);
+
+        advance(350 * MILLIS);
+        assertEquals(3, drain(limiter, 7));
+
+        advance(Duration.ofHours(1).toNanos());
+        assertEquals(10, drain(limiter, 7));
+    }
+
+    @Test
+    void keepsKeysIndependent() {
+        RateLimiter limiter = limiter(2, Duration.ofSeconds(1), Duration.ofMinutes(10));
+        assertEquals(2, drain(limiter, 7));
+        assertEquals(2, drain(limiter, 8));
+        assertEquals(500 * MILLIS, limiter.tryAcquire(7));
+    }
+
+    @Test
+    void roundsTheEmissionIntervalDown() {
+        RateLimiter limiter = limiter(3, Duration.ofSeconds(1), Duration.ofMinutes(10));
+        assertEquals(3, drain(limiter, 7));
+        assertEquals(333_333_333L, limiter.tryAcquire(7));
+
+        RateLimiter fine = limiter(5, Duration.ofNanos(3), Duration.ofMinutes(10));
+        assertEquals(5, drain(fine, 7));
+        assertEquals(1, fine.tryAcquire(7));
+    }
+
+    @Test
+    void evictsIdleBuckets() {
+        RateLimiter limiter = limiter(10, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        limiter.tryAcquire(7);
+        limiter.tryAcquire(8);
+        assertEquals(2, limiter.getEstimatedSize());
+
+        advance(Duration.ofSeconds(59).toNanos());
+        limiter.tryAcquire(8);
+        assertEquals(2, limiter.getEstimatedSize());
+        advance(Duration.ofSeconds(2).toNanos());
+        assertEquals(1, limiter.getEstimatedSize());
+        advance(Duration.ofSeconds(59).toNanos());
+        assertEquals(0, limiter.getEstimatedSize());
+    }
+
+    @Test
+    void keepsBucketsUntilRefilledWhenTheIdleTimeoutIsShorter() {
+        RateLimiter limiter = limiter(10, Duration.ofMinutes(1), Duration.ofSeconds(1));
+        drain(limiter, 7);
+
+        advance(Duration.ofSeconds(30).toNanos());
+        assertEquals(1, limiter.getEstimatedSize());
+        assertEquals(5, drain(limiter, 7));
+        advance(Duration.ofSeconds(61).toNanos());
+        assertEquals(0, limiter.getEstimatedSize());
+        assertEquals(10, drain(limiter, 7));
+    }
+
+    @Test
+    void grantsExactlyTheBurstToConcurrentCallers() throws Exception {
+        RateLimiter limiter = limiter(1_000, Duration.ofSeconds(1), Duration.ofMinutes(10));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int granted = 0;
+                    for (int j = 0; j < 500; j++) {
+                        if (limiter.tryAcquire(7) == 0) {
+                            granted++;
+                        }
+                    }
+                    return granted;
+                }));
+            }
+            start.countDown();
+            int granted = 0;
+            for (Future<Integer> result : results) {
+                granted += result.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(1_000, granted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void roundsRetryAfterUpToWholeSeconds() {
+        assertEquals(1, TenantRateLimitFilter.retryAfterSeconds(1));
+        assertEquals(1, TenantRateLimitFilter.retryAfterSeconds(100 * MILLIS));
+        assertEquals(1, TenantRateLimitFilter.retryAfterSeconds(1_000 * MILLIS));
+        assertEquals(2, TenantRateLimitFilter.retryAfterSeconds(1_000 * MILLIS + 1));
+        assertEquals(60, TenantRateLimitFilter.retryAfterSeconds(Duration.ofMinutes(1).toNanos()));
+    }
+
+    private RateLimiter limiter(long limit, Duration period, Duration idleTimeout) {
+        return new RateLimiter(limit, period, 1_000, idleTimeout, now::get);
+    }
+
+    private void advance(long nanos) {
+        now.addAndGet(nanos);
+    }
+
+    private static int drain(RateLimiter limiter, long key) {
+        int granted = 0;
+        while (limiter.tryAcquire(key) == 0) {
+            granted++;
+        }
+        return granted;
+    }
+}
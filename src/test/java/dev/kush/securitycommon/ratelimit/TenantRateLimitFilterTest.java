@@ -0,0 +1,158 @@
+package dev.kush.securitycommon.ratelimit;
+
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TenantRateLimitFilterTest {
+
+    private static final UserIdentity IDENTITY = new UserIdentity("auth0|1", "jane@example.com", 42L, 7L,
+            "Acme", "admin", List.of("admin"));
+
+    private final AtomicLong now = new AtomicLong();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void rejectsOverTheCompanyLimitWithRetryAfter() throws Exception {
+        TenantRateLimitFilter filter = filter(() -> IDENTITY, limiter(2), limiter(10));
+        authenticate();
+
+        assertEquals(200, filter(filter).getStatus());
+        assertEquals(200, filter(filter).getStatus());
+        MockHttpServletResponse rejected = filter(filter);
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals("2", rejected.getHeader("RateLimit-Limit"));
+        assertEquals("0", rejected.getHeader("RateLimit-Remaining"));
+        assertEquals("Too Many Requests", rejected.getContentAsString());
+    }
+
+    @Test
+    void checksTheUserLimitAfterTheCompanyLimit() throws Exception {
+        RateLimiter userLimiter = new RateLimiter(2, Duration.ofSeconds(10), 100, Duration.ofMinutes(1), now::get);
+        TenantRateLimitFilter filter = filter(() -> IDENTITY, limiter(1), userLimiter);
+        authenticate();
+
+        assertEquals(200, filter(filter).getStatus());
+        assertEquals(429, filter(filter).getStatus());
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        // the second user permit was not taken by the request the company limit rejected
+        assertEquals(200, filter(filter).getStatus());
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        MockHttpServletResponse rejected = filter(filter);
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("RateLimit-Limit"));
+        assertEquals("3", rejected.getHeader("Retry-After"));
+    }
+
+    @Test
+    void passesRequestsWithoutTokenOrIds() throws Exception {
+        TenantRateLimitFilter filter = filter(() -> new UserIdentity("auth0|1", null, 0L, 0L, "", "", List.of()),
+                limiter(1), limiter(1));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, filter(filter).getStatus());
+        }
+        authenticate();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, filter(filter).getStatus());
+        }
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("jane", null));
+        assertEquals(200, filter(filter).getStatus());
+    }
+
+    @Test
+    void failsOpenWhenTheIdentityCannotBeRead() throws Exception {
+        TenantRateLimitFilter filter = filter(() -> {
+            throw new IllegalArgumentException("missing claim");
+        }, limiter(1), limiter(1));
+        authenticate();
+
+        for (int i = 0; i < 3; i++) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest(), response, chain);
+            assertEquals(200, response.getStatus());
+            assertNotNull(chain.getRequest());
+        }
+    }
+
+    private MockHttpServletResponse filter(TenantRateLimitFilter filter) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), response, chain);
+        if (response.getStatus() == 429) {
+            assertNull(chain.getRequest());
+        }
+        return response;
+    }
+
+    private RateLimiter limiter(long limit) {
+        return new RateLimiter(limit, Duration.ofSeconds(1), 100, Duration.ofMinutes(1), now::get);
+    }
+
+    private static void authenticate() {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject("auth0|1").build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    private static TenantRateLimitFilter filter(Supplier<UserIdentity> identity, RateLimiter companyLimiter,
+                                                RateLimiter userLimiter) {
+        return new TenantRateLimitFilter(new UserUtils() {
+            @Override
+            public UserIdentity getCurrentIdentity() {
+                return identity.get();
+            }
+
+            @Override
+            public String getCurrentUserEmail() {
+                return getCurrentIdentity().email();
+            }
+
+            @Override
+            public String getCurrentUserSubjectId() {
+                return getCurrentIdentity().subject();
+            }
+
+            @Override
+            public Long getCurrentUserId() {
+                return getCurrentIdentity().userId();
+            }
+
+            @Override
+            public Long getCurrentCompanyId() {
+                return getCurrentIdentity().companyId();
+            }
+
+            @Override
+            public String getCurrentCompanyName() {
+                return getCurrentIdentity().companyName();
+            }
+
+            @Override
+            public String getCurrentUserRole() {
+                return getCurrentIdentity().role();
+            }
+        }, companyLimiter, userLimiter);
+    }
+}
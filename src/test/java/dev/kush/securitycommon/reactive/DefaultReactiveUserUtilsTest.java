@@ -0,0 +1,101 @@
+package dev.kush.securitycommon.reactive;
+
+import dev.kush.securitycommon.common.Auth0UserIdentityExtractor;
+import dev.kush.securitycommon.common.AuthConstants;
+import dev.kush.securitycommon.common.UserIdentity;
+import dev.kush.securitycommon.common.UserIdentityAuthenticationToken;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DefaultReactiveUserUtilsTest {
+
+    private final AtomicInteger extractions = new AtomicInteger();
+
+    private final UserIdentityExtractor countingExtractor = claims -> {
+        extractions.incrementAndGet();
+        return new Auth0UserIdentityExtractor().extract(claims);
+    };
+
+    private final DefaultReactiveUserUtils userUtils = new DefaultReactiveUserUtils(countingExtractor);
+
+    @Test
+    void readsTheIdentityFromTheReactiveSecurityContext() {
+        Authentication authentication = new JwtAuthenticationToken(jwt(Map.of(
+                AuthConstants.AUTH0_EMAIL_CLAIM, "jane@acme.example",
+                AuthConstants.AUTH0_ROLE_CLAIM, List.of("admin", "billing"),
+                AuthConstants.AUTH0_APP_METADATA_CLAIM, Map.of(
+                        AuthConstants.AUTH0_USER_ID_CLAIM, 42,
+                        AuthConstants.AUTH0_COMPANY_ID_CLAIM, "7",
+                        AuthConstants.AUTH0_COMPANY_NAME_CLAIM, "Acme"))));
+
+        assertEquals("auth0|1", withAuthentication(userUtils.getCurrentUserSubjectId(), authentication));
+        assertEquals("jane@acme.example", withAuthentication(userUtils.getCurrentUserEmail(), authentication));
+        assertEquals(42L, withAuthentication(userUtils.getCurrentUserId(), authentication));
+        assertEquals(7L, withAuthentication(userUtils.getCurrentCompanyId(), authentication));
+        assertEquals("Acme", withAuthentication(userUtils.getCurrentCompanyName(), authentication));
+        assertEquals("admin", withAuthentication(userUtils.getCurrentUserRole(), authentication));
+        // memoized against the authentication
+        assertEquals(1, extractions.get());
+    }
+
+    @Test
+    void usesTheIdentityOfUserIdentityTokens() {
+        Jwt jwt = jwt(Map.of());
+        UserIdentity identity = new UserIdentity("auth0|1", "jane@acme.example", 42L, 7L, "Acme", "admin",
+                List.of("admin"));
+        Authentication token = new UserIdentityAuthenticationToken(jwt, List.of(), "auth0|1", identity);
+
+        assertSame(identity, withAuthentication(userUtils.getCurrentIdentity(), token));
+        assertEquals(0, extractions.get());
+    }
+
+    @Test
+    void completesEmptyWithoutAnAuthenticatedUser() {
+        assertNull(userUtils.getCurrentIdentity().block());
+        assertNull(userUtils.getCurrentUserId().block());
+        assertNull(userUtils.getCurrentCompanyName().block());
+
+        assertNull(userUtils.getCurrentUserId()
+                .contextWrite(ReactiveSecurityContextHolder.withSecurityContext(Mono.just(new SecurityContextImpl())))
+                .block());
+        assertNull(withAuthentication(userUtils.getCurrentUserId(),
+                new TestingAuthenticationToken("jane", "password")));
+        assertEquals(0, extractions.get());
+    }
+
+    @Test
+    void fallsBackToTheDefaultsForMissingClaims() {
+        Authentication authentication = new JwtAuthenticationToken(jwt(Map.of()));
+
+        assertEquals("auth0|1", withAuthentication(userUtils.getCurrentUserSubjectId(), authentication));
+        assertNull(withAuthentication(userUtils.getCurrentUserEmail(), authentication));
+        assertEquals(0L, withAuthentication(userUtils.getCurrentUserId(), authentication));
+        assertEquals(0L, withAuthentication(userUtils.getCurrentCompanyId(), authentication));
+        assertEquals("", withAuthentication(userUtils.getCurrentCompanyName(), authentication));
+        assertEquals("", withAuthentication(userUtils.getCurrentUserRole(), authentication));
+    }
+
+    private static <T> T withAuthentication(Mono<T> value, Authentication authentication) {
+        return value.contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)).block();
+    }
+
+    private static Jwt jwt(Map<String, Object> claims) {
+        return Jwt.withTokenValue("token").header("alg", "RS256").subject("auth0|1").claims(c -> c.putAll(claims))
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package dev.kush.securitycommon.reactive;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import dev.kush.securitycommon.common.UserIdentityExtractor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReactiveUserUtilsAutoConfigurationTest {
+
+    private static final JOSEObjectType AT_JWT = new JOSEObjectType("at+jwt");
+
+    private static RSAKey rsaKey;
+
+    private final ReactiveUserUtilsAutoConfiguration configuration = new ReactiveUserUtilsAutoConfiguration();
+
+    @BeforeAll
+    static void generateKey() throws Exception {
+        rsaKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+    }
+
+    @Test
+    void requiresTheAccessTokenTypeForAuth0() throws Exception {
+        for (String provider : new String[] {"auth0", "Auth0"}) {
+            ReactiveJwtDecoder decoder = decoder(provider);
+
+            assertEquals("auth0|1", decoder.decode(sign(AT_JWT)).block().getSubject(), provider);
+            assertThrows(BadJwtException.class, () -> decoder.decode(sign(JOSEObjectType.JWT)).block(), provider);
+            assertThrows(BadJwtException.class, () -> decoder.decode(sign(null)).block(), provider);
+        }
+    }
+
+    @Test
+    void keepsTheNimbusDefaultForOtherProviders() throws Exception {
+        for (String provider : new String[] {"keycloak", "okta"}) {
+            ReactiveJwtDecoder decoder = decoder(provider);
+
+            assertEquals("auth0|1", decoder.decode(sign(JOSEObjectType.JWT)).block().getSubject(), provider);
+            assertEquals("auth0|1", decoder.decode(sign(null)).block().getSubject(), provider);
+            assertThrows(BadJwtException.class, () -> decoder.decode(sign(AT_JWT)).block(), provider);
+        }
+    }
+
+    @Test
+    void registersTheDefaultReactiveUserUtils() {
+        assertInstanceOf(DefaultReactiveUserUtils.class,
+                configuration.reactiveUserUtils(UserIdentityExtractor.forProvider("keycloak")));
+    }
+
+    /**
+     * Builds the decoder Spring Boot builds from "jwk-set-uri", with the key set
+     * served by a stub exchange instead of the network.
+     */
+    private ReactiveJwtDecoder decoder(String identityProvider) {
+        String jwkSet = new JWKSet(rsaKey.toPublicJWK()).toString();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(jwkSet)
+                        .build()))
+                .build();
+        NimbusReactiveJwtDecoder.JwkSetUriReactiveJwtDecoderBuilder builder = NimbusReactiveJwtDecoder
+                .withJwkSetUri("https://idp.example.com/.well-known/jwks.json")
+                .webClient(webClient);
+        configuration.reactiveCustomizer(identityProvider).customize(builder);
+        return builder.build();
+    }
+
+    private static String sign(JOSEObjectType type) throws Exception {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).type(type).keyID(rsaKey.getKeyID()).build();
+        SignedJWT jwt = new SignedJWT(header, new JWTClaimsSet.Builder()
+                .subject("auth0|1")
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                .build());
+        jwt.sign(new RSASSASigner(rsaKey));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,123 @@
+package dev.kush.securitycommon.relay;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientCredentialsTokenProviderTest {
+
+    private static final String TOKEN_RESPONSE = "{\"access_token\":\"token-1\",\"expires_in\":300}";
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile Supplier<String> tokenEndpoint = () -> TOKEN_RESPONSE;
+
+    private final ClientCredentialsTokenProvider provider = new ClientCredentialsTokenProvider(
+            URI.create("https://idp.example.com/oauth/token"), "client", "secret", new RestTemplate() {
+        @Override
+        public <T> ResponseEntity<T> exchange(RequestEntity<?> request, Class<T> responseType) {
+            requests.incrementAndGet();
+            return ResponseEntity.ok(responseType.cast(tokenEndpoint.get()));
+        }
+    });
+
+    @AfterEach
+    void destroy() {
+        provider.destroy();
+    }
+
+    @Test
+    void cachesTheToken() {
+        assertEquals("token-1", provider.getToken());
+        assertEquals("token-1", provider.getToken());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void failedRequestsAreNotCached() {
+        tokenEndpoint = () -> {
+            throw new ResourceAccessException("connection refused");
+        };
+        IllegalStateException ex = assertThrows(IllegalStateException.class, provider::getToken);
+        assertInstanceOf(ResourceAccessException.class, ex.getCause());
+
+        tokenEndpoint = () -> TOKEN_RESPONSE;
+        assertEquals("token-1", provider.getToken());
+    }
+
+    @Test
+    void errorsCompleteCoalescedCallers() throws Exception {
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        tokenEndpoint = () -> {
+            requested.countDown();
+            await(release);
+            throw new StackOverflowError("token endpoint");
+        };
+
+        CompletableFuture<Throwable> first = CompletableFuture.supplyAsync(() -> thrownBy(provider::getToken));
+        assertTrue(requested.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Throwable> joined = CompletableFuture.supplyAsync(() -> thrownBy(provider::getToken));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertInstanceOf(StackOverflowError.class, first.get());
+            assertInstanceOf(StackOverflowError.class, joined.get());
+        });
+        assertEquals(1, requests.get());
+
+        tokenEndpoint = () -> TOKEN_RESPONSE;
+        assertEquals("token-1", provider.getToken());
+    }
+
+    @Test
+    void errorsCompleteBackgroundRequests() {
+        tokenEndpoint = () -> {
+            throw new StackOverflowError("token endpoint");
+        };
+        CompletableFuture<String> token = provider.getTokenAsync();
+
+        ExecutionException ex = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(ExecutionException.class, token::get));
+        assertInstanceOf(StackOverflowError.class, ex.getCause());
+
+        tokenEndpoint = () -> TOKEN_RESPONSE;
+        assertEquals("token-1", assertTimeoutPreemptively(Duration.ofSeconds(5), () -> provider.getTokenAsync().get()));
+    }
+
+    private static Throwable thrownBy(Runnable runnable) {
+        try {
+            runnable.run();
+            return null;
+        } catch (Throwable ex) {
+            return ex;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package dev.kush.securitycommon.relay;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenRelayClientHttpRequestInterceptorTest {
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+
+    private volatile boolean tokenEndpointUp = true;
+
+    private final ClientCredentialsTokenProvider clientCredentials = new ClientCredentialsTokenProvider(
+            URI.create("https://idp.example.com/oauth/token"), "client", "secret", new RestTemplate() {
+        @Override
+        public <T> ResponseEntity<T> exchange(RequestEntity<?> request, Class<T> responseType) {
+            tokenRequests.incrementAndGet();
+            if (!tokenEndpointUp) {
+                throw new ResourceAccessException("connection refused");
+            }
+            return ResponseEntity.ok(responseType.cast("{\"access_token\":\"service-token\",\"expires_in\":300}"));
+        }
+    });
+
+    private final AtomicReference<HttpRequest> sent = new AtomicReference<>();
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        clientCredentials.destroy();
+    }
+
+    @Test
+    void relaysTheBearerTokenOfTheCurrentRequest() throws IOException {
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt("user-token")));
+
+        send(new TokenRelayClientHttpRequestInterceptor(clientCredentials), "https://orders.internal/orders");
+
+        assertEquals("Bearer user-token", sent.get().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        assertEquals(0, tokenRequests.get());
+    }
+
+    @Test
+    void fallsBackToClientCredentialsOutsideOfARequest() throws IOException {
+        TokenRelayClientHttpRequestInterceptor interceptor = new TokenRelayClientHttpRequestInterceptor(
+                clientCredentials);
+
+        send(interceptor, "https://orders.internal/orders");
+        assertEquals("Bearer service-token", sent.get().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        send(interceptor, "https://orders.internal/orders");
+        assertEquals("Bearer service-token", sent.get().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        assertEquals(1, tokenRequests.get());
+
+        send(new TokenRelayClientHttpRequestInterceptor(null), "https://orders.internal/orders");
+        assertNull(sent.get().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+    }
+
+    @Test
+    void reportsAnUnavailableTokenEndpointAsAnIOException() {
+        tokenEndpointUp = false;
+        IOException ex = assertThrows(IOException.class, () -> send(
+                new TokenRelayClientHttpRequestInterceptor(clientCredentials), "https://orders.internal/orders"));
+        assertInstanceOf(ResourceAccessException.class, ex.getCause());
+        assertNull(sent.get());
+    }
+
+    @Test
+    void keepsAnExistingAuthorizationHeader() throws IOException {
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt("user-token")));
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET,
+                URI.create("https://orders.internal/orders"));
+        request.getHeaders().setBasicAuth("partner", "secret");
+
+        new TokenRelayClientHttpRequestInterceptor(clientCredentials).intercept(request, new byte[0],
+                (executed, body) -> {
+                    sent.set(executed);
+                    return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+                });
+
+        assertEquals(List.of("Basic cGFydG5lcjpzZWNyZXQ="), sent.get().getHeaders().get(HttpHeaders.AUTHORIZATION));
+        assertEquals(0, tokenRequests.get());
+    }
+
+    @Test
+    void sendsTokensToTheAllowedHostsOnly() throws IOException {
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt("user-token")));
+        TokenRelayClientHttpRequestInterceptor interceptor = new TokenRelayClientHttpRequestInterceptor(
+                clientCredentials, List.of(" Orders.Internal ", ""));
+
+        send(interceptor, "https://orders.internal/orders");
+        assertEquals("Bearer user-token", sent.get().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        send(interceptor, "https://ORDERS.internal:8443/orders");
+        assertEquals("Bearer user-token", sent.get().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+
+        send(interceptor, "https://api.partner.example.com/orders");
+        assertNull(sent.get().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        send(interceptor, "https://orders.internal.partner.example.com/orders");
+        assertNull(sent.get().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+
+        SecurityContextHolder.clearContext();
+        send(interceptor, "https://api.partner.example.com/orders");
+        assertNull(sent.get().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        assertEquals(0, tokenRequests.get());
+    }
+
+    private void send(TokenRelayClientHttpRequestInterceptor interceptor, String uri) throws IOException {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create(uri));
+        interceptor.intercept(request, new byte[0], (executed, body) -> {
+            sent.set(executed);
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        });
+    }
+
+    static Jwt jwt(String tokenValue) {
+        return Jwt.withTokenValue(tokenValue).header("alg", "RS256").subject("auth0|1").build();
+    }
+}
@@ -0,0 +1,137 @@
+package dev.kush.securitycommon.relay;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TokenRelayExchangeFilterFunctionTest {
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+
+    private final ClientCredentialsTokenProvider clientCredentials = new ClientCredentialsTokenProvider(
+            URI.create("https://idp.example.com/oauth/token"), "client", "secret", new RestTemplate() {
+        @Override
+        public <T> ResponseEntity<T> exchange(RequestEntity<?> request, Class<T> responseType) {
+            tokenRequests.incrementAndGet();
+            return ResponseEntity.ok(responseType.cast("{\"access_token\":\"service-token\",\"expires_in\":300}"));
+        }
+    });
+
+    private final AtomicReference<ClientRequest> sent = new AtomicReference<>();
+
+    private final ExchangeFunction exchange = request -> {
+        sent.set(request);
+        return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+    };
+
+    private final Authentication user = new JwtAuthenticationToken(
+            TokenRelayClientHttpRequestInterceptorTest.jwt("user-token"));
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        clientCredentials.destroy();
+    }
+
+    @Test
+    void relaysTheBearerTokenOfTheReactorContext() {
+        send(new TokenRelayExchangeFilterFunction(clientCredentials), request("https://orders.internal/orders"),
+                user);
+
+        assertEquals("Bearer user-token", authorization());
+        assertEquals(0, tokenRequests.get());
+    }
+
+    @Test
+    void relaysTheBearerTokenOfTheCallingThread() {
+        SecurityContextHolder.getContext().setAuthentication(user);
+
+        send(new TokenRelayExchangeFilterFunction(clientCredentials), request("https://orders.internal/orders"),
+                null);
+
+        assertEquals("Bearer user-token", authorization());
+        assertEquals(0, tokenRequests.get());
+    }
+
+    @Test
+    void fallsBackToClientCredentialsOutsideOfARequest() {
+        TokenRelayExchangeFilterFunction filter = new TokenRelayExchangeFilterFunction(clientCredentials);
+
+        send(filter, request("https://orders.internal/orders"), null);
+        assertEquals("Bearer service-token", authorization());
+        send(filter, request("https://orders.internal/orders"), null);
+        assertEquals("Bearer service-token", authorization());
+        assertEquals(1, tokenRequests.get());
+
+        send(new TokenRelayExchangeFilterFunction(null), request("https://orders.internal/orders"), null);
+        assertNull(authorization());
+    }
+
+    @Test
+    void keepsAnExistingAuthorizationHeader() {
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("https://orders.internal/orders"))
+                .headers(headers -> headers.setBasicAuth("partner", "secret"))
+                .build();
+
+        send(new TokenRelayExchangeFilterFunction(clientCredentials), request, user);
+
+        assertEquals(List.of("Basic cGFydG5lcjpzZWNyZXQ="), sent.get().headers().get(HttpHeaders.AUTHORIZATION));
+        assertEquals(0, tokenRequests.get());
+    }
+
+    @Test
+    void sendsTokensToTheAllowedHostsOnly() {
+        TokenRelayExchangeFilterFunction filter = new TokenRelayExchangeFilterFunction(clientCredentials,
+                List.of(" Orders.Internal "));
+
+        send(filter, request("https://orders.internal/orders"), user);
+        assertEquals("Bearer user-token", authorization());
+        send(filter, request("https://ORDERS.internal:8443/orders"), user);
+        assertEquals("Bearer user-token", authorization());
+
+        send(filter, request("https://api.partner.example.com/orders"), user);
+        assertNull(authorization());
+        send(filter, request("https://orders.internal.partner.example.com/orders"), user);
+        assertNull(authorization());
+        send(filter, request("https://api.partner.example.com/orders"), null);
+        assertNull(authorization());
+        assertEquals(0, tokenRequests.get());
+    }
+
+    private void send(TokenRelayExchangeFilterFunction filter, ClientRequest request, Authentication authentication) {
+        Mono<ClientResponse> response = filter.filter(request, exchange);
+        if (authentication != null) {
+            response = response.contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+        }
+        response.block();
+    }
+
+    private String authorization() {
+        return sent.get().headers().getFirst(HttpHeaders.AUTHORIZATION);
+    }
+
+    private static ClientRequest request(String uri) {
+        return ClientRequest.create(HttpMethod.GET, URI.create(uri)).build();
+    }
+}
@@ -0,0 +1,61 @@
+package dev.kush.securitycommon.revocation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void hasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("j:token-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("j:token-" + i), "token-" + i);
+        }
+        assertEquals(10_000, filter.getInsertionCount());
+    }
+
+    @Test
+    void keepsTheConfiguredFalsePositiveRate() {
+        double falsePositiveRate = 0.01;
+        BloomFilter filter = new BloomFilter(10_000, falsePositiveRate);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("j:revoked-" + i);
+        }
+
+        int falsePositives = 0;
+        int lookups = 200_000;
+        for (int i = 0; i < lookups; i++) {
+            if (filter.mightContain("j:valid-" + i)) {
+                falsePositives++;
+            }
+        }
+        double measured = (double) falsePositives / lookups;
+        assertTrue(measured > falsePositiveRate / 2 && measured < falsePositiveRate * 2, "measured " + measured);
+        double estimated = filter.getFalsePositiveRate();
+        assertTrue(estimated > falsePositiveRate / 2 && estimated < falsePositiveRate * 2, "estimated " + estimated);
+    }
+
+    @Test
+    void startsEmpty() {
+        BloomFilter filter = new BloomFilter(1_000, 0.001);
+
+        assertFalse(filter.mightContain("j:token"));
+        assertEquals(0.0, filter.getFalsePositiveRate());
+        assertTrue(filter.getMemoryBytes() >= filter.getBitSize() / 8);
+    }
+
+    @Test
+    void rejectsInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+}
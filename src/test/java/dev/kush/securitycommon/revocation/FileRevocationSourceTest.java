@@ -0,0 +1,102 @@
+package dev.kush.securitycommon.revocation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileRevocationSourceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void answersLookupsFromTheFetchedEntries() throws Exception {
+        Path file = write("revoked.txt", "# comment\njti:token-1\n  sub:user-1  \n\njti:\n");
+        FileRevocationSource source = new FileRevocationSource(file);
+        assertFalse(source.isTokenRevoked("token-1"));
+
+        RevocationUpdate update = source.fetch(null);
+        assertTrue(update.snapshot());
+        assertEquals(List.of("token-1"), update.tokenIds());
+        assertEquals(List.of("user-1"), update.subjects());
+
+        Files.delete(file);
+        assertTrue(source.isTokenRevoked("token-1"));
+        assertTrue(source.isSubjectDisabled("user-1"));
+        assertFalse(source.isTokenRevoked("user-1"));
+        assertFalse(source.isSubjectDisabled("token-1"));
+        assertFalse(source.isTokenRevoked(""));
+    }
+
+    @Test
+    void addsAppendedLinesOnceComplete() throws Exception {
+        Path file = write("revoked.txt", "jti:token-1\n");
+        FileRevocationSource source = new FileRevocationSource(file);
+        String cursor = source.fetch(null).cursor();
+
+        Files.writeString(file, "jti:token-2\nsub:user-", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        RevocationUpdate delta = source.fetch(cursor);
+        assertFalse(delta.snapshot());
+        assertEquals(List.of("token-2"), delta.tokenIds());
+        assertTrue(source.isTokenRevoked("token-1"));
+        assertTrue(source.isTokenRevoked("token-2"));
+        assertFalse(source.isSubjectDisabled("user-"));
+
+        Files.writeString(file, "1\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        RevocationUpdate next = source.fetch(delta.cursor());
+        assertEquals(List.of("user-1"), next.subjects());
+        assertTrue(source.isSubjectDisabled("user-1"));
+        assertEquals(RevocationUpdate.unchanged(next.cursor()), source.fetch(next.cursor()));
+    }
+
+    @Test
+    void replacedFileRemovesEntries() throws Exception {
+        Path file = write("revoked.txt", "jti:token-1\nsub:user-1\n");
+        FileRevocationSource source = new FileRevocationSource(file);
+        String cursor = source.fetch(null).cursor();
+
+        Path replacement = write("revoked.txt.tmp", "jti:token-2\n");
+        Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        RevocationUpdate update = source.fetch(cursor);
+        assertTrue(update.snapshot());
+        assertFalse(source.isTokenRevoked("token-1"));
+        assertFalse(source.isSubjectDisabled("user-1"));
+        assertTrue(source.isTokenRevoked("token-2"));
+
+        Files.delete(file);
+        assertTrue(source.fetch(update.cursor()).snapshot());
+        assertFalse(source.isTokenRevoked("token-2"));
+    }
+
+    @Test
+    void confirmsFilterMatchesOfTheChecker() throws Exception {
+        Path file = write("revoked.txt", "jti:token-1\nsub:user-1\n");
+        FileRevocationSource source = new FileRevocationSource(file);
+        RevocationChecker checker = new RevocationChecker(source, source);
+        checker.setRefreshInterval(Duration.ofHours(1));
+        checker.afterPropertiesSet();
+        try {
+            assertTrue(checker.isRevoked("token-1", "user-2"));
+            assertTrue(checker.isRevoked("token-2", "user-1"));
+            assertFalse(checker.isRevoked("token-2", "user-2"));
+            assertEquals(2, checker.getRevokedCount());
+        } finally {
+            checker.destroy();
+        }
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+    }
+}
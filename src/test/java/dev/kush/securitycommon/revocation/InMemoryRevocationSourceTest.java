@@ -0,0 +1,77 @@
+package dev.kush.securitycommon.revocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryRevocationSourceTest {
+
+    private final InMemoryRevocationSource source = new InMemoryRevocationSource();
+
+    @Test
+    void returnsDeltasSinceTheCursor() {
+        source.revokeToken("t-1");
+        RevocationUpdate first = source.fetch(null);
+        assertTrue(first.snapshot());
+        assertEquals(List.of("t-1"), List.copyOf(first.tokenIds()));
+
+        source.revokeToken("t-2");
+        source.revokeToken("t-1");
+        source.disableSubject("user-1");
+        RevocationUpdate delta = source.fetch(first.cursor());
+        assertFalse(delta.snapshot());
+        assertEquals(List.of("t-2"), List.copyOf(delta.tokenIds()));
+        assertEquals(List.of("user-1"), List.copyOf(delta.subjects()));
+
+        RevocationUpdate unchanged = source.fetch(delta.cursor());
+        assertFalse(unchanged.snapshot());
+        assertTrue(unchanged.tokenIds().isEmpty());
+        assertTrue(unchanged.subjects().isEmpty());
+        assertEquals(delta.cursor(), unchanged.cursor());
+    }
+
+    @Test
+    void invalidatesEarlierCursorsWhenASubjectIsEnabled() {
+        source.revokeToken("t-1");
+        source.disableSubject("user-1");
+        source.disableSubject("user-2");
+        String cursor = source.fetch(null).cursor();
+
+        source.enableSubject("user-1");
+        assertFalse(source.isSubjectDisabled("user-1"));
+        RevocationUpdate snapshot = source.fetch(cursor);
+        assertTrue(snapshot.snapshot());
+        assertEquals(List.of("t-1"), List.copyOf(snapshot.tokenIds()));
+        assertEquals(List.of("user-2"), List.copyOf(snapshot.subjects()));
+
+        // deltas resume from the cursor of the snapshot
+        source.disableSubject("user-1");
+        RevocationUpdate delta = source.fetch(snapshot.cursor());
+        assertFalse(delta.snapshot());
+        assertEquals(List.of("user-1"), List.copyOf(delta.subjects()));
+        assertEquals(Set.of("user-1", "user-2"), Set.copyOf(source.fetch(null).subjects()));
+    }
+
+    @Test
+    void keepsCursorsValidWhenEnablingAnUnknownSubject() {
+        source.disableSubject("user-1");
+        String cursor = source.fetch(null).cursor();
+
+        source.enableSubject("user-2");
+        assertFalse(source.fetch(cursor).snapshot());
+    }
+
+    @Test
+    void answersUnknownCursorsWithASnapshot() {
+        source.revokeToken("t-1");
+
+        for (String cursor : new String[] {"garbage", "1:2", "0:5:0", "x:0:0"}) {
+            assertTrue(source.fetch(cursor).snapshot(), cursor);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package dev.kush.securitycommon.revocation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevocationCheckerTest {
+
+    private final Deque<Object> updates = new ArrayDeque<>();
+
+    private final List<String> cursors = new ArrayList<>();
+
+    private final Set<String> revokedTokenIds = new HashSet<>();
+
+    private final Set<String> disabledSubjects = new HashSet<>();
+
+    private final RevocationSource source = cursor -> {
+        cursors.add(cursor);
+        Object next = updates.poll();
+        if (next instanceof IOException ex) {
+            throw ex;
+        }
+        return next != null ? (RevocationUpdate) next : RevocationUpdate.unchanged(cursor);
+    };
+
+    private final RevocationLookup lookup = new RevocationLookup() {
+        @Override
+        public boolean isTokenRevoked(String tokenId) {
+            return revokedTokenIds.contains(tokenId);
+        }
+
+        @Override
+        public boolean isSubjectDisabled(String subject) {
+            return disabledSubjects.contains(subject);
+        }
+    };
+
+    private final RevocationChecker checker = new RevocationChecker(source, lookup);
+
+    @AfterEach
+    void stopChecker() {
+        checker.destroy();
+    }
+
+    @Test
+    void loadsTheRevocationsOnStart() {
+        snapshot("1", List.of("t-1"), List.of("user-1"));
+        start();
+
+        assertTrue(checker.isRevoked("t-1", "user-2"));
+        assertTrue(checker.isRevoked("t-2", "user-1"));
+        assertFalse(checker.isRevoked("t-2", "user-2"));
+        assertFalse(checker.isRevoked(null, null));
+        assertEquals(4, checker.getCheckCount());
+        assertEquals(2, checker.getRevokedCount());
+        assertEquals(0, checker.getFalsePositiveCount());
+    }
+
+    @Test
+    void rebuildsTheFilterOnSnapshotsAndAddsDeltas() {
+        snapshot("1", List.of("t-1", "t-2"), List.of());
+        start();
+        assertTrue(checker.isRevoked("t-1", null));
+
+        // t-1 is removed by a snapshot, t-3 added by a delta on top of it
+        snapshot("2", List.of("t-2"), List.of());
+        updates.add(new RevocationUpdate("3", false, List.of("t-3"), List.of("user-3")));
+        revokedTokenIds.remove("t-1");
+        revokedTokenIds.add("t-3");
+        disabledSubjects.add("user-3");
+        checker.refresh();
+        checker.refresh();
+
+        long matches = checker.getFilterMatchCount();
+        assertFalse(checker.isRevoked("t-1", null));
+        assertEquals(matches, checker.getFilterMatchCount());
+        assertTrue(checker.isRevoked("t-2", null));
+        assertTrue(checker.isRevoked("t-3", null));
+        assertTrue(checker.isRevoked(null, "user-3"));
+        assertEquals(List.of("1", "2"), cursors.subList(1, 3));
+    }
+
+    @Test
+    void keepsTheCurrentFilterWhenARefreshFails() {
+        snapshot("1", List.of("t-1"), List.of());
+        start();
+
+        updates.add(new IOException("source unavailable"));
+        checker.refresh();
+        assertTrue(checker.isRevoked("t-1", null));
+
+        // the failed refresh did not advance the cursor
+        checker.refresh();
+        assertEquals("1", cursors.get(2));
+    }
+
+    @Test
+    void retriesAFailedInitialLoad() {
+        updates.add(new IOException("source unavailable"));
+        start();
+        assertFalse(checker.isRevoked("t-1", null));
+
+        snapshot("1", List.of("t-1"), List.of());
+        checker.refresh();
+        assertNull(cursors.get(1));
+        assertTrue(checker.isRevoked("t-1", null));
+    }
+
+    @Test
+    void countsFilterMatchesTheLookupDoesNotConfirm() {
+        snapshot("1", List.of("t-1"), List.of("user-1"));
+        start();
+        // the lookup no longer knows the entries, as for a filter false positive
+        revokedTokenIds.clear();
+        disabledSubjects.clear();
+
+        assertFalse(checker.isRevoked("t-1", "user-1"));
+        assertEquals(2, checker.getFilterMatchCount());
+        assertEquals(2, checker.getFalsePositiveCount());
+        assertEquals(0, checker.getRevokedCount());
+    }
+
+    private void start() {
+        checker.setRefreshInterval(Duration.ofHours(1));
+        checker.afterPropertiesSet();
+    }
+
+    private void snapshot(String cursor, List<String> tokenIds, List<String> subjects) {
+        updates.add(new RevocationUpdate(cursor, true, tokenIds, subjects));
+        revokedTokenIds.addAll(tokenIds);
+        disabledSubjects.addAll(subjects);
+    }
+}
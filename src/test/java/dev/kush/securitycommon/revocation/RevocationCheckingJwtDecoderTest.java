@@ -0,0 +1,74 @@
+package dev.kush.securitycommon.revocation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RevocationCheckingJwtDecoderTest {
+
+    private final InMemoryRevocationSource revocations = new InMemoryRevocationSource();
+
+    private final JwtDecoder delegate = token -> Jwt.withTokenValue(token).header("alg", "RS256")
+            .jti(token).subject("user-" + token).build();
+
+    private RevocationChecker checker;
+
+    @AfterEach
+    void stopChecker() {
+        checker.destroy();
+    }
+
+    @Test
+    void rejectsRevokedTokensAsInvalid() {
+        revocations.revokeToken("t-1");
+        revocations.disableSubject("user-t-2");
+        JwtDecoder decoder = new RevocationCheckingJwtDecoder(delegate, start(revocations));
+
+        assertEquals("t-3", decoder.decode("t-3").getId());
+        for (String token : new String[] {"t-1", "t-2"}) {
+            JwtValidationException ex = assertThrows(JwtValidationException.class, () -> decoder.decode(token));
+            assertEquals(OAuth2ErrorCodes.INVALID_TOKEN, ex.getErrors().iterator().next().getErrorCode());
+        }
+    }
+
+    @Test
+    void failsTheDecodeWhenTheLookupFails() {
+        revocations.revokeToken("t-1");
+        RevocationLookup failing = new RevocationLookup() {
+            @Override
+            public boolean isTokenRevoked(String tokenId) {
+                throw new IllegalStateException("database unavailable");
+            }
+
+            @Override
+            public boolean isSubjectDisabled(String subject) {
+                throw new IllegalStateException("database unavailable");
+            }
+        };
+        JwtDecoder decoder = new RevocationCheckingJwtDecoder(delegate, start(failing));
+
+        JwtException ex = assertThrows(JwtException.class, () -> decoder.decode("t-1"));
+        assertFalse(ex instanceof JwtValidationException);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+        // tokens the filter rules out never reach the lookup
+        assertEquals("t-3", decoder.decode("t-3").getId());
+    }
+
+    private RevocationChecker start(RevocationLookup lookup) {
+        checker = new RevocationChecker(revocations, lookup);
+        checker.setRefreshInterval(Duration.ofHours(1));
+        checker.afterPropertiesSet();
+        return checker;
+    }
+}
@@ -0,0 +1,68 @@
+package dev.kush.securitycommon.warmup;
+
+import dev.kush.securitycommon.common.CachingGrantedAuthoritiesConverter;
+import dev.kush.securitycommon.common.ClaimMapping;
+import dev.kush.securitycommon.common.ClaimMappingUserIdentityExtractor;
+import dev.kush.securitycommon.common.DefaultUserUtils;
+import dev.kush.securitycommon.common.UserIdentityAuthenticationConverter;
+import dev.kush.securitycommon.common.UserUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SecurityWarmupAutoConfigurationTest {
+
+    private final SecurityWarmupAutoConfiguration configuration = new SecurityWarmupAutoConfiguration();
+
+    @Test
+    void rejectsAnUnknownProviderWithoutClaimPaths() {
+        DefaultListableBeanFactory beanFactory = beanFactory(1);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> securityWarmup("okta", new MockEnvironment(), beanFactory));
+        assertEquals("identity.provider 'okta' does not match any of [auth0, keycloak]; configure its claim paths"
+                + " with the identity.claims.* properties", ex.getMessage());
+
+        assertDoesNotThrow(() -> securityWarmup("okta",
+                new MockEnvironment().withProperty("identity.claims.company-id", "org.id"), beanFactory));
+        assertDoesNotThrow(() -> securityWarmup(" Keycloak ", new MockEnvironment(), beanFactory));
+    }
+
+    @Test
+    void requiresExactlyOneUserUtilsBean() {
+        IllegalStateException none = assertThrows(IllegalStateException.class,
+                () -> securityWarmup("auth0", new MockEnvironment(), beanFactory(0)));
+        assertEquals("Expected a single UserUtils bean for identity.provider 'auth0', found 0", none.getMessage());
+
+        IllegalStateException several = assertThrows(IllegalStateException.class,
+                () -> securityWarmup("auth0", new MockEnvironment(), beanFactory(2)));
+        assertEquals("Expected a single UserUtils bean for identity.provider 'auth0', found 2", several.getMessage());
+
+        assertDoesNotThrow(() -> securityWarmup("auth0", new MockEnvironment(), beanFactory(1)));
+    }
+
+    private SecurityWarmup securityWarmup(String identityProvider, Environment environment,
+                                          DefaultListableBeanFactory beanFactory) {
+        ClaimMapping mapping = ClaimMapping.forProvider(identityProvider.trim());
+        return configuration.securityWarmup(identityProvider, environment, mapping,
+                new ClaimMappingUserIdentityExtractor(mapping), new JwtAuthenticationConverter(),
+                beanFactory.getBeanProvider(UserIdentityAuthenticationConverter.class),
+                beanFactory.getBeanProvider(UserUtils.class), new String[] {"RS256"}, "", new String[0], 1,
+                beanFactory.getBeanProvider(CachingGrantedAuthoritiesConverter.class), beanFactory);
+    }
+
+    private static DefaultListableBeanFactory beanFactory(int userUtilsBeans) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        for (int i = 0; i < userUtilsBeans; i++) {
+            beanFactory.registerSingleton("userUtils" + i,
+                    new DefaultUserUtils(new ClaimMappingUserIdentityExtractor(ClaimMapping.auth0())));
+        }
+        return beanFactory;
+    }
+}
@@ -0,0 +1,88 @@
+package dev.kush.securitycommon.warmup;
+
+import dev.kush.securitycommon.common.CachingGrantedAuthoritiesConverter;
+import dev.kush.securitycommon.common.ClaimMapping;
+import dev.kush.securitycommon.common.ClaimMappingUserIdentityExtractor;
+import dev.kush.securitycommon.common.DefaultUserUtils;
+import dev.kush.securitycommon.common.UserIdentityAuthenticationConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecurityWarmupTest {
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void warmsUpTheProviderPresets() {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new TestingAuthenticationToken("jane", "password"));
+        SecurityContextHolder.setContext(context);
+
+        for (String provider : new String[] {"auth0", "keycloak"}) {
+            ClaimMapping mapping = ClaimMapping.forProvider(provider);
+            SecurityWarmup warmup = warmup(provider, mapping, authorities(mapping));
+            warmup.setIssuerUri("https://idp.example.com/");
+            warmup.setAudiences(List.of("api"));
+
+            assertDoesNotThrow(warmup::warmUp, provider);
+            assertSame(context, SecurityContextHolder.getContext(), provider);
+        }
+    }
+
+    @Test
+    void failsWhenAClaimPathDoesNotReadBack() {
+        // the company name is written over the email
+        ClaimMapping overlapping = ClaimMapping.keycloak().withPaths(Map.of("company-name", "email"));
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> warmup("keycloak", overlapping, authorities(overlapping)).warmUp());
+        assertTrue(ex.getMessage().contains("the email claim at '[\"email\"]' read back as 'security-warmup'"),
+                ex.getMessage());
+
+        // the company ID cannot be nested under the user ID
+        ClaimMapping nested = ClaimMapping.keycloak().withPaths(Map.of("user-id", "details"));
+        assertThrows(IllegalStateException.class, () -> warmup("keycloak", nested, authorities(nested)).warmUp());
+    }
+
+    @Test
+    void failsWhenTheRolesMapToNoAuthority() {
+        ClaimMapping mapping = ClaimMapping.keycloak();
+        // the Spring Security default reads "scope" and "scp", not the mapped roles
+        SecurityWarmup warmup = new SecurityWarmup("keycloak", mapping, new ClaimMappingUserIdentityExtractor(mapping),
+                new JwtAuthenticationConverter(), null, new DefaultUserUtils(
+                        new ClaimMappingUserIdentityExtractor(mapping)));
+        warmup.setIterations(1);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, warmup::warmUp);
+        assertTrue(ex.getMessage().contains("were not mapped to any authority"), ex.getMessage());
+    }
+
+    private static SecurityWarmup warmup(String provider, ClaimMapping mapping,
+                                         CachingGrantedAuthoritiesConverter authorities) {
+        ClaimMappingUserIdentityExtractor extractor = new ClaimMappingUserIdentityExtractor(mapping);
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authorities);
+        SecurityWarmup warmup = new SecurityWarmup(provider, mapping, extractor, converter,
+                new UserIdentityAuthenticationConverter(extractor, authorities), new DefaultUserUtils(extractor));
+        warmup.setIterations(3);
+        return warmup;
+    }
+
+    private static CachingGrantedAuthoritiesConverter authorities(ClaimMapping mapping) {
+        return new CachingGrantedAuthoritiesConverter(mapping.roles(), "ROLE_", List.of());
+    }
+}